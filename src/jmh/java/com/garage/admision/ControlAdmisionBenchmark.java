@@ -0,0 +1,133 @@
+package com.garage.admision;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 200 clientes contra una base de datos lenta, con y sin
+ * {@link LimiteAdaptativo} delante.
+ *
+ * La base de datos se modela con un pool de {@code conexiones} y un servidor
+ * que atiende bien {@code capacidadBD} consultas a la vez: cada consulta
+ * tarda {@code milisBD} ms multiplicado por las consultas en curso sobre la
+ * capacidad, así que de más conexiones activas no sale más throughput, sólo
+ * más latencia (como MySQL con el disco o la CPU saturados).
+ *
+ * - sinControl: cada solicitud espera su conexión, como hoy.
+ * - conControl: pasa antes por el límite adaptativo; si se rechaza, el
+ * cliente respeta un Retry-After breve ({@code esperaRechazoMs}) antes de su
+ * siguiente solicitud.
+ *
+ * "exitosas" es el throughput de solicitudes atendidas y "rechazadas" el de
+ * 503. La latencia de SampleTime mezcla ambas (un rechazo cuenta la espera
+ * del cliente antes de reintentar). Al terminar se imprime el estado del
+ * límite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(200)
+@Fork(1)
+public class ControlAdmisionBenchmark {
+
+    @Param({"sinControl", "conControl"})
+    private String modo;
+
+    @Param({"2"})
+    private int milisBD;
+
+    @Param({"8"})
+    private int capacidadBD;
+
+    @Param({"32"})
+    private int conexiones;
+
+    @Param({"5"})
+    private int esperaRechazoMs;
+
+    private Semaphore pool;
+    private final AtomicInteger enBD = new AtomicInteger();
+    private LimiteAdaptativo limite;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        pool = new Semaphore(conexiones, true);
+        if ("conControl".equals(modo)) {
+            // Objetivo: 2,5 veces la consulta sin carga; espera y cola cortas
+            limite = new LimiteAdaptativo(20, 1, 200, 50, 5, milisBD * 5L / 2);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        if (limite != null) {
+            System.out.printf("%nlímite: %s%n", limite.estadisticas());
+        }
+    }
+
+    /**
+     * Contadores por hilo que JMH informa como throughput adicional.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Resultados {
+
+        public long exitosas;
+        public long rechazadas;
+    }
+
+    @Benchmark
+    public void solicitud(Resultados resultados) throws InterruptedException {
+        if (limite == null) {
+            consultar();
+            resultados.exitosas++;
+            return;
+        }
+        if (!limite.adquirir()) {
+            resultados.rechazadas++;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(esperaRechazoMs));
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            consultar();
+            resultados.exitosas++;
+        } finally {
+            limite.liberar(System.nanoTime() - inicio, false);
+        }
+    }
+
+    private void consultar() throws InterruptedException {
+        pool.acquire();
+        try {
+            int activas = enBD.incrementAndGet();
+            try {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(milisBD) * Math.max(capacidadBD, activas) / capacidadBD;
+                LockSupport.parkNanos(nanos);
+            } finally {
+                enBD.decrementAndGet();
+            }
+        } finally {
+            pool.release();
+        }
+    }
+}
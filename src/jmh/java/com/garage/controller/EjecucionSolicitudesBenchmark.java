@@ -0,0 +1,101 @@
+package com.garage.controller;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Modelo de {@link VehiculoServlet} con muchos clientes concurrentes: cada
+ * solicitud ocupa una conexión de un pool de {@code conexiones} y espera
+ * {@code milisBD} ms a la base de datos, como una consulta a MySQL por red.
+ *
+ * - contenedor: modo sincrono; el límite es el pool de hilos HTTP del
+ * servidor ({@code hilosContenedor}), que se agota antes que las conexiones.
+ * - pool: modo pool con el tamaño por defecto de garage.servlet.hilos.
+ * - virtual: modo virtual (requiere JDK 21; en JDK 17 el benchmark falla al
+ * preparar).
+ *
+ * Throughput en solicitudes por ms y percentiles de latencia con SampleTime
+ * (ver p0.99). Con Threads(200) hay 200 clientes a la vez.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(200)
+@Fork(1)
+public class EjecucionSolicitudesBenchmark {
+
+    @Param({"contenedor", "pool", "virtual"})
+    private String modo;
+
+    @Param({"2"})
+    private int milisBD;
+
+    @Param({"16"})
+    private int hilosContenedor;
+
+    @Param({"32"})
+    private int conexiones;
+
+    private ExecutorService ejecutor;
+    private Semaphore pool;
+
+    @Setup
+    public void preparar() {
+        switch (modo) {
+            case "contenedor":
+                ejecutor = EjecutorSolicitudes.poolAcotado(hilosContenedor, 10000, EjecucionSolicitudesBenchmark::hiloDemonio);
+                break;
+            case "pool":
+                ejecutor = EjecutorSolicitudes.poolAcotado(64, 10000, EjecucionSolicitudesBenchmark::hiloDemonio);
+                break;
+            default:
+                ejecutor = EjecutorSolicitudes.hilosVirtuales();
+                if (ejecutor == null) {
+                    throw new IllegalStateException("Esta JVM no tiene hilos virtuales");
+                }
+                break;
+        }
+        pool = new Semaphore(conexiones, true);
+    }
+
+    @TearDown
+    public void terminar() {
+        ejecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Object solicitud() throws Exception {
+        return ejecutor.submit(() -> {
+            pool.acquire();
+            try {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(milisBD));
+            } finally {
+                pool.release();
+            }
+            return null;
+        }).get();
+    }
+
+    private static Thread hiloDemonio(Runnable tarea) {
+        Thread hilo = new Thread(tarea, "garage-solicitud");
+        hilo.setDaemon(true);
+        return hilo;
+    }
+}
@@ -0,0 +1,185 @@
+package com.garage.facade;
+
+import com.garage.model.Vehiculo;
+import com.garage.persistence.VehiculoDAO;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Altas concurrentes con un INSERT y un commit por alta (como
+ * {@link VehiculoFacade#agregar} sin agrupar) frente a {@link AgrupadorAltas}.
+ *
+ * H2 en memoria no escribe a disco, así que el costo del commit se modela:
+ * cada commit (explícito o el implícito de autocommit) espera
+ * {@code latenciaCommitUs} microsegundos, como el fsync del log de MySQL, y a
+ * lo sumo {@code commitsSimultaneos} commits esperan a la vez (1 = un solo
+ * disco que sincroniza de a un commit; 32 = sin contención). Con Threads(32)
+ * hay 32 terminales registrando a la vez sobre un pool de 32 conexiones.
+ *
+ * - individual: un INSERT con autocommit por alta.
+ * - agrupado: {@link AgrupadorAltas} con espera de {@code esperaMs}.
+ * - agrupadoSinEspera: igual con espera 0 (sólo junta lo que ya está en
+ * cola mientras se escribe el lote anterior).
+ *
+ * Throughput en altas por ms y latencia por alta con SampleTime (ver p0.99).
+ * H2 corre sin modo MySQL: con MODE=MySQL y muchas sesiones insertando a la
+ * vez repite valores de AUTO_INCREMENT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class AltasAgrupadasBenchmark {
+
+    @Param({"individual", "agrupado", "agrupadoSinEspera"})
+    private String modo;
+
+    @Param({"1000"})
+    private int latenciaCommitUs;
+
+    @Param({"1", "32"})
+    private int commitsSimultaneos;
+
+    @Param({"1"})
+    private double esperaMs;
+
+    @Param({"64"})
+    private int maxLote;
+
+    private JdbcConnectionPool pool;
+    private DataSource ds;
+    private AgrupadorAltas agrupador;
+    private final AtomicLong placas = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        pool = JdbcConnectionPool.create("jdbc:h2:mem:altas;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        pool.setMaxConnections(32);
+        try (Connection con = pool.getConnection(); Statement st = con.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS vehiculos");
+            st.execute("CREATE TABLE vehiculos ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "placa VARCHAR(20) NOT NULL UNIQUE, "
+                    + "marca VARCHAR(50), modelo VARCHAR(10), color VARCHAR(20), "
+                    + "propietario VARCHAR(100))");
+        }
+        ds = conLatenciaDeCommit(pool, latenciaCommitUs * 1000L, new Semaphore(commitsSimultaneos));
+        if (!"individual".equals(modo)) {
+            agrupador = new AgrupadorAltas(ds, "agrupado".equals(modo) ? esperaMs : 0, maxLote, 1, null,
+                    tarea -> {
+                        Thread hilo = new Thread(tarea, "garage-altas");
+                        hilo.setDaemon(true);
+                        return hilo;
+                    });
+            agrupador.iniciar();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        if (agrupador != null) {
+            System.out.printf("%nfilas por lote: %.1f%n", agrupador.getFilasPorLote());
+            agrupador.detener();
+        }
+        pool.dispose();
+    }
+
+    @Benchmark
+    public int agregar() throws SQLException {
+        Vehiculo v = new Vehiculo("B" + placas.incrementAndGet(), "Toyota", "2020", "ROJO", "Propietario");
+        if (agrupador != null) {
+            agrupador.agregar(v);
+        } else {
+            try (Connection con = ds.getConnection()) {
+                new VehiculoDAO(con).agregar(v);
+            }
+        }
+        return v.getId();
+    }
+
+    /**
+     * Envuelve el pool para que cada commit espere el tiempo indicado, con
+     * a lo sumo tantos commits a la vez como permisos tenga el semáforo.
+     */
+    private static DataSource conLatenciaDeCommit(DataSource ds, long nanos, Semaphore disco) {
+        return (DataSource) Proxy.newProxyInstance(AltasAgrupadasBenchmark.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, metodo, args) -> {
+                    Object resultado = invocar(ds, metodo, args);
+                    return "getConnection".equals(metodo.getName())
+                            ? conexion((Connection) resultado, nanos, disco) : resultado;
+                });
+    }
+
+    private static Connection conexion(Connection con, long nanos, Semaphore disco) {
+        return (Connection) Proxy.newProxyInstance(AltasAgrupadasBenchmark.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, metodo, args) -> {
+                    Object resultado = invocar(con, metodo, args);
+                    if ("commit".equals(metodo.getName())) {
+                        sincronizar(disco, nanos);
+                    } else if ("prepareStatement".equals(metodo.getName())) {
+                        return sentencia((PreparedStatement) resultado, con, nanos, disco);
+                    }
+                    return resultado;
+                });
+    }
+
+    private static PreparedStatement sentencia(PreparedStatement ps, Connection con, long nanos,
+            Semaphore disco) {
+        InvocationHandler manejador = (proxy, metodo, args) -> {
+            Object resultado = invocar(ps, metodo, args);
+            String nombre = metodo.getName();
+            if ((nombre.equals("executeUpdate") || nombre.equals("executeBatch")) && con.getAutoCommit()) {
+                sincronizar(disco, nanos);
+            }
+            return resultado;
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(AltasAgrupadasBenchmark.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, manejador);
+    }
+
+    private static void sincronizar(Semaphore disco, long nanos) {
+        disco.acquireUninterruptibly();
+        try {
+            LockSupport.parkNanos(nanos);
+        } finally {
+            disco.release();
+        }
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.garage.facade;
+
+import com.garage.model.CoincidenciaPlaca;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsqueda de placas por fragmento y aproximada en el índice de trigramas,
+ * frente al recorrido lineal con contains que reemplaza.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BusquedaPlacasBenchmark {
+
+    @Param({"10000", "100000"})
+    private int placas;
+
+    private IndiceTrigramas indice;
+    private Map<Integer, String> todas;
+    private String fragmento;
+    private String conError;
+
+    @Setup
+    public void preparar() {
+        Random azar = new Random(42);
+        todas = new HashMap<>();
+        for (int id = 1; id <= placas; id++) {
+            StringBuilder placa = new StringBuilder(6);
+            for (int i = 0; i < 3; i++) {
+                placa.append((char) ('A' + azar.nextInt(26)));
+            }
+            placa.append(100 + azar.nextInt(900));
+            todas.put(id, placa.toString());
+        }
+        indice = new IndiceTrigramas();
+        indice.cargar(todas);
+        String muestra = todas.get(placas / 2);
+        fragmento = muestra.substring(1, 4);
+        // Cambia una letra: placa completa con error de tipeo
+        conError = muestra.charAt(0) + (muestra.charAt(1) == 'Z' ? "A" : "Z") + muestra.substring(2);
+    }
+
+    @Benchmark
+    public List<CoincidenciaPlaca> fragmento() {
+        return indice.buscar(fragmento, 20, false, 0.3);
+    }
+
+    @Benchmark
+    public List<CoincidenciaPlaca> aproximada() {
+        return indice.buscar(conError, 20, true, 0.3);
+    }
+
+    /**
+     * Lo que costaría el mismo fragmento sin índice (equivalente en memoria
+     * de LIKE '%...%').
+     */
+    @Benchmark
+    public int recorridoLineal() {
+        int encontradas = 0;
+        for (String placa : todas.values()) {
+            if (placa.contains(fragmento)) {
+                encontradas++;
+            }
+        }
+        return encontradas;
+    }
+}
@@ -0,0 +1,87 @@
+package com.garage.facade;
+
+import com.garage.model.Vehiculo;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Validaciones que corren en cada escritura (y por cada fila en la
+ * importación masiva): detección de SQL Injection, reglas de negocio con el
+ * año del modelo y construcción del Vehiculo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidacionBenchmark {
+
+    /**
+     * Largo aproximado de cada campo; valores largos muestran cómo escala el
+     * recorrido del texto.
+     */
+    @Param({"8", "64"})
+    private int largo;
+
+    private Vehiculo valido;
+    private Vehiculo peligroso;
+
+    @Setup
+    public void preparar() {
+        valido = new Vehiculo(relleno("ABC123", largo), relleno("Toyota", largo),
+                "2022", "ROJO", relleno("Juan Pérez", largo));
+        peligroso = new Vehiculo(relleno("ABC123", largo), relleno("Toyota", largo),
+                "2022", "ROJO", relleno("Juan", largo) + "' or '1'='1");
+    }
+
+    @Benchmark
+    public void sqlInjectionValido() {
+        ValidadorVehiculo.validarSQLInjection(valido);
+    }
+
+    /**
+     * Sólo la detección; el rechazo completo además crea la excepción con el
+     * mensaje.
+     */
+    @Benchmark
+    public String patronEncontrado() {
+        return ValidadorVehiculo.patronPeligroso(peligroso.getPropietario());
+    }
+
+    @Benchmark
+    public void datosVehiculo() {
+        ValidadorVehiculo.validarDatosVehiculo(valido);
+    }
+
+    @Benchmark
+    public void validacionCompleta() {
+        ValidadorVehiculo.validarSQLInjection(valido);
+        ValidadorVehiculo.validarDatosVehiculo(valido);
+    }
+
+    @Benchmark
+    public void construirVehiculo(Blackhole bh) {
+        bh.consume(new Vehiculo(valido.getPlaca(), valido.getMarca(), valido.getModelo(),
+                valido.getColor(), valido.getPropietario()));
+    }
+
+    private static String relleno(String base, int largo) {
+        StringBuilder sb = new StringBuilder(base);
+        while (sb.length() < largo) {
+            sb.append(" ").append(base);
+        }
+        return sb.toString();
+    }
+}
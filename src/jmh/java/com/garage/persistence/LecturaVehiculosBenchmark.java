@@ -0,0 +1,100 @@
+package com.garage.persistence;
+
+import com.garage.model.Pagina;
+import com.garage.model.Vehiculo;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lecturas del DAO (consulta + mapeo de filas del ResultSet a Vehiculo)
+ * contra una base H2 en memoria en modo MySQL, para aislar el costo del lado
+ * Java sin red de por medio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LecturaVehiculosBenchmark {
+
+    @Param({"1000"})
+    private int filas;
+
+    @Param({"25", "200"})
+    private int tamanoPagina;
+
+    private Connection con;
+    private VehiculoDAO dao;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        con = DriverManager.getConnection("jdbc:h2:mem:garage;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement st = con.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS vehiculos");
+            st.execute("CREATE TABLE vehiculos ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "placa VARCHAR(20) NOT NULL UNIQUE, "
+                    + "marca VARCHAR(50), modelo VARCHAR(10), color VARCHAR(20), "
+                    + "propietario VARCHAR(100))");
+        }
+        try (PreparedStatement ps = con.prepareStatement(
+                "INSERT INTO vehiculos (placa, marca, modelo, color, propietario) VALUES (?, ?, ?, ?, ?)")) {
+            String[] colores = {"ROJO", "BLANCO", "NEGRO", "AZUL", "GRIS"};
+            for (int i = 0; i < filas; i++) {
+                ps.setString(1, String.format("PLC%05d", i));
+                ps.setString(2, "Marca" + (i % 40));
+                ps.setString(3, String.valueOf(2010 + i % 15));
+                ps.setString(4, colores[i % colores.length]);
+                ps.setString(5, "Propietario " + i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        dao = new VehiculoDAO(con);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        con.close();
+    }
+
+    @Benchmark
+    public List<Vehiculo> listarTodo() throws SQLException {
+        return dao.listar();
+    }
+
+    @Benchmark
+    public Pagina<Vehiculo> primeraPaginaPorId() throws SQLException {
+        return dao.listarPagina(OrdenVehiculo.ID, false, null, tamanoPagina);
+    }
+
+    @Benchmark
+    public Pagina<Vehiculo> primeraPaginaPorMarca() throws SQLException {
+        return dao.listarPagina(OrdenVehiculo.MARCA, false, null, tamanoPagina);
+    }
+
+    @Benchmark
+    public Vehiculo buscarPorId() throws SQLException {
+        return dao.buscarPorId(1 + ThreadLocalRandom.current().nextInt(filas));
+    }
+}
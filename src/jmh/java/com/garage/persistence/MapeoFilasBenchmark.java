@@ -0,0 +1,123 @@
+package com.garage.persistence;
+
+import com.garage.model.Vehiculo;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Costo por fila de convertir un ResultSet en Vehiculo: lectura por nombre
+ * de columna sobre SELECT * (como lo hacía el DAO) frente a lectura por
+ * posición con {@link MapeadorVehiculo}, con todas las columnas o con una
+ * proyección reducida.
+ *
+ * Cada variante recorre un ResultSet desplazable ya ejecutado, así la
+ * consulta no entra en la medición. Los resultados son por fila.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(MapeoFilasBenchmark.FILAS)
+public class MapeoFilasBenchmark {
+
+    static final int FILAS = 1000;
+
+    private Connection con;
+    private ResultSet todas;
+    private ResultSet explicitas;
+    private ResultSet identificacion;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        con = DriverManager.getConnection("jdbc:h2:mem:mapeo;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement st = con.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS vehiculos");
+            st.execute("CREATE TABLE vehiculos ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "placa VARCHAR(20) NOT NULL UNIQUE, "
+                    + "marca VARCHAR(50), modelo VARCHAR(10), color VARCHAR(20), "
+                    + "propietario VARCHAR(100))");
+        }
+        try (PreparedStatement ps = con.prepareStatement(
+                "INSERT INTO vehiculos (placa, marca, modelo, color, propietario) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < FILAS; i++) {
+                ps.setString(1, String.format("PLC%05d", i));
+                ps.setString(2, "Marca" + (i % 40));
+                ps.setString(3, String.valueOf(2010 + i % 15));
+                ps.setString(4, "ROJO");
+                ps.setString(5, "Propietario " + i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        todas = desplazable("SELECT * FROM vehiculos");
+        explicitas = desplazable("SELECT " + ProyeccionVehiculo.COMPLETA.getListaSql() + " FROM vehiculos");
+        identificacion = desplazable("SELECT " + ProyeccionVehiculo.IDENTIFICACION.getListaSql() + " FROM vehiculos");
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        con.close();
+    }
+
+    /**
+     * Forma anterior: SELECT * y getXxx("columna") en cada fila.
+     */
+    @Benchmark
+    public void porNombre(Blackhole bh) throws SQLException {
+        ResultSet rs = todas;
+        rs.beforeFirst();
+        while (rs.next()) {
+            bh.consume(new Vehiculo(
+                    rs.getInt("id"),
+                    rs.getString("placa"),
+                    rs.getString("marca"),
+                    rs.getString("modelo"),
+                    rs.getString("color"),
+                    rs.getString("propietario")));
+        }
+    }
+
+    @Benchmark
+    public void porPosicion(Blackhole bh) throws SQLException {
+        recorrer(explicitas, ProyeccionVehiculo.COMPLETA.getMapeador(), bh);
+    }
+
+    @Benchmark
+    public void proyeccionIdentificacion(Blackhole bh) throws SQLException {
+        recorrer(identificacion, ProyeccionVehiculo.IDENTIFICACION.getMapeador(), bh);
+    }
+
+    private static void recorrer(ResultSet rs, MapeadorVehiculo mapeador, Blackhole bh) throws SQLException {
+        rs.beforeFirst();
+        while (rs.next()) {
+            bh.consume(mapeador.mapear(rs));
+        }
+    }
+
+    private ResultSet desplazable(String sql) throws SQLException {
+        Statement st = con.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        return st.executeQuery(sql);
+    }
+}
@@ -0,0 +1,67 @@
+package com.garage.admision;
+
+import jakarta.annotation.Priority;
+import jakarta.ejb.EJBException;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+
+/**
+ * Pide un permiso de {@link ControlAdmision} antes de cada método marcado con
+ * {@link Admitido} y lo devuelve al terminar. Si el hilo ya tiene uno (la
+ * solicitud se admitió en el servlet) la llamada pasa directo. En ambos casos
+ * se mide la duración de la llamada, que es la muestra del límite.
+ *
+ * Va antes que {@link com.garage.metricas.MedidoInterceptor}: un rechazo no
+ * cuenta como latencia ni error del método.
+ */
+@Admitido
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE - 10)
+public class AdmisionInterceptor {
+
+    @Inject
+    private ControlAdmision control;
+
+    @AroundInvoke
+    public Object admitir(InvocationContext ctx) throws Exception {
+        ControlAdmision.Permiso actual = ControlAdmision.actual();
+        if (actual != null) {
+            return proceder(actual, ctx);
+        }
+        ControlAdmision.Permiso permiso = control.admitir(tipo(ctx.getMethod()));
+        permiso.vincular();
+        boolean falloBaseDatos = false;
+        try {
+            return proceder(permiso, ctx);
+        } catch (SQLException e) {
+            falloBaseDatos = true;
+            throw e;
+        } catch (EJBException e) {
+            falloBaseDatos = e.getCause() instanceof SQLException;
+            throw e;
+        } finally {
+            permiso.liberar(falloBaseDatos);
+        }
+    }
+
+    private static Object proceder(ControlAdmision.Permiso permiso, InvocationContext ctx) throws Exception {
+        long inicio = permiso.empezarTrabajo();
+        try {
+            return ctx.proceed();
+        } finally {
+            permiso.terminarTrabajo(inicio);
+        }
+    }
+
+    private static TipoOperacion tipo(Method metodo) {
+        Admitido admitido = metodo.getAnnotation(Admitido.class);
+        if (admitido == null) {
+            admitido = metodo.getDeclaringClass().getAnnotation(Admitido.class);
+        }
+        return admitido != null ? admitido.value() : TipoOperacion.LECTURA;
+    }
+}
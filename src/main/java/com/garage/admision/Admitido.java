@@ -0,0 +1,24 @@
+package com.garage.admision;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca los métodos que pasan por el control de admisión
+ * ({@link AdmisionInterceptor}) antes de ejecutarse.
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Admitido {
+
+    /**
+     * Límite que se usa para el método.
+     */
+    @Nonbinding
+    TipoOperacion value() default TipoOperacion.LECTURA;
+}
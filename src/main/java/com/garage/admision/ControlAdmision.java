@@ -0,0 +1,196 @@
+package com.garage.admision;
+
+import com.garage.config.Configuracion;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Control de admisión delante de la fachada: cada lectura, escritura u
+ * operación masiva toma un permiso de su {@link LimiteAdaptativo} antes de
+ * pedir conexión. Si la
+ * base de datos se pone lenta los límites bajan, las solicitudes de más
+ * esperan poco en una cola acotada y después se rechazan con 503, en lugar
+ * de acumularse en el pool de conexiones hasta que el servidor no responda.
+ *
+ * El permiso queda asociado al hilo que atiende la solicitud: el servlet lo
+ * toma una vez por solicitud y las llamadas a la fachada que haga mientras
+ * tanto no vuelven a pedirlo ({@link #admitidoEnEsteHilo()}). La muestra
+ * que ajusta el límite es el tiempo pasado dentro de la fachada, no el de la
+ * solicitud completa: renderizar el JSP no cuenta como latencia de la base.
+ */
+@ApplicationScoped
+public class ControlAdmision {
+
+    private static final boolean HABILITADA = Configuracion.booleano("garage.admision.habilitada", true);
+    private static final int COLA = Configuracion.entero("garage.admision.cola", 100);
+    private static final long ESPERA_MS = Configuracion.enteroLargo("garage.admision.esperaMs", 100);
+
+    /**
+     * Valor del encabezado Retry-After de los rechazos.
+     */
+    public static final int REINTENTO_SEGUNDOS = Math.max(1,
+            Configuracion.entero("garage.admision.reintentoSegundos", 1));
+
+    private static final ThreadLocal<Permiso> ACTUAL = new ThreadLocal<>();
+
+    private final LimiteAdaptativo lecturas = limite("lecturas", 20, 200, 250);
+    private final LimiteAdaptativo escrituras = limite("escrituras", 10, 100, 500);
+    private final LimiteAdaptativo masivas = limite("masivas", 2, 8, 10000);
+
+    private static LimiteAdaptativo limite(String tipo, int inicial, int maximo, long objetivoMs) {
+        String prefijo = "garage.admision." + tipo + ".";
+        return new LimiteAdaptativo(
+                Configuracion.entero(prefijo + "limiteInicial", inicial),
+                1,
+                Configuracion.entero(prefijo + "limiteMaximo", maximo),
+                COLA,
+                ESPERA_MS,
+                Configuracion.enteroLargo(prefijo + "latenciaObjetivoMs", objetivoMs));
+    }
+
+    /**
+     * Toma un permiso para una operación del tipo indicado, esperando a lo
+     * sumo garage.admision.esperaMs.
+     *
+     * @throws SobrecargaException si no se admite
+     */
+    public Permiso admitir(TipoOperacion tipo) throws SobrecargaException {
+        if (!HABILITADA) {
+            return new Permiso(null);
+        }
+        LimiteAdaptativo limite = tipo == TipoOperacion.MASIVA ? masivas
+                : tipo == TipoOperacion.ESCRITURA ? escrituras : lecturas;
+        if (!limite.adquirir()) {
+            throw new SobrecargaException(tipo, REINTENTO_SEGUNDOS);
+        }
+        return new Permiso(limite);
+    }
+
+    /**
+     * @return true si el hilo actual ya atiende una solicitud admitida
+     */
+    public static boolean admitidoEnEsteHilo() {
+        return ACTUAL.get() != null;
+    }
+
+    /**
+     * @return el permiso asociado al hilo actual, o null
+     */
+    public static Permiso actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * @return nombre del límite del tipo, como aparece en las estadísticas
+     */
+    static String nombre(TipoOperacion tipo) {
+        switch (tipo) {
+            case ESCRITURA:
+                return "escrituras";
+            case MASIVA:
+                return "masivas";
+            default:
+                return "lecturas";
+        }
+    }
+
+    public boolean isHabilitada() {
+        return HABILITADA;
+    }
+
+    /**
+     * @return estado de los límites de lecturas, escrituras y operaciones
+     * masivas
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("habilitada", HABILITADA);
+        datos.put("esperaMs", ESPERA_MS);
+        datos.put("lecturas", lecturas.estadisticas());
+        datos.put("escrituras", escrituras.estadisticas());
+        datos.put("masivas", masivas.estadisticas());
+        return datos;
+    }
+
+    /**
+     * Permiso de una operación admitida. Se libera una sola vez, en el hilo
+     * que la ejecutó o en otro.
+     */
+    public static final class Permiso {
+
+        private final LimiteAdaptativo limite;
+        private boolean liberado;
+        private int profundidad;
+        private long trabajoNanos;
+        private boolean trabajo;
+
+        private Permiso(LimiteAdaptativo limite) {
+            this.limite = limite;
+        }
+
+        /**
+         * Asocia el permiso al hilo actual hasta {@link #liberar}.
+         */
+        public void vincular() {
+            ACTUAL.set(this);
+        }
+
+        /**
+         * Marca el comienzo de una llamada a la fachada con este permiso.
+         *
+         * @return valor para {@link #terminarTrabajo}
+         */
+        public synchronized long empezarTrabajo() {
+            return profundidad++ == 0 ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Suma la duración de la llamada al tiempo de fachada del permiso;
+         * las llamadas anidadas ya cuentan dentro de la exterior.
+         */
+        public synchronized void terminarTrabajo(long inicio) {
+            if (--profundidad == 0) {
+                trabajoNanos += System.nanoTime() - inicio;
+                trabajo = true;
+            }
+        }
+
+        /**
+         * Devuelve el permiso; el tiempo pasado en la fachada ajusta el
+         * límite. Si no llegó a llamarla, no se toma la muestra.
+         *
+         * @param falloBaseDatos true si la operación terminó con error de
+         * base de datos
+         */
+        public synchronized void liberar(boolean falloBaseDatos) {
+            desvincular();
+            if (!liberado && limite != null) {
+                if (trabajo) {
+                    limite.liberar(trabajoNanos, falloBaseDatos);
+                } else {
+                    limite.cancelar();
+                }
+            }
+            liberado = true;
+        }
+
+        /**
+         * Devuelve el permiso sin contar la operación, que no llegó a
+         * ejecutarse.
+         */
+        public synchronized void cancelar() {
+            desvincular();
+            if (!liberado && limite != null) {
+                limite.cancelar();
+            }
+            liberado = true;
+        }
+
+        private void desvincular() {
+            if (ACTUAL.get() == this) {
+                ACTUAL.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.garage.admision;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de operaciones simultáneas que se ajusta solo según la latencia
+ * observada (AIMD, como el control de congestión de TCP):
+ *
+ * - Si una operación tarda más que la latencia objetivo o falla la base de
+ * datos, el límite se multiplica por 0,9 (a lo sumo una vez por intervalo de
+ * latencia objetivo, para que una tanda de respuestas lentas cuente como una
+ * sola señal).
+ * - Si termina a tiempo y el límite se estaba usando (al menos la mitad
+ * ocupado), crece 1/límite: en torno a un permiso más por cada vuelta
+ * completa.
+ *
+ * Cuando no hay permisos libres se espera en una cola acotada a lo sumo
+ * esperaMs; con la cola llena o vencida la espera, se rechaza enseguida.
+ */
+public final class LimiteAdaptativo {
+
+    private static final double REDUCCION = 0.9;
+
+    private final int minimo;
+    private final int maximo;
+    private final int maxCola;
+    private final long esperaNanos;
+    private final long objetivoNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition libre = lock.newCondition();
+    private double limite;
+    private int enCurso;
+    private int enCola;
+    private long ultimaReduccion;
+    private long admitidas;
+    private long rechazadas;
+    private long lentas;
+
+    /**
+     * @param inicial límite al arrancar
+     * @param minimo límite mínimo (al menos 1)
+     * @param maximo límite máximo
+     * @param maxCola operaciones que pueden esperar un permiso
+     * @param esperaMs espera máxima en la cola
+     * @param objetivoMs latencia a partir de la que se reduce el límite
+     */
+    public LimiteAdaptativo(int inicial, int minimo, int maximo, int maxCola, long esperaMs, long objetivoMs) {
+        this.minimo = Math.max(1, minimo);
+        this.maximo = Math.max(this.minimo, maximo);
+        this.maxCola = Math.max(0, maxCola);
+        this.esperaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, esperaMs));
+        this.objetivoNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, objetivoMs));
+        this.limite = Math.max(this.minimo, Math.min(this.maximo, inicial));
+        this.ultimaReduccion = System.nanoTime() - objetivoNanos;
+    }
+
+    /**
+     * Toma un permiso, esperando en la cola si hace falta.
+     *
+     * @return false si se rechaza (cola llena, espera vencida o hilo
+     * interrumpido)
+     */
+    public boolean adquirir() {
+        lock.lock();
+        try {
+            // Con otras esperando, no se adelanta a la cola
+            if (enCola == 0 && enCurso < (int) limite) {
+                enCurso++;
+                admitidas++;
+                return true;
+            }
+            if (enCola >= maxCola || esperaNanos == 0) {
+                rechazadas++;
+                return false;
+            }
+            enCola++;
+            try {
+                long resta = esperaNanos;
+                while (enCurso >= (int) limite) {
+                    if (resta <= 0) {
+                        rechazadas++;
+                        return false;
+                    }
+                    resta = libre.awaitNanos(resta);
+                }
+                enCurso++;
+                admitidas++;
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rechazadas++;
+                return false;
+            } finally {
+                enCola--;
+                // Si ésta se fue sin usar un aviso, que lo reciba la siguiente
+                if (enCola > 0 && enCurso < (int) limite) {
+                    libre.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Devuelve el permiso y ajusta el límite con la muestra.
+     *
+     * @param nanos duración de la operación
+     * @param falloBaseDatos true si terminó con error de base de datos
+     */
+    public void liberar(long nanos, boolean falloBaseDatos) {
+        lock.lock();
+        try {
+            boolean usado = enCurso * 2 >= (int) limite;
+            enCurso--;
+            long ahora = System.nanoTime();
+            if (falloBaseDatos || nanos > objetivoNanos) {
+                lentas++;
+                if (ahora - ultimaReduccion >= objetivoNanos) {
+                    limite = Math.max(minimo, limite * REDUCCION);
+                    ultimaReduccion = ahora;
+                }
+            } else if (usado) {
+                limite = Math.min(maximo, limite + 1 / limite);
+            }
+            libre.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Devuelve el permiso sin tomar la muestra (la operación no llegó a
+     * ejecutarse).
+     */
+    public void cancelar() {
+        lock.lock();
+        try {
+            enCurso--;
+            libre.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return límite actual, en curso, en cola y contadores
+     */
+    public Map<String, Object> estadisticas() {
+        lock.lock();
+        try {
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("limite", (int) limite);
+            datos.put("minimo", minimo);
+            datos.put("maximo", maximo);
+            datos.put("enCurso", enCurso);
+            datos.put("enCola", enCola);
+            datos.put("maxCola", maxCola);
+            datos.put("latenciaObjetivoMs", TimeUnit.NANOSECONDS.toMillis(objetivoNanos));
+            datos.put("admitidas", admitidas);
+            datos.put("rechazadas", rechazadas);
+            datos.put("lentas", lentas);
+            return datos;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.garage.admision;
+
+import jakarta.ejb.ApplicationException;
+
+/**
+ * La operación no se admitió porque el límite de su tipo está lleno y la
+ * cola de espera también (o venció la espera). Es una excepción de
+ * aplicación: el contenedor EJB la entrega sin envolver, para que el
+ * servlet y los recursos REST respondan 503 con Retry-After.
+ */
+@ApplicationException
+public class SobrecargaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int reintentoSegundos;
+
+    public SobrecargaException(TipoOperacion tipo, int reintentoSegundos) {
+        super("Servicio sobrecargado (" + ControlAdmision.nombre(tipo)
+                + "); intente de nuevo en " + reintentoSegundos + " s");
+        this.reintentoSegundos = reintentoSegundos;
+    }
+
+    /**
+     * @return segundos sugeridos para el encabezado Retry-After
+     */
+    public int getReintentoSegundos() {
+        return reintentoSegundos;
+    }
+}
@@ -0,0 +1,15 @@
+package com.garage.admision;
+
+/**
+ * Clase de operación para el control de admisión: lecturas, escrituras y
+ * operaciones masivas tienen límites separados, así una tanda de escrituras
+ * lentas no deja sin permisos a las lecturas (ni al revés), y una
+ * importación o un cambio masivo, que tardan por naturaleza, no bajan el
+ * límite de las operaciones de una fila.
+ */
+public enum TipoOperacion {
+
+    LECTURA,
+    ESCRITURA,
+    MASIVA
+}
@@ -0,0 +1,155 @@
+package com.garage.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache en memoria con límite de tamaño y tiempo de vida (TTL).
+ *
+ * Las lecturas no toman ningún lock: son un get sobre ConcurrentHashMap más
+ * una comparación de tiempo. Cuando se supera el tamaño máximo se desaloja,
+ * de una muestra pequeña de entradas, la que lleva más tiempo sin usarse
+ * (LRU aproximado, como hacen Redis o Caffeine en su versión muestreada),
+ * para no tener que mantener una lista enlazada protegida por lock.
+ *
+ * @param <K> tipo de la clave
+ * @param <V> tipo del valor
+ */
+public class CacheAcotada<K, V> {
+
+    /**
+     * Cantidad de entradas examinadas para elegir a quién desalojar.
+     */
+    private static final int MUESTRA_DESALOJO = 8;
+
+    private final ConcurrentHashMap<K, Entrada<V>> entradas;
+    private final int maxEntradas;
+    private final long ttlNanos;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder expiraciones = new LongAdder();
+
+    /**
+     * @param maxEntradas cantidad máxima de entradas
+     * @param ttlMillis tiempo de vida de cada entrada en milisegundos
+     */
+    public CacheAcotada(int maxEntradas, long ttlMillis) {
+        this.maxEntradas = Math.max(1, maxEntradas);
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entradas = new ConcurrentHashMap<>(Math.min(this.maxEntradas, 1024));
+    }
+
+    /**
+     * @return el valor guardado o null si no existe o ya expiró
+     */
+    public V obtener(K clave) {
+        Entrada<V> e = entradas.get(clave);
+        if (e == null) {
+            fallos.increment();
+            return null;
+        }
+        long ahora = System.nanoTime();
+        if (ahora - e.creada > ttlNanos) {
+            if (entradas.remove(clave, e)) {
+                expiraciones.increment();
+            }
+            fallos.increment();
+            return null;
+        }
+        e.ultimoAcceso = ahora;
+        aciertos.increment();
+        return e.valor;
+    }
+
+    /**
+     * Guarda un valor, desalojando otra entrada si se superó el tamaño
+     * máximo.
+     *
+     * @return la entrada creada, para poder retirarla después con
+     * {@link #eliminarSiEs(Object, Object)} sin afectar a una escritura más
+     * reciente de la misma clave
+     */
+    public Object guardar(K clave, V valor) {
+        Entrada<V> e = new Entrada<>(valor, System.nanoTime());
+        entradas.put(clave, e);
+        if (entradas.size() > maxEntradas) {
+            desalojar();
+        }
+        return e;
+    }
+
+    /**
+     * Elimina la clave sólo si todavía contiene la entrada indicada.
+     */
+    public boolean eliminarSiEs(K clave, Object entrada) {
+        return entradas.remove(clave, entrada);
+    }
+
+    /**
+     * Elimina una clave.
+     */
+    public void invalidar(K clave) {
+        entradas.remove(clave);
+    }
+
+    /**
+     * Elimina todas las entradas.
+     */
+    public void invalidarTodo() {
+        entradas.clear();
+    }
+
+    /**
+     * @return copia de los contadores en este momento
+     */
+    public EstadisticasCache estadisticas() {
+        return new EstadisticasCache(aciertos.sum(), fallos.sum(), desalojos.sum(),
+                expiraciones.sum(), entradas.size(), maxEntradas);
+    }
+
+    private void desalojar() {
+        while (entradas.size() > maxEntradas) {
+            K victima = null;
+            Entrada<V> entradaVictima = null;
+            long ahora = System.nanoTime();
+            Iterator<Map.Entry<K, Entrada<V>>> it = entradas.entrySet().iterator();
+            for (int i = 0; i < MUESTRA_DESALOJO && it.hasNext(); i++) {
+                Map.Entry<K, Entrada<V>> candidata = it.next();
+                Entrada<V> e = candidata.getValue();
+                // Una entrada expirada siempre es la mejor víctima
+                if (ahora - e.creada > ttlNanos) {
+                    victima = candidata.getKey();
+                    entradaVictima = e;
+                    break;
+                }
+                if (entradaVictima == null || e.ultimoAcceso < entradaVictima.ultimoAcceso) {
+                    victima = candidata.getKey();
+                    entradaVictima = e;
+                }
+            }
+            if (victima == null) {
+                return;
+            }
+            if (entradas.remove(victima, entradaVictima)) {
+                desalojos.increment();
+            }
+        }
+    }
+
+    private static final class Entrada<V> {
+
+        final V valor;
+        final long creada;
+        volatile long ultimoAcceso;
+
+        Entrada(V valor, long creada) {
+            this.valor = valor;
+            this.creada = creada;
+            this.ultimoAcceso = creada;
+        }
+    }
+}
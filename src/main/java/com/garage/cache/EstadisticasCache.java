@@ -0,0 +1,80 @@
+package com.garage.cache;
+
+/**
+ * Fotografía de los contadores de una {@link CacheAcotada}.
+ */
+public class EstadisticasCache {
+
+    private final long aciertos;
+    private final long fallos;
+    private final long desalojos;
+    private final long expiraciones;
+    private final int tamano;
+    private final int capacidad;
+
+    public EstadisticasCache(long aciertos, long fallos, long desalojos, long expiraciones,
+            int tamano, int capacidad) {
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.desalojos = desalojos;
+        this.expiraciones = expiraciones;
+        this.tamano = tamano;
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * @return lecturas resueltas desde la cache
+     */
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    /**
+     * @return lecturas que tuvieron que ir a la base de datos
+     */
+    public long getFallos() {
+        return fallos;
+    }
+
+    /**
+     * @return entradas retiradas por exceder el tamaño máximo
+     */
+    public long getDesalojos() {
+        return desalojos;
+    }
+
+    /**
+     * @return entradas retiradas por superar su TTL
+     */
+    public long getExpiraciones() {
+        return expiraciones;
+    }
+
+    /**
+     * @return entradas actualmente guardadas
+     */
+    public int getTamano() {
+        return tamano;
+    }
+
+    /**
+     * @return tamaño máximo configurado
+     */
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * @return proporción de aciertos entre 0 y 1
+     */
+    public double getTasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0.0 : (double) aciertos / total;
+    }
+
+    @Override
+    public String toString() {
+        return "EstadisticasCache{" + "aciertos=" + aciertos + ", fallos=" + fallos + ", desalojos=" + desalojos
+                + ", expiraciones=" + expiraciones + ", tamano=" + tamano + ", capacidad=" + capacidad + '}';
+    }
+}
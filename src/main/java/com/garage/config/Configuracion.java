@@ -0,0 +1,95 @@
+package com.garage.config;
+
+/**
+ * Lectura centralizada de parámetros de configuración.
+ *
+ * Los valores se toman de propiedades del sistema con prefijo "garage."
+ * (por ejemplo -Dgarage.paginacion.tamano=50 en las opciones JVM de
+ * GlassFish). Si la propiedad no existe o no es válida se usa el valor por
+ * defecto indicado.
+ */
+public final class Configuracion {
+
+    private Configuracion() {
+    }
+
+    /**
+     * @param clave nombre de la propiedad
+     * @param porDefecto valor si no está definida o no es un número
+     * @return valor entero configurado
+     */
+    public static int entero(String clave, int porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + clave + ": " + valor);
+            return porDefecto;
+        }
+    }
+
+    /**
+     * @param clave nombre de la propiedad
+     * @param porDefecto valor si no está definida o no es un número
+     * @return valor long configurado
+     */
+    public static long enteroLargo(String clave, long porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + clave + ": " + valor);
+            return porDefecto;
+        }
+    }
+
+    /**
+     * @param clave nombre de la propiedad
+     * @param porDefecto valor si no está definida o no es un número
+     * @return valor decimal configurado
+     */
+    public static double decimal(String clave, double porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Double.parseDouble(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + clave + ": " + valor);
+            return porDefecto;
+        }
+    }
+
+    /**
+     * @param clave nombre de la propiedad
+     * @param porDefecto valor si no está definida
+     * @return true si la propiedad vale "true" (sin importar mayúsculas)
+     */
+    public static boolean booleano(String clave, boolean porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        return Boolean.parseBoolean(valor.trim());
+    }
+
+    /**
+     * @param clave nombre de la propiedad
+     * @param porDefecto valor si no está definida
+     * @return texto configurado, sin espacios al inicio o final
+     */
+    public static String texto(String clave, String porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null || valor.trim().isEmpty()) {
+            return porDefecto;
+        }
+        return valor.trim();
+    }
+}
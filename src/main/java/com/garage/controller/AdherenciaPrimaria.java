@@ -0,0 +1,86 @@
+package com.garage.controller;
+
+import com.garage.persistence.OrigenLecturas;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Lectura de las propias escrituras con réplica de lecturas: cada solicitud
+ * que puede escribir (POST, PUT, PATCH, DELETE) deja al cliente la cookie
+ * "garage-primaria" con el instante hasta el que sus lecturas deben ir a la
+ * primaria (ahora + garage.lectura.ventanaMs). Mientras esté vigente,
+ * {@link CicloSolicitud#abrir} manda la unidad de trabajo a la primaria.
+ *
+ * Va en una cookie, no en la sesión, para que también sirva a los clientes
+ * REST y con varios servidores sin afinidad.
+ */
+final class AdherenciaPrimaria {
+
+    private static final String COOKIE = "garage-primaria";
+
+    private AdherenciaPrimaria() {
+    }
+
+    /**
+     * Si la solicitud puede escribir, deja la cookie en la respuesta. Debe
+     * llamarse antes de que la respuesta se confirme.
+     */
+    static void marcar(ServletRequest request, ServletResponse response) {
+        if (!OrigenLecturas.isConfigurada() || !(request instanceof HttpServletRequest)
+                || !(response instanceof HttpServletResponse) || !escribe((HttpServletRequest) request)) {
+            return;
+        }
+        HttpServletRequest http = (HttpServletRequest) request;
+        Cookie cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + OrigenLecturas.VENTANA_MS));
+        cookie.setMaxAge((int) Math.max(1, (OrigenLecturas.VENTANA_MS + 999) / 1000));
+        cookie.setPath(http.getContextPath().isEmpty() ? "/" : http.getContextPath());
+        cookie.setHttpOnly(true);
+        ((HttpServletResponse) response).addCookie(cookie);
+    }
+
+    /**
+     * @return true si la solicitud puede escribir o el cliente escribió hace
+     * menos de garage.lectura.ventanaMs
+     */
+    static boolean vigente(ServletRequest request) {
+        if (!OrigenLecturas.isConfigurada() || !(request instanceof HttpServletRequest)) {
+            return false;
+        }
+        HttpServletRequest http = (HttpServletRequest) request;
+        if (escribe(http)) {
+            return true;
+        }
+        Cookie[] cookies = http.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        long ahora = System.currentTimeMillis();
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    long hasta = Long.parseLong(cookie.getValue());
+                    // Un valor más allá de la ventana no es de este servidor
+                    return hasta > ahora && hasta - ahora <= OrigenLecturas.VENTANA_MS;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean escribe(HttpServletRequest request) {
+        switch (request.getMethod()) {
+            case "POST":
+            case "PUT":
+            case "PATCH":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.garage.controller;
+
+import com.garage.cache.CacheAcotada;
+import com.garage.cache.EstadisticasCache;
+import com.garage.config.Configuracion;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Tabla de vehículos ya renderizada (HTML y variantes comprimidas), por
+ * página y versión de los datos. La clave incluye la versión de
+ * {@link com.garage.facade.VersionDatos}, así que una escritura deja todas
+ * las entradas anteriores fuera de uso sin recorrerlas; el límite de
+ * entradas las desaloja con el tiempo. El TTL es el mismo de la cache de
+ * lecturas y acota lo que tarda en verse una escritura hecha por otro nodo.
+ */
+@ApplicationScoped
+public class CacheTablaVehiculos {
+
+    private final CacheAcotada<String, VistaComprimida> tablas = new CacheAcotada<>(
+            Configuracion.entero("garage.vista.maxTablas", 100),
+            Configuracion.enteroLargo("garage.cache.ttlSegundos", 60) * 1000);
+
+    /**
+     * @return la tabla renderizada para la clave, o null
+     */
+    public VistaComprimida buscar(String clave) {
+        return tablas.obtener(clave);
+    }
+
+    public void guardar(String clave, VistaComprimida tabla) {
+        tablas.guardar(clave, tabla);
+    }
+
+    /**
+     * @return aciertos, fallos y desalojos
+     */
+    public EstadisticasCache estadisticas() {
+        return tablas.estadisticas();
+    }
+}
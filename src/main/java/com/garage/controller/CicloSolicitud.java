@@ -0,0 +1,87 @@
+package com.garage.controller;
+
+import com.garage.config.Configuracion;
+import com.garage.persistence.EstadisticasConexiones;
+import com.garage.persistence.TrazaJdbc;
+import com.garage.persistence.UnidadDeTrabajo;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Apertura y cierre de una solicitud: traza de idas a la base de datos
+ * ({@link TrazaJdbc}, disponible en el atributo "trazaJdbc") y cierre de la
+ * {@link UnidadDeTrabajo}. Lo usa {@link UnidadDeTrabajoFilter} en el hilo
+ * del contenedor y {@link VehiculoServlet} en el hilo que atiende la
+ * solicitud en modo asíncrono.
+ *
+ * Al cerrar escribe un resumen en el log cuando las idas superan
+ * garage.jdbc.idasAlerta, para detectar patrones N+1.
+ */
+@ApplicationScoped
+public class CicloSolicitud {
+
+    private static final int IDAS_ALERTA = Configuracion.entero("garage.jdbc.idasAlerta", 10);
+    private static final boolean TRAZAR_SOLICITUDES = Configuracion.booleano("garage.jdbc.trazarSolicitudes", false);
+
+    @Inject
+    private UnidadDeTrabajo unidad;
+
+    @Inject
+    private EstadisticasConexiones estadisticas;
+
+    /**
+     * Empieza a trazar la solicitud en el hilo actual. Si el cliente escribió
+     * hace poco ({@link AdherenciaPrimaria}), la unidad de trabajo lee de la
+     * primaria.
+     */
+    public TrazaJdbc abrir(ServletRequest request) {
+        if (AdherenciaPrimaria.vigente(request)) {
+            unidad.leerDePrimaria();
+        }
+        TrazaJdbc traza = TrazaJdbc.iniciar();
+        request.setAttribute("trazaJdbc", traza);
+        return traza;
+    }
+
+    /**
+     * Confirma o revierte la unidad de trabajo, devuelve la conexión y
+     * registra las idas de la solicitud. Debe llamarse en el mismo hilo que
+     * {@link #abrir}.
+     *
+     * Se revierte si salió una excepción y también si la solicitud terminó
+     * en error aunque se haya atendido: el servlet capturó la excepción de
+     * la fachada y dejó el atributo "error" para la página, o la respuesta
+     * tiene un estado 4xx/5xx.
+     *
+     * @param exito false para revertir los cambios de la solicitud
+     */
+    public void cerrar(ServletRequest request, ServletResponse response, TrazaJdbc traza, boolean exito) {
+        try {
+            unidad.terminar(exito && !terminoEnError(request, response));
+        } finally {
+            TrazaJdbc.terminar();
+            estadisticas.registrarIdas(traza.getIdas());
+            if (TRAZAR_SOLICITUDES || (IDAS_ALERTA > 0 && traza.getIdas() >= IDAS_ALERTA)) {
+                System.err.println("Solicitud " + descripcion(request) + ": " + traza.resumen());
+            }
+        }
+    }
+
+    private static boolean terminoEnError(ServletRequest request, ServletResponse response) {
+        return request.getAttribute("error") != null
+                || (response instanceof HttpServletResponse && ((HttpServletResponse) response).getStatus() >= 400);
+    }
+
+    private static String descripcion(ServletRequest request) {
+        if (request instanceof HttpServletRequest) {
+            HttpServletRequest http = (HttpServletRequest) request;
+            String accion = http.getParameter("accion");
+            return http.getMethod() + " " + http.getRequestURI() + (accion != null ? " accion=" + accion : "");
+        }
+        return request.toString();
+    }
+}
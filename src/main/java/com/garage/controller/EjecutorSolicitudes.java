@@ -0,0 +1,137 @@
+package com.garage.controller;
+
+import com.garage.config.Configuracion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ContextService;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hilos en los que {@link VehiculoServlet} atiende las solicitudes, según
+ * garage.servlet.ejecucion:
+ *
+ * - sincrono (por defecto): en el hilo del contenedor, bloqueado mientras
+ * espera a la base de datos.
+ * - virtual: la solicitud pasa a modo asíncrono y se atiende en un hilo
+ * virtual; el hilo del contenedor queda libre enseguida. Requiere JDK 21; en
+ * una JVM sin hilos virtuales se usa el pool.
+ * - pool: igual, pero en un pool propio de garage.servlet.hilos hilos con una
+ * cola de garage.servlet.cola solicitudes; si se llena, el servlet responde
+ * 503.
+ *
+ * Cada tarea corre con el contexto de la aplicación (JNDI, class loader,
+ * seguridad), así las llamadas a EJB funcionan igual que en el hilo del
+ * contenedor: el pool usa hilos de la ManagedThreadFactory del contenedor, y
+ * a los hilos virtuales, que no tienen equivalente administrado, se les pasa
+ * el contexto capturado al enviar cada tarea con el ContextService.
+ */
+@ApplicationScoped
+public class EjecutorSolicitudes {
+
+    private static final String MODO = Configuracion.texto("garage.servlet.ejecucion", "sincrono")
+            .toLowerCase(Locale.ROOT);
+    private static final int HILOS = Configuracion.entero("garage.servlet.hilos", 64);
+    private static final int COLA = Configuracion.entero("garage.servlet.cola", 1000);
+
+    @Resource
+    private ContextService contexto;
+
+    @Resource
+    private ManagedThreadFactory fabricaHilos;
+
+    private ExecutorService ejecutor;
+    private String modo;
+
+    @PostConstruct
+    void iniciar() {
+        switch (MODO) {
+            case "virtual":
+                ejecutor = hilosVirtuales();
+                if (ejecutor != null) {
+                    modo = "virtual";
+                    break;
+                }
+                System.err.println("La JVM no tiene hilos virtuales (JDK 21+); se usa un pool de "
+                        + HILOS + " hilos");
+                ejecutor = poolAcotado(HILOS, COLA, fabricaHilos);
+                modo = "pool";
+                break;
+            case "pool":
+                ejecutor = poolAcotado(HILOS, COLA, fabricaHilos);
+                modo = "pool";
+                break;
+            default:
+                modo = "sincrono";
+                break;
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        if (ejecutor != null) {
+            ejecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return true si las solicitudes se atienden fuera del hilo del
+     * contenedor
+     */
+    public boolean isAsincrono() {
+        return ejecutor != null;
+    }
+
+    /**
+     * @return modo efectivo: sincrono, virtual o pool
+     */
+    public String getModo() {
+        return modo;
+    }
+
+    /**
+     * Envía la tarea; en hilos virtuales, con el contexto de la aplicación
+     * del hilo actual.
+     *
+     * @return la tarea en curso, para cancelarla si la solicitud vence
+     * @throws RejectedExecutionException si el pool y su cola están llenos
+     */
+    public Future<?> ejecutar(Runnable tarea) {
+        return ejecutor.submit("virtual".equals(modo) ? contexto.contextualRunnable(tarea) : tarea);
+    }
+
+    /**
+     * Un hilo virtual por tarea, o null si la JVM no los tiene. Se obtiene
+     * por reflexión para que el mismo WAR cargue en JDK 17.
+     */
+    public static ExecutorService hilosVirtuales() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Pool de tamaño fijo con cola acotada; rechaza tareas cuando la cola se
+     * llena en lugar de acumularlas.
+     *
+     * @param fabricaHilos fábrica de los hilos del pool
+     */
+    public static ExecutorService poolAcotado(int hilos, int cola, ThreadFactory fabricaHilos) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, cola)), fabricaHilos);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
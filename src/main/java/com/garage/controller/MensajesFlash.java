@@ -0,0 +1,77 @@
+package com.garage.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mensajes que sobreviven a una redirección (Post/Redirect/Get): el POST
+ * los guarda en la sesión y el GET siguiente los pasa a atributos de la
+ * solicitud y los borra, así se muestran una sola vez y recargar la página
+ * no repite la escritura ni el mensaje.
+ */
+final class MensajesFlash {
+
+    private static final String ATRIBUTO = "garage.flash";
+
+    private MensajesFlash() {
+    }
+
+    /**
+     * Guarda un mensaje para la próxima solicitud de esta sesión.
+     *
+     * @param nombre atributo con el que lo verá la vista ("mensaje",
+     * "notificacion", "error")
+     */
+    static void guardar(HttpServletRequest request, String nombre, String valor) {
+        if (valor == null) {
+            return;
+        }
+        HttpSession sesion = request.getSession();
+        synchronized (sesion) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> mensajes = (Map<String, String>) sesion.getAttribute(ATRIBUTO);
+            if (mensajes == null) {
+                mensajes = new LinkedHashMap<>();
+            }
+            mensajes.put(nombre, valor);
+            // Se vuelve a asignar para que el contenedor replique la sesión
+            sesion.setAttribute(ATRIBUTO, mensajes);
+        }
+    }
+
+    /**
+     * @return true si la sesión tiene mensajes que la próxima página debe
+     * mostrar. No crea sesión si no existe.
+     */
+    static boolean hayPendientes(HttpServletRequest request) {
+        HttpSession sesion = request.getSession(false);
+        return sesion != null && sesion.getAttribute(ATRIBUTO) != null;
+    }
+
+    /**
+     * Pasa los mensajes pendientes a atributos de la solicitud y los quita
+     * de la sesión. No crea sesión si no existe.
+     */
+    static void exponer(HttpServletRequest request) {
+        HttpSession sesion = request.getSession(false);
+        if (sesion == null) {
+            return;
+        }
+        Map<String, String> mensajes;
+        synchronized (sesion) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> pendientes = (Map<String, String>) sesion.getAttribute(ATRIBUTO);
+            mensajes = pendientes;
+            if (mensajes != null) {
+                sesion.removeAttribute(ATRIBUTO);
+            }
+        }
+        if (mensajes != null) {
+            for (Map.Entry<String, String> m : mensajes.entrySet()) {
+                request.setAttribute(m.getKey(), m.getValue());
+            }
+        }
+    }
+}
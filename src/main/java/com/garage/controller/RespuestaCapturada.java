@@ -0,0 +1,56 @@
+package com.garage.controller;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.CharArrayWriter;
+import java.io.PrintWriter;
+
+/**
+ * Respuesta que guarda en memoria lo que escribe un JSP incluido, para
+ * cachear el HTML. No agrega el id de sesión a las URL: el HTML se comparte
+ * entre usuarios.
+ */
+class RespuestaCapturada extends HttpServletResponseWrapper {
+
+    private final CharArrayWriter contenido = new CharArrayWriter(8192);
+    private final PrintWriter escritor = new PrintWriter(contenido);
+
+    RespuestaCapturada(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        return escritor;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        throw new IllegalStateException("Sólo se captura la salida de texto");
+    }
+
+    @Override
+    public void flushBuffer() {
+        // No debe confirmar la respuesta real mientras se captura
+        escritor.flush();
+    }
+
+    @Override
+    public String encodeURL(String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+        return url;
+    }
+
+    /**
+     * @return texto escrito hasta ahora
+     */
+    String getContenido() {
+        escritor.flush();
+        return contenido.toString();
+    }
+}
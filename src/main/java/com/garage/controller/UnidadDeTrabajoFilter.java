@@ -0,0 +1,54 @@
+package com.garage.controller;
+
+import com.garage.persistence.TrazaJdbc;
+import jakarta.inject.Inject;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import java.io.IOException;
+
+/**
+ * Delimita la unidad de trabajo de cada solicitud: al terminar la cadena se
+ * confirma (o revierte, si salió una excepción o la solicitud terminó en
+ * error, ver {@link CicloSolicitud#cerrar}) y se devuelve la conexión
+ * compartida al pool.
+ *
+ * También traza las idas a la base de datos de la solicitud
+ * ({@link TrazaJdbc}, disponible en el atributo "trazaJdbc") y escribe un
+ * resumen en el log cuando superan garage.jdbc.idasAlerta, para detectar
+ * patrones N+1 (ver {@link CicloSolicitud}).
+ *
+ * Con réplica de lecturas, las solicitudes que pueden escribir dejan al
+ * cliente la marca para leer de la primaria durante un tiempo
+ * ({@link AdherenciaPrimaria}).
+ *
+ * Si el servlet pasó la solicitud a otro hilo (modo asíncrono), el cierre lo
+ * hace ese hilo al terminar y aquí sólo se limpia el hilo del contenedor.
+ */
+@WebFilter(urlPatterns = {"/vehiculos", "/resources/*"}, asyncSupported = true)
+public class UnidadDeTrabajoFilter implements Filter {
+
+    @Inject
+    private CicloSolicitud ciclo;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        AdherenciaPrimaria.marcar(request, response);
+        TrazaJdbc traza = ciclo.abrir(request);
+        boolean exito = false;
+        try {
+            chain.doFilter(request, response);
+            exito = true;
+        } finally {
+            if (request.isAsyncStarted()) {
+                TrazaJdbc.terminar();
+            } else {
+                ciclo.cerrar(request, response, traza, exito);
+            }
+        }
+    }
+}
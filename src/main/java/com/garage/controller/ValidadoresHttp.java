@@ -0,0 +1,109 @@
+package com.garage.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * GET condicional sobre la versión de los datos ({@link
+ * com.garage.facade.VersionDatos}): ETag débil con la versión y
+ * Last-Modified con el instante del último cambio. Si el cliente ya tiene la
+ * versión actual se responde 304 sin consultar la base de datos.
+ *
+ * If-None-Match tiene prioridad; If-Modified-Since sólo se mira si no viene.
+ * Como las fechas HTTP van en segundos, Last-Modified se envía sólo cuando el
+ * último cambio es de un segundo anterior al actual: un cambio posterior en el
+ * mismo segundo no se distinguiría por fecha. Los recursos REST aplican la
+ * misma regla con {@link #fechaEstable}.
+ */
+public final class ValidadoresHttp {
+
+    private ValidadoresHttp() {
+    }
+
+    /**
+     * Agrega los validadores a la respuesta y, si la versión del cliente es
+     * la actual, responde 304.
+     *
+     * @param version versión de los datos, leída antes de consultar la BD
+     * @param ultimaModificacion epoch en milisegundos del último cambio
+     * @return true si se respondió 304 y no hay que generar el cuerpo
+     */
+    static boolean noModificado(HttpServletRequest request, HttpServletResponse response,
+            long version, long ultimaModificacion) {
+        String etiqueta = etiqueta(version);
+        long fecha = fechaEstable(ultimaModificacion);
+        response.setHeader("ETag", etiqueta);
+        // El navegador puede guardar la página, pero debe revalidarla siempre
+        response.setHeader("Cache-Control", "no-cache");
+        if (fecha >= 0) {
+            response.setDateHeader("Last-Modified", fecha);
+        }
+
+        boolean vigente;
+        String siNoCoincide = request.getHeader("If-None-Match");
+        if (siNoCoincide != null) {
+            vigente = coincide(siNoCoincide, etiqueta);
+        } else {
+            long desde = leerFecha(request, "If-Modified-Since");
+            vigente = fecha >= 0 && desde >= fecha;
+        }
+        if (vigente) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        return vigente;
+    }
+
+    /**
+     * Quita los validadores de una respuesta que no debe reutilizarse (una
+     * página de error), para que el cliente no la revalide con 304.
+     */
+    static void descartar(HttpServletResponse response) {
+        response.setHeader("ETag", null);
+        response.setHeader("Last-Modified", null);
+        response.setHeader("Cache-Control", "no-store");
+    }
+
+    /**
+     * ETag débil para una versión de los datos: W/"versión".
+     */
+    static String etiqueta(long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Instante del cambio truncado a segundos, o -1 si fue en el segundo
+     * actual.
+     */
+    public static long fechaEstable(long ultimaModificacion) {
+        long segundo = ultimaModificacion / 1000 * 1000;
+        return segundo + 1000 <= System.currentTimeMillis() ? segundo : -1;
+    }
+
+    /**
+     * Compara con la lista de If-None-Match con comparación débil (se ignora
+     * el prefijo W/), como corresponde a un GET.
+     */
+    static boolean coincide(String siNoCoincide, String etiqueta) {
+        String buscada = sinPrefijoDebil(etiqueta);
+        for (String candidata : siNoCoincide.split(",")) {
+            String valor = candidata.trim();
+            if ("*".equals(valor) || buscada.equals(sinPrefijoDebil(valor))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String sinPrefijoDebil(String etiqueta) {
+        return etiqueta.startsWith("W/") ? etiqueta.substring(2) : etiqueta;
+    }
+
+    private static long leerFecha(HttpServletRequest request, String encabezado) {
+        try {
+            return request.getDateHeader(encabezado);
+        } catch (IllegalArgumentException e) {
+            // Fecha mal formada: se ignora el encabezado
+            return -1;
+        }
+    }
+}
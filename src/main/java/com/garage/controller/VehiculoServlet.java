@@ -4,11 +4,28 @@
  */
 package com.garage.controller;
 
+import com.garage.admision.ControlAdmision;
+import com.garage.admision.SobrecargaException;
+import com.garage.admision.TipoOperacion;
+import com.garage.config.Configuracion;
+import com.garage.facade.FeedCambios;
 import com.garage.facade.VehiculoFacade;
+import com.garage.facade.VersionDatos;
+import com.garage.metricas.RegistroMetricas;
+import com.garage.model.Pagina;
 import com.garage.model.Vehiculo;
+import com.garage.persistence.FiltroVehiculos;
+import com.garage.persistence.OrdenVehiculo;
+import com.garage.persistence.TrazaJdbc;
 import jakarta.ejb.EJB;
+import jakarta.enterprise.context.control.RequestContextController;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
 import java.io.IOException;
 import java.io.PrintWriter;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -16,16 +33,69 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Controlador web para la gestión de vehículos. Recibe peticiones HTTP y las
  * traduce en operaciones CRUD. Debe mostrar mensajes claros en error de
  * negocio.
+ *
+ * Con garage.servlet.ejecucion=virtual o pool la solicitud se atiende en
+ * modo asíncrono (ver {@link EjecutorSolicitudes}): el hilo del contenedor
+ * sólo la encola, la acción y la unidad de trabajo corren en otro hilo con su
+ * propio contexto de solicitud CDI, y el JSP se renderiza después con
+ * {@link AsyncContext#dispatch(String)}.
+ *
+ * Las escrituras exitosas siguen Post/Redirect/Get: se guardan los mensajes
+ * en la sesión ({@link MensajesFlash}) y se redirige al listado, así recargar
+ * la página no repite la escritura. La tabla del listado se renderiza aparte
+ * y se guarda en {@link CacheTablaVehiculos} por versión de los datos; con
+ * vista=tabla se devuelve sólo la tabla, comprimida de antemano.
+ *
+ * Los GET llevan ETag y Last-Modified de la misma versión
+ * ({@link ValidadoresHttp}); si el cliente ya la tiene se responde 304 antes
+ * de pasar a la acción, sin tocar la base de datos.
+ *
+ * Cada acción toma antes un permiso de {@link ControlAdmision} (lectura o
+ * escritura), en el hilo del contenedor y antes de encolarse en modo
+ * asíncrono; si no se admite se responde 503 con Retry-After sin ocupar
+ * hilos ni conexiones.
  */
-@WebServlet("/vehiculos")
+@WebServlet(urlPatterns = "/vehiculos", asyncSupported = true)
 public class VehiculoServlet extends HttpServlet {
 
+    /**
+     * Tamaño de página por defecto del listado (parámetro "tamano").
+     */
+    private static final int TAMANO_PAGINA = Configuracion.entero("garage.paginacion.tamano", 25);
+
+    /**
+     * Tiempo máximo de una solicitud asíncrona antes de responder 503.
+     */
+    private static final long TIMEOUT_ASINCRONO_MS = Configuracion.enteroLargo("garage.servlet.timeoutMs", 30000);
+
+    /**
+     * Atributo con la vista que se despacha al terminar una solicitud
+     * asíncrona.
+     */
+    private static final String VISTA_PENDIENTE = "garage.vistaPendiente";
+
+    /**
+     * Atributo con la marca (AtomicBoolean) de una solicitud asíncrona ya
+     * terminada: por la acción o por vencimiento. Después no se escribe nada
+     * más en la respuesta.
+     */
+    private static final String TERMINADA = "garage.solicitudTerminada";
+
+    /**
+     * JSP con la tabla de vehículos y la navegación, que se renderiza aparte
+     * para cachear el HTML.
+     */
+    private static final String VISTA_TABLA = "/WEB-INF/vistas/tablaVehiculos.jsp";
+
     /**
      * No se puede crear manualmente la instancia del facade ya que entonces el
      * contenedor(Glasfish) no inyectaria las dependencias(@Stateless,
@@ -39,6 +109,27 @@ public class VehiculoServlet extends HttpServlet {
     @EJB
     private VehiculoFacade vehiculoFacade;
 
+    @EJB
+    private VersionDatos versionDatos;
+
+    @EJB
+    private FeedCambios feed;
+
+    @Inject
+    private CacheTablaVehiculos tablas;
+
+    @Inject
+    private EjecutorSolicitudes ejecutor;
+
+    @Inject
+    private CicloSolicitud ciclo;
+
+    @Inject
+    private Instance<RequestContextController> controladoresContexto;
+
+    @Inject
+    private ControlAdmision admision;
+
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
@@ -46,6 +137,16 @@ public class VehiculoServlet extends HttpServlet {
         // Obtener la acción solicitada (crear, editar o eliminar)
         String accion = request.getParameter("accion");
 
+        TipoOperacion tipo = "editar".equals(accion) ? TipoOperacion.LECTURA : TipoOperacion.ESCRITURA;
+        atender(request, response, nombreOperacion(accion), tipo, () -> ejecutarAccion(request, response, accion));
+    }
+
+    /**
+     * Ejecuta la acción solicitada (crear, editar, actualizar o eliminar)
+     */
+    private void ejecutarAccion(HttpServletRequest request, HttpServletResponse response, String accion)
+            throws ServletException, IOException {
+
         // Si no hay acción, es una creación por defecto
         if (accion == null || accion.isEmpty()) {
             crearVehiculo(request, response);
@@ -81,6 +182,7 @@ public class VehiculoServlet extends HttpServlet {
         String modelo = request.getParameter("modelo");
         String color = request.getParameter("color");
         String propietario = request.getParameter("propietario");
+        boolean exito = false;
 
         try {
             Vehiculo nuevoVehiculo = new Vehiculo(placa, marca, modelo, color, propietario);
@@ -88,12 +190,11 @@ public class VehiculoServlet extends HttpServlet {
             // agregar() ahora retorna una notificación especial si aplica
             String notificacion = vehiculoFacade.agregar(nuevoVehiculo);
             
-            request.setAttribute("mensaje", "Vehículo agregado exitosamente");
+            MensajesFlash.guardar(request, "mensaje", "Vehículo agregado exitosamente");
             
             // Si hay notificación especial (ej: Ferrari), mostrarla también
-            if (notificacion != null) {
-                request.setAttribute("notificacion", notificacion);
-            }
+            MensajesFlash.guardar(request, "notificacion", notificacion);
+            exito = true;
 
             // Manejar TODAS las excepciones del EJB (validación, BD, etc.)
         } catch (jakarta.ejb.EJBException e) {
@@ -121,7 +222,12 @@ public class VehiculoServlet extends HttpServlet {
             request.setAttribute("error", "Error inesperado del sistema");
         }
 
-        // Cargar lista de vehículos y redirigir
+        if (exito) {
+            redirigirAlListado(request, response);
+            return;
+        }
+
+        // Cargar lista de vehículos y mostrar el error con los datos del formulario
         cargarListaVehiculos(request, response);
     }
 
@@ -167,20 +273,18 @@ public class VehiculoServlet extends HttpServlet {
         String modelo = request.getParameter("modelo");
         String color = request.getParameter("color");
         String propietario = request.getParameter("propietario");
+        boolean exito = false;
 
         try {
             int id = Integer.parseInt(idStr);
             
-            // Obtener la placa original del vehículo antes de actualizar
-            Vehiculo vehiculoOriginal = vehiculoFacade.buscarPorId(id);
-            String placaOriginal = (vehiculoOriginal != null) ? vehiculoOriginal.getPlaca() : null;
-            
             Vehiculo vehiculo = new Vehiculo(placa, marca, modelo, color, propietario);
             vehiculo.setId(id);
 
-            // Pasar la placa original para que la validación la ignore
-            vehiculoFacade.actualizar(vehiculo, placaOriginal);
-            request.setAttribute("mensaje", "Vehículo actualizado exitosamente");
+            // La fachada ignora la placa actual del vehículo al validar duplicados
+            vehiculoFacade.actualizar(vehiculo);
+            MensajesFlash.guardar(request, "mensaje", "Vehículo actualizado exitosamente");
+            exito = true;
 
         } catch (NumberFormatException e) {
             request.setAttribute("error", "ID de vehículo inválido");
@@ -208,7 +312,12 @@ public class VehiculoServlet extends HttpServlet {
             request.setAttribute("error", "Error inesperado al actualizar: " + e.getMessage());
         }
 
-        // Cargar lista de vehículos y redirigir
+        if (exito) {
+            redirigirAlListado(request, response);
+            return;
+        }
+
+        // Cargar lista de vehículos y mostrar el error con los datos del formulario
         cargarListaVehiculos(request, response);
     }
 
@@ -219,11 +328,13 @@ public class VehiculoServlet extends HttpServlet {
             throws ServletException, IOException {
 
         String idStr = request.getParameter("id");
+        boolean exito = false;
 
         try {
             int id = Integer.parseInt(idStr);
             vehiculoFacade.eliminar(id);
-            request.setAttribute("mensaje", "Vehículo eliminado exitosamente");
+            MensajesFlash.guardar(request, "mensaje", "Vehículo eliminado exitosamente");
+            exito = true;
 
         } catch (NumberFormatException e) {
             request.setAttribute("error", "ID de vehículo inválido");
@@ -247,44 +358,461 @@ public class VehiculoServlet extends HttpServlet {
             request.setAttribute("error", "Error inesperado al eliminar: " + e.getMessage());
         }
 
-        // Cargar lista de vehículos y redirigir
+        if (exito) {
+            redirigirAlListado(request, response);
+            return;
+        }
+
+        // Cargar lista de vehículos y mostrar el error
         cargarListaVehiculos(request, response);
     }
 
     /**
-     * Método auxiliar para cargar la lista de vehículos y redirigir al JSP
+     * Método auxiliar para cargar la página de vehículos y redirigir al JSP
      */
     private void cargarListaVehiculos(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
         try {
-            List<Vehiculo> vehiculos = vehiculoFacade.listar();
-            request.setAttribute("vehicles", vehiculos);
+            request.setAttribute("tablaHtml", renderizarTabla(request, response, request.getParameter("cursor")).getHtml());
         } catch (Exception e) {
-            request.setAttribute("vehicles", new ArrayList<>());
+            request.setAttribute("tablaHtml", renderizarTablaVacia(request, response));
         }
 
-        request.getRequestDispatcher("vehiculo.jsp").forward(request, response);
+        mostrar(request, response, "vehiculo.jsp");
+    }
+
+    /**
+     * Redirige (303) al listado después de una escritura exitosa; los
+     * mensajes ya quedaron en {@link MensajesFlash}.
+     */
+    private static void redirigirAlListado(HttpServletRequest request, HttpServletResponse response) {
+        if (vencida(request)) {
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_SEE_OTHER);
+        response.setHeader("Location", response.encodeRedirectURL(request.getContextPath() + "/vehiculos"));
+    }
+
+    /**
+     * Devuelve la tabla de la página indicada por los parámetros "orden",
+     * "dir" y "tamano" a partir del cursor recibido, aplicando los filtros de
+     * búsqueda ("marca", "color", "propietario", "anioDesde", "anioHasta").
+     *
+     * En un GET se busca primero en {@link CacheTablaVehiculos}; la clave
+     * lleva la versión de los datos leída antes de consultar, así lo que se
+     * arma mientras ocurre una escritura queda con una versión vieja y no se
+     * vuelve a usar. Si no está se consulta la página y se renderiza el JSP
+     * de la tabla. Poco después de una escritura, con réplica, no se usa la
+     * cache: la página puede venir de la réplica sin esa escritura.
+     */
+    private VistaComprimida renderizarTabla(HttpServletRequest request, HttpServletResponse response, String cursor)
+            throws ServletException, IOException, SQLException {
+        FiltroVehiculos filtro = leerFiltro(request);
+        OrdenVehiculo orden = OrdenVehiculo.desdeParametro(request.getParameter("orden"));
+        boolean descendente = "desc".equalsIgnoreCase(request.getParameter("dir"));
+
+        int tamano = TAMANO_PAGINA;
+        String tamanoStr = request.getParameter("tamano");
+        if (tamanoStr != null && !tamanoStr.isEmpty()) {
+            try {
+                tamano = Integer.parseInt(tamanoStr);
+            } catch (NumberFormatException e) {
+                // Se mantiene el tamaño por defecto
+            }
+        }
+
+        boolean usarCache = "GET".equals(request.getMethod()) && !versionDatos.replicaPuedeEstarAtrasada();
+        String clave = versionDatos.actual() + ":" + orden.name() + (descendente ? ":D:" : ":A:") + tamano + ":"
+                + (cursor == null ? "" : cursor) + ":" + filtro.clave();
+        VistaComprimida tabla = usarCache ? tablas.buscar(clave) : null;
+        if (tabla != null) {
+            return tabla;
+        }
+
+        Pagina<Vehiculo> pagina = vehiculoFacade.buscar(filtro, orden, descendente, cursor, tamano);
+        request.setAttribute("pagina", pagina);
+        request.setAttribute("vehicles", pagina.getElementos());
+        tabla = VistaComprimida.de(incluir(request, response, VISTA_TABLA));
+        if (usarCache) {
+            tablas.guardar(clave, tabla);
+        }
+        return tabla;
+    }
+
+    /**
+     * Tabla sin filas, para cuando no se pudo consultar la página.
+     */
+    private String renderizarTablaVacia(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        request.removeAttribute("pagina");
+        request.setAttribute("vehicles", new ArrayList<>());
+        return incluir(request, response, VISTA_TABLA);
+    }
+
+    /**
+     * Renderiza un JSP en memoria y devuelve el HTML, midiendo el tiempo
+     * igual que {@link #mostrar}.
+     */
+    private static String incluir(HttpServletRequest request, HttpServletResponse response, String vista)
+            throws ServletException, IOException {
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            RespuestaCapturada captura = new RespuestaCapturada(response);
+            request.getRequestDispatcher(vista).include(request, captura);
+            error = false;
+            return captura.getContenido();
+        } finally {
+            RegistroMetricas.histograma("jsp", vista.substring(vista.lastIndexOf('/') + 1))
+                    .registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Responde sólo la tabla (vista=tabla), en la variante comprimida que
+     * acepte el cliente.
+     */
+    private static void servirTabla(HttpServletRequest request, HttpServletResponse response, VistaComprimida tabla)
+            throws IOException {
+        if (vencida(request)) {
+            return;
+        }
+        String codificacion = VistaComprimida.elegirCodificacion(request.getHeader("Accept-Encoding"));
+        byte[] cuerpo = tabla.cuerpo(codificacion);
+        response.setContentType("text/html;charset=UTF-8");
+        response.setHeader("Vary", "Accept-Encoding");
+        if (codificacion != null) {
+            response.setHeader("Content-Encoding", codificacion);
+        }
+        response.setContentLength(cuerpo.length);
+        response.getOutputStream().write(cuerpo);
+    }
+
+    /**
+     * Lee los filtros de búsqueda y los deja en el atributo "filtro" para el
+     * formulario. Si no son válidos se informa el error y se lista sin
+     * filtrar.
+     *
+     * Sólo en GET: en un POST los parámetros marca, color y propietario son
+     * los del formulario de alta o edición, y tras un error la lista se
+     * mostraría filtrada por el vehículo rechazado.
+     */
+    private FiltroVehiculos leerFiltro(HttpServletRequest request) {
+        FiltroVehiculos filtro;
+        if (!"GET".equals(request.getMethod())) {
+            request.setAttribute("filtro", FiltroVehiculos.NINGUNO);
+            return FiltroVehiculos.NINGUNO;
+        }
+        try {
+            filtro = FiltroVehiculos.de(
+                    request.getParameter("marca"),
+                    request.getParameter("color"),
+                    request.getParameter("propietario"),
+                    leerAnio(request.getParameter("anioDesde")),
+                    leerAnio(request.getParameter("anioHasta")));
+        } catch (IllegalArgumentException e) {
+            request.setAttribute("error", e.getMessage());
+            filtro = FiltroVehiculos.NINGUNO;
+        }
+        request.setAttribute("filtro", filtro);
+        return filtro;
+    }
+
+    private static Integer leerAnio(String valor) {
+        if (valor == null || valor.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El año debe ser un número de 4 dígitos");
+        }
     }
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
+        // Con mensajes pendientes la página cambia aunque los datos no
+        if (versionDatos.replicaPuedeEstarAtrasada()) {
+            // La página puede no tener la última escritura: sin validadores
+            response.setHeader("Cache-Control", "no-cache");
+        } else if (!MensajesFlash.hayPendientes(request)) {
+            long inicio = System.nanoTime();
+            if (ValidadoresHttp.noModificado(request, response,
+                    versionDatos.actual(), versionDatos.getUltimaModificacion())) {
+                medir(request, "noModificado", inicio, true);
+                return;
+            }
+        }
+        atender(request, response, "listar", TipoOperacion.LECTURA, () -> listarVehiculos(request, response));
+    }
+
+    /**
+     * Admite la acción y la ejecuta en este hilo o, en modo asíncrono, en el
+     * ejecutor de solicitudes; en ambos casos registra su duración.
+     */
+    private void atender(HttpServletRequest request, HttpServletResponse response, String operacion,
+            TipoOperacion tipo, Accion accion) throws ServletException, IOException {
+        ControlAdmision.Permiso permiso;
+        try {
+            permiso = admision.admitir(tipo);
+        } catch (SobrecargaException e) {
+            responderNoDisponible(response);
+            return;
+        }
+        if (ejecutor.isAsincrono() && request.isAsyncSupported()) {
+            atenderAsincrono(request, response, operacion, permiso, accion);
+            return;
+        }
+        long inicio = System.nanoTime();
+        boolean completada = false;
+        permiso.vincular();
         try {
-            List<Vehiculo> vehiculos = vehiculoFacade.listar();
+            accion.ejecutar();
+            completada = true;
+        } finally {
+            permiso.liberar(!completada);
+            medir(request, operacion, inicio, completada);
+        }
+    }
 
-            request.setAttribute("vehicles", vehiculos);
+    /**
+     * Libera el hilo del contenedor: la acción corre en el ejecutor, dentro
+     * de un contexto de solicitud CDI propio (su propia unidad de trabajo), y
+     * al terminar se despacha la vista. Si el ejecutor está lleno o la
+     * solicitud vence, se responde 503 y se cancela la tarea; lo que la
+     * acción haga después ya no escribe la respuesta ni despacha la vista. El
+     * permiso de admisión se devuelve cuando termina la acción.
+     */
+    private void atenderAsincrono(HttpServletRequest request, HttpServletResponse response, String operacion,
+            ControlAdmision.Permiso permiso, Accion accion) throws IOException {
+        long inicio = System.nanoTime();
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(TIMEOUT_ASINCRONO_MS);
+        long[] inicioVista = new long[1];
+        AtomicBoolean terminada = new AtomicBoolean();
+        AtomicBoolean iniciada = new AtomicBoolean();
+        AtomicReference<Future<?>> tarea = new AtomicReference<>();
+        request.setAttribute(TERMINADA, terminada);
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent evento) {
+                Object vista = request.getAttribute(VISTA_PENDIENTE);
+                if (vista != null && inicioVista[0] != 0) {
+                    RegistroMetricas.histograma("jsp", vista.toString().substring(1))
+                            .registrar(System.nanoTime() - inicioVista[0], false);
+                }
+            }
 
-            request.getRequestDispatcher("/vehiculo.jsp").forward(request, response);
+            @Override
+            public void onTimeout(AsyncEvent evento) throws IOException {
+                if (!terminada.compareAndSet(false, true)) {
+                    return;
+                }
+                System.err.println("Solicitud " + operacion + " sin terminar tras " + TIMEOUT_ASINCRONO_MS + " ms");
+                Future<?> enCurso = tarea.get();
+                if (enCurso != null) {
+                    enCurso.cancel(true);
+                }
+                // Si la tarea no llegó a empezar, el permiso se devuelve aquí
+                if (iniciada.compareAndSet(false, true)) {
+                    permiso.cancelar();
+                }
+                responderNoDisponible(response);
+                async.complete();
+            }
 
+            @Override
+            public void onError(AsyncEvent evento) {
+                // El contenedor completa la solicitud
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent evento) {
+                // No se reinicia el modo asíncrono
+            }
+        });
+
+        try {
+            tarea.set(ejecutor.ejecutar(() -> {
+                if (!iniciada.compareAndSet(false, true)) {
+                    return;
+                }
+                RequestContextController control = controladoresContexto.get();
+                control.activate();
+                boolean completada = false;
+                permiso.vincular();
+                try {
+                    TrazaJdbc traza = ciclo.abrir(request);
+                    try {
+                        accion.ejecutar();
+                        completada = true;
+                    } finally {
+                        ciclo.cerrar(request, response, traza, completada);
+                    }
+                } catch (ServletException | IOException | RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    permiso.liberar(!completada);
+                    control.deactivate();
+                    controladoresContexto.destroy(control);
+                    medir(request, operacion, inicio, completada);
+                }
+                if (terminada.compareAndSet(false, true)) {
+                    inicioVista[0] = System.nanoTime();
+                    despachar(async, request, response, completada);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            permiso.cancelar();
+            terminada.set(true);
+            System.err.println("Ejecutor de solicitudes lleno; se rechaza " + operacion);
+            responderNoDisponible(response);
+            async.complete();
+        }
+    }
+
+    /**
+     * Despacha la vista elegida por la acción, o termina la solicitud si la
+     * acción ya escribió la respuesta (redirección o tabla), o responde 500
+     * si terminó con excepción. Sólo se llama si la solicitud no venció.
+     */
+    private static void despachar(AsyncContext async, HttpServletRequest request, HttpServletResponse response,
+            boolean completada) {
+        try {
+            Object vista = request.getAttribute(VISTA_PENDIENTE);
+            if (completada && vista != null) {
+                async.dispatch(vista.toString());
+                return;
+            }
+            if (!completada) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+            async.complete();
+        } catch (IllegalStateException | IOException e) {
+            System.err.println("No se pudo terminar la solicitud asíncrona: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return true si la solicitud asíncrona ya terminó (venció mientras la
+     * acción corría) y no debe escribirse la respuesta
+     */
+    private static boolean vencida(HttpServletRequest request) {
+        Object terminada = request.getAttribute(TERMINADA);
+        return terminada instanceof AtomicBoolean && ((AtomicBoolean) terminada).get();
+    }
+
+    private static void responderNoDisponible(HttpServletResponse response) throws IOException {
+        if (!response.isCommitted()) {
+            response.setHeader("Retry-After", Integer.toString(ControlAdmision.REINTENTO_SEGUNDOS));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Muestra la página de vehículos pedida por GET
+     */
+    private void listarVehiculos(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        MensajesFlash.exponer(request);
+        // Antes de consultar: la página se pone al día desde aquí con el feed
+        request.setAttribute("secuenciaCambios", feed.ultimaSecuencia());
+        try {
+            VistaComprimida tabla = renderizarTabla(request, response, request.getParameter("cursor"));
+            if ("tabla".equals(request.getParameter("vista"))) {
+                servirTabla(request, response, tabla);
+                return;
+            }
+
+            request.setAttribute("tablaHtml", tabla.getHtml());
+
+            mostrar(request, response, "/vehiculo.jsp");
+
+        } catch (jakarta.ejb.EJBException e) {
+            // Cursor inválido o de otro orden: se muestra la primera página
+            Throwable causa = e.getCause();
+            if (causa instanceof IllegalArgumentException) {
+                request.setAttribute("error", causa.getMessage());
+                try {
+                    request.setAttribute("tablaHtml", renderizarTabla(request, response, null).getHtml());
+                } catch (Exception ex) {
+                    request.setAttribute("tablaHtml", renderizarTablaVacia(request, response));
+                }
+                mostrar(request, response, "/vehiculo.jsp");
+            } else {
+                e.printStackTrace();
+                request.setAttribute("error", "Ocurrió un error inesperado: " + e.getMessage());
+                ValidadoresHttp.descartar(response);
+                mostrar(request, response, "error.jsp");
+            }
         } catch (SQLException e) {
             e.printStackTrace();
             request.setAttribute("error", "Error al cargar la lista de vehículos: " + e.getMessage());
-            request.getRequestDispatcher("error.jsp").forward(request, response);
+            ValidadoresHttp.descartar(response);
+            mostrar(request, response, "error.jsp");
         } catch (Exception e) {
             e.printStackTrace();
             request.setAttribute("error", "Ocurrió un error inesperado: " + e.getMessage());
-            request.getRequestDispatcher("error.jsp").forward(request, response);
+            ValidadoresHttp.descartar(response);
+            mostrar(request, response, "error.jsp");
+        }
+    }
+
+    /**
+     * Reenvía a la vista midiendo el tiempo de renderizado del JSP.
+     */
+    private void mostrar(HttpServletRequest request, HttpServletResponse response, String vista)
+            throws ServletException, IOException {
+        if (request.isAsyncStarted()) {
+            // Se despacha al terminar la unidad de trabajo (ver atenderAsincrono)
+            request.setAttribute(VISTA_PENDIENTE, vista.startsWith("/") ? vista : "/" + vista);
+            return;
+        }
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            request.getRequestDispatcher(vista).forward(request, response);
+            error = false;
+        } finally {
+            RegistroMetricas.histograma("jsp", vista.startsWith("/") ? vista.substring(1) : vista)
+                    .registrar(System.nanoTime() - inicio, error);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Registra la duración de la acción; cuenta como error si terminó con
+     * excepción o con un mensaje de error para el usuario.
+     */
+    private static void medir(HttpServletRequest request, String operacion, long inicio, boolean completada) {
+        RegistroMetricas.histograma("servlet", operacion)
+                .registrar(System.nanoTime() - inicio, !completada || request.getAttribute("error") != null);
+    }
+
+    /**
+     * Nombre de la acción para las métricas (sin acción = crear).
+     */
+    private static String nombreOperacion(String accion) {
+        if (accion != null) {
+            switch (accion) {
+                case "editar":
+                case "actualizar":
+                case "eliminar":
+                    return accion;
+                default:
+                    break;
+            }
+        }
+        return "crear";
+    }
+
+    /**
+     * Acción del servlet que puede correr en el hilo del contenedor o en el
+     * ejecutor de solicitudes.
+     */
+    private interface Accion {
+
+        void ejecutar() throws ServletException, IOException;
+    }
+}
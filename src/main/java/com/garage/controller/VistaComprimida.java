@@ -0,0 +1,105 @@
+package com.garage.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTML ya renderizado junto con sus variantes gzip y deflate, comprimidas
+ * una sola vez al guardarlo, para responder sin volver a comprimir.
+ */
+public final class VistaComprimida {
+
+    private final String html;
+    private final byte[] identidad;
+    private final byte[] gzip;
+    private final byte[] deflate;
+
+    private VistaComprimida(String html, byte[] identidad, byte[] gzip, byte[] deflate) {
+        this.html = html;
+        this.identidad = identidad;
+        this.gzip = gzip;
+        this.deflate = deflate;
+    }
+
+    /**
+     * Codifica el HTML en UTF-8 y arma ambas variantes comprimidas.
+     */
+    public static VistaComprimida de(String html) {
+        byte[] identidad = html.getBytes(StandardCharsets.UTF_8);
+        try {
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(identidad.length / 4 + 64);
+            try (OutputStream salida = new GZIPOutputStream(gzip)) {
+                salida.write(identidad);
+            }
+            // "deflate" en HTTP es el formato zlib, que es lo que escribe Deflater por defecto
+            ByteArrayOutputStream deflate = new ByteArrayOutputStream(identidad.length / 4 + 64);
+            try (OutputStream salida = new DeflaterOutputStream(deflate)) {
+                salida.write(identidad);
+            }
+            return new VistaComprimida(html, identidad, gzip.toByteArray(), deflate.toByteArray());
+        } catch (IOException e) {
+            // Sólo escribe en memoria
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Elige la codificación a usar según el encabezado Accept-Encoding:
+     * gzip si se acepta, si no deflate, si no ninguna. Una codificación con
+     * q=0 cuenta como no aceptada.
+     *
+     * @return "gzip", "deflate" o null
+     */
+    public static String elegirCodificacion(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String parte : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] campos = parte.split(";");
+            String nombre = campos[0].trim();
+            if (campos.length > 1 && campos[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+                continue;
+            }
+            if (nombre.equals("gzip") || nombre.equals("*")) {
+                return "gzip";
+            }
+            deflate |= nombre.equals("deflate");
+        }
+        return deflate ? "deflate" : null;
+    }
+
+    /**
+     * @return HTML sin comprimir
+     */
+    public String getHtml() {
+        return html;
+    }
+
+    /**
+     * @param codificacion "gzip", "deflate" o null para el original
+     * @return bytes listos para escribir en la respuesta
+     */
+    public byte[] cuerpo(String codificacion) {
+        if ("gzip".equals(codificacion)) {
+            return gzip;
+        }
+        if ("deflate".equals(codificacion)) {
+            return deflate;
+        }
+        return identidad;
+    }
+
+    /**
+     * @return bytes ocupados por las tres variantes
+     */
+    public int getBytes() {
+        return identidad.length + gzip.length + deflate.length;
+    }
+}
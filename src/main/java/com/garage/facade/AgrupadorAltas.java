@@ -0,0 +1,280 @@
+package com.garage.facade;
+
+import com.garage.model.Vehiculo;
+import com.garage.notificaciones.BandejaSalida;
+import com.garage.persistence.VehiculoDAO;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+/**
+ * Group commit de altas: junta los INSERT que llegan casi a la vez y los
+ * escribe en un solo lote JDBC y una sola transacción, así el costo del
+ * commit (fsync del log en MySQL) y del checkout de conexión se reparte
+ * entre todas las filas del lote.
+ *
+ * Cada llamada a {@link #agregar} encola su vehículo y espera. Un hilo
+ * escritor toma el primero de la cola, junta los que lleguen durante a lo
+ * sumo la espera configurada (o hasta completar el lote) y los inserta. Si
+ * el lote falla en alguna fila (placa duplicada u otro error de esa fila),
+ * se revierte y se repite fila por fila en la misma transacción, cada una
+ * con su savepoint; sólo la llamada de la fila que falla recibe el error.
+ *
+ * Los escritores son hilos de la fábrica que recibe el constructor; en el
+ * servidor, la ManagedThreadFactory del contenedor.
+ *
+ * Las notificaciones de las filas insertadas van a la bandeja de salida en
+ * la misma transacción del lote.
+ *
+ * No valida ni reserva placas: eso lo hace la fachada antes de encolar.
+ */
+public final class AgrupadorAltas {
+
+    private final DataSource ds;
+    private final long esperaNanos;
+    private final int maxLote;
+    private final int escritores;
+    private final BandejaSalida bandeja;
+    private final ThreadFactory fabricaHilos;
+    private final BlockingQueue<AltaPendiente> cola = new LinkedBlockingQueue<>();
+    private final List<Thread> hilos = new ArrayList<>();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong filas = new AtomicLong();
+    private volatile boolean activo;
+
+    /**
+     * @param esperaMs tiempo máximo que el primer vehículo de un lote espera
+     * a otros (0 = sólo los que ya están en cola)
+     * @param maxLote filas máximas por lote
+     * @param escritores hilos escritores (cada uno usa una conexión)
+     * @param bandeja bandeja de salida de notificaciones, o null
+     * @param fabricaHilos fábrica de los hilos escritores
+     */
+    public AgrupadorAltas(DataSource ds, double esperaMs, int maxLote, int escritores, BandejaSalida bandeja,
+            ThreadFactory fabricaHilos) {
+        this.ds = ds;
+        this.esperaNanos = (long) (Math.max(0, esperaMs) * 1_000_000);
+        this.maxLote = Math.max(1, maxLote);
+        this.escritores = Math.max(1, escritores);
+        this.bandeja = bandeja;
+        this.fabricaHilos = fabricaHilos;
+    }
+
+    public synchronized void iniciar() {
+        if (activo) {
+            return;
+        }
+        activo = true;
+        for (int i = 1; i <= escritores; i++) {
+            Thread hilo = fabricaHilos.newThread(this::escribir);
+            hilo.start();
+            hilos.add(hilo);
+        }
+    }
+
+    /**
+     * Detiene los escritores; las altas que quedaban en cola fallan.
+     */
+    public synchronized void detener() {
+        activo = false;
+        for (Thread hilo : hilos) {
+            hilo.interrupt();
+        }
+        for (Thread hilo : hilos) {
+            try {
+                hilo.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        hilos.clear();
+        List<AltaPendiente> restantes = new ArrayList<>();
+        cola.drainTo(restantes);
+        fallar(restantes, new SQLException("El agrupador de altas se detuvo"));
+    }
+
+    /**
+     * Inserta el vehículo en el próximo lote y espera a que se confirme. Al
+     * volver, el id generado queda asignado en el vehículo.
+     *
+     * @throws IllegalArgumentException si la placa ya existe en la BD
+     * @throws SQLException si falló el lote
+     */
+    public void agregar(Vehiculo v) throws SQLException {
+        if (!activo) {
+            throw new SQLException("El agrupador de altas no está activo");
+        }
+        AltaPendiente alta = new AltaPendiente(v);
+        cola.add(alta);
+        if (!activo && cola.remove(alta)) {
+            // Se detuvo mientras encolaba
+            throw new SQLException("El agrupador de altas no está activo");
+        }
+        try {
+            alta.resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Alta interrumpida mientras esperaba su lote", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof SQLException) {
+                throw (SQLException) causa;
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new SQLException("Error al escribir el lote de altas", causa);
+        }
+    }
+
+    public boolean isActivo() {
+        return activo;
+    }
+
+    /**
+     * @return lotes escritos, filas y filas por lote en promedio
+     */
+    public long getLotes() {
+        return lotes.get();
+    }
+
+    public long getFilas() {
+        return filas.get();
+    }
+
+    public double getFilasPorLote() {
+        long l = lotes.get();
+        return l == 0 ? 0 : (double) filas.get() / l;
+    }
+
+    private void escribir() {
+        List<AltaPendiente> lote = new ArrayList<>(maxLote);
+        while (activo) {
+            try {
+                lote.add(cola.take());
+                long limite = System.nanoTime() + esperaNanos;
+                cola.drainTo(lote, maxLote - lote.size());
+                while (lote.size() < maxLote) {
+                    long resta = limite - System.nanoTime();
+                    AltaPendiente siguiente = resta > 0 ? cola.poll(resta, TimeUnit.NANOSECONDS) : null;
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                    cola.drainTo(lote, maxLote - lote.size());
+                }
+                insertar(lote);
+            } catch (InterruptedException e) {
+                fallar(lote, new SQLException("El agrupador de altas se detuvo"));
+                return;
+            } catch (SQLException | RuntimeException e) {
+                fallar(lote, e);
+            } catch (Error e) {
+                fallar(lote, e);
+                throw e;
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Escribe el lote en una transacción y completa cada alta.
+     */
+    private void insertar(List<AltaPendiente> lote) throws SQLException {
+        List<Vehiculo> vehiculos = new ArrayList<>(lote.size());
+        for (AltaPendiente alta : lote) {
+            vehiculos.add(alta.vehiculo);
+        }
+        Exception[] errores = new Exception[lote.size()];
+        int notificadas = 0;
+
+        try (Connection con = ds.getConnection()) {
+            VehiculoDAO dao = new VehiculoDAO(con);
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            try {
+                try {
+                    dao.agregarLote(vehiculos);
+                } catch (BatchUpdateException ex) {
+                    // Alguna fila falló (p. ej. placa registrada por otro nodo): fila por fila
+                    con.rollback();
+                    for (int i = 0; i < vehiculos.size(); i++) {
+                        Vehiculo v = vehiculos.get(i);
+                        v.setId(0);
+                        Savepoint antes = con.setSavepoint();
+                        try {
+                            dao.agregar(v);
+                            con.releaseSavepoint(antes);
+                        } catch (SQLException exFila) {
+                            con.rollback(antes);
+                            v.setId(0);
+                            errores[i] = VehiculoDAO.esClaveDuplicada(exFila)
+                                    ? new IllegalArgumentException(VehiculoFacade.MENSAJE_PLACA_DUPLICADA)
+                                    : exFila;
+                        }
+                    }
+                }
+                if (bandeja != null) {
+                    List<Vehiculo> insertados = new ArrayList<>(vehiculos.size());
+                    for (int i = 0; i < vehiculos.size(); i++) {
+                        if (errores[i] == null) {
+                            insertados.add(vehiculos.get(i));
+                        }
+                    }
+                    notificadas = bandeja.registrar(con, insertados);
+                }
+                con.commit();
+            } catch (SQLException ex) {
+                con.rollback();
+                throw ex;
+            } finally {
+                con.setAutoCommit(autoCommit);
+            }
+        }
+
+        if (notificadas > 0) {
+            bandeja.avisar();
+        }
+        lotes.incrementAndGet();
+        filas.addAndGet(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            if (errores[i] != null) {
+                lote.get(i).resultado.completeExceptionally(errores[i]);
+            } else {
+                lote.get(i).resultado.complete(null);
+            }
+        }
+    }
+
+    private static void fallar(List<AltaPendiente> lote, Throwable causa) {
+        for (AltaPendiente alta : lote) {
+            alta.resultado.completeExceptionally(causa);
+        }
+    }
+
+    /**
+     * Vehículo en espera de su lote.
+     */
+    private static final class AltaPendiente {
+
+        private final Vehiculo vehiculo;
+        private final CompletableFuture<Void> resultado = new CompletableFuture<>();
+
+        AltaPendiente(Vehiculo vehiculo) {
+            this.vehiculo = vehiculo;
+        }
+    }
+}
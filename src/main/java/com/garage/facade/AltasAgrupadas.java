@@ -0,0 +1,86 @@
+package com.garage.facade;
+
+import com.garage.config.Configuracion;
+import com.garage.persistence.DataSourceInstrumentado;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Altas con group commit ({@link AgrupadorAltas}), activas con
+ * garage.altas.agrupar=true. Las usa {@link VehiculoFacade#agregar} cuando la
+ * solicitud no tiene una transacción propia que deba incluir el INSERT.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class AltasAgrupadas {
+
+    private static final boolean AGRUPAR = Configuracion.booleano("garage.altas.agrupar", false);
+    private static final double ESPERA_MS = Configuracion.decimal("garage.altas.esperaMs", 1);
+    private static final int MAX_LOTE = Configuracion.entero("garage.altas.maxLote", 64);
+    private static final int ESCRITORES = Configuracion.entero("garage.altas.escritores", 1);
+
+    @Resource(lookup = "jdbc/garageDB")
+    private DataSource ds;
+
+    @EJB
+    private NotificacionesSalida notificaciones;
+
+    @Resource
+    private ManagedThreadFactory fabricaHilos;
+
+    private AgrupadorAltas agrupador;
+
+    @PostConstruct
+    void iniciar() {
+        if (AGRUPAR) {
+            agrupador = new AgrupadorAltas(DataSourceInstrumentado.envolver(ds), ESPERA_MS, MAX_LOTE, ESCRITORES,
+                    notificaciones.getBandeja(), fabricaHilos);
+            agrupador.iniciar();
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        if (agrupador != null) {
+            agrupador.detener();
+        }
+    }
+
+    public boolean isActivas() {
+        return agrupador != null && agrupador.isActivo();
+    }
+
+    /**
+     * @return el agrupador, o null si las altas agrupadas están apagadas. Se
+     * llama directo (no a través del EJB) para que la placa duplicada llegue
+     * a la fachada como IllegalArgumentException y no envuelta.
+     */
+    public AgrupadorAltas getAgrupador() {
+        return isActivas() ? agrupador : null;
+    }
+
+    /**
+     * @return configuración, lotes escritos y filas por lote
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("activas", isActivas());
+        datos.put("esperaMs", ESPERA_MS);
+        datos.put("maxLote", MAX_LOTE);
+        if (agrupador != null) {
+            datos.put("lotes", agrupador.getLotes());
+            datos.put("filas", agrupador.getFilas());
+            datos.put("filasPorLote", agrupador.getFilasPorLote());
+        }
+        return datos;
+    }
+}
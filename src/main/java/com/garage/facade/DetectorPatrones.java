@@ -0,0 +1,201 @@
+package com.garage.facade;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Buscador de varios patrones a la vez (autómata Aho-Corasick), sin
+ * distinguir mayúsculas de minúsculas.
+ *
+ * Los patrones se pasan a minúsculas una sola vez al construir el autómata y
+ * las transiciones se precalculan como tabla (DFA), así cada búsqueda
+ * recorre el texto una vez, con un acceso a arreglo por carácter y sin crear
+ * objetos. Es inmutable y se puede compartir entre hilos.
+ */
+public final class DetectorPatrones {
+
+    private final String[] patrones;
+
+    /**
+     * Clase de símbolo de cada carácter ASCII; 0 = no aparece en ningún
+     * patrón.
+     */
+    private final int[] claseAscii = new int[128];
+
+    /**
+     * Caracteres no ASCII de los patrones, ordenados para búsqueda binaria.
+     * Su clase es 1 + cantidad de ASCII distintos + posición.
+     */
+    private final char[] noAscii;
+    private final int claseBaseNoAscii;
+
+    private final int simbolos;
+
+    /**
+     * transiciones[estado * simbolos + clase] = estado siguiente.
+     */
+    private final int[] transiciones;
+
+    /**
+     * Patrón reconocido al llegar a cada estado (propio o por sufijo), -1 si
+     * ninguno.
+     */
+    private final int[] salida;
+
+    private DetectorPatrones(String[] patrones) {
+        this.patrones = patrones;
+
+        TreeSet<Character> ascii = new TreeSet<>();
+        TreeSet<Character> otros = new TreeSet<>();
+        for (String p : patrones) {
+            for (int i = 0; i < p.length(); i++) {
+                char c = p.charAt(i);
+                (c < 128 ? ascii : otros).add(c);
+            }
+        }
+        int clase = 1;
+        for (char c : ascii) {
+            claseAscii[c] = clase++;
+        }
+        claseBaseNoAscii = clase;
+        noAscii = new char[otros.size()];
+        int k = 0;
+        for (char c : otros) {
+            noAscii[k++] = c;
+        }
+        simbolos = claseBaseNoAscii + noAscii.length;
+
+        // 1) Trie de los patrones
+        List<int[]> hijos = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        hijos.add(nuevoNodo());
+        terminal.add(-1);
+        for (int p = 0; p < patrones.length; p++) {
+            int estado = 0;
+            String patron = patrones[p];
+            for (int i = 0; i < patron.length(); i++) {
+                int c = clase(patron.charAt(i));
+                if (hijos.get(estado)[c] < 0) {
+                    hijos.get(estado)[c] = hijos.size();
+                    hijos.add(nuevoNodo());
+                    terminal.add(-1);
+                }
+                estado = hijos.get(estado)[c];
+            }
+            if (terminal.get(estado) < 0) {
+                terminal.set(estado, p);
+            }
+        }
+
+        // 2) Enlaces de fallo por BFS, completando la tabla de transiciones
+        int estados = hijos.size();
+        transiciones = new int[estados * simbolos];
+        salida = new int[estados];
+        int[] fallo = new int[estados];
+        ArrayDeque<Integer> cola = new ArrayDeque<>();
+
+        salida[0] = terminal.get(0);
+        for (int c = 0; c < simbolos; c++) {
+            int h = hijos.get(0)[c];
+            if (h < 0) {
+                transiciones[c] = 0;
+            } else {
+                transiciones[c] = h;
+                fallo[h] = 0;
+                cola.add(h);
+            }
+        }
+        while (!cola.isEmpty()) {
+            int s = cola.poll();
+            salida[s] = terminal.get(s) >= 0 ? terminal.get(s) : salida[fallo[s]];
+            for (int c = 0; c < simbolos; c++) {
+                int h = hijos.get(s)[c];
+                if (h < 0) {
+                    transiciones[s * simbolos + c] = transiciones[fallo[s] * simbolos + c];
+                } else {
+                    transiciones[s * simbolos + c] = h;
+                    fallo[h] = transiciones[fallo[s] * simbolos + c];
+                    cola.add(h);
+                }
+            }
+        }
+    }
+
+    /**
+     * Construye el detector. Los patrones vacíos o nulos se ignoran.
+     *
+     * @param patrones patrones a buscar; el orden define el índice que
+     * devuelve {@link #buscar(CharSequence)}
+     */
+    public static DetectorPatrones compilar(Collection<String> patrones) {
+        List<String> normalizados = new ArrayList<>();
+        for (String p : patrones) {
+            if (p != null && !p.isEmpty()) {
+                normalizados.add(minusculas(p));
+            }
+        }
+        return new DetectorPatrones(normalizados.toArray(new String[0]));
+    }
+
+    /**
+     * Busca cualquiera de los patrones dentro del texto.
+     *
+     * @return índice del primer patrón encontrado (el que termina antes en el
+     * texto), o -1 si no contiene ninguno
+     */
+    public int buscar(CharSequence texto) {
+        int estado = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = Character.toLowerCase(texto.charAt(i));
+            estado = transiciones[estado * simbolos + clase(c)];
+            if (salida[estado] >= 0) {
+                return salida[estado];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return el patrón (en minúsculas) con el índice indicado
+     */
+    public String patron(int indice) {
+        return patrones[indice];
+    }
+
+    /**
+     * @return cantidad de patrones
+     */
+    public int cantidad() {
+        return patrones.length;
+    }
+
+    private int clase(char c) {
+        if (c < 128) {
+            return claseAscii[c];
+        }
+        int pos = Arrays.binarySearch(noAscii, c);
+        return pos < 0 ? 0 : claseBaseNoAscii + pos;
+    }
+
+    private int[] nuevoNodo() {
+        int[] nodo = new int[simbolos];
+        Arrays.fill(nodo, -1);
+        return nodo;
+    }
+
+    /**
+     * Minúsculas carácter a carácter, igual que se pliega el texto en
+     * {@link #buscar(CharSequence)}.
+     */
+    private static String minusculas(String p) {
+        char[] cs = p.toCharArray();
+        for (int i = 0; i < cs.length; i++) {
+            cs[i] = Character.toLowerCase(cs[i]);
+        }
+        return new String(cs);
+    }
+}
@@ -0,0 +1,136 @@
+package com.garage.facade;
+
+import com.garage.config.Configuracion;
+import com.garage.model.CambioVehiculo;
+import com.garage.model.Vehiculo;
+import com.garage.persistence.UnidadDeTrabajo;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Últimos cambios confirmados de la tabla de vehículos, en un buffer
+ * circular de garage.feed.capacidad entradas numeradas. Los clientes leen a
+ * partir del último número que vieron ({@link #desde}); si ese número ya
+ * salió del buffer, el primer cambio devuelto no es el siguiente y el cliente
+ * sabe que debe recargar todo.
+ *
+ * La numeración arranca en la hora de inicio en milisegundos, como
+ * {@link VersionDatos}: un número visto antes de reiniciar el servidor queda
+ * fuera del buffer nuevo. Sólo ve las escrituras hechas por este nodo.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class FeedCambios {
+
+    private static final int CAPACIDAD = Math.max(16, Configuracion.entero("garage.feed.capacidad", 1024));
+
+    private final CambioVehiculo[] buffer = new CambioVehiculo[CAPACIDAD];
+    private final long inicio = System.currentTimeMillis();
+    private long ultima = inicio;
+    private final List<Runnable> oyentes = new CopyOnWriteArrayList<>();
+
+    @Resource
+    private TransactionSynchronizationRegistry registroTransacciones;
+
+    @Inject
+    private UnidadDeTrabajo unidad;
+
+    /**
+     * Publica el cambio cuando la transacción actual se confirme; si se
+     * revierte, no se publica.
+     *
+     * @param vehiculo datos tras el cambio (se copian); null para bajas
+     */
+    public void publicarTrasConfirmar(String tipo, int id, Vehiculo vehiculo) {
+        Vehiculo copia = vehiculo != null ? new Vehiculo(vehiculo) : null;
+        TrasTransaccion.registrar(registroTransacciones, unidad, confirmada -> {
+            if (confirmada) {
+                publicar(tipo, id, copia);
+            }
+        });
+    }
+
+    /**
+     * Agrega el cambio al buffer y avisa a los oyentes.
+     */
+    public void publicar(String tipo, int id, Vehiculo vehiculo) {
+        synchronized (buffer) {
+            long secuencia = ultima + 1;
+            buffer[(int) (secuencia % CAPACIDAD)] = new CambioVehiculo(secuencia, tipo, id, vehiculo,
+                    System.currentTimeMillis());
+            ultima = secuencia;
+        }
+        for (Runnable oyente : oyentes) {
+            try {
+                oyente.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error al avisar un cambio de vehículo: " + e);
+            }
+        }
+    }
+
+    /**
+     * Cambios posteriores a la secuencia indicada, en orden. Si alguno ya
+     * salió del buffer se devuelven los que quedan: el primero tendrá una
+     * secuencia mayor que secuencia + 1.
+     *
+     * @param maximo cantidad máxima a devolver
+     */
+    public List<CambioVehiculo> desde(long secuencia, int maximo) {
+        synchronized (buffer) {
+            if (secuencia >= ultima) {
+                return Collections.emptyList();
+            }
+            long primera = Math.max(secuencia + 1, ultima - CAPACIDAD + 1);
+            long hasta = Math.min(ultima, primera + maximo - 1);
+            List<CambioVehiculo> cambios = new ArrayList<>((int) (hasta - primera + 1));
+            for (long s = primera; s <= hasta; s++) {
+                CambioVehiculo cambio = buffer[(int) (s % CAPACIDAD)];
+                // Al arrancar el buffer tiene huecos antes del primer cambio
+                if (cambio != null && cambio.getSecuencia() == s) {
+                    cambios.add(cambio);
+                }
+            }
+            return cambios;
+        }
+    }
+
+    /**
+     * @return true si el buffer todavía tiene todos los cambios posteriores
+     * a la secuencia indicada
+     */
+    public boolean disponible(long secuencia) {
+        synchronized (buffer) {
+            return secuencia <= ultima && secuencia >= Math.max(inicio, ultima - CAPACIDAD);
+        }
+    }
+
+    /**
+     * @return secuencia del último cambio publicado
+     */
+    public long ultimaSecuencia() {
+        synchronized (buffer) {
+            return ultima;
+        }
+    }
+
+    /**
+     * Registra un aviso que se ejecuta, en el hilo que publica, después de
+     * cada cambio. Debe ser rápido: sólo agendar la lectura.
+     */
+    public void escuchar(Runnable oyente) {
+        oyentes.add(oyente);
+    }
+
+    public void dejarDeEscuchar(Runnable oyente) {
+        oyentes.remove(oyente);
+    }
+}
@@ -0,0 +1,252 @@
+package com.garage.facade;
+
+import com.garage.config.Configuracion;
+import com.garage.model.CoincidenciaPlaca;
+import com.garage.persistence.DataSourceInstrumentado;
+import com.garage.persistence.UnidadDeTrabajo;
+import com.garage.persistence.VehiculoDAO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+
+/**
+ * Índice en memoria de placas registradas, para validar unicidad sin ir a la
+ * base de datos en cada escritura.
+ *
+ * Las claves se normalizan (sin espacios extremos y en mayúsculas), igual que
+ * la comparación equalsIgnoreCase de la fachada. Reservar una placa es un
+ * putIfAbsent atómico, así que dos altas concurrentes con la misma placa no
+ * pueden pasar ambas la validación. Aun así, el índice único de la tabla es
+ * el árbitro final: si otro nodo insertó la placa, el INSERT falla y la
+ * fachada lo traduce al mensaje habitual.
+ *
+ * También mantiene un {@link IndiceTrigramas} con las mismas placas, para
+ * búsquedas por fragmento o aproximadas. Se actualiza en los mismos puntos
+ * que el mapa de placas: al cargar y al confirmar cada escritura.
+ */
+@Singleton
+@Startup
+@DependsOn("MigracionesEsquema")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class IndicePlacas {
+
+    /**
+     * Marca de una placa tomada por una escritura que aún no confirma.
+     */
+    private static final Integer RESERVADA = -1;
+
+    private static final double SIMILITUD_MINIMA = Configuracion.decimal("garage.placas.similitudMinima", 0.3);
+
+    private final ConcurrentHashMap<String, Integer> idPorPlaca = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> placaPorId = new ConcurrentHashMap<>();
+    private final IndiceTrigramas trigramas = new IndiceTrigramas();
+
+    private volatile boolean listo;
+
+    @Resource(lookup = "jdbc/garageDB")
+    private DataSource ds;
+
+    @Resource
+    private TransactionSynchronizationRegistry registroTransacciones;
+
+    @Inject
+    private UnidadDeTrabajo unidad;
+
+    @PostConstruct
+    void cargar() {
+        ds = DataSourceInstrumentado.envolver(ds);
+        try {
+            recargar();
+        } catch (SQLException ex) {
+            // Sin índice la fachada sigue validando contra la BD
+            System.err.println("No se pudo cargar el índice de placas: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Vuelve a leer todas las placas de la tabla. Mientras tanto el índice
+     * queda fuera de servicio y la fachada consulta la BD.
+     */
+    public void recargar() throws SQLException {
+        listo = false;
+        idPorPlaca.clear();
+        placaPorId.clear();
+        try (Connection con = ds.getConnection()) {
+            new VehiculoDAO(con).recorrerPlacas((placa, id) -> {
+                if (placa != null) {
+                    String normalizada = normalizar(placa);
+                    idPorPlaca.put(normalizada, id);
+                    placaPorId.put(id, normalizada);
+                }
+            });
+        }
+        trigramas.cargar(placaPorId);
+        listo = true;
+    }
+
+    /**
+     * @return true si el índice está cargado y se puede consultar
+     */
+    public boolean isListo() {
+        return listo;
+    }
+
+    /**
+     * @return cantidad de placas indexadas
+     */
+    public int tamano() {
+        return idPorPlaca.size();
+    }
+
+    /**
+     * Busca placas que contienen el texto y, si se pide, placas parecidas,
+     * ordenadas por relevancia. Sólo es confiable si {@link #isListo()}.
+     *
+     * @param consulta texto a buscar; se normaliza igual que las placas
+     * @param limite máximo de resultados
+     * @param tolerante true para incluir placas con errores de tipeo
+     */
+    public List<CoincidenciaPlaca> buscarPlacas(String consulta, int limite, boolean tolerante) {
+        return trigramas.buscar(normalizar(consulta), limite, tolerante, SIMILITUD_MINIMA);
+    }
+
+    /**
+     * Busca en un conjunto de placas que no está en el índice, con la misma
+     * relevancia que {@link #buscarPlacas}. La fachada lo usa mientras el
+     * índice no está listo.
+     *
+     * @param placas placas por id de vehículo, sin normalizar
+     */
+    public static List<CoincidenciaPlaca> buscarEn(Map<Integer, String> placas, String consulta, int limite,
+            boolean tolerante) {
+        IndiceTrigramas temporal = new IndiceTrigramas();
+        placas.replaceAll((id, placa) -> normalizar(placa));
+        temporal.cargar(placas);
+        return temporal.buscar(normalizar(consulta), limite, tolerante, SIMILITUD_MINIMA);
+    }
+
+    /**
+     * @return tamaño y memoria estimada del índice de trigramas
+     */
+    public Map<String, Object> estadisticasTrigramas() {
+        return trigramas.estadisticas();
+    }
+
+    /**
+     * Forma canónica de una placa para comparar.
+     */
+    public static String normalizar(String placa) {
+        return placa == null ? null : placa.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * @return placa normalizada registrada para el vehículo, o null si no se
+     * conoce
+     */
+    public String placaDe(int id) {
+        return placaPorId.get(id);
+    }
+
+    /**
+     * Intenta tomar la placa para una escritura en curso.
+     *
+     * @param normalizada placa ya normalizada
+     * @return true si quedó reservada para quien llama
+     */
+    public boolean reservar(String normalizada) {
+        return idPorPlaca.putIfAbsent(normalizada, RESERVADA) == null;
+    }
+
+    /**
+     * @return true si la placa está reservada por otra escritura que aún no
+     * termina
+     */
+    public boolean reservadaEnCurso(String normalizada) {
+        return RESERVADA.equals(idPorPlaca.get(normalizada));
+    }
+
+    /**
+     * Toma una placa que el índice da por usada pero que la BD confirmó
+     * libre (por ejemplo, la borró otro nodo).
+     *
+     * @return true si se pudo tomar; false si cambió mientras tanto
+     */
+    public boolean tomarObsoleta(String normalizada) {
+        Integer dueno = idPorPlaca.get(normalizada);
+        if (dueno == null) {
+            return reservar(normalizada);
+        }
+        if (RESERVADA.equals(dueno) || !idPorPlaca.replace(normalizada, dueno, RESERVADA)) {
+            return false;
+        }
+        if (placaPorId.remove(dueno, normalizada)) {
+            trigramas.quitar(dueno);
+        }
+        return true;
+    }
+
+    /**
+     * Libera una reserva que no llegó a usarse (validación o INSERT
+     * fallido).
+     */
+    public void liberar(String normalizada) {
+        if (normalizada != null) {
+            idPorPlaca.remove(normalizada, RESERVADA);
+        }
+    }
+
+    /**
+     * Al confirmar la transacción asigna la placa reservada al vehículo y
+     * libera la que tenía antes; si se revierte, libera la reserva.
+     *
+     * @param reservada placa normalizada reservada, o null si la placa no
+     * cambió
+     * @param id id del vehículo
+     */
+    public void asignarTrasConfirmar(String reservada, int id) {
+        if (reservada == null) {
+            return;
+        }
+        TrasTransaccion.registrar(registroTransacciones, unidad, confirmada -> {
+            if (!confirmada) {
+                liberar(reservada);
+                return;
+            }
+            idPorPlaca.put(reservada, id);
+            String anterior = placaPorId.put(id, reservada);
+            if (anterior != null && !anterior.equals(reservada)) {
+                idPorPlaca.remove(anterior, id);
+            }
+            trigramas.agregar(id, reservada);
+        });
+    }
+
+    /**
+     * Al confirmar la transacción quita del índice la placa del vehículo
+     * eliminado.
+     */
+    public void eliminarTrasConfirmar(int id) {
+        TrasTransaccion.registrar(registroTransacciones, unidad, confirmada -> {
+            if (confirmada) {
+                String placa = placaPorId.remove(id);
+                if (placa != null) {
+                    idPorPlaca.remove(placa, id);
+                }
+                trigramas.quitar(id);
+            }
+        });
+    }
+}
@@ -0,0 +1,483 @@
+package com.garage.facade;
+
+import com.garage.model.CoincidenciaPlaca;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice de trigramas sobre las placas, para buscar por fragmentos ("BC1"
+ * encuentra "ABC123") y tolerar errores de tipeo sin recorrer la tabla.
+ *
+ * Cada placa se rellena con dos espacios al inicio y uno al final y se parte
+ * en trigramas; cada trigrama apunta a un arreglo ordenado de ids. Una
+ * búsqueda por fragmento intersecta las listas de los trigramas del texto y
+ * confirma con contains; la aproximada cuenta trigramas en común y ordena por
+ * similitud. Las listas se reemplazan completas al modificarse (copia en
+ * escritura): las lecturas no toman candados y las escrituras, que son
+ * pocas, se serializan en el índice.
+ */
+public final class IndiceTrigramas {
+
+    private static final char RELLENO = ' ';
+    private static final int[] VACIO = new int[0];
+
+    // Tamaños aproximados en una JVM de 64 bits con referencias comprimidas
+    private static final int BYTES_NODO_MAPA = 32;
+    private static final int BYTES_LONG = 16;
+    private static final int BYTES_INTEGER = 16;
+    private static final int BYTES_CABECERA_ARREGLO = 16;
+    private static final int BYTES_REFERENCIA = 4;
+
+    private static final Comparator<Candidato> POR_RELEVANCIA = Comparator
+            .comparing((Candidato c) -> c.aproximada)
+            .thenComparing(Comparator.comparingDouble((Candidato c) -> c.puntaje).reversed())
+            .thenComparingInt(c -> c.desempate)
+            .thenComparing(c -> c.placa);
+
+    private final ConcurrentHashMap<Long, int[]> listas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> placaPorId = new ConcurrentHashMap<>();
+
+    /**
+     * Reemplaza el contenido del índice. Arma cada lista una sola vez en
+     * lugar de copiarla por cada placa, como haría {@link #agregar}.
+     *
+     * @param placas placas normalizadas por id de vehículo
+     */
+    public synchronized void cargar(Map<Integer, String> placas) {
+        Map<Long, int[]> acumuladas = new HashMap<>();
+        Map<Long, Integer> usados = new HashMap<>();
+        for (Map.Entry<Integer, String> e : placas.entrySet()) {
+            if (e.getValue() == null) {
+                continue;
+            }
+            int id = e.getKey();
+            for (long t : trigramas(e.getValue(), true)) {
+                int[] lista = acumuladas.get(t);
+                int usado = usados.getOrDefault(t, 0);
+                if (lista == null) {
+                    lista = new int[4];
+                } else if (usado == lista.length) {
+                    lista = Arrays.copyOf(lista, usado * 2);
+                }
+                lista[usado] = id;
+                acumuladas.put(t, lista);
+                usados.put(t, usado + 1);
+            }
+        }
+        listas.clear();
+        placaPorId.clear();
+        for (Map.Entry<Long, int[]> e : acumuladas.entrySet()) {
+            int[] lista = Arrays.copyOf(e.getValue(), usados.get(e.getKey()));
+            Arrays.sort(lista);
+            listas.put(e.getKey(), lista);
+        }
+        for (Map.Entry<Integer, String> e : placas.entrySet()) {
+            if (e.getValue() != null) {
+                placaPorId.put(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * Indexa la placa del vehículo, reemplazando la que tuviera antes.
+     *
+     * @param placa placa normalizada
+     */
+    public synchronized void agregar(int id, String placa) {
+        String anterior = placaPorId.put(id, placa);
+        if (placa.equals(anterior)) {
+            return;
+        }
+        if (anterior != null) {
+            for (long t : trigramas(anterior, true)) {
+                quitarDeLista(t, id);
+            }
+        }
+        for (long t : trigramas(placa, true)) {
+            agregarALista(t, id);
+        }
+    }
+
+    /**
+     * Quita del índice la placa del vehículo, si la tenía.
+     */
+    public synchronized void quitar(int id) {
+        String anterior = placaPorId.remove(id);
+        if (anterior != null) {
+            for (long t : trigramas(anterior, true)) {
+                quitarDeLista(t, id);
+            }
+        }
+    }
+
+    /**
+     * Busca placas que contienen el texto y, si se pide, placas parecidas.
+     * Primero van las que contienen el texto (la exacta, luego las más
+     * cortas y las que lo tienen más al inicio); después las aproximadas, por
+     * similitud y distancia de edición.
+     *
+     * @param consulta texto normalizado a buscar
+     * @param limite máximo de resultados
+     * @param tolerante true para incluir placas parecidas
+     * @param similitudMinima similitud (0 a 1) que debe alcanzar una placa
+     * aproximada
+     */
+    public List<CoincidenciaPlaca> buscar(String consulta, int limite, boolean tolerante, double similitudMinima) {
+        if (consulta == null || consulta.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+        List<Candidato> candidatos = new ArrayList<>();
+        if (consulta.length() < 3) {
+            // Sin trigramas que consultar: las placas son pocas y cortas
+            for (Map.Entry<Integer, String> e : placaPorId.entrySet()) {
+                agregarSiContiene(candidatos, e.getKey(), e.getValue(), consulta);
+            }
+        } else {
+            for (int id : interseccion(trigramas(consulta, false))) {
+                agregarSiContiene(candidatos, id, placaPorId.get(id), consulta);
+            }
+            if (tolerante) {
+                agregarAproximadas(candidatos, consulta, similitudMinima);
+            }
+        }
+        candidatos.sort(POR_RELEVANCIA);
+        List<CoincidenciaPlaca> resultado = new ArrayList<>(Math.min(limite, candidatos.size()));
+        for (Candidato c : candidatos) {
+            if (resultado.size() == limite) {
+                break;
+            }
+            resultado.add(new CoincidenciaPlaca(c.id, c.placa, c.aproximada, c.puntaje));
+        }
+        return resultado;
+    }
+
+    /**
+     * @return cantidad de placas indexadas
+     */
+    public int getPlacas() {
+        return placaPorId.size();
+    }
+
+    /**
+     * @return cantidad de trigramas distintos
+     */
+    public int getTrigramas() {
+        return listas.size();
+    }
+
+    /**
+     * Tamaño del índice, memoria estimada y memoria por placa. Las placas
+     * no se cuentan: son las mismas instancias que guarda
+     * {@link IndicePlacas}.
+     */
+    public Map<String, Object> estadisticas() {
+        long entradas = 0;
+        long bytes = 0;
+        int trigramas = 0;
+        for (int[] lista : listas.values()) {
+            trigramas++;
+            entradas += lista.length;
+            bytes += BYTES_NODO_MAPA + BYTES_LONG + alinear(BYTES_CABECERA_ARREGLO + 4L * lista.length);
+        }
+        int placas = placaPorId.size();
+        bytes += (long) placas * (BYTES_NODO_MAPA + BYTES_INTEGER);
+        bytes += BYTES_REFERENCIA * (capacidadTabla(trigramas) + capacidadTabla(placas));
+
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("placas", placas);
+        datos.put("trigramas", trigramas);
+        datos.put("entradas", entradas);
+        datos.put("bytesEstimados", bytes);
+        datos.put("bytesPorPlaca", placas == 0 ? 0 : bytes / placas);
+        return datos;
+    }
+
+    /**
+     * Trigramas distintos del texto, ordenados. Con relleno incluye los de
+     * inicio y fin de la placa, que sirven para comparar placas completas;
+     * sin relleno sólo los interiores, que debe contener cualquier placa que
+     * contenga el texto.
+     */
+    static long[] trigramas(String texto, boolean relleno) {
+        String s = relleno ? "" + RELLENO + RELLENO + texto + RELLENO : texto;
+        int n = s.length() - 2;
+        if (n <= 0) {
+            return new long[0];
+        }
+        long[] t = new long[n];
+        for (int i = 0; i < n; i++) {
+            t[i] = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+        Arrays.sort(t);
+        int distintos = 1;
+        for (int i = 1; i < n; i++) {
+            if (t[i] != t[distintos - 1]) {
+                t[distintos++] = t[i];
+            }
+        }
+        return distintos == n ? t : Arrays.copyOf(t, distintos);
+    }
+
+    /**
+     * Ids presentes en todas las listas de los trigramas, empezando por la
+     * más corta.
+     */
+    private int[] interseccion(long[] trigramas) {
+        int[][] porLargo = new int[trigramas.length][];
+        for (int i = 0; i < trigramas.length; i++) {
+            int[] lista = listas.get(trigramas[i]);
+            if (lista == null) {
+                return VACIO;
+            }
+            porLargo[i] = lista;
+        }
+        Arrays.sort(porLargo, Comparator.comparingInt(l -> l.length));
+        int[] resultado = porLargo[0];
+        for (int i = 1; i < porLargo.length && resultado.length > 0; i++) {
+            resultado = intersectar(resultado, porLargo[i]);
+        }
+        return resultado;
+    }
+
+    private static int[] intersectar(int[] a, int[] b) {
+        int[] r = new int[a.length];
+        int n = 0;
+        int j = 0;
+        for (int x : a) {
+            while (j < b.length && b[j] < x) {
+                j++;
+            }
+            if (j == b.length) {
+                break;
+            }
+            if (b[j] == x) {
+                r[n++] = x;
+            }
+        }
+        return n == r.length ? r : Arrays.copyOf(r, n);
+    }
+
+    private static void agregarSiContiene(List<Candidato> candidatos, int id, String placa, String consulta) {
+        int posicion = placa == null ? -1 : placa.indexOf(consulta);
+        if (posicion >= 0) {
+            candidatos.add(new Candidato(id, placa, false,
+                    (double) consulta.length() / placa.length(), posicion));
+        }
+    }
+
+    /**
+     * Cuenta los trigramas que cada placa comparte con la consulta y agrega
+     * las que no la contienen pero se parecen lo suficiente. La similitud es
+     * la mayor entre la de placa completa (Jaccard de trigramas con relleno)
+     * y la de fragmento (fracción de trigramas interiores de la consulta
+     * presentes en la placa).
+     *
+     * Una placa que alcanza la similitud mínima comparte al menos
+     * {@code minimo} trigramas, así que tiene que aparecer en alguna de las
+     * {@code n - minimo + 1} listas más cortas. Sólo esas se recorren (en
+     * orden de id, sin armar mapas); en las largas, como los trigramas de
+     * inicio de placa que comparten miles de placas, se busca cada candidata
+     * avanzando a saltos desde la anterior, porque llegan en orden de id.
+     */
+    private void agregarAproximadas(List<Candidato> candidatos, String consulta, double similitudMinima) {
+        long[] conRelleno = trigramas(consulta, true);
+        long[] interiores = trigramas(consulta, false);
+        int n = 0;
+        int[][] porLargo = new int[conRelleno.length][];
+        boolean[] esInterior = new boolean[conRelleno.length];
+        for (long t : conRelleno) {
+            int[] lista = listas.get(t);
+            if (lista != null) {
+                porLargo[n] = lista;
+                esInterior[n] = Arrays.binarySearch(interiores, t) >= 0;
+                n++;
+            }
+        }
+        int minimo = Math.max(1, Math.min((int) Math.ceil(similitudMinima * conRelleno.length),
+                (int) Math.ceil(similitudMinima * interiores.length)));
+        if (n < minimo) {
+            return;
+        }
+        ordenarPorLargo(porLargo, esInterior, n);
+
+        int[] yaIncluidas = new int[candidatos.size()];
+        for (int i = 0; i < yaIncluidas.length; i++) {
+            yaIncluidas[i] = candidatos.get(i).id;
+        }
+        Arrays.sort(yaIncluidas);
+
+        int cortas = n - minimo + 1;
+        int[] posicion = new int[n];
+        while (true) {
+            int id = Integer.MAX_VALUE;
+            for (int k = 0; k < cortas; k++) {
+                if (posicion[k] < porLargo[k].length && porLargo[k][posicion[k]] < id) {
+                    id = porLargo[k][posicion[k]];
+                }
+            }
+            if (id == Integer.MAX_VALUE) {
+                break;
+            }
+            int total = 0;
+            int interior = 0;
+            for (int k = 0; k < cortas; k++) {
+                if (posicion[k] < porLargo[k].length && porLargo[k][posicion[k]] == id) {
+                    posicion[k]++;
+                    total++;
+                    interior += esInterior[k] ? 1 : 0;
+                }
+            }
+            if (total + (n - cortas) < minimo || Arrays.binarySearch(yaIncluidas, id) >= 0) {
+                continue;
+            }
+            for (int k = cortas; k < n; k++) {
+                posicion[k] = avanzar(porLargo[k], posicion[k], id);
+                if (posicion[k] < porLargo[k].length && porLargo[k][posicion[k]] == id) {
+                    total++;
+                    interior += esInterior[k] ? 1 : 0;
+                }
+            }
+            double fragmento = (double) interior / interiores.length;
+            // Cota superior de Jaccard, para no partir placas que no alcanzan
+            if (Math.max((double) total / conRelleno.length, fragmento) < similitudMinima) {
+                continue;
+            }
+            String placa = placaPorId.get(id);
+            if (placa == null) {
+                continue;
+            }
+            double jaccard = (double) total / (conRelleno.length + trigramas(placa, true).length - total);
+            double similitud = Math.min(Math.max(jaccard, fragmento), 0.99);
+            if (similitud >= similitudMinima) {
+                candidatos.add(new Candidato(id, placa, true, similitud, distancia(consulta, placa)));
+            }
+        }
+    }
+
+    /**
+     * Primera posición desde {@code desde} con un id mayor o igual al
+     * buscado: salta de a 1, 2, 4... y termina con búsqueda binaria.
+     */
+    private static int avanzar(int[] lista, int desde, int id) {
+        int salto = 1;
+        int hasta = desde;
+        while (hasta < lista.length && lista[hasta] < id) {
+            desde = hasta + 1;
+            hasta += salto;
+            salto <<= 1;
+        }
+        int pos = Arrays.binarySearch(lista, desde, Math.min(hasta + 1, lista.length), id);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    /**
+     * Ordena las primeras n listas de menor a mayor largo, llevando consigo
+     * su marca de trigrama interior. Son a lo sumo unas decenas.
+     */
+    private static void ordenarPorLargo(int[][] listas, boolean[] marcas, int n) {
+        for (int i = 1; i < n; i++) {
+            int[] lista = listas[i];
+            boolean marca = marcas[i];
+            int j = i - 1;
+            while (j >= 0 && listas[j].length > lista.length) {
+                listas[j + 1] = listas[j];
+                marcas[j + 1] = marcas[j];
+                j--;
+            }
+            listas[j + 1] = lista;
+            marcas[j + 1] = marca;
+        }
+    }
+
+    /**
+     * Distancia de Levenshtein, para desempatar placas igual de parecidas.
+     */
+    static int distancia(String a, String b) {
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                actual[j] = Math.min(Math.min(actual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + costo);
+            }
+            int[] tmp = anterior;
+            anterior = actual;
+            actual = tmp;
+        }
+        return anterior[b.length()];
+    }
+
+    private void agregarALista(long trigrama, int id) {
+        int[] lista = listas.get(trigrama);
+        if (lista == null) {
+            listas.put(trigrama, new int[]{id});
+            return;
+        }
+        int pos = Arrays.binarySearch(lista, id);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        int[] nueva = new int[lista.length + 1];
+        System.arraycopy(lista, 0, nueva, 0, pos);
+        nueva[pos] = id;
+        System.arraycopy(lista, pos, nueva, pos + 1, lista.length - pos);
+        listas.put(trigrama, nueva);
+    }
+
+    private void quitarDeLista(long trigrama, int id) {
+        int[] lista = listas.get(trigrama);
+        int pos = lista == null ? -1 : Arrays.binarySearch(lista, id);
+        if (pos < 0) {
+            return;
+        }
+        if (lista.length == 1) {
+            listas.remove(trigrama);
+            return;
+        }
+        int[] nueva = new int[lista.length - 1];
+        System.arraycopy(lista, 0, nueva, 0, pos);
+        System.arraycopy(lista, pos + 1, nueva, pos, lista.length - pos - 1);
+        listas.put(trigrama, nueva);
+    }
+
+    private static long alinear(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static int capacidadTabla(int elementos) {
+        int capacidad = 16;
+        while (capacidad * 3L / 4 < elementos) {
+            capacidad <<= 1;
+        }
+        return capacidad;
+    }
+
+    private static final class Candidato {
+
+        final int id;
+        final String placa;
+        final boolean aproximada;
+        final double puntaje;
+        final int desempate;
+
+        Candidato(int id, String placa, boolean aproximada, double puntaje, int desempate) {
+            this.id = id;
+            this.placa = placa;
+            this.aproximada = aproximada;
+            this.puntaje = puntaje;
+            this.desempate = desempate;
+        }
+    }
+}
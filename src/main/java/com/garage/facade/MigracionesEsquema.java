@@ -0,0 +1,119 @@
+package com.garage.facade;
+
+import com.garage.config.Configuracion;
+import com.garage.persistence.EsquemaVehiculos;
+import com.garage.persistence.VerificadorIndices;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Al desplegar, lleva el esquema de jdbc/garageDB a la última versión
+ * ({@link EsquemaVehiculos}) y revisa con EXPLAIN que las consultas del DAO
+ * usen índices ({@link VerificadorIndices}). Los problemas van al log con un
+ * aviso bien visible pero no impiden el despliegue: la aplicación funciona
+ * igual con un esquema creado a mano.
+ *
+ * {@link IndicePlacas} depende de este bean para no leer la tabla antes de
+ * que exista.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class MigracionesEsquema {
+
+    private static final boolean MIGRAR = Configuracion.booleano("garage.esquema.migrar", true);
+    private static final boolean VERIFICAR = Configuracion.booleano("garage.esquema.verificarIndices", true);
+    private static final long FILAS_ALERTA = Configuracion.enteroLargo("garage.esquema.filasAlerta", 10_000);
+
+    @Resource(lookup = "jdbc/garageDB")
+    private DataSource ds;
+
+    private volatile int version = -1;
+    private volatile String error;
+    private volatile List<String> aplicadas = Collections.emptyList();
+    private volatile List<String> advertencias = Collections.emptyList();
+
+    /**
+     * Fuera de transacción: en MySQL cada DDL confirma solo y no puede ir en
+     * una transacción JTA.
+     */
+    @PostConstruct
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    void iniciar() {
+        try (Connection con = ds.getConnection()) {
+            if (MIGRAR) {
+                migrar(con);
+            }
+            if (VERIFICAR) {
+                verificar(con);
+            }
+        } catch (SQLException ex) {
+            error = ex.getMessage();
+            avisar("No se pudo revisar el esquema de la base de datos", List.of(ex.getMessage()));
+        }
+    }
+
+    private void migrar(Connection con) {
+        try {
+            aplicadas = EsquemaVehiculos.migrar(con);
+            for (String migracion : aplicadas) {
+                System.err.println("Migración de esquema aplicada: " + migracion);
+            }
+        } catch (SQLException ex) {
+            error = ex.getMessage();
+            avisar("Falló la migración del esquema; las siguientes quedan pendientes hasta el próximo despliegue",
+                    List.of(ex.getMessage()));
+        }
+        try {
+            version = EsquemaVehiculos.version(con);
+        } catch (SQLException ex) {
+            version = -1;
+        }
+    }
+
+    private void verificar(Connection con) throws SQLException {
+        advertencias = VerificadorIndices.verificar(con, FILAS_ALERTA);
+        if (!advertencias.isEmpty()) {
+            avisar("Consultas de vehículos sin índice: revise los índices de la tabla vehiculos", advertencias);
+        }
+    }
+
+    private static void avisar(String titulo, List<String> detalles) {
+        StringBuilder aviso = new StringBuilder()
+                .append("\n********************************************************************\n")
+                .append("* ATENCIÓN: ").append(titulo).append('\n');
+        for (String detalle : detalles) {
+            aviso.append("*   - ").append(detalle).append('\n');
+        }
+        aviso.append("********************************************************************");
+        System.err.println(aviso);
+    }
+
+    /**
+     * @return versión del esquema, migraciones aplicadas en este arranque,
+     * último error y advertencias de EXPLAIN
+     */
+    public Map<String, Object> estado() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("version", version);
+        datos.put("versionEsperada", EsquemaVehiculos.VERSION_ACTUAL);
+        datos.put("aplicadas", new ArrayList<>(aplicadas));
+        datos.put("error", error);
+        datos.put("advertencias", new ArrayList<>(advertencias));
+        return datos;
+    }
+}
@@ -0,0 +1,137 @@
+package com.garage.facade;
+
+import com.garage.config.Configuracion;
+import com.garage.notificaciones.BandejaSalida;
+import com.garage.notificaciones.DespachadorNotificaciones;
+import com.garage.notificaciones.DestinoArchivo;
+import com.garage.notificaciones.DestinoLog;
+import com.garage.notificaciones.DestinoNotificaciones;
+import com.garage.notificaciones.DestinoSimulado;
+import com.garage.notificaciones.ReglasNotificacion;
+import com.garage.persistence.DataSourceInstrumentado;
+import com.garage.persistence.EsquemaVehiculos;
+import com.garage.persistence.NotificacionDAO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Notificaciones asíncronas: arranca el despachador que vacía la bandeja de
+ * salida y entrega a la fachada la {@link BandejaSalida} donde las altas
+ * dejan sus notificaciones. Con garage.notificaciones.habilitadas=false, o
+ * si la tabla de la bandeja no existe (la migración 4 no se aplicó), no se
+ * guarda ni se envía nada; las reglas se siguen evaluando para el mensaje de
+ * la pantalla.
+ *
+ * El destino es un sustituto local mientras no haya integración real: el
+ * log del servidor o un archivo de líneas JSON, opcionalmente con latencia
+ * y fallos simulados para probar reintentos y control de flujo.
+ */
+@Singleton
+@Startup
+@DependsOn("MigracionesEsquema")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class NotificacionesSalida {
+
+    private static final boolean HABILITADAS = Configuracion.booleano("garage.notificaciones.habilitadas", true);
+    private static final String DESTINO = Configuracion.texto("garage.notificaciones.destino", "log");
+    private static final String ARCHIVO = Configuracion.texto("garage.notificaciones.archivo", "notificaciones.jsonl");
+    private static final long LATENCIA_SIMULADA_MS = Configuracion.enteroLargo("garage.notificaciones.latenciaSimuladaMs", 0);
+    private static final double PROBABILIDAD_FALLO = Configuracion.decimal("garage.notificaciones.probabilidadFallo", 0);
+    private static final int LOTE = Configuracion.entero("garage.notificaciones.lote", 100);
+    private static final int HILOS = Configuracion.entero("garage.notificaciones.hilos", 1);
+    private static final long INTERVALO_MS = Configuracion.enteroLargo("garage.notificaciones.intervaloMs", 1000);
+    private static final int MAX_INTENTOS = Configuracion.entero("garage.notificaciones.maxIntentos", 8);
+    private static final long REINTENTO_BASE_MS = Configuracion.enteroLargo("garage.notificaciones.reintentoBaseMs", 1000);
+    private static final long REINTENTO_MAX_MS = Configuracion.enteroLargo("garage.notificaciones.reintentoMaxMs", 300000);
+    private static final long RECLAMO_MS = Configuracion.enteroLargo("garage.notificaciones.reclamoMs", 60000);
+
+    @Resource(lookup = "jdbc/garageDB")
+    private DataSource ds;
+
+    @Resource
+    private ManagedThreadFactory fabricaHilos;
+
+    private DespachadorNotificaciones despachador;
+    private BandejaSalida bandeja;
+
+    @PostConstruct
+    void iniciar() {
+        if (!HABILITADAS || !existeBandeja()) {
+            return;
+        }
+        DestinoNotificaciones destino = "archivo".equalsIgnoreCase(DESTINO)
+                ? new DestinoArchivo(Paths.get(ARCHIVO))
+                : new DestinoLog();
+        if (LATENCIA_SIMULADA_MS > 0 || PROBABILIDAD_FALLO > 0) {
+            destino = new DestinoSimulado(destino, LATENCIA_SIMULADA_MS, PROBABILIDAD_FALLO);
+        }
+        despachador = new DespachadorNotificaciones(DataSourceInstrumentado.envolver(ds), destino, LOTE,
+                INTERVALO_MS, HILOS, MAX_INTENTOS, REINTENTO_BASE_MS, REINTENTO_MAX_MS, RECLAMO_MS, fabricaHilos);
+        bandeja = new BandejaSalida(ReglasNotificacion.configuradas(), despachador);
+        despachador.iniciar();
+    }
+
+    /**
+     * Comprueba en la base que la tabla de la bandeja exista; sin ella cada
+     * alta que aplique a una regla fallaría al registrar su notificación.
+     */
+    private boolean existeBandeja() {
+        try (Connection con = ds.getConnection()) {
+            if (EsquemaVehiculos.existeTabla(con, NotificacionDAO.TABLA)) {
+                return true;
+            }
+            System.err.println("No existe la tabla " + NotificacionDAO.TABLA
+                    + " (migración de esquema pendiente); las notificaciones quedan apagadas");
+        } catch (SQLException ex) {
+            System.err.println("No se pudo revisar la tabla " + NotificacionDAO.TABLA
+                    + "; las notificaciones quedan apagadas: " + ex.getMessage());
+        }
+        return false;
+    }
+
+    @PreDestroy
+    void detener() {
+        if (despachador != null) {
+            despachador.detener();
+        }
+    }
+
+    /**
+     * @return la bandeja, o null si las notificaciones están apagadas o no
+     * existe su tabla. Se usa
+     * directo (no a través del EJB) porque registra con la conexión de quien
+     * llama, dentro de su transacción.
+     */
+    public BandejaSalida getBandeja() {
+        return bandeja;
+    }
+
+    /**
+     * @return configuración, reglas, contadores del despachador y filas de la
+     * bandeja por estado
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("habilitadas", HABILITADAS);
+        datos.put("activas", bandeja != null);
+        datos.put("destino", DESTINO);
+        datos.put("reglas", ReglasNotificacion.configuradas().getCantidad());
+        if (despachador != null) {
+            datos.putAll(despachador.estadisticas());
+        }
+        return datos;
+    }
+}
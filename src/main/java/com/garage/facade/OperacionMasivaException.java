@@ -0,0 +1,28 @@
+package com.garage.facade;
+
+import com.garage.model.ResultadoMasivo;
+import java.sql.SQLException;
+
+/**
+ * Error de base de datos a mitad de una operación masiva. Los bloques
+ * anteriores ya quedaron confirmados; {@link #getResultadoParcial()} dice
+ * hasta dónde se llegó.
+ */
+public class OperacionMasivaException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ResultadoMasivo resultadoParcial;
+
+    public OperacionMasivaException(SQLException causa, ResultadoMasivo resultadoParcial) {
+        super(causa.getMessage(), causa.getSQLState(), causa.getErrorCode(), causa);
+        this.resultadoParcial = resultadoParcial;
+    }
+
+    /**
+     * @return bloques confirmados antes del error
+     */
+    public ResultadoMasivo getResultadoParcial() {
+        return resultadoParcial;
+    }
+}
@@ -0,0 +1,58 @@
+package com.garage.facade;
+
+import com.garage.persistence.UnidadDeTrabajo;
+import jakarta.enterprise.context.ContextNotActiveException;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.function.Consumer;
+
+/**
+ * Ejecuta acciones sobre estructuras en memoria (cache, índices) cuando
+ * termina la transacción actual, para que reflejen sólo lo que quedó
+ * confirmado en la base de datos.
+ */
+final class TrasTransaccion {
+
+    private TrasTransaccion() {
+    }
+
+    /**
+     * Registra la acción para el final de la transacción activa: primero la
+     * de la unidad de trabajo de la solicitud (modo transaccional), luego la
+     * JTA del contenedor. Si no hay ninguna la ejecuta de inmediato como
+     * confirmada.
+     *
+     * @param registro registro de sincronización del contenedor (puede ser
+     * null fuera del contenedor)
+     * @param unidad unidad de trabajo de la solicitud (proxy CDI)
+     * @param accion recibe true si la transacción se confirmó y false si se
+     * revirtió
+     */
+    static void registrar(TransactionSynchronizationRegistry registro, UnidadDeTrabajo unidad,
+            Consumer<Boolean> accion) {
+        if (unidad != null) {
+            try {
+                if (unidad.alTerminar(accion)) {
+                    return;
+                }
+            } catch (ContextNotActiveException e) {
+                // Fuera de una solicitud (arranque, timers): no hay unidad de trabajo
+            }
+        }
+        if (registro == null || registro.getTransactionKey() == null) {
+            accion.accept(true);
+            return;
+        }
+        registro.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int estado) {
+                accion.accept(estado == Status.STATUS_COMMITTED);
+            }
+        });
+    }
+}
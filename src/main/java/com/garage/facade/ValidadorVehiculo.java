@@ -0,0 +1,213 @@
+package com.garage.facade;
+
+import com.garage.config.Configuracion;
+import com.garage.model.Vehiculo;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reglas de validación de un vehículo que no necesitan la base de datos.
+ *
+ * No guarda estado, así que se puede usar desde varios hilos a la vez (la
+ * importación masiva valida filas en paralelo). La unicidad de la placa se
+ * valida aparte en la fachada.
+ */
+final class ValidadorVehiculo {
+
+    private ValidadorVehiculo() {
+    }
+
+    /**
+     * Patrones peligrosos comunes en SQL Injection (conjunto por defecto).
+     */
+    private static final String[] PATRONES_PELIGROSOS = {
+        "'", "\"", ";", "--", "/*", "*/", "xp_", "sp_", 
+        "exec", "execute", "select", "insert", "update", 
+        "delete", "drop", "create", "alter", "union", "or 1=1", "or '1'='1'"
+    };
+
+    /**
+     * Archivo opcional (un patrón por línea, "#" para comentarios) que
+     * reemplaza el conjunto por defecto.
+     */
+    private static final String ARCHIVO_PATRONES = Configuracion.texto("garage.sqli.archivoPatrones", null);
+
+    /**
+     * Autómata compilado una sola vez con todos los patrones.
+     */
+    private static final DetectorPatrones DETECTOR = DetectorPatrones.compilar(cargarPatrones());
+
+    /**
+     * Validación simulada de SQL Injection.
+     * Busca patrones comunes que podrían indicar intentos de inyección SQL.
+     */
+    static void validarSQLInjection(Vehiculo v) throws IllegalArgumentException {
+        // Validar cada campo del vehículo
+        validarCampo(v.getPlaca(), "Placa");
+        validarCampo(v.getMarca(), "Marca");
+        validarCampo(v.getModelo(), "Modelo");
+        validarCampo(v.getColor(), "Color");
+        validarCampo(v.getPropietario(), "Propietario");
+    }
+
+    /**
+     * @return el patrón peligroso encontrado en el valor, o null si no
+     * contiene ninguno
+     */
+    static String patronPeligroso(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return null;
+        }
+        int indice = DETECTOR.buscar(valor);
+        return indice < 0 ? null : DETECTOR.patron(indice);
+    }
+    
+    /**
+     * Valida un campo individual contra patrones de SQL Injection
+     */
+    private static void validarCampo(String valor, String nombreCampo) 
+            throws IllegalArgumentException {
+        
+        String patron = patronPeligroso(valor);
+        if (patron != null) {
+            throw new IllegalArgumentException(
+                "El campo '" + nombreCampo + "' contiene caracteres no permitidos que podrían representar un riesgo de seguridad (SQL Injection detectado)"
+            );
+        }
+    }
+
+    /**
+     * Lee los patrones del archivo configurado o, si no hay, usa los de por
+     * defecto.
+     */
+    private static List<String> cargarPatrones() {
+        if (ARCHIVO_PATRONES == null || ARCHIVO_PATRONES.trim().isEmpty()) {
+            return Arrays.asList(PATRONES_PELIGROSOS);
+        }
+        try {
+            List<String> patrones = new ArrayList<>();
+            for (String linea : Files.readAllLines(Paths.get(ARCHIVO_PATRONES.trim()), StandardCharsets.UTF_8)) {
+                if (!linea.isEmpty() && !linea.startsWith("#")) {
+                    patrones.add(linea);
+                }
+            }
+            return patrones;
+        } catch (IOException e) {
+            System.err.println("No se pudo leer el archivo de patrones " + ARCHIVO_PATRONES
+                    + ", se usan los de por defecto: " + e.getMessage());
+            return Arrays.asList(PATRONES_PELIGROSOS);
+        }
+    }
+
+    /**
+     * Implementacion de validaciones:
+     *
+     * Si me pasas datos incorrectos, te voy a notificar con una
+     * IllegalArgumentException. Si hay problemas de base de datos, te voy a
+     * notificar con una SQLException.
+     * 
+     * La unicidad de la placa se valida aparte en VehiculoFacade.reservarPlaca.
+     * 
+     * @param v Vehículo a validar
+     */
+    static void validarDatosVehiculo(Vehiculo v) throws IllegalArgumentException {
+        
+        if (v == null) {
+            throw new IllegalArgumentException("El vehículo no puede ser nulo");
+        }
+
+        /**
+         * La marca, modelo y placa deben tener al menos 3 caracteres
+         */
+        if (v.getMarca() == null || v.getMarca().length() <= 3) {
+            throw new IllegalArgumentException("La marca debe tener más de 3 caracteres");
+        }
+        
+        if (v.getModelo() == null || v.getModelo().length() <= 3) {
+            throw new IllegalArgumentException("El modelo debe tener más de 3 caracteres");
+        }
+        
+        if (v.getPlaca() == null || v.getPlaca().length() <= 3) {
+            throw new IllegalArgumentException("La placa debe tener más de 3 caracteres");
+        }
+
+        validarPropietario(v.getPropietario());
+
+        /**
+         * Validar colores permitidos
+         */
+        if (v.getColor() != null && !v.getColor().trim().isEmpty()) {
+            switch (v.getColor().trim().toUpperCase()) {
+                case "ROJO":
+                case "BLANCO":
+                case "NEGRO":
+                case "AZUL":
+                case "GRIS":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Solo se aceptan colores (ROJO, BLANCO, NEGRO, AZUL, GRIS)");
+            }
+        }
+
+        /**
+         * No aceptar vehículos cuyo modelo tenga más de 20 años de antigüedad (por ejemplo, año < actual - 20). 
+         */
+        try {
+            int anioModelo = Integer.parseInt(v.getModelo());
+            int anioMinimo = anioModeloMinimo();
+            
+            if (anioModelo < anioMinimo) {
+                throw new IllegalArgumentException("El vehículo tiene más de 20 años de antigüedad (año mínimo permitido: " + anioMinimo + ")");
+            }
+            
+            if (anioModelo > anioModeloMaximo()) {
+                throw new IllegalArgumentException("El año del modelo no puede ser mayor al año actual");
+            }
+            
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El modelo debe ser un año válido (número de 4 dígitos)");
+        }
+    }
+
+    /**
+     * No aceptar propietario vacío o con menos de 5 caracteres.
+     */
+    static void validarPropietario(String propietario) throws IllegalArgumentException {
+        if (propietario == null || propietario.trim().isEmpty()) {
+            throw new IllegalArgumentException("El campo propietario no puede estar vacío");
+        }
+
+        if (propietario.length() < 5) {
+            throw new IllegalArgumentException("El campo propietario debe tener al menos 5 caracteres");
+        }
+    }
+
+    /**
+     * Valida contra SQL Injection y reglas de propietario el nuevo
+     * propietario de una reasignación masiva.
+     */
+    static void validarNuevoPropietario(String propietario) throws IllegalArgumentException {
+        validarCampo(propietario, "Propietario");
+        validarPropietario(propietario);
+    }
+
+    /**
+     * @return año de modelo más antiguo aceptado (20 años atrás)
+     */
+    static int anioModeloMinimo() {
+        return LocalDate.now().getYear() - 20;
+    }
+
+    /**
+     * @return año de modelo más nuevo aceptado (el próximo)
+     */
+    static int anioModeloMaximo() {
+        return LocalDate.now().getYear() + 1;
+    }
+}
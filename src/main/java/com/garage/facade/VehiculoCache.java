@@ -0,0 +1,178 @@
+package com.garage.facade;
+
+import com.garage.cache.CacheAcotada;
+import com.garage.cache.EstadisticasCache;
+import com.garage.config.Configuracion;
+import com.garage.model.Pagina;
+import com.garage.model.Vehiculo;
+import com.garage.persistence.UnidadDeTrabajo;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache compartida de lecturas de vehículos (por id y páginas del listado).
+ *
+ * Es un Singleton con concurrencia gestionada por el bean: las lecturas no
+ * pasan por el lock del contenedor.
+ *
+ * Para que una escritura concurrente nunca deje una entrada vieja se usa un
+ * contador de generación: el lector anota la generación antes de ir a la BD,
+ * guarda el resultado y, si la generación cambió mientras tanto, retira su
+ * propia entrada. Las escrituras incrementan la generación e invalidan
+ * después del commit, cuando la BD ya muestra el dato nuevo.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class VehiculoCache {
+
+    private static final boolean HABILITADA = Configuracion.booleano("garage.cache.habilitada", true);
+
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final CacheAcotada<Integer, Vehiculo> porId = new CacheAcotada<>(
+            Configuracion.entero("garage.cache.maxVehiculos", 10_000),
+            Configuracion.enteroLargo("garage.cache.ttlSegundos", 60) * 1000);
+
+    private final CacheAcotada<String, Pagina<Vehiculo>> paginas = new CacheAcotada<>(
+            Configuracion.entero("garage.cache.maxPaginas", 500),
+            Configuracion.enteroLargo("garage.cache.ttlSegundos", 60) * 1000);
+
+    @Resource
+    private TransactionSynchronizationRegistry registroTransacciones;
+
+    @Inject
+    private UnidadDeTrabajo unidad;
+
+    /**
+     * @return generación actual; se debe leer antes de consultar la BD
+     */
+    public long generacion() {
+        return generacion.get();
+    }
+
+    /**
+     * @return copia del vehículo en cache o null si no está
+     */
+    public Vehiculo buscarPorId(int id) {
+        if (!HABILITADA) {
+            return null;
+        }
+        Vehiculo v = porId.obtener(id);
+        return v == null ? null : new Vehiculo(v);
+    }
+
+    /**
+     * Guarda un vehículo leído de la BD.
+     *
+     * @param generacionLeida valor de {@link #generacion()} antes de la
+     * consulta
+     */
+    public void guardarPorId(Vehiculo v, long generacionLeida) {
+        if (!HABILITADA || v == null) {
+            return;
+        }
+        Integer clave = v.getId();
+        Object entrada = porId.guardar(clave, new Vehiculo(v));
+        if (generacion.get() != generacionLeida) {
+            porId.eliminarSiEs(clave, entrada);
+        }
+    }
+
+    /**
+     * @return copia de la página en cache o null si no está
+     */
+    public Pagina<Vehiculo> buscarPagina(String clave) {
+        if (!HABILITADA) {
+            return null;
+        }
+        Pagina<Vehiculo> p = paginas.obtener(clave);
+        return p == null ? null : copiar(p);
+    }
+
+    /**
+     * Guarda una página leída de la BD.
+     *
+     * @param generacionLeida valor de {@link #generacion()} antes de la
+     * consulta
+     */
+    public void guardarPagina(String clave, Pagina<Vehiculo> pagina, long generacionLeida) {
+        if (!HABILITADA || pagina == null) {
+            return;
+        }
+        Object entrada = paginas.guardar(clave, copiar(pagina));
+        if (generacion.get() != generacionLeida) {
+            paginas.eliminarSiEs(clave, entrada);
+        }
+    }
+
+    /**
+     * Invalida el vehículo indicado y todas las páginas de inmediato y otra
+     * vez cuando termine la transacción actual. La invalidación inmediata
+     * evita que la misma solicitud lea datos previos a su propia escritura;
+     * la diferida, que otra solicitud deje cacheado el valor anterior
+     * mientras la transacción seguía abierta.
+     *
+     * @param id vehículo modificado, o null si sólo cambian los listados
+     * (inserción)
+     */
+    public void invalidarTrasConfirmar(Integer id) {
+        invalidar(id);
+        // También tras un rollback: invalidar de más no es un error
+        TrasTransaccion.registrar(registroTransacciones, unidad, confirmada -> invalidar(id));
+    }
+
+    /**
+     * Como {@link #invalidarTrasConfirmar(Integer)} para varios vehículos
+     * modificados juntos (operaciones masivas).
+     */
+    public void invalidarVariosTrasConfirmar(Collection<Integer> ids) {
+        invalidar(ids);
+        TrasTransaccion.registrar(registroTransacciones, unidad, confirmada -> invalidar(ids));
+    }
+
+    /**
+     * @return estadísticas de ambas caches ("vehiculos" y "paginas")
+     */
+    public Map<String, EstadisticasCache> estadisticas() {
+        Map<String, EstadisticasCache> mapa = new LinkedHashMap<>();
+        mapa.put("vehiculos", porId.estadisticas());
+        mapa.put("paginas", paginas.estadisticas());
+        return mapa;
+    }
+
+    private void invalidar(Integer id) {
+        // Primero la generación: así cualquier lector en curso descarta lo suyo
+        generacion.incrementAndGet();
+        if (id != null) {
+            porId.invalidar(id);
+        }
+        paginas.invalidarTodo();
+    }
+
+    private void invalidar(Collection<Integer> ids) {
+        generacion.incrementAndGet();
+        for (Integer id : ids) {
+            porId.invalidar(id);
+        }
+        paginas.invalidarTodo();
+    }
+
+    private static Pagina<Vehiculo> copiar(Pagina<Vehiculo> p) {
+        List<Vehiculo> copia = new ArrayList<>(p.getElementos().size());
+        for (Vehiculo v : p.getElementos()) {
+            copia.add(new Vehiculo(v));
+        }
+        return new Pagina<>(copia, p.getTamano(), p.getOrden(), p.isDescendente(),
+                p.getCursorSiguiente(), p.getCursorAnterior());
+    }
+}
@@ -5,47 +5,353 @@
  */
 package com.garage.facade;
 
+import com.garage.admision.Admitido;
+import com.garage.admision.TipoOperacion;
+import com.garage.config.Configuracion;
+import com.garage.metricas.Medido;
+import com.garage.model.CambioVehiculo;
+import com.garage.model.CoincidenciaPlaca;
+import com.garage.model.Pagina;
+import com.garage.model.ResultadoImportacion;
+import com.garage.model.ResultadoMasivo;
 import com.garage.model.Vehiculo;
+import com.garage.notificaciones.BandejaSalida;
+import com.garage.notificaciones.ReglaNotificacion;
+import com.garage.notificaciones.ReglasNotificacion;
+import com.garage.persistence.ConsumidorFila;
+import com.garage.persistence.CursorPagina;
+import com.garage.persistence.DataSourceInstrumentado;
+import com.garage.persistence.FiltroVehiculos;
+import com.garage.persistence.OrdenVehiculo;
+import com.garage.persistence.ProyeccionVehiculo;
+import com.garage.persistence.UnidadDeTrabajo;
 import com.garage.persistence.VehiculoDAO;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.context.ContextNotActiveException;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.time.LocalDate;
-import java.time.Year;
-import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Fachada para operaciones sobre vehículos. Deben agregarse reglas de negocio
  * antes de llamar al DAO.
+ *
+ * Las conexiones salen de la {@link UnidadDeTrabajo} de la solicitud, que es
+ * quien decide autocommit o transacción por solicitud; por eso la fachada no
+ * abre una transacción JTA propia en cada método (SUPPORTS).
+ *
+ * Las lecturas y escrituras pasan por el control de admisión
+ * ({@link Admitido}); las operaciones masivas con su propio límite, y la
+ * exportación no pasa, porque una descarga larga falsearía la latencia con
+ * la que se ajustan los límites.
  */
 @Stateless
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+@Medido("facade")
 public class VehiculoFacade {
 
+    /**
+     * Límite superior del tamaño de página, para que un cliente no pueda
+     * pedir la tabla completa en una sola página.
+     */
+    public static final int TAMANO_PAGINA_MAXIMO = Configuracion.entero("garage.paginacion.tamanoMaximo", 200);
+
+    /**
+     * Fetch size de la exportación. Por defecto Integer.MIN_VALUE, que en
+     * MySQL Connector/J significa streaming fila a fila.
+     */
+    private static final int TAMANO_FETCH_EXPORTACION = Configuracion.entero("garage.exportacion.tamanoFetch", Integer.MIN_VALUE);
+
+    static final String MENSAJE_PLACA_DUPLICADA = "Esta placa de vehículo ya existe";
+
+    private static final String PROPIETARIO_PROTEGIDO = "Administrador";
+
+    /**
+     * Hilos usados para validar un lote de importación.
+     */
+    private static final int PARALELISMO_VALIDACION = Configuracion.entero("garage.importacion.paralelismo",
+            Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Por debajo de esta cantidad de filas por hilo no compensa repartir.
+     */
+    private static final int FILAS_MINIMAS_POR_TAREA = 64;
+
+    /**
+     * Máximo de resultados de una búsqueda de placas.
+     */
+    public static final int LIMITE_PLACAS_MAXIMO = Configuracion.entero("garage.placas.limiteMaximo", 100);
+
+    /**
+     * Ids máximos por consulta de varios vehículos, y por bloque IN.
+     */
+    public static final int MAX_IDS_CONSULTA = Configuracion.entero("garage.multiget.maxIds", 5000);
+    private static final int TAMANO_BLOQUE_IDS = Math.max(1, Configuracion.entero("garage.multiget.tamanoBloque", 500));
+
+    /**
+     * Ids máximos de una operación masiva por lista, y vehículos por bloque
+     * (transacción) de las operaciones masivas.
+     */
+    public static final int MAX_IDS_MASIVO = Configuracion.entero("garage.masivo.maxIds", 10000);
+    private static final int TAMANO_BLOQUE_MASIVO = Math.max(1, Configuracion.entero("garage.masivo.tamanoBloque", 500));
+
     @Resource(lookup = "jdbc/garageDB")
     private DataSource ds;
 
+    @EJB
+    private VehiculoCache cache;
+
+    @EJB
+    private IndicePlacas placas;
+
+    @EJB
+    private VersionDatos version;
+
+    @EJB
+    private FeedCambios feed;
+
+    @EJB
+    private AltasAgrupadas altas;
+
+    @EJB
+    private NotificacionesSalida notificaciones;
+
+    @Resource
+    private TransactionSynchronizationRegistry registroTransacciones;
+
+    @Inject
+    private UnidadDeTrabajo unidad;
+
+    @Resource
+    private ManagedExecutorService ejecutor;
+
+    @PostConstruct
+    void iniciar() {
+        ds = DataSourceInstrumentado.envolver(ds);
+    }
+
     /**
      * Lista todos los vehículos. Debe documentar excepciones si se agregan
      * reglas.
      */
+    @Admitido(TipoOperacion.LECTURA)
     public List<Vehiculo> listar() throws SQLException {
-        try (Connection con = ds.getConnection()) {
+        try (Connection con = conexionLectura()) {
             VehiculoDAO dao = new VehiculoDAO(con);
             return dao.listar();
         }
     }
 
+    /**
+     * Lista una página de vehículos (paginación por clave).
+     *
+     * @param orden criterio de orden
+     * @param descendente true para orden descendente
+     * @param cursor cursor recibido del cliente, null o vacío para la primera
+     * página
+     * @param tamano tamaño de página; se ajusta al rango [1,
+     * TAMANO_PAGINA_MAXIMO]
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    @Admitido(TipoOperacion.LECTURA)
+    public Pagina<Vehiculo> listarPagina(OrdenVehiculo orden, boolean descendente, String cursor, int tamano)
+            throws SQLException, IllegalArgumentException {
+        return buscar(FiltroVehiculos.NINGUNO, orden, descendente, cursor, tamano);
+    }
+
+    /**
+     * Busca vehículos por marca, color, propietario y rango de años, con el
+     * mismo orden y paginación que {@link #listarPagina}. El filtrado se hace
+     * en la base de datos.
+     *
+     * @param filtro criterios de búsqueda
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    @Admitido(TipoOperacion.LECTURA)
+    public Pagina<Vehiculo> buscar(FiltroVehiculos filtro, OrdenVehiculo orden, boolean descendente,
+            String cursor, int tamano) throws SQLException, IllegalArgumentException {
+        return buscar(filtro, orden, descendente, cursor, tamano, ProyeccionVehiculo.COMPLETA);
+    }
+
+    /**
+     * Como {@link #buscar(FiltroVehiculos, OrdenVehiculo, boolean, String, int)}
+     * pero trae sólo las columnas de la proyección (más la del orden, que
+     * necesita el cursor); las demás quedan en null.
+     *
+     * @param proyeccion columnas a traer
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    @Admitido(TipoOperacion.LECTURA)
+    public Pagina<Vehiculo> buscar(FiltroVehiculos filtro, OrdenVehiculo orden, boolean descendente,
+            String cursor, int tamano, ProyeccionVehiculo proyeccion) throws SQLException, IllegalArgumentException {
+        ProyeccionVehiculo columnas = (proyeccion != null) ? proyeccion : ProyeccionVehiculo.COMPLETA;
+        FiltroVehiculos criterios = (filtro != null) ? filtro : FiltroVehiculos.NINGUNO;
+        OrdenVehiculo criterio = (orden != null) ? orden : OrdenVehiculo.ID;
+        CursorPagina posicion = CursorPagina.decodificar(cursor, criterio, descendente);
+        int tamanoAjustado = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+
+        String clave = criterio.name() + (descendente ? ":D:" : ":A:") + tamanoAjustado + ":"
+                + (cursor == null ? "" : cursor) + ":" + criterios.clave()
+                + (columnas == ProyeccionVehiculo.COMPLETA ? "" : ":" + columnas);
+        boolean usarCache = !hayCambiosSinConfirmar();
+        Pagina<Vehiculo> enCache = usarCache ? cache.buscarPagina(clave) : null;
+        if (enCache != null) {
+            return enCache;
+        }
+
+        long generacion = cache.generacion();
+        try (Connection con = conexionLectura()) {
+            VehiculoDAO dao = new VehiculoDAO(con);
+            Pagina<Vehiculo> pagina = dao.buscar(criterios, criterio, descendente, posicion, tamanoAjustado,
+                    columnas);
+            if (usarCache && !replicaPuedeEstarAtrasada()) {
+                cache.guardarPagina(clave, pagina, generacion);
+            }
+            return pagina;
+        }
+    }
+
+    /**
+     * Busca placas por fragmento ("BC1" encuentra "ABC123") y, si se pide,
+     * placas parecidas, ordenadas por relevancia. Se resuelve con el índice
+     * de trigramas en memoria; si el índice no está cargado se leen las
+     * placas de la base de datos.
+     *
+     * @param consulta fragmento de placa
+     * @param limite máximo de resultados; se ajusta al rango [1,
+     * LIMITE_PLACAS_MAXIMO]
+     * @param tolerante true para incluir placas con errores de tipeo
+     */
+    @Admitido(TipoOperacion.LECTURA)
+    public List<CoincidenciaPlaca> buscarPlacas(String consulta, int limite, boolean tolerante)
+            throws SQLException {
+        int limiteAjustado = Math.max(1, Math.min(limite, LIMITE_PLACAS_MAXIMO));
+        if (placas.isListo()) {
+            return placas.buscarPlacas(consulta, limiteAjustado, tolerante);
+        }
+        Map<Integer, String> todas = new HashMap<>();
+        try (Connection con = conexionLectura()) {
+            for (Vehiculo v : new VehiculoDAO(con).listar(ProyeccionVehiculo.IDENTIFICACION)) {
+                todas.put(v.getId(), v.getPlaca());
+            }
+        }
+        return IndicePlacas.buscarEn(todas, consulta, limiteAjustado, tolerante);
+    }
+
+    /**
+     * Exporta la tabla completa fila a fila hacia el consumidor, sin cargarla
+     * en memoria. Se ejecuta fuera de transacción para que una exportación
+     * larga no choque con el timeout transaccional del contenedor.
+     *
+     * @param desdeId último id ya exportado, para reanudar (0 = desde el
+     * inicio)
+     * @return cantidad de filas exportadas
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public long exportar(int desdeId, ConsumidorFila consumidor) throws SQLException, IOException {
+        // Conexión propia: el ResultSet en streaming la ocupa hasta el final
+        try (Connection con = conexionLecturaPropia()) {
+            VehiculoDAO dao = new VehiculoDAO(con);
+            return dao.exportar(Math.max(0, desdeId), TAMANO_FETCH_EXPORTACION, consumidor);
+        }
+    }
+
     /**
      * Busca vehículo por id. Manejar errores en llamada.
      */
+    @Admitido(TipoOperacion.LECTURA)
     public Vehiculo buscarPorId(int id) throws SQLException {
-        try (Connection con = ds.getConnection()) {
+        boolean usarCache = !hayCambiosSinConfirmar();
+        Vehiculo enCache = usarCache ? cache.buscarPorId(id) : null;
+        if (enCache != null) {
+            return enCache;
+        }
+
+        long generacion = cache.generacion();
+        try (Connection con = conexionLectura()) {
+            VehiculoDAO dao = new VehiculoDAO(con);
+            Vehiculo v = dao.buscarPorId(id);
+            if (usarCache && !replicaPuedeEstarAtrasada()) {
+                cache.guardarPorId(v, generacion);
+            }
+            return v;
+        }
+    }
+
+    /**
+     * Busca varios vehículos por id. Los repetidos se buscan una vez; los que
+     * están en cache no van a la BD y el resto se resuelve con consultas IN
+     * de a garage.multiget.tamanoBloque ids, todas en la misma conexión.
+     *
+     * @param ids ids en el orden pedido, con posibles repetidos
+     * @return vehículos encontrados por id; los ids inexistentes no aparecen
+     * @throws IllegalArgumentException si se piden más de MAX_IDS_CONSULTA
+     * ids
+     */
+    @Admitido(TipoOperacion.MASIVA)
+    public Map<Integer, Vehiculo> buscarPorIds(List<Integer> ids) throws SQLException, IllegalArgumentException {
+        if (ids.size() > MAX_IDS_CONSULTA) {
+            throw new IllegalArgumentException("Se pueden consultar a lo sumo " + MAX_IDS_CONSULTA + " ids");
+        }
+        boolean usarCache = !hayCambiosSinConfirmar();
+        Map<Integer, Vehiculo> encontrados = new HashMap<>();
+        Set<Integer> faltantes = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (id == null || encontrados.containsKey(id)) {
+                continue;
+            }
+            Vehiculo enCache = usarCache ? cache.buscarPorId(id) : null;
+            if (enCache != null) {
+                encontrados.put(id, enCache);
+            } else {
+                faltantes.add(id);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return encontrados;
+        }
+
+        long generacion = cache.generacion();
+        boolean guardar = usarCache && !replicaPuedeEstarAtrasada();
+        try (Connection con = conexionLectura()) {
             VehiculoDAO dao = new VehiculoDAO(con);
-            return dao.buscarPorId(id);
+            List<Integer> bloque = new ArrayList<>(Math.min(TAMANO_BLOQUE_IDS, faltantes.size()));
+            Iterator<Integer> it = faltantes.iterator();
+            while (it.hasNext()) {
+                bloque.add(it.next());
+                if (bloque.size() == TAMANO_BLOQUE_IDS || !it.hasNext()) {
+                    Map<Integer, Vehiculo> leidos = dao.buscarPorIds(bloque);
+                    if (guardar) {
+                        for (Vehiculo v : leidos.values()) {
+                            cache.guardarPorId(v, generacion);
+                        }
+                    }
+                    encontrados.putAll(leidos);
+                    bloque.clear();
+                }
+            }
         }
+        return encontrados;
     }
 
     /**
@@ -53,210 +359,756 @@ public class VehiculoFacade {
      * ejemplo, no agregar si la placa ya existe, si propietario está vacío,
      * etc.
      * 
+     * Si alguna regla de notificación aplica, sus notificaciones se agregan a
+     * la bandeja de salida en la misma transacción que el INSERT y se envían
+     * después en segundo plano ({@link NotificacionesSalida}).
+     *
      * @return String con mensaje de notificación especial (null si no aplica)
      */
+    @Admitido(TipoOperacion.ESCRITURA)
     public String agregar(Vehiculo v) throws SQLException, IllegalArgumentException {
 
-        try (Connection con = ds.getConnection()) {
-            VehiculoDAO dao = new VehiculoDAO(con);
+        // Validar SQL Injection antes que todo
+        ValidadorVehiculo.validarSQLInjection(v);
 
-            // Validar SQL Injection antes que todo
-            validarSQLInjection(v);
-            
-            // Para agregar, no hay placa original que ignorar
-            validarDatosVehiculo(v, dao, null);
+        ValidadorVehiculo.validarDatosVehiculo(v);
 
-            dao.agregar(v);
-            
-            // Notificación simulada para marca Ferrari
-            if (v.getMarca() != null && v.getMarca().trim().equalsIgnoreCase("Ferrari")) {
-                return "🏎️ ¡NOTIFICACIÓN ESPECIAL! Se ha registrado un vehículo de lujo marca Ferrari. Se ha enviado alerta al departamento de vehículos premium.";
+        // Las reglas dan el mensaje de la pantalla aunque la bandeja esté apagada
+        List<ReglaNotificacion> aplican = ReglasNotificacion.configuradas().evaluar(v);
+        BandejaSalida bandeja = aplican.isEmpty() ? null : notificaciones.getBandeja();
+
+        registrarEscritura();
+        if (!agregarAgrupado(v)) {
+            try (Connection con = conexion()) {
+                VehiculoDAO dao = new VehiculoDAO(con);
+
+                // Para agregar, no hay placa original que ignorar (id 0)
+                String reservada = reservarPlaca(v, dao);
+                try {
+                    if (bandeja == null) {
+                        dao.agregar(v);
+                    } else {
+                        enTransaccion(con, () -> {
+                            dao.agregar(v);
+                            return bandeja.registrar(con, List.of(v));
+                        });
+                    }
+                } catch (SQLException ex) {
+                    placas.liberar(reservada);
+                    rechazarSiDuplicado(ex);
+                    throw ex;
+                }
+                confirmarAlta(v, reservada);
             }
-            
-            return null; // No hay notificación especial
+            if (bandeja != null) {
+                avisarTrasConfirmar(bandeja);
+            }
+        }
+
+        for (ReglaNotificacion regla : aplican) {
+            if (regla.getMensaje() != null) {
+                return regla.getMensaje();
+            }
+        }
+        return null; // No hay notificación especial
+    }
+
+    /**
+     * Despierta al despachador de notificaciones cuando la transacción actual
+     * se confirma.
+     */
+    private void avisarTrasConfirmar(BandejaSalida bandeja) {
+        TrasTransaccion.registrar(registroTransacciones, unidad, confirmada -> {
+            if (confirmada) {
+                bandeja.avisar();
+            }
+        });
+    }
+
+    /**
+     * Con garage.altas.agrupar, inserta el vehículo en el próximo lote de
+     * {@link AltasAgrupadas} (un INSERT y un commit compartidos con otras
+     * altas concurrentes) sin pedir conexión en esta solicitud.
+     *
+     * Sólo se usa si la placa se pudo reservar en el índice y la solicitud no
+     * es transaccional (su INSERT debe ir en la transacción de la solicitud);
+     * en otro caso devuelve false y el alta sigue el camino normal, que
+     * decide si la placa está realmente ocupada.
+     */
+    private boolean agregarAgrupado(Vehiculo v) throws SQLException {
+        AgrupadorAltas agrupador = altas.getAgrupador();
+        if (agrupador == null || UnidadDeTrabajo.isTransaccional() || !placas.isListo()) {
+            return false;
+        }
+        String normalizada = IndicePlacas.normalizar(v.getPlaca());
+        if (!placas.reservar(normalizada)) {
+            return false;
+        }
+        try {
+            agrupador.agregar(v);
+        } catch (SQLException | RuntimeException ex) {
+            placas.liberar(normalizada);
+            throw ex;
         }
+        confirmarAlta(v, normalizada);
+        return true;
+    }
+
+    /**
+     * Actualiza índice, cache, versión y feed tras un alta.
+     */
+    private void confirmarAlta(Vehiculo v, String reservada) {
+        placas.asignarTrasConfirmar(reservada, v.getId());
+        cache.invalidarTrasConfirmar(null);
+        version.incrementarTrasConfirmar();
+        feed.publicarTrasConfirmar(CambioVehiculo.CREADO, v.getId(), v);
+    }
+
+    /**
+     * Importa un lote de vehículos en una sola transacción.
+     *
+     * Las reglas de validación se ejecutan en paralelo sobre los núcleos
+     * disponibles; la unicidad de placas se verifica con una consulta IN para
+     * todo el lote y la inserción se hace con JDBC batch. Cada fila inválida
+     * queda en el resultado con su motivo sin impedir que se inserten las
+     * demás.
+     *
+     * Usa su propia conexión y transacción local (no la de la solicitud),
+     * para que cada lote se confirme por separado.
+     *
+     * @param filas vehículos indexados por su número de fila en el archivo,
+     * en orden
+     * @return resultado del lote
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    @Admitido(TipoOperacion.MASIVA)
+    public ResultadoImportacion importarLote(Map<Integer, Vehiculo> filas) throws SQLException {
+        registrarEscritura();
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        List<Integer> numeros = new ArrayList<>(filas.keySet());
+        List<Vehiculo> vehiculos = new ArrayList<>(filas.values());
+        int n = vehiculos.size();
+        resultado.contarFilas(n);
+
+        String[] errores = validarEnParalelo(vehiculos);
+
+        // Placas repetidas dentro del mismo lote
+        Map<String, Integer> normalizadas = new HashMap<>();
+        List<String> placasLote = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (errores[i] == null) {
+                String normalizada = IndicePlacas.normalizar(vehiculos.get(i).getPlaca());
+                if (normalizadas.putIfAbsent(normalizada, i) != null) {
+                    errores[i] = "La placa está repetida en el archivo";
+                } else {
+                    placasLote.add(vehiculos.get(i).getPlaca());
+                }
+            }
+        }
+
+        // Se decide una sola vez si se usa el índice, para liberar al final
+        // exactamente las reservas que hizo este lote
+        boolean indexado = placas.isListo();
+        BandejaSalida bandeja = notificaciones.getBandeja();
+        int notificadas = 0;
+        List<Vehiculo> aInsertar = new ArrayList<>();
+        List<Integer> posiciones = new ArrayList<>();
+        List<String> reservadas = new ArrayList<>();
+        // Las reservas se resuelven siempre: si el lote no se confirmó (error
+        // de BD, excepción no prevista o falla antes del INSERT) se liberan
+        // todas, y si se confirmó se asignan las insertadas
+        boolean confirmado = false;
+        try {
+            try (Connection con = ds.getConnection()) {
+                VehiculoDAO dao = new VehiculoDAO(con);
+
+                Set<String> existentes = new HashSet<>();
+                for (String placa : dao.placasExistentes(placasLote)) {
+                    existentes.add(IndicePlacas.normalizar(placa));
+                }
+
+                for (int i = 0; i < n; i++) {
+                    if (errores[i] != null) {
+                        continue;
+                    }
+                    String normalizada = IndicePlacas.normalizar(vehiculos.get(i).getPlaca());
+                    // La BD acaba de confirmar que está libre: si el índice la da
+                    // por usada sin reserva en curso, estaba desactualizado
+                    boolean libre = !existentes.contains(normalizada)
+                            && (!indexado || placas.reservar(normalizada)
+                            || (!placas.reservadaEnCurso(normalizada) && placas.tomarObsoleta(normalizada)));
+                    if (!libre) {
+                        errores[i] = MENSAJE_PLACA_DUPLICADA;
+                        continue;
+                    }
+                    if (indexado) {
+                        reservadas.add(normalizada);
+                    }
+                    aInsertar.add(vehiculos.get(i));
+                    posiciones.add(i);
+                }
+
+                boolean autoCommit = con.getAutoCommit();
+                con.setAutoCommit(false);
+                try {
+                    try {
+                        dao.agregarLote(aInsertar);
+                    } catch (BatchUpdateException ex) {
+                        // Alguna placa se registró entre la verificación y el
+                        // INSERT: se repite fila por fila para saber cuál
+                        con.rollback();
+                        for (int j = 0; j < aInsertar.size(); j++) {
+                            Vehiculo v = aInsertar.get(j);
+                            v.setId(0);
+                            try {
+                                dao.agregar(v);
+                            } catch (SQLException exFila) {
+                                if (!VehiculoDAO.esClaveDuplicada(exFila)) {
+                                    throw exFila;
+                                }
+                                errores[posiciones.get(j)] = MENSAJE_PLACA_DUPLICADA;
+                            }
+                        }
+                    }
+                    if (bandeja != null) {
+                        List<Vehiculo> insertados = new ArrayList<>(aInsertar.size());
+                        for (int j = 0; j < aInsertar.size(); j++) {
+                            if (errores[posiciones.get(j)] == null) {
+                                insertados.add(aInsertar.get(j));
+                            }
+                        }
+                        notificadas = bandeja.registrar(con, insertados);
+                    }
+                    con.commit();
+                    confirmado = true;
+                } catch (SQLException | RuntimeException ex) {
+                    con.rollback();
+                    throw ex;
+                } finally {
+                    con.setAutoCommit(autoCommit);
+                }
+            }
+        } finally {
+            for (int j = 0; j < reservadas.size(); j++) {
+                if (!confirmado || errores[posiciones.get(j)] != null) {
+                    placas.liberar(reservadas.get(j));
+                } else {
+                    placas.asignarTrasConfirmar(reservadas.get(j), aInsertar.get(j).getId());
+                }
+            }
+        }
+        cache.invalidarTrasConfirmar(null);
+        version.incrementarTrasConfirmar();
+        if (notificadas > 0) {
+            bandeja.avisar();
+        }
+
+        for (int i = 0; i < n; i++) {
+            Vehiculo v = vehiculos.get(i);
+            if (errores[i] != null) {
+                resultado.agregarError(numeros.get(i), v.getPlaca(), errores[i]);
+            } else {
+                feed.publicarTrasConfirmar(CambioVehiculo.CREADO, v.getId(), v);
+                resultado.contarInsertada();
+                if (!ReglasNotificacion.configuradas().evaluar(v).isEmpty()) {
+                    resultado.contarNotificacion();
+                }
+            }
+        }
+        return resultado;
     }
 
     /**
      * Actualiza vehículo; incluir reglas de negocio.
      * 
-     * @param v Vehículo con los nuevos datos
-     * @param placaOriginal Placa original del vehículo (para ignorarla en la validación de duplicados)
+     * La existencia del vehículo no se consulta antes: se deduce de las
+     * filas encontradas por el UPDATE, y la unicidad de la placa la resuelve
+     * el índice en memoria (con el índice único de la BD como respaldo).
+     * 
+     * @param v Vehículo con los nuevos datos (id incluido)
      */
-    public void actualizar(Vehiculo v, String placaOriginal) throws SQLException {
-        try (Connection con = ds.getConnection()) {
+    @Admitido(TipoOperacion.ESCRITURA)
+    public void actualizar(Vehiculo v) throws SQLException {
+        registrarEscritura();
+        try (Connection con = conexion()) {
             VehiculoDAO dao = new VehiculoDAO(con);
             
-            // Validar que el vehículo realmente existe antes de actualizar
-            Vehiculo vehiculoExistente = dao.buscarPorId(v.getId());
-            if (vehiculoExistente == null) {
-                throw new IllegalArgumentException("No se puede actualizar: el vehículo con ID " + v.getId() + " no existe");
-            }
-            
             // Validar SQL Injection
-            validarSQLInjection(v);
-            
-            // Pasar la placa original para que sea ignorada en la validación
-            validarDatosVehiculo(v, dao, placaOriginal);
+            ValidadorVehiculo.validarSQLInjection(v);
             
-            dao.actualizar(v);
+            ValidadorVehiculo.validarDatosVehiculo(v);
+
+            // La placa actual del propio vehículo no cuenta como duplicado
+            String reservada = reservarPlaca(v, dao);
+            int filas;
+            try {
+                filas = dao.actualizar(v);
+            } catch (SQLException ex) {
+                placas.liberar(reservada);
+                rechazarSiDuplicado(ex);
+                throw ex;
+            }
+
+            // Validar que el vehículo realmente existía
+            if (filas == 0) {
+                placas.liberar(reservada);
+                throw new IllegalArgumentException("No se puede actualizar: el vehículo con ID " + v.getId() + " no existe");
+            }
+
+            placas.asignarTrasConfirmar(reservada, v.getId());
+            cache.invalidarTrasConfirmar(v.getId());
+            version.incrementarTrasConfirmar();
+            feed.publicarTrasConfirmar(CambioVehiculo.ACTUALIZADO, v.getId(), v);
         }
     }
 
     /**
      * Elimina vehículo por id.
      * No se puede eliminar si el propietario es "Administrador".
+     * 
+     * La protección va en el WHERE del DELETE; sólo si no se borró nada se
+     * lee la fila para explicar el motivo.
      */
+    @Admitido(TipoOperacion.ESCRITURA)
     public void eliminar(int id) throws SQLException {
-        try (Connection con = ds.getConnection()) {
+        registrarEscritura();
+        try (Connection con = conexion()) {
             VehiculoDAO dao = new VehiculoDAO(con);
             
-            // Buscar el vehículo para verificar el propietario
-            Vehiculo vehiculo = dao.buscarPorId(id);
-            
-            if (vehiculo == null) {
-                throw new IllegalArgumentException("No se puede eliminar: el vehículo no existe");
-            }
-            
             // No permitir eliminar vehículos del propietario "Administrador"
-            if (vehiculo.getPropietario() != null && 
-                vehiculo.getPropietario().trim().equalsIgnoreCase("Administrador")) {
+            int filas = dao.eliminarSalvoPropietario(id, PROPIETARIO_PROTEGIDO);
+            
+            if (filas == 0) {
+                Vehiculo vehiculo = dao.buscarPorId(id);
+                if (vehiculo == null) {
+                    throw new IllegalArgumentException("No se puede eliminar: el vehículo no existe");
+                }
                 throw new IllegalArgumentException("No se puede eliminar un vehículo del 'Administrador'");
             }
             
-            dao.eliminar(id);
-        }
-    }
-
-    /**
-     * Validación simulada de SQL Injection.
-     * Busca patrones comunes que podrían indicar intentos de inyección SQL.
-     */
-    private void validarSQLInjection(Vehiculo v) throws IllegalArgumentException {
-        // Patrones peligrosos comunes en SQL Injection
-        String[] patronesPeligrosos = {
-            "'", "\"", ";", "--", "/*", "*/", "xp_", "sp_", 
-            "exec", "execute", "select", "insert", "update", 
-            "delete", "drop", "create", "alter", "union", "or 1=1", "or '1'='1'"
-        };
-        
-        // Validar cada campo del vehículo
-        validarCampo(v.getPlaca(), "Placa", patronesPeligrosos);
-        validarCampo(v.getMarca(), "Marca", patronesPeligrosos);
-        validarCampo(v.getModelo(), "Modelo", patronesPeligrosos);
-        validarCampo(v.getColor(), "Color", patronesPeligrosos);
-        validarCampo(v.getPropietario(), "Propietario", patronesPeligrosos);
-    }
-    
-    /**
-     * Valida un campo individual contra patrones de SQL Injection
-     */
-    private void validarCampo(String valor, String nombreCampo, String[] patronesPeligrosos) 
-            throws IllegalArgumentException {
-        
-        if (valor == null || valor.isEmpty()) {
-            return; // Campos vacíos se validan en otro lugar
-        }
-        
-        String valorLower = valor.toLowerCase();
-        
-        for (String patron : patronesPeligrosos) {
-            if (valorLower.contains(patron.toLowerCase())) {
-                throw new IllegalArgumentException(
-                    "El campo '" + nombreCampo + "' contiene caracteres no permitidos que podrían representar un riesgo de seguridad (SQL Injection detectado)"
-                );
-            }
+            placas.eliminarTrasConfirmar(id);
+            cache.invalidarTrasConfirmar(id);
+            version.incrementarTrasConfirmar();
+            feed.publicarTrasConfirmar(CambioVehiculo.ELIMINADO, id, null);
         }
     }
 
     /**
-     * Implementacion de validaciones:
+     * Cambia el propietario de varios vehículos, elegidos por ids o por
+     * filtro, con un UPDATE por bloque de garage.masivo.tamanoBloque ids y
+     * una transacción por bloque (no una por vehículo).
      *
-     * Si me pasas datos incorrectos, te voy a notificar con una
-     * IllegalArgumentException. Si hay problemas de base de datos, te voy a
-     * notificar con una SQLException.
-     * 
-     * @param v Vehículo a validar
-     * @param dao DAO para consultas a la BD
-     * @param placaOriginal Placa original del vehículo (null si es nuevo, o la placa actual si es actualización)
+     * Las reglas van en el WHERE de la sentencia: no se tocan los vehículos
+     * del "Administrador" (una reasignación no puede sacarlos de la
+     * protección contra borrado), los que ya son del nuevo propietario ni los
+     * de un modelo fuera del rango de años que exige la validación, que
+     * tampoco se podrían actualizar uno por uno. Con filtro, también se
+     * vuelve a comprobar el filtro.
+     *
+     * @param ids vehículos a cambiar, o null para elegirlos por filtro
+     * @param filtro criterios de selección (al menos uno) si ids es null
+     * @param nuevoPropietario propietario a asignar
+     * @return vehículos seleccionados, cambiados y omitidos
+     * @throws IllegalArgumentException si el propietario no es válido o la
+     * selección está vacía o es demasiado grande
+     * @throws OperacionMasivaException si falla un bloque después de haber
+     * confirmado otros
      */
-    private void validarDatosVehiculo(Vehiculo v, VehiculoDAO dao, String placaOriginal) 
-            throws IllegalArgumentException, SQLException {
-        
-        if (v == null) {
-            throw new IllegalArgumentException("El vehículo no puede ser nulo");
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    @Admitido(TipoOperacion.MASIVA)
+    public ResultadoMasivo reasignarPropietario(List<Integer> ids, FiltroVehiculos filtro, String nuevoPropietario)
+            throws SQLException, IllegalArgumentException {
+        ValidadorVehiculo.validarNuevoPropietario(nuevoPropietario);
+        SeleccionMasiva seleccion = new SeleccionMasiva(ids, filtro);
+        int anioMinimo = ValidadorVehiculo.anioModeloMinimo();
+        int anioMaximo = ValidadorVehiculo.anioModeloMaximo();
+        registrarEscritura();
+
+        ResultadoMasivo resultado = new ResultadoMasivo();
+        try (Connection con = ds.getConnection()) {
+            VehiculoDAO dao = new VehiculoDAO(con);
+            FiltroVehiculos criterios = seleccion.getFiltro();
+            List<Integer> bloque;
+            while (!(bloque = seleccion.siguiente(dao)).isEmpty()) {
+                List<Integer> idsBloque = bloque;
+                List<Vehiculo> cambiados = new ArrayList<>();
+                int filas;
+                try {
+                    filas = enTransaccion(con, () -> {
+                        cambiados.addAll(dao.bloquearReasignables(idsBloque, criterios, PROPIETARIO_PROTEGIDO,
+                                nuevoPropietario, anioMinimo, anioMaximo));
+                        return dao.reasignarPropietario(idsBloque, criterios, PROPIETARIO_PROTEGIDO,
+                                nuevoPropietario, anioMinimo, anioMaximo);
+                    });
+                } catch (SQLException ex) {
+                    throw parcial(ex, resultado);
+                }
+                if (!cambiados.isEmpty()) {
+                    List<Integer> idsCambiados = new ArrayList<>(cambiados.size());
+                    for (Vehiculo v : cambiados) {
+                        v.setPropietario(nuevoPropietario);
+                        idsCambiados.add(v.getId());
+                        feed.publicarTrasConfirmar(CambioVehiculo.ACTUALIZADO, v.getId(), v);
+                    }
+                    cache.invalidarVariosTrasConfirmar(idsCambiados);
+                    version.incrementarTrasConfirmar();
+                }
+                resultado.contarBloque(bloque.size(), filas);
+            }
         }
+        return resultado;
+    }
 
-        /**
-         * La marca, modelo y placa deben tener al menos 3 caracteres
-         */
-        if (v.getMarca() == null || v.getMarca().length() <= 3) {
-            throw new IllegalArgumentException("La marca debe tener más de 3 caracteres");
+    /**
+     * Elimina varios vehículos, elegidos por ids o por filtro, con un DELETE
+     * por bloque de garage.masivo.tamanoBloque ids y una transacción por
+     * bloque. La protección del "Administrador" va en el WHERE, igual que en
+     * {@link #eliminar(int)}; esos vehículos y los ids que no existen quedan
+     * como omitidos.
+     *
+     * @param ids vehículos a eliminar, o null para elegirlos por filtro
+     * @param filtro criterios de selección (al menos uno) si ids es null
+     * @return vehículos seleccionados, eliminados y omitidos
+     * @throws IllegalArgumentException si la selección está vacía o es
+     * demasiado grande
+     * @throws OperacionMasivaException si falla un bloque después de haber
+     * confirmado otros
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    @Admitido(TipoOperacion.MASIVA)
+    public ResultadoMasivo eliminarMasivo(List<Integer> ids, FiltroVehiculos filtro)
+            throws SQLException, IllegalArgumentException {
+        SeleccionMasiva seleccion = new SeleccionMasiva(ids, filtro);
+        registrarEscritura();
+
+        ResultadoMasivo resultado = new ResultadoMasivo();
+        try (Connection con = ds.getConnection()) {
+            VehiculoDAO dao = new VehiculoDAO(con);
+            FiltroVehiculos criterios = seleccion.getFiltro();
+            List<Integer> bloque;
+            while (!(bloque = seleccion.siguiente(dao)).isEmpty()) {
+                List<Integer> idsBloque = bloque;
+                List<Integer> eliminados = new ArrayList<>();
+                int filas;
+                try {
+                    filas = enTransaccion(con, () -> {
+                        eliminados.addAll(dao.bloquearEliminables(idsBloque, criterios, PROPIETARIO_PROTEGIDO));
+                        return dao.eliminarSalvoPropietario(idsBloque, criterios, PROPIETARIO_PROTEGIDO);
+                    });
+                } catch (SQLException ex) {
+                    throw parcial(ex, resultado);
+                }
+                if (!eliminados.isEmpty()) {
+                    for (Integer id : eliminados) {
+                        placas.eliminarTrasConfirmar(id);
+                        feed.publicarTrasConfirmar(CambioVehiculo.ELIMINADO, id, null);
+                    }
+                    cache.invalidarVariosTrasConfirmar(eliminados);
+                    version.incrementarTrasConfirmar();
+                }
+                resultado.contarBloque(bloque.size(), filas);
+            }
         }
-        
-        if (v.getModelo() == null || v.getModelo().length() <= 3) {
-            throw new IllegalArgumentException("El modelo debe tener más de 3 caracteres");
+        return resultado;
+    }
+
+    /**
+     * Con bloques ya confirmados, el error lleva el resultado parcial.
+     */
+    private static SQLException parcial(SQLException ex, ResultadoMasivo resultado) {
+        return resultado.getBloques() == 0 ? ex : new OperacionMasivaException(ex, resultado);
+    }
+
+    /**
+     * Sentencias de un bloque que se confirman o revierten juntas.
+     */
+    @FunctionalInterface
+    private interface SentenciasBloque {
+
+        int ejecutar() throws SQLException;
+    }
+
+    /**
+     * Ejecuta las sentencias en una transacción local de la conexión. Si la
+     * conexión ya está en una transacción (la de la solicitud o la del
+     * contenedor) las ejecuta en ella sin confirmar, y ante un error la deja
+     * marcada para revertir.
+     *
+     * @return lo que devuelven las sentencias (filas cambiadas)
+     */
+    private int enTransaccion(Connection con, SentenciasBloque sentencias) throws SQLException {
+        if (!con.getAutoCommit()) {
+            try {
+                return sentencias.ejecutar();
+            } catch (SQLException | RuntimeException ex) {
+                if (registroTransacciones != null && registroTransacciones.getTransactionKey() != null) {
+                    registroTransacciones.setRollbackOnly();
+                }
+                throw ex;
+            }
         }
-        
-        if (v.getPlaca() == null || v.getPlaca().length() <= 3) {
-            throw new IllegalArgumentException("La placa debe tener más de 3 caracteres");
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try {
+            int filas = sentencias.ejecutar();
+            con.commit();
+            return filas;
+        } catch (SQLException | RuntimeException ex) {
+            con.rollback();
+            throw ex;
+        } finally {
+            con.setAutoCommit(autoCommit);
         }
+    }
 
-        /**
-         * No aceptar propietario vacío o con menos de 5 caracteres. 
-         */
-        if (v.getPropietario() == null || v.getPropietario().trim().isEmpty()) {
-            throw new IllegalArgumentException("El campo propietario no puede estar vacío");
+    /**
+     * Vehículos elegidos para una operación masiva, entregados por bloques:
+     * de una lista de ids (sin repetidos) o, con filtro, recorriendo por id
+     * los que lo cumplen.
+     */
+    private static final class SeleccionMasiva {
+
+        private final Iterator<Integer> ids;
+        private final FiltroVehiculos filtro;
+        private int ultimoId;
+
+        SeleccionMasiva(List<Integer> ids, FiltroVehiculos filtro) {
+            boolean conFiltro = filtro != null && !filtro.estaVacio();
+            if (ids != null && conFiltro) {
+                throw new IllegalArgumentException("Indique los ids o un filtro, no ambos");
+            }
+            if (ids != null) {
+                if (ids.size() > MAX_IDS_MASIVO) {
+                    throw new IllegalArgumentException("Se pueden indicar a lo sumo " + MAX_IDS_MASIVO + " ids");
+                }
+                Set<Integer> distintos = new LinkedHashSet<>(ids);
+                distintos.remove(null);
+                if (distintos.isEmpty()) {
+                    throw new IllegalArgumentException("Indique al menos un id");
+                }
+                this.ids = distintos.iterator();
+                this.filtro = FiltroVehiculos.NINGUNO;
+            } else {
+                // Sin criterios sería toda la tabla
+                if (!conFiltro) {
+                    throw new IllegalArgumentException("Indique los ids o al menos un criterio de búsqueda");
+                }
+                this.ids = null;
+                this.filtro = filtro;
+            }
         }
-        
-        if (v.getPropietario().length() < 5) {
-            throw new IllegalArgumentException("El campo propietario debe tener al menos 5 caracteres");
+
+        FiltroVehiculos getFiltro() {
+            return filtro;
         }
 
         /**
-         * Validar colores permitidos
+         * @return siguiente bloque de ids; vacío al terminar
          */
-        if (v.getColor() != null && !v.getColor().trim().isEmpty()) {
-            switch (v.getColor().trim().toUpperCase()) {
-                case "ROJO":
-                case "BLANCO":
-                case "NEGRO":
-                case "AZUL":
-                case "GRIS":
-                    break;
-                default:
-                    throw new IllegalArgumentException("Solo se aceptan colores (ROJO, BLANCO, NEGRO, AZUL, GRIS)");
+        List<Integer> siguiente(VehiculoDAO dao) throws SQLException {
+            if (ids != null) {
+                List<Integer> bloque = new ArrayList<>(TAMANO_BLOQUE_MASIVO);
+                while (ids.hasNext() && bloque.size() < TAMANO_BLOQUE_MASIVO) {
+                    bloque.add(ids.next());
+                }
+                return bloque;
             }
+            List<Integer> bloque = dao.idsPorFiltro(filtro, ultimoId, TAMANO_BLOQUE_MASIVO);
+            if (!bloque.isEmpty()) {
+                ultimoId = bloque.get(bloque.size() - 1);
+            }
+            return bloque;
         }
+    }
 
-        /**
-         * No aceptar vehículos cuyo modelo tenga más de 20 años de antigüedad (por ejemplo, año < actual - 20). 
-         */
+    /**
+     * Ejecuta las validaciones sin BD de cada vehículo repartiendo el lote
+     * entre los núcleos disponibles.
+     *
+     * @return mensaje de error por posición, null si la fila es válida
+     */
+    private String[] validarEnParalelo(List<Vehiculo> vehiculos) {
+        int n = vehiculos.size();
+        String[] errores = new String[n];
+        int tareas = Math.min(PARALELISMO_VALIDACION, (n + FILAS_MINIMAS_POR_TAREA - 1) / FILAS_MINIMAS_POR_TAREA);
+        if (tareas <= 1 || ejecutor == null) {
+            validarRango(vehiculos, errores, 0, n);
+            return errores;
+        }
+
+        int porTarea = (n + tareas - 1) / tareas;
+        List<Future<?>> pendientes = new ArrayList<>(tareas);
+        for (int desde = 0; desde < n; desde += porTarea) {
+            int inicio = desde;
+            int fin = Math.min(n, desde + porTarea);
+            pendientes.add(ejecutor.submit(() -> validarRango(vehiculos, errores, inicio, fin)));
+        }
         try {
-            int anioModelo = Integer.parseInt(v.getModelo());
-            int anioActual = LocalDate.now().getYear();
-            int anioMinimo = anioActual - 20;
-            
-            if (anioModelo < anioMinimo) {
-                throw new IllegalArgumentException("El vehículo tiene más de 20 años de antigüedad (año mínimo permitido: " + anioMinimo + ")");
+            // get() también asegura que las escrituras en errores sean visibles
+            for (Future<?> f : pendientes) {
+                f.get();
             }
-            
-            if (anioModelo > anioActual + 1) {
-                throw new IllegalArgumentException("El año del modelo no puede ser mayor al año actual");
+        } catch (InterruptedException e) {
+            // Se valida en este hilo; la interrupción queda marcada
+            Thread.currentThread().interrupt();
+            return validarEnSerie(vehiculos, pendientes);
+        } catch (ExecutionException e) {
+            System.err.println("Error en la validación paralela del lote, se valida en serie: " + e.getCause());
+            return validarEnSerie(vehiculos, pendientes);
+        }
+        return errores;
+    }
+
+    /**
+     * Cancela las tareas que sigan en curso y valida todo en este hilo, en
+     * un arreglo nuevo: las tareas canceladas pueden seguir escribiendo en el
+     * anterior y sin get() no hay garantía de ver lo que escribieron.
+     */
+    private static String[] validarEnSerie(List<Vehiculo> vehiculos, List<Future<?>> pendientes) {
+        for (Future<?> f : pendientes) {
+            f.cancel(true);
+        }
+        String[] errores = new String[vehiculos.size()];
+        validarRango(vehiculos, errores, 0, vehiculos.size());
+        return errores;
+    }
+
+    private static void validarRango(List<Vehiculo> vehiculos, String[] errores, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            Vehiculo v = vehiculos.get(i);
+            try {
+                ValidadorVehiculo.validarSQLInjection(v);
+                ValidadorVehiculo.validarDatosVehiculo(v);
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
+            } catch (RuntimeException e) {
+                // Un dato que rompe la validación rechaza sólo esa fila
+                errores[i] = "Error al validar la fila: " + e;
             }
-            
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("El modelo debe ser un año válido (número de 4 dígitos)");
         }
+    }
 
-        /**
-         * Las placas deben ser únicas en toda la base.
-         * IMPORTANTE: Si es una actualización y la placa no cambió, no validar duplicado.
-         */
-        boolean placaCambio = (placaOriginal == null) || !placaOriginal.equalsIgnoreCase(v.getPlaca());
-        
-        if (placaCambio && dao.existePlaca(v.getPlaca())) {
-            throw new IllegalArgumentException("Esta placa de vehículo ya existe");
+    /**
+     * Conexión para la operación: la compartida de la solicitud HTTP en curso
+     * o, fuera de una solicitud, una nueva del pool. En ambos casos se usa con
+     * try-with-resources (cerrar la compartida no tiene efecto).
+     */
+    private Connection conexion() throws SQLException {
+        try {
+            return unidad.conexion();
+        } catch (ContextNotActiveException e) {
+            return ds.getConnection();
+        }
+    }
+
+    /**
+     * Conexión para lecturas que toleran el atraso de la réplica (ver
+     * {@link UnidadDeTrabajo#conexionLectura()}); fuera de una solicitud, una
+     * nueva del pool principal. Se usa con try-with-resources.
+     */
+    private Connection conexionLectura() throws SQLException {
+        try {
+            return unidad.conexionLectura();
+        } catch (ContextNotActiveException e) {
+            return ds.getConnection();
+        }
+    }
+
+    /**
+     * Conexión propia para una lectura larga, de la réplica si corresponde;
+     * siempre se cierra.
+     */
+    private Connection conexionLecturaPropia() throws SQLException {
+        try {
+            return unidad.conexionLecturaPropia();
+        } catch (ContextNotActiveException e) {
+            return ds.getConnection();
+        }
+    }
+
+    /**
+     * Marca la solicitud como escritora: sus lecturas siguientes van a la
+     * primaria.
+     */
+    private void registrarEscritura() {
+        try {
+            unidad.registrarEscritura();
+        } catch (ContextNotActiveException e) {
+            // Fuera de una solicitud no hay lecturas posteriores que proteger
+        }
+    }
+
+    /**
+     * Guardar en la cache una lectura de una réplica atrasada la dejaría
+     * vigente después de la invalidación (ver
+     * {@link VersionDatos#replicaPuedeEstarAtrasada()}).
+     */
+    private boolean replicaPuedeEstarAtrasada() {
+        return version.replicaPuedeEstarAtrasada();
+    }
+
+    /**
+     * @return true si esta solicitud escribió datos que aún no confirma; en
+     * ese caso no se usa la cache, para no leer ni publicar datos sin
+     * confirmar
+     */
+    private boolean hayCambiosSinConfirmar() {
+        try {
+            return unidad.tieneCambiosPendientes();
+        } catch (ContextNotActiveException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Las placas deben ser únicas en toda la base.
+     * IMPORTANTE: Si es una actualización y la placa no cambió, no validar duplicado.
+     *
+     * La validación se resuelve con el índice en memoria y deja la placa
+     * reservada hasta que termine la transacción; sólo se consulta la BD si
+     * el índice no está cargado o dice que la placa está ocupada (para
+     * descartar que esté desactualizado).
+     *
+     * @param v Vehículo a validar (id 0 si es nuevo)
+     * @param dao DAO para consultas a la BD
+     * @return placa normalizada reservada, o null si no hubo que reservar
+     */
+    private String reservarPlaca(Vehiculo v, VehiculoDAO dao)
+            throws IllegalArgumentException, SQLException {
+
+        if (!placas.isListo()) {
+            // La placa del propio vehículo (actualización) no cuenta
+            if (dao.existePlaca(v.getPlaca(), v.getId())) {
+                throw new IllegalArgumentException(MENSAJE_PLACA_DUPLICADA);
+            }
+            return null;
+        }
+
+        String normalizada = IndicePlacas.normalizar(v.getPlaca());
+        if (v.getId() > 0 && normalizada.equals(placas.placaDe(v.getId()))) {
+            return null; // La placa no cambió
+        }
+        if (placas.reservar(normalizada)) {
+            return normalizada;
+        }
+        if (!placas.reservadaEnCurso(normalizada)
+                && !dao.existePlaca(v.getPlaca(), v.getId())
+                && placas.tomarObsoleta(normalizada)) {
+            return normalizada;
+        }
+        throw new IllegalArgumentException(MENSAJE_PLACA_DUPLICADA);
+    }
+
+    /**
+     * Convierte la violación del índice único de placa en el mensaje de
+     * negocio; con cualquier otro error no hace nada y quien llama relanza
+     * el original.
+     *
+     * @throws IllegalArgumentException si la placa ya existe
+     */
+    private static void rechazarSiDuplicado(SQLException ex) {
+        if (VehiculoDAO.esClaveDuplicada(ex)) {
+            throw new IllegalArgumentException(MENSAJE_PLACA_DUPLICADA);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.garage.facade;
+
+import com.garage.persistence.OrigenLecturas;
+import com.garage.persistence.UnidadDeTrabajo;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión de la tabla de vehículos: un contador que sólo crece y que la
+ * fachada incrementa en cada escritura. Sirve de clave para lo que se arma a
+ * partir de los datos (HTML ya renderizado, validadores HTTP): si la versión
+ * no cambió, los datos tampoco.
+ *
+ * Arranca en la hora de inicio en milisegundos, para que una versión vista
+ * antes de reiniciar el servidor no coincida con una posterior. Como la
+ * cache, sólo ve las escrituras hechas por este nodo.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class VersionDatos {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private volatile long ultimaModificacion = System.currentTimeMillis();
+
+    @Resource
+    private TransactionSynchronizationRegistry registroTransacciones;
+
+    @Inject
+    private UnidadDeTrabajo unidad;
+
+    /**
+     * @return versión actual; se debe leer antes de consultar la BD
+     */
+    public long actual() {
+        return version.get();
+    }
+
+    /**
+     * @return instante (epoch en milisegundos) del último cambio, o del
+     * arranque si no hubo escrituras
+     */
+    public long getUltimaModificacion() {
+        return ultimaModificacion;
+    }
+
+    /**
+     * Con réplica, lo leído poco después de una escritura en este nodo
+     * (garage.lectura.ventanaMs) puede venir de una réplica que aún no la
+     * tiene, aunque se haya leído con la versión nueva. En ese lapso no se
+     * guarda lo leído en caches ni se responde con validadores HTTP de esa
+     * versión.
+     */
+    public boolean replicaPuedeEstarAtrasada() {
+        return OrigenLecturas.isConfigurada()
+                && System.currentTimeMillis() - ultimaModificacion < OrigenLecturas.VENTANA_MS;
+    }
+
+    /**
+     * Incrementa la versión ahora y otra vez al terminar la transacción, con
+     * el mismo criterio que {@link VehiculoCache#invalidarTrasConfirmar}: lo
+     * armado mientras la transacción seguía abierta queda con una versión
+     * vieja.
+     */
+    public void incrementarTrasConfirmar() {
+        incrementar();
+        TrasTransaccion.registrar(registroTransacciones, unidad, confirmada -> incrementar());
+    }
+
+    private void incrementar() {
+        ultimaModificacion = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+}
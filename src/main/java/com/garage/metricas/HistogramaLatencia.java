@@ -0,0 +1,143 @@
+package com.garage.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin bloqueos, en nanosegundos.
+ *
+ * Usa cubetas log-lineales: cada potencia de dos se divide en 8 cubetas
+ * iguales, así el error relativo de un percentil es como máximo 12,5% con
+ * un arreglo fijo de menos de 500 contadores. Registrar un valor es un
+ * incremento atómico y un par de sumas, sin reservar memoria.
+ *
+ * Los valores acumulan desde el arranque (no es una ventana deslizante); el
+ * servidor de métricas calcula tasas a partir de count y sum.
+ */
+public final class HistogramaLatencia {
+
+    private static final int BITS_SUBCUBETA = 3;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int CUBETAS = (64 - BITS_SUBCUBETA + 1) * SUBCUBETAS;
+
+    private final String capa;
+    private final String operacion;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    HistogramaLatencia(String capa, String operacion) {
+        this.capa = capa;
+        this.operacion = operacion;
+    }
+
+    /**
+     * Registra una duración.
+     *
+     * @param nanos duración en nanosegundos (los negativos cuentan como 0)
+     */
+    public void registrar(long nanos) {
+        long v = Math.max(0, nanos);
+        cubetas.incrementAndGet(indice(v));
+        cantidad.increment();
+        suma.add(v);
+        long actual = maximo.get();
+        while (v > actual && !maximo.compareAndSet(actual, v)) {
+            actual = maximo.get();
+        }
+    }
+
+    /**
+     * Registra una duración, contándola como error si corresponde.
+     */
+    public void registrar(long nanos, boolean error) {
+        if (error) {
+            errores.increment();
+        }
+        registrar(nanos);
+    }
+
+    public String getCapa() {
+        return capa;
+    }
+
+    public String getOperacion() {
+        return operacion;
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    public long getSumaNanos() {
+        return suma.sum();
+    }
+
+    public long getErrores() {
+        return errores.sum();
+    }
+
+    public long getMaximoNanos() {
+        return maximo.get();
+    }
+
+    /**
+     * Calcula varios percentiles recorriendo las cubetas una sola vez.
+     *
+     * @param cuantiles valores en (0, 1], en orden creciente
+     * @return límite superior de la cubeta de cada cuantil, en nanosegundos
+     * (acotado al máximo observado); 0 si no hay datos
+     */
+    public long[] percentiles(double... cuantiles) {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas.get(i);
+            total += copia[i];
+        }
+        long[] resultado = new long[cuantiles.length];
+        if (total == 0) {
+            return resultado;
+        }
+        long max = maximo.get();
+        long acumulado = 0;
+        int c = 0;
+        for (int i = 0; i < CUBETAS && c < cuantiles.length; i++) {
+            acumulado += copia[i];
+            while (c < cuantiles.length && acumulado >= (long) Math.ceil(cuantiles[c] * total)) {
+                resultado[c++] = Math.min(limiteSuperior(i), max);
+            }
+        }
+        while (c < cuantiles.length) {
+            resultado[c++] = max;
+        }
+        return resultado;
+    }
+
+    /**
+     * Cubeta de un valor: los menores a 8 tienen cubeta propia; el resto se
+     * ubica por su potencia de dos y los 3 bits siguientes al más alto.
+     */
+    static int indice(long v) {
+        if (v < SUBCUBETAS) {
+            return (int) v;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(v);
+        int desplazamiento = exponente - BITS_SUBCUBETA;
+        int sub = (int) (v >>> desplazamiento) & (SUBCUBETAS - 1);
+        return (desplazamiento + 1) * SUBCUBETAS + sub;
+    }
+
+    static long limiteSuperior(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int desplazamiento = indice / SUBCUBETAS - 1;
+        long inferior = (long) (SUBCUBETAS + indice % SUBCUBETAS) << desplazamiento;
+        return inferior + (1L << desplazamiento) - 1;
+    }
+}
@@ -0,0 +1,25 @@
+package com.garage.metricas;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un bean (o métodos) cuyas llamadas se miden con
+ * {@link MedidoInterceptor}: latencia por método y cantidad de errores.
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Medido {
+
+    /**
+     * Capa con la que se etiquetan las métricas; vacío = nombre simple de la
+     * clase.
+     */
+    @Nonbinding
+    String value() default "";
+}
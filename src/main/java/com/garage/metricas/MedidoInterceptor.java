@@ -0,0 +1,50 @@
+package com.garage.metricas;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Mide cada llamada a métodos de beans marcados con {@link Medido} y la
+ * registra en {@link RegistroMetricas}. Una excepción cuenta como error y se
+ * relanza sin cambios.
+ */
+@Medido
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class MedidoInterceptor {
+
+    /**
+     * Histograma de cada método, para no armar la clave en cada llamada.
+     */
+    private static final ConcurrentMap<Method, HistogramaLatencia> POR_METODO = new ConcurrentHashMap<>();
+
+    @AroundInvoke
+    public Object medir(InvocationContext ctx) throws Exception {
+        HistogramaLatencia histograma = POR_METODO.computeIfAbsent(ctx.getMethod(), MedidoInterceptor::crear);
+        long inicio = System.nanoTime();
+        try {
+            Object resultado = ctx.proceed();
+            histograma.registrar(System.nanoTime() - inicio);
+            return resultado;
+        } catch (Exception | Error e) {
+            histograma.registrar(System.nanoTime() - inicio, true);
+            throw e;
+        }
+    }
+
+    private static HistogramaLatencia crear(Method metodo) {
+        Medido medido = metodo.getAnnotation(Medido.class);
+        if (medido == null) {
+            medido = metodo.getDeclaringClass().getAnnotation(Medido.class);
+        }
+        String capa = medido != null && !medido.value().isEmpty()
+                ? medido.value()
+                : metodo.getDeclaringClass().getSimpleName();
+        return RegistroMetricas.histograma(capa, metodo.getName());
+    }
+}
@@ -0,0 +1,133 @@
+package com.garage.metricas;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registro global de histogramas de latencia por capa y operación.
+ *
+ * Es estático porque también lo usan clases que no son beans (VehiculoDAO se
+ * crea con new). Las clases que miden en caliente guardan su histograma en
+ * un campo static final para no buscarlo en cada llamada.
+ */
+public final class RegistroMetricas {
+
+    private static final ConcurrentMap<String, HistogramaLatencia> HISTOGRAMAS = new ConcurrentHashMap<>();
+
+    private static final double[] CUANTILES = {0.5, 0.95, 0.99};
+    private static final String[] ETIQUETAS_CUANTILES = {"0.5", "0.95", "0.99"};
+
+    private RegistroMetricas() {
+    }
+
+    /**
+     * Devuelve (creándolo si hace falta) el histograma de una operación.
+     *
+     * @param capa por ejemplo "facade", "dao", "servlet", "jsp", "pool"
+     * @param operacion nombre del método o acción
+     */
+    public static HistogramaLatencia histograma(String capa, String operacion) {
+        return HISTOGRAMAS.computeIfAbsent(capa + '\u0000' + operacion,
+                k -> new HistogramaLatencia(capa, operacion));
+    }
+
+    /**
+     * @return copia de los histogramas registrados, ordenados por capa y
+     * operación
+     */
+    public static List<HistogramaLatencia> histogramas() {
+        List<HistogramaLatencia> lista = new ArrayList<>(HISTOGRAMAS.values());
+        lista.sort(Comparator.comparing(HistogramaLatencia::getCapa)
+                .thenComparing(HistogramaLatencia::getOperacion));
+        return lista;
+    }
+
+    /**
+     * Escribe todas las métricas en el formato de texto de Prometheus
+     * (versión 0.0.4).
+     */
+    public static void escribirPrometheus(Writer w) throws IOException {
+        List<HistogramaLatencia> lista = histogramas();
+
+        w.write("# HELP garage_latencia_segundos Latencia por operación (acumulada desde el arranque).\n");
+        w.write("# TYPE garage_latencia_segundos summary\n");
+        for (HistogramaLatencia h : lista) {
+            long[] p = h.percentiles(CUANTILES);
+            for (int i = 0; i < p.length; i++) {
+                w.write("garage_latencia_segundos{");
+                etiquetas(w, h);
+                w.write(",quantile=\"");
+                w.write(ETIQUETAS_CUANTILES[i]);
+                w.write("\"} ");
+                w.write(segundos(p[i]));
+                w.write('\n');
+            }
+            w.write("garage_latencia_segundos_sum{");
+            etiquetas(w, h);
+            w.write("} ");
+            w.write(segundos(h.getSumaNanos()));
+            w.write('\n');
+            w.write("garage_latencia_segundos_count{");
+            etiquetas(w, h);
+            w.write("} ");
+            w.write(Long.toString(h.getCantidad()));
+            w.write('\n');
+        }
+
+        w.write("# HELP garage_latencia_maxima_segundos Latencia máxima observada por operación.\n");
+        w.write("# TYPE garage_latencia_maxima_segundos gauge\n");
+        for (HistogramaLatencia h : lista) {
+            w.write("garage_latencia_maxima_segundos{");
+            etiquetas(w, h);
+            w.write("} ");
+            w.write(segundos(h.getMaximoNanos()));
+            w.write('\n');
+        }
+
+        w.write("# HELP garage_errores_total Operaciones terminadas con excepción.\n");
+        w.write("# TYPE garage_errores_total counter\n");
+        for (HistogramaLatencia h : lista) {
+            w.write("garage_errores_total{");
+            etiquetas(w, h);
+            w.write("} ");
+            w.write(Long.toString(h.getErrores()));
+            w.write('\n');
+        }
+    }
+
+    private static void etiquetas(Writer w, HistogramaLatencia h) throws IOException {
+        w.write("capa=\"");
+        escapar(w, h.getCapa());
+        w.write("\",operacion=\"");
+        escapar(w, h.getOperacion());
+        w.write('"');
+    }
+
+    private static void escapar(Writer w, String valor) throws IOException {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '\\':
+                    w.write("\\\\");
+                    break;
+                case '"':
+                    w.write("\\\"");
+                    break;
+                case '\n':
+                    w.write("\\n");
+                    break;
+                default:
+                    w.write(c);
+            }
+        }
+    }
+
+    private static String segundos(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
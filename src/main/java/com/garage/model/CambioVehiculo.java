@@ -0,0 +1,61 @@
+package com.garage.model;
+
+/**
+ * Alta, cambio o baja de un vehículo ya confirmada, con su número de
+ * secuencia en el feed de cambios.
+ */
+public class CambioVehiculo {
+
+    public static final String CREADO = "creado";
+    public static final String ACTUALIZADO = "actualizado";
+    public static final String ELIMINADO = "eliminado";
+
+    private final long secuencia;
+    private final String tipo;
+    private final int id;
+    private final Vehiculo vehiculo;
+    private final long instante;
+
+    public CambioVehiculo(long secuencia, String tipo, int id, Vehiculo vehiculo, long instante) {
+        this.secuencia = secuencia;
+        this.tipo = tipo;
+        this.id = id;
+        this.vehiculo = vehiculo;
+        this.instante = instante;
+    }
+
+    /**
+     * @return número de secuencia; crece de a uno con cada cambio
+     */
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    /**
+     * @return creado, actualizado o eliminado
+     */
+    public String getTipo() {
+        return tipo;
+    }
+
+    /**
+     * @return id del vehículo
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return datos del vehículo tras el cambio; null si fue eliminado
+     */
+    public Vehiculo getVehiculo() {
+        return vehiculo;
+    }
+
+    /**
+     * @return epoch en milisegundos en que se publicó el cambio
+     */
+    public long getInstante() {
+        return instante;
+    }
+}
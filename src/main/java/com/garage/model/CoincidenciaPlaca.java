@@ -0,0 +1,48 @@
+package com.garage.model;
+
+/**
+ * Placa encontrada por una búsqueda parcial, con su puntaje de relevancia.
+ */
+public class CoincidenciaPlaca {
+
+    private final int id;
+    private final String placa;
+    private final boolean aproximada;
+    private final double puntaje;
+
+    public CoincidenciaPlaca(int id, String placa, boolean aproximada, double puntaje) {
+        this.id = id;
+        this.placa = placa;
+        this.aproximada = aproximada;
+        this.puntaje = puntaje;
+    }
+
+    /**
+     * @return id del vehículo
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return placa normalizada del vehículo
+     */
+    public String getPlaca() {
+        return placa;
+    }
+
+    /**
+     * @return false si la placa contiene el texto buscado; true si sólo se
+     * parece (posible error de tipeo)
+     */
+    public boolean isAproximada() {
+        return aproximada;
+    }
+
+    /**
+     * @return relevancia entre 0 y 1; 1 es la placa exacta
+     */
+    public double getPuntaje() {
+        return puntaje;
+    }
+}
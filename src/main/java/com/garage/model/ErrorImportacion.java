@@ -0,0 +1,39 @@
+package com.garage.model;
+
+/**
+ * Fila rechazada durante una importación masiva.
+ */
+public class ErrorImportacion {
+
+    private final int fila;
+    private final String placa;
+    private final String mensaje;
+
+    public ErrorImportacion(int fila, String placa, String mensaje) {
+        this.fila = fila;
+        this.placa = placa;
+        this.mensaje = mensaje;
+    }
+
+    /**
+     * @return número de fila de datos en el archivo (desde 1, sin contar el
+     * encabezado)
+     */
+    public int getFila() {
+        return fila;
+    }
+
+    /**
+     * @return placa de la fila, si se pudo leer
+     */
+    public String getPlaca() {
+        return placa;
+    }
+
+    /**
+     * @return motivo del rechazo
+     */
+    public String getMensaje() {
+        return mensaje;
+    }
+}
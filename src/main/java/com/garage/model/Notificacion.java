@@ -0,0 +1,85 @@
+package com.garage.model;
+
+/**
+ * Notificación de la bandeja de salida: la generó una regla al registrarse
+ * un vehículo y espera que el despachador la entregue a su destino.
+ */
+public class Notificacion {
+
+    private long id;
+    private String regla;
+    private String destino;
+    private int vehiculoId;
+    private String carga;
+    private int intentos;
+
+    public Notificacion() {
+    }
+
+    public Notificacion(String regla, String destino, int vehiculoId, String carga) {
+        this.regla = regla;
+        this.destino = destino;
+        this.vehiculoId = vehiculoId;
+        this.carga = carga;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return nombre de la regla que la generó
+     */
+    public String getRegla() {
+        return regla;
+    }
+
+    public void setRegla(String regla) {
+        this.regla = regla;
+    }
+
+    /**
+     * @return destinatario (por ejemplo, "vehiculos-premium")
+     */
+    public String getDestino() {
+        return destino;
+    }
+
+    public void setDestino(String destino) {
+        this.destino = destino;
+    }
+
+    public int getVehiculoId() {
+        return vehiculoId;
+    }
+
+    public void setVehiculoId(int vehiculoId) {
+        this.vehiculoId = vehiculoId;
+    }
+
+    /**
+     * @return contenido en JSON (regla, mensaje y datos del vehículo)
+     */
+    public String getCarga() {
+        return carga;
+    }
+
+    public void setCarga(String carga) {
+        this.carga = carga;
+    }
+
+    /**
+     * @return entregas ya intentadas sin éxito
+     */
+    public int getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(int intentos) {
+        this.intentos = intentos;
+    }
+}
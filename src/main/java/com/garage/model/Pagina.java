@@ -0,0 +1,75 @@
+package com.garage.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados obtenida con paginación por clave (keyset).
+ *
+ * Los cursores son opacos: el cliente sólo debe reenviarlos tal cual para
+ * pedir la página siguiente o anterior. Un cursor nulo indica que no hay más
+ * resultados en esa dirección.
+ *
+ * @param <T> tipo de los elementos
+ */
+public class Pagina<T> {
+
+    private final List<T> elementos;
+    private final int tamano;
+    private final String orden;
+    private final boolean descendente;
+    private final String cursorSiguiente;
+    private final String cursorAnterior;
+
+    public Pagina(List<T> elementos, int tamano, String orden, boolean descendente,
+            String cursorSiguiente, String cursorAnterior) {
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.tamano = tamano;
+        this.orden = orden;
+        this.descendente = descendente;
+        this.cursorSiguiente = cursorSiguiente;
+        this.cursorAnterior = cursorAnterior;
+    }
+
+    /**
+     * @return elementos de la página en el orden solicitado
+     */
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * @return tamaño de página solicitado
+     */
+    public int getTamano() {
+        return tamano;
+    }
+
+    /**
+     * @return nombre del criterio de orden (parámetro "orden")
+     */
+    public String getOrden() {
+        return orden;
+    }
+
+    /**
+     * @return true si el orden es descendente
+     */
+    public boolean isDescendente() {
+        return descendente;
+    }
+
+    /**
+     * @return cursor para la página siguiente o null si es la última
+     */
+    public String getCursorSiguiente() {
+        return cursorSiguiente;
+    }
+
+    /**
+     * @return cursor para la página anterior o null si es la primera
+     */
+    public String getCursorAnterior() {
+        return cursorAnterior;
+    }
+}
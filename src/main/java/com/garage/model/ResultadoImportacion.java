@@ -0,0 +1,90 @@
+package com.garage.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva: filas procesadas, insertadas y el
+ * detalle de cada fila rechazada. Una fila con error no detiene el resto del
+ * archivo.
+ */
+public class ResultadoImportacion {
+
+    private int filas;
+    private int insertadas;
+    private int notificaciones;
+    private final List<ErrorImportacion> errores = new ArrayList<>();
+
+    /**
+     * Cuenta filas leídas del archivo.
+     */
+    public void contarFilas(int cantidad) {
+        filas += cantidad;
+    }
+
+    /**
+     * Cuenta una fila insertada.
+     */
+    public void contarInsertada() {
+        insertadas++;
+    }
+
+    /**
+     * Cuenta una notificación especial generada (por ejemplo, Ferrari).
+     */
+    public void contarNotificacion() {
+        notificaciones++;
+    }
+
+    /**
+     * Registra una fila rechazada.
+     */
+    public void agregarError(int fila, String placa, String mensaje) {
+        errores.add(new ErrorImportacion(fila, placa, mensaje));
+    }
+
+    /**
+     * Acumula el resultado de un lote en este resumen.
+     */
+    public void sumar(ResultadoImportacion lote) {
+        filas += lote.filas;
+        insertadas += lote.insertadas;
+        notificaciones += lote.notificaciones;
+        errores.addAll(lote.errores);
+    }
+
+    /**
+     * @return filas leídas
+     */
+    public int getFilas() {
+        return filas;
+    }
+
+    /**
+     * @return filas insertadas
+     */
+    public int getInsertadas() {
+        return insertadas;
+    }
+
+    /**
+     * @return filas rechazadas
+     */
+    public int getRechazadas() {
+        return errores.size();
+    }
+
+    /**
+     * @return notificaciones especiales generadas
+     */
+    public int getNotificaciones() {
+        return notificaciones;
+    }
+
+    /**
+     * @return detalle de las filas rechazadas, en orden de fila
+     */
+    public List<ErrorImportacion> getErrores() {
+        return errores;
+    }
+}
@@ -0,0 +1,55 @@
+package com.garage.model;
+
+/**
+ * Resumen de una operación masiva (reasignación de propietario o
+ * eliminación): vehículos seleccionados por ids o filtro, cuántos se
+ * cambiaron y cuántos se omitieron por las reglas (propietario protegido,
+ * modelo fuera de rango, sin cambios) o porque no existían. Cada bloque se
+ * confirma en su propia transacción.
+ */
+public class ResultadoMasivo {
+
+    private int seleccionados;
+    private int afectados;
+    private int bloques;
+
+    /**
+     * Cuenta un bloque confirmado.
+     *
+     * @param seleccionadosBloque ids del bloque
+     * @param afectadosBloque filas cambiadas por la sentencia del bloque
+     */
+    public void contarBloque(int seleccionadosBloque, int afectadosBloque) {
+        seleccionados += seleccionadosBloque;
+        afectados += afectadosBloque;
+        bloques++;
+    }
+
+    /**
+     * @return ids seleccionados (sin repetidos)
+     */
+    public int getSeleccionados() {
+        return seleccionados;
+    }
+
+    /**
+     * @return vehículos cambiados o eliminados
+     */
+    public int getAfectados() {
+        return afectados;
+    }
+
+    /**
+     * @return vehículos seleccionados que no se tocaron
+     */
+    public int getOmitidos() {
+        return seleccionados - afectados;
+    }
+
+    /**
+     * @return bloques (transacciones) ejecutados
+     */
+    public int getBloques() {
+        return bloques;
+    }
+}
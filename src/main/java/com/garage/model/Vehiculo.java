@@ -33,6 +33,13 @@ public class Vehiculo {
         this.propietario = propietario;
     }
 
+    /**
+     * Constructor de copia
+     */
+    public Vehiculo(Vehiculo otro) {
+        this(otro.id, otro.placa, otro.marca, otro.modelo, otro.color, otro.propietario);
+    }
+
     public Vehiculo(String placa, String marca, String modelo, String color, String propietario) {
         this.placa = placa;
         this.marca = marca;
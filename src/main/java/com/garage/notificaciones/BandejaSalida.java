@@ -0,0 +1,98 @@
+package com.garage.notificaciones;
+
+import com.garage.model.Notificacion;
+import com.garage.model.Vehiculo;
+import com.garage.persistence.NotificacionDAO;
+import jakarta.json.Json;
+import jakarta.json.JsonObjectBuilder;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bandeja de salida transaccional: las escrituras evalúan las reglas y
+ * guardan las notificaciones que correspondan en notificaciones_salida con
+ * la misma conexión y en la misma transacción que el vehículo, así no hay
+ * aviso de un alta revertida ni alta confirmada sin aviso. El envío lo hace
+ * después {@link DespachadorNotificaciones}, fuera de la solicitud.
+ */
+public final class BandejaSalida {
+
+    private final ReglasNotificacion reglas;
+    private final DespachadorNotificaciones despachador;
+
+    /**
+     * @param despachador a quien avisar tras confirmar, o null
+     */
+    public BandejaSalida(ReglasNotificacion reglas, DespachadorNotificaciones despachador) {
+        this.reglas = reglas;
+        this.despachador = despachador;
+    }
+
+    /**
+     * @return reglas que aplican al vehículo (lista vacía si ninguna)
+     */
+    public List<ReglaNotificacion> evaluar(Vehiculo v) {
+        return reglas.evaluar(v);
+    }
+
+    /**
+     * Agrega a la bandeja las notificaciones de los vehículos ya insertados
+     * (con id). No confirma: debe llamarse dentro de la transacción del
+     * INSERT.
+     *
+     * @return notificaciones agregadas
+     */
+    public int registrar(Connection con, List<Vehiculo> insertados) throws SQLException {
+        List<Notificacion> notificaciones = null;
+        for (Vehiculo v : insertados) {
+            for (ReglaNotificacion regla : reglas.evaluar(v)) {
+                if (notificaciones == null) {
+                    notificaciones = new ArrayList<>();
+                }
+                notificaciones.add(new Notificacion(regla.getNombre(), regla.getDestino(), v.getId(),
+                        carga(regla, v)));
+            }
+        }
+        if (notificaciones == null) {
+            return 0;
+        }
+        new NotificacionDAO(con).agregar(notificaciones);
+        return notificaciones.size();
+    }
+
+    /**
+     * Despierta al despachador; se llama después del commit.
+     */
+    public void avisar() {
+        if (despachador != null) {
+            despachador.avisar();
+        }
+    }
+
+    /**
+     * Carga JSON: regla, destino, mensaje y los datos del vehículo.
+     */
+    private static String carga(ReglaNotificacion regla, Vehiculo v) {
+        JsonObjectBuilder vehiculo = Json.createObjectBuilder()
+                .add("id", v.getId())
+                .add("placa", texto(v.getPlaca()))
+                .add("marca", texto(v.getMarca()))
+                .add("modelo", texto(v.getModelo()))
+                .add("color", texto(v.getColor()))
+                .add("propietario", texto(v.getPropietario()));
+        JsonObjectBuilder carga = Json.createObjectBuilder()
+                .add("regla", regla.getNombre())
+                .add("destino", regla.getDestino())
+                .add("vehiculo", vehiculo);
+        if (regla.getMensaje() != null) {
+            carga.add("mensaje", regla.getMensaje());
+        }
+        return carga.build().toString();
+    }
+
+    private static String texto(String valor) {
+        return valor == null ? "" : valor;
+    }
+}
@@ -0,0 +1,286 @@
+package com.garage.notificaciones;
+
+import com.garage.model.Notificacion;
+import com.garage.persistence.NotificacionDAO;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+/**
+ * Vacía la bandeja de salida en segundo plano: cada hilo reclama un lote de
+ * notificaciones pendientes, devuelve la conexión, las entrega una por una
+ * al destino y después borra las entregadas y reprograma las que fallaron
+ * con espera exponencial (con azar, para no reintentar todas a la vez). Al
+ * agotar los intentos quedan como FALLIDA para revisarlas a mano.
+ *
+ * Control de flujo: las escrituras nunca esperan al destino, sólo agregan
+ * filas a la bandeja, que hace de buffer durable. Los despachadores toman
+ * trabajo a medida que el destino lo acepta (a lo sumo un lote por hilo en
+ * curso) y, si un lote entero falla, el hilo deja de reclamar durante una
+ * pausa que crece con cada lote fallido seguido, para no insistir contra un
+ * destino caído. Con la bandeja vacía esperan el intervalo configurado o un
+ * {@link #avisar()} de una escritura recién confirmada.
+ *
+ * Los hilos salen de la fábrica que recibe el constructor; en el servidor,
+ * la ManagedThreadFactory del contenedor.
+ *
+ * La entrega es "al menos una vez": si el nodo se cae después de enviar y
+ * antes de borrar la fila, se vuelve a enviar al vencer el plazo de reclamo.
+ * La carga lleva regla y vehículo para que el destino pueda descartar
+ * repetidas.
+ */
+public final class DespachadorNotificaciones {
+
+    private final DataSource ds;
+    private final DestinoNotificaciones destino;
+    private final int lote;
+    private final long intervaloMs;
+    private final int hilosDespacho;
+    private final int maxIntentos;
+    private final long reintentoBaseMs;
+    private final long reintentoMaxMs;
+    private final long plazoReclamoMs;
+    private final ThreadFactory fabricaHilos;
+
+    private final Object aviso = new Object();
+    private boolean avisado;
+    private final List<Thread> hilos = new ArrayList<>();
+    private volatile boolean activo;
+
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong enviadas = new AtomicLong();
+    private final AtomicLong intentosFallidos = new AtomicLong();
+    private final AtomicLong agotadas = new AtomicLong();
+    private final AtomicLong erroresBaseDatos = new AtomicLong();
+    private final AtomicLong pausas = new AtomicLong();
+
+    /**
+     * @param lote notificaciones por reclamo
+     * @param intervaloMs espera con la bandeja vacía
+     * @param hilosDespacho hilos despachadores (entregas simultáneas)
+     * @param maxIntentos intentos antes de dejarla como FALLIDA
+     * @param reintentoBaseMs espera tras el primer fallo; se duplica en cada
+     * intento
+     * @param reintentoMaxMs espera máxima entre intentos
+     * @param plazoReclamoMs tiempo que un lote reclamado queda reservado
+     * @param fabricaHilos fábrica de los hilos despachadores
+     */
+    public DespachadorNotificaciones(DataSource ds, DestinoNotificaciones destino, int lote, long intervaloMs,
+            int hilosDespacho, int maxIntentos, long reintentoBaseMs, long reintentoMaxMs, long plazoReclamoMs,
+            ThreadFactory fabricaHilos) {
+        this.ds = ds;
+        this.destino = destino;
+        this.lote = Math.max(1, lote);
+        this.intervaloMs = Math.max(1, intervaloMs);
+        this.hilosDespacho = Math.max(1, hilosDespacho);
+        this.maxIntentos = Math.max(1, maxIntentos);
+        this.reintentoBaseMs = Math.max(1, reintentoBaseMs);
+        this.reintentoMaxMs = Math.max(this.reintentoBaseMs, reintentoMaxMs);
+        this.plazoReclamoMs = Math.max(1000, plazoReclamoMs);
+        this.fabricaHilos = fabricaHilos;
+    }
+
+    public synchronized void iniciar() {
+        if (activo) {
+            return;
+        }
+        activo = true;
+        for (int i = 1; i <= hilosDespacho; i++) {
+            Thread hilo = fabricaHilos.newThread(this::despachar);
+            hilo.start();
+            hilos.add(hilo);
+        }
+    }
+
+    /**
+     * Detiene los despachadores. Lo que tenían reclamado y sin enviar vuelve
+     * a estar disponible al vencer el plazo de reclamo.
+     */
+    public synchronized void detener() {
+        activo = false;
+        for (Thread hilo : hilos) {
+            hilo.interrupt();
+        }
+        for (Thread hilo : hilos) {
+            try {
+                hilo.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        hilos.clear();
+    }
+
+    public boolean isActivo() {
+        return activo;
+    }
+
+    /**
+     * Despierta a los despachadores que esperan con la bandeja vacía (se
+     * llama tras confirmar una escritura que agregó notificaciones).
+     */
+    public void avisar() {
+        synchronized (aviso) {
+            avisado = true;
+            aviso.notifyAll();
+        }
+    }
+
+    private void despachar() {
+        int lotesFallidosSeguidos = 0;
+        int erroresSeguidos = 0;
+        while (activo) {
+            try {
+                Resultado r = despacharLote();
+                erroresSeguidos = 0;
+                if (r.reclamadas > 0 && r.entregadas == 0) {
+                    // El destino no acepta nada: pausa creciente antes de reclamar más
+                    lotesFallidosSeguidos++;
+                    pausas.incrementAndGet();
+                    Thread.sleep(espera(lotesFallidosSeguidos));
+                    continue;
+                }
+                lotesFallidosSeguidos = 0;
+                if (r.reclamadas < lote) {
+                    esperarAviso();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (SQLException | RuntimeException e) {
+                erroresBaseDatos.incrementAndGet();
+                erroresSeguidos++;
+                System.err.println("Error en el despacho de notificaciones: " + e.getMessage());
+                try {
+                    Thread.sleep(espera(erroresSeguidos));
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void esperarAviso() throws InterruptedException {
+        synchronized (aviso) {
+            if (!avisado) {
+                aviso.wait(intervaloMs);
+            }
+            avisado = false;
+        }
+    }
+
+    /**
+     * Reclama, entrega y registra un lote.
+     */
+    private Resultado despacharLote() throws SQLException, InterruptedException {
+        long ahora = System.currentTimeMillis();
+        List<Notificacion> reclamadas;
+        try (Connection con = ds.getConnection()) {
+            reclamadas = new NotificacionDAO(con).reclamar(UUID.randomUUID().toString(), ahora,
+                    ahora + plazoReclamoMs, lote);
+        }
+        if (reclamadas.isEmpty()) {
+            return new Resultado(0, 0);
+        }
+        lotes.incrementAndGet();
+
+        // Sin conexión tomada mientras se espera al destino
+        List<Long> entregadas = new ArrayList<>(reclamadas.size());
+        List<Notificacion> fallidas = new ArrayList<>();
+        List<String> errores = new ArrayList<>();
+        InterruptedException interrumpido = null;
+        for (Notificacion n : reclamadas) {
+            if (interrumpido != null) {
+                break;
+            }
+            try {
+                destino.enviar(n);
+                entregadas.add(n.getId());
+            } catch (InterruptedException e) {
+                // Se detiene: las no enviadas vuelven a la bandeja al vencer el reclamo
+                interrumpido = e;
+            } catch (Exception e) {
+                fallidas.add(n);
+                errores.add(e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+
+        long[] proximos = new long[fallidas.size()];
+        long despues = System.currentTimeMillis();
+        for (int i = 0; i < fallidas.size(); i++) {
+            Notificacion n = fallidas.get(i);
+            n.setIntentos(n.getIntentos() + 1);
+            if (n.getIntentos() >= maxIntentos) {
+                proximos[i] = -1;
+                agotadas.incrementAndGet();
+                System.err.println("Notificación " + n.getId() + " para " + n.getDestino() + " quedó FALLIDA tras "
+                        + n.getIntentos() + " intentos: " + errores.get(i));
+            } else {
+                proximos[i] = despues + espera(n.getIntentos());
+            }
+        }
+        try (Connection con = ds.getConnection()) {
+            NotificacionDAO dao = new NotificacionDAO(con);
+            dao.eliminar(entregadas);
+            dao.reprogramar(fallidas, proximos, errores.toArray(new String[0]));
+        }
+        enviadas.addAndGet(entregadas.size());
+        intentosFallidos.addAndGet(fallidas.size());
+        if (interrumpido != null) {
+            throw interrumpido;
+        }
+        return new Resultado(reclamadas.size(), entregadas.size());
+    }
+
+    /**
+     * @return espera exponencial para el intento n, entre la mitad y el
+     * total de reintentoBaseMs * 2^(n-1), sin pasar de reintentoMaxMs
+     */
+    private long espera(int intento) {
+        long tope = reintentoBaseMs << Math.min(20, Math.max(0, intento - 1));
+        tope = Math.min(reintentoMaxMs, tope);
+        return tope / 2 + ThreadLocalRandom.current().nextLong(tope / 2 + 1);
+    }
+
+    /**
+     * @return configuración, contadores y filas de la bandeja por estado
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("activo", activo);
+        datos.put("hilos", hilosDespacho);
+        datos.put("lote", lote);
+        datos.put("maxIntentos", maxIntentos);
+        datos.put("lotes", lotes.get());
+        datos.put("enviadas", enviadas.get());
+        datos.put("intentosFallidos", intentosFallidos.get());
+        datos.put("agotadas", agotadas.get());
+        datos.put("pausas", pausas.get());
+        datos.put("erroresBaseDatos", erroresBaseDatos.get());
+        try (Connection con = ds.getConnection()) {
+            datos.put("bandeja", new NotificacionDAO(con).contarPorEstado());
+        } catch (SQLException e) {
+            datos.put("bandeja", "Error de base de datos: " + e.getMessage());
+        }
+        return datos;
+    }
+
+    private static final class Resultado {
+
+        private final int reclamadas;
+        private final int entregadas;
+
+        Resultado(int reclamadas, int entregadas) {
+            this.reclamadas = reclamadas;
+            this.entregadas = entregadas;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.garage.notificaciones;
+
+import com.garage.model.Notificacion;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Destino de prueba: agrega cada notificación como una línea JSON al final
+ * de un archivo, para revisar qué se habría enviado.
+ */
+public final class DestinoArchivo implements DestinoNotificaciones {
+
+    private final Path archivo;
+
+    public DestinoArchivo(Path archivo) {
+        this.archivo = archivo;
+    }
+
+    @Override
+    public synchronized void enviar(Notificacion notificacion) throws IOException {
+        String linea = notificacion.getCarga().replace('\n', ' ') + System.lineSeparator();
+        Files.write(archivo, linea.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+}
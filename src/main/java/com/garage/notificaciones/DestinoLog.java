@@ -0,0 +1,14 @@
+package com.garage.notificaciones;
+
+import com.garage.model.Notificacion;
+
+/**
+ * Destino de prueba: escribe cada notificación en el log del servidor.
+ */
+public final class DestinoLog implements DestinoNotificaciones {
+
+    @Override
+    public void enviar(Notificacion notificacion) {
+        System.err.println("Notificación para " + notificacion.getDestino() + ": " + notificacion.getCarga());
+    }
+}
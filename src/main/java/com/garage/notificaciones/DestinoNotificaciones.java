@@ -0,0 +1,19 @@
+package com.garage.notificaciones;
+
+import com.garage.model.Notificacion;
+
+/**
+ * Entrega de una notificación a su destinatario (correo, mensajería, un
+ * servicio del departamento). Lo llama el despachador fuera de toda
+ * transacción; puede tardar o fallar y la notificación se reintenta.
+ *
+ * Mientras no haya un destinatario real están {@link DestinoLog} y
+ * {@link DestinoArchivo}, que sirven para probar el circuito completo.
+ */
+public interface DestinoNotificaciones {
+
+    /**
+     * @throws Exception si no se pudo entregar (se reintenta más tarde)
+     */
+    void enviar(Notificacion notificacion) throws Exception;
+}
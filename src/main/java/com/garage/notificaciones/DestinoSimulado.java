@@ -0,0 +1,37 @@
+package com.garage.notificaciones;
+
+import com.garage.model.Notificacion;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envuelve un destino de prueba con la latencia y los fallos de uno real,
+ * para ejercitar los reintentos y la espera del despachador.
+ */
+public final class DestinoSimulado implements DestinoNotificaciones {
+
+    private final DestinoNotificaciones destino;
+    private final long latenciaMs;
+    private final double probabilidadFallo;
+
+    /**
+     * @param latenciaMs espera antes de cada entrega
+     * @param probabilidadFallo fracción de entregas que fallan (0 a 1)
+     */
+    public DestinoSimulado(DestinoNotificaciones destino, long latenciaMs, double probabilidadFallo) {
+        this.destino = destino;
+        this.latenciaMs = Math.max(0, latenciaMs);
+        this.probabilidadFallo = Math.max(0, Math.min(1, probabilidadFallo));
+    }
+
+    @Override
+    public void enviar(Notificacion notificacion) throws Exception {
+        if (latenciaMs > 0) {
+            TimeUnit.MILLISECONDS.sleep(latenciaMs);
+        }
+        if (probabilidadFallo > 0 && ThreadLocalRandom.current().nextDouble() < probabilidadFallo) {
+            throw new IllegalStateException("Fallo simulado del destino " + notificacion.getDestino());
+        }
+        destino.enviar(notificacion);
+    }
+}
@@ -0,0 +1,142 @@
+package com.garage.notificaciones;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Regla de notificación: a quién avisar cuando se registra un vehículo de
+ * ciertas marcas, colores y años de modelo. Un criterio vacío acepta
+ * cualquier valor; marcas y colores ignoran mayúsculas y espacios extremos.
+ *
+ * En el archivo de reglas cada línea es
+ * {@code nombre|destino|marcas|colores|años|mensaje}, con marcas y colores
+ * separados por coma y años como "2015-2020", "2015-", "-2020" o "2020".
+ */
+public final class ReglaNotificacion {
+
+    private final String nombre;
+    private final String destino;
+    private final Set<String> marcas;
+    private final Set<String> colores;
+    private final int anioDesde;
+    private final int anioHasta;
+    private final String mensaje;
+
+    /**
+     * @param marcas marcas aceptadas (vacío = cualquiera)
+     * @param colores colores aceptados (vacío = cualquiera)
+     * @param anioDesde año mínimo del modelo, o null
+     * @param anioHasta año máximo del modelo, o null
+     * @param mensaje aviso que se muestra a quien registró el vehículo, o
+     * null
+     */
+    public ReglaNotificacion(String nombre, String destino, Set<String> marcas, Set<String> colores,
+            Integer anioDesde, Integer anioHasta, String mensaje) {
+        if (nombre == null || nombre.trim().isEmpty() || destino == null || destino.trim().isEmpty()) {
+            throw new IllegalArgumentException("La regla necesita nombre y destino");
+        }
+        this.nombre = nombre.trim();
+        this.destino = destino.trim();
+        this.marcas = normalizar(marcas);
+        this.colores = normalizar(colores);
+        this.anioDesde = anioDesde == null ? Integer.MIN_VALUE : anioDesde;
+        this.anioHasta = anioHasta == null ? Integer.MAX_VALUE : anioHasta;
+        this.mensaje = mensaje == null || mensaje.trim().isEmpty() ? null : mensaje.trim();
+    }
+
+    /**
+     * Lee una línea del archivo de reglas.
+     *
+     * @throws IllegalArgumentException si la línea no tiene el formato
+     */
+    public static ReglaNotificacion parsear(String linea) {
+        String[] campos = linea.split("\\|", -1);
+        if (campos.length < 5 || campos.length > 6) {
+            throw new IllegalArgumentException("Se esperaban 5 o 6 campos separados por '|'");
+        }
+        Integer desde = null;
+        Integer hasta = null;
+        String anios = campos[4].trim();
+        if (!anios.isEmpty()) {
+            try {
+                int guion = anios.indexOf('-');
+                if (guion < 0) {
+                    desde = Integer.valueOf(anios);
+                    hasta = desde;
+                } else {
+                    String izquierda = anios.substring(0, guion).trim();
+                    String derecha = anios.substring(guion + 1).trim();
+                    desde = izquierda.isEmpty() ? null : Integer.valueOf(izquierda);
+                    hasta = derecha.isEmpty() ? null : Integer.valueOf(derecha);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Rango de años inválido: " + anios);
+            }
+        }
+        return new ReglaNotificacion(campos[0], campos[1], lista(campos[2]), lista(campos[3]), desde, hasta,
+                campos.length == 6 ? campos[5] : null);
+    }
+
+    private static Set<String> lista(String campo) {
+        return campo.trim().isEmpty() ? Collections.emptySet() : new LinkedHashSet<>(Arrays.asList(campo.split(",")));
+    }
+
+    /**
+     * Mismo criterio para los valores de la regla y los del vehículo.
+     */
+    static String normalizar(String valor) {
+        return valor == null ? "" : valor.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static Set<String> normalizar(Set<String> valores) {
+        Set<String> normalizados = new LinkedHashSet<>();
+        if (valores != null) {
+            for (String valor : valores) {
+                String v = normalizar(valor);
+                if (!v.isEmpty()) {
+                    normalizados.add(v);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(normalizados);
+    }
+
+    /**
+     * Comprueba color y año; la marca ya la resolvió
+     * {@link ReglasNotificacion} al elegir las candidatas.
+     *
+     * @param color color normalizado
+     * @param anio año del modelo, o null si no es un número
+     */
+    boolean aceptaColorYAnio(String color, Integer anio) {
+        if (!colores.isEmpty() && !colores.contains(color)) {
+            return false;
+        }
+        if (anioDesde == Integer.MIN_VALUE && anioHasta == Integer.MAX_VALUE) {
+            return true;
+        }
+        return anio != null && anio >= anioDesde && anio <= anioHasta;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getDestino() {
+        return destino;
+    }
+
+    /**
+     * @return marcas aceptadas, normalizadas (vacío = cualquiera)
+     */
+    public Set<String> getMarcas() {
+        return marcas;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+}
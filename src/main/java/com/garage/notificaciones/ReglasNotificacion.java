@@ -0,0 +1,166 @@
+package com.garage.notificaciones;
+
+import com.garage.config.Configuracion;
+import com.garage.model.Vehiculo;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conjunto de reglas de notificación compilado una sola vez: las reglas se
+ * agrupan por marca en un mapa, así evaluar un vehículo es una búsqueda por
+ * su marca más las pocas reglas sin marca, y un vehículo sin reglas que le
+ * apliquen no recorre ninguna ni reserva memoria.
+ *
+ * Las reglas salen de garage.notificaciones.archivoReglas (una por línea,
+ * "#" para comentarios, formato en {@link ReglaNotificacion}); sin archivo se
+ * usa la regla de siempre: avisar al departamento de vehículos premium de
+ * cada Ferrari.
+ */
+public final class ReglasNotificacion {
+
+    private static final String ARCHIVO_REGLAS = Configuracion.texto("garage.notificaciones.archivoReglas", null);
+
+    private static final String MENSAJE_FERRARI = "🏎️ ¡NOTIFICACIÓN ESPECIAL! Se ha registrado un vehículo de lujo marca Ferrari. Se ha enviado alerta al departamento de vehículos premium.";
+
+    private static final ReglasNotificacion CONFIGURADAS = compilar(cargarReglas());
+
+    private final Map<String, ReglaNotificacion[]> porMarca;
+    private final ReglaNotificacion[] sinMarca;
+    private final Map<ReglaNotificacion, Integer> orden;
+    private final int cantidad;
+
+    private ReglasNotificacion(Map<String, ReglaNotificacion[]> porMarca, ReglaNotificacion[] sinMarca,
+            Map<ReglaNotificacion, Integer> orden) {
+        this.porMarca = porMarca;
+        this.sinMarca = sinMarca;
+        this.orden = orden;
+        this.cantidad = orden.size();
+    }
+
+    /**
+     * Compila las reglas; al evaluar se devuelven en este mismo orden.
+     */
+    public static ReglasNotificacion compilar(List<ReglaNotificacion> reglas) {
+        Map<String, List<ReglaNotificacion>> agrupadas = new HashMap<>();
+        List<ReglaNotificacion> sinMarca = new ArrayList<>();
+        Map<ReglaNotificacion, Integer> orden = new HashMap<>();
+        for (ReglaNotificacion regla : reglas) {
+            orden.put(regla, orden.size());
+            if (regla.getMarcas().isEmpty()) {
+                sinMarca.add(regla);
+            }
+            for (String marca : regla.getMarcas()) {
+                agrupadas.computeIfAbsent(marca, m -> new ArrayList<>()).add(regla);
+            }
+        }
+        Map<String, ReglaNotificacion[]> porMarca = new HashMap<>();
+        for (Map.Entry<String, List<ReglaNotificacion>> e : agrupadas.entrySet()) {
+            porMarca.put(e.getKey(), e.getValue().toArray(new ReglaNotificacion[0]));
+        }
+        return new ReglasNotificacion(porMarca, sinMarca.toArray(new ReglaNotificacion[0]), orden);
+    }
+
+    /**
+     * @return reglas de garage.notificaciones.archivoReglas, o la de Ferrari
+     */
+    public static ReglasNotificacion configuradas() {
+        return CONFIGURADAS;
+    }
+
+    /**
+     * @return reglas que aplican al vehículo, en el orden en que se
+     * definieron; lista vacía (compartida) si ninguna aplica
+     */
+    public List<ReglaNotificacion> evaluar(Vehiculo v) {
+        ReglaNotificacion[] candidatas = porMarca.get(ReglaNotificacion.normalizar(v.getMarca()));
+        if (candidatas == null && sinMarca.length == 0) {
+            return Collections.emptyList();
+        }
+        String color = ReglaNotificacion.normalizar(v.getColor());
+        Integer anio = anio(v.getModelo());
+        List<ReglaNotificacion> aplican = null;
+        if (candidatas != null) {
+            aplican = agregarQueAplican(aplican, candidatas, color, anio);
+        }
+        aplican = agregarQueAplican(aplican, sinMarca, color, anio);
+        if (aplican == null) {
+            return Collections.emptyList();
+        }
+        if (candidatas != null && sinMarca.length > 0 && aplican.size() > 1) {
+            aplican.sort((a, b) -> Integer.compare(orden.get(a), orden.get(b)));
+        }
+        return aplican;
+    }
+
+    private static List<ReglaNotificacion> agregarQueAplican(List<ReglaNotificacion> aplican,
+            ReglaNotificacion[] reglas, String color, Integer anio) {
+        for (ReglaNotificacion regla : reglas) {
+            if (regla.aceptaColorYAnio(color, anio)) {
+                if (aplican == null) {
+                    aplican = new ArrayList<>(2);
+                }
+                aplican.add(regla);
+            }
+        }
+        return aplican;
+    }
+
+    private static Integer anio(String modelo) {
+        if (modelo == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(modelo.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return cantidad de reglas
+     */
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Lee las reglas del archivo configurado o, si no hay, usa la de
+     * Ferrari. Una línea inválida se informa y se salta.
+     */
+    private static List<ReglaNotificacion> cargarReglas() {
+        ReglaNotificacion ferrari = new ReglaNotificacion("ferrari", "vehiculos-premium", Set.of("Ferrari"),
+                Collections.emptySet(), null, null, MENSAJE_FERRARI);
+        if (ARCHIVO_REGLAS == null || ARCHIVO_REGLAS.trim().isEmpty()) {
+            return List.of(ferrari);
+        }
+        try {
+            List<ReglaNotificacion> reglas = new ArrayList<>();
+            int numero = 0;
+            for (String linea : Files.readAllLines(Paths.get(ARCHIVO_REGLAS.trim()), StandardCharsets.UTF_8)) {
+                numero++;
+                if (linea.trim().isEmpty() || linea.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    reglas.add(ReglaNotificacion.parsear(linea));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Regla de notificación inválida en " + ARCHIVO_REGLAS + ":" + numero
+                            + ", se ignora: " + e.getMessage());
+                }
+            }
+            return reglas;
+        } catch (IOException e) {
+            System.err.println("No se pudo leer el archivo de reglas " + ARCHIVO_REGLAS
+                    + ", se usa la regla de Ferrari: " + e.getMessage());
+            return List.of(ferrari);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.garage.persistence;
+
+/**
+ * Columnas de la tabla vehiculos que se pueden pedir en una
+ * {@link ProyeccionVehiculo}. El orden de declaración es el orden en que se
+ * listan en el SELECT.
+ */
+public enum ColumnaVehiculo {
+
+    ID("id"),
+    PLACA("placa"),
+    MARCA("marca"),
+    MODELO("modelo"),
+    COLOR("color"),
+    PROPIETARIO("propietario");
+
+    private final String nombre;
+
+    ColumnaVehiculo(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * @return nombre de la columna SQL
+     */
+    public String getNombre() {
+        return nombre;
+    }
+}
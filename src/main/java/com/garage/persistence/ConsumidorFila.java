@@ -0,0 +1,21 @@
+package com.garage.persistence;
+
+import java.io.IOException;
+
+/**
+ * Recibe las columnas de una fila de vehiculos directamente desde el
+ * ResultSet, sin construir un objeto Vehiculo. Se usa en recorridos masivos
+ * (exportaciones) donde crear un objeto por fila no aporta nada.
+ */
+@FunctionalInterface
+public interface ConsumidorFila {
+
+    /**
+     * Procesa una fila.
+     *
+     * @throws IOException si falla la escritura de la fila (por ejemplo, el
+     * cliente cerró la conexión)
+     */
+    void aceptar(int id, String placa, String marca, String modelo, String color, String propietario)
+            throws IOException;
+}
@@ -0,0 +1,89 @@
+package com.garage.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición dentro de un listado paginado por clave.
+ *
+ * Guarda el id y el valor de la columna de orden de la fila límite, junto
+ * con el criterio y la dirección para rechazar cursores usados con otro
+ * orden. Se serializa como Base64 URL-safe para viajar en la query string.
+ */
+public final class CursorPagina {
+
+    private static final char SEPARADOR = '\u001F';
+
+    private final OrdenVehiculo orden;
+    private final boolean descendente;
+    private final boolean anterior;
+    private final int id;
+    private final String valor;
+
+    CursorPagina(OrdenVehiculo orden, boolean descendente, boolean anterior, int id, String valor) {
+        this.orden = orden;
+        this.descendente = descendente;
+        this.anterior = anterior;
+        this.id = id;
+        this.valor = valor;
+    }
+
+    /**
+     * @return true si el cursor pide las filas anteriores a la posición
+     */
+    boolean isAnterior() {
+        return anterior;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getValor() {
+        return valor;
+    }
+
+    /**
+     * @return representación opaca para enviar al cliente
+     */
+    public String codificar() {
+        String plano = orden.name() + SEPARADOR + (descendente ? 'D' : 'A') + SEPARADOR
+                + (anterior ? 'P' : 'N') + SEPARADOR + id + SEPARADOR + (valor == null ? "" : valor);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente.
+     *
+     * @param texto cursor opaco; null o vacío significa "primera página"
+     * @param orden orden con el que se está listando
+     * @param descendente dirección con la que se está listando
+     * @return cursor o null si no se envió ninguno
+     * @throws IllegalArgumentException si el cursor está corrupto o fue
+     * generado con otro orden
+     */
+    public static CursorPagina decodificar(String texto, OrdenVehiculo orden, boolean descendente) {
+        if (texto == null || texto.isEmpty()) {
+            return null;
+        }
+        String[] partes;
+        int id;
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(texto), StandardCharsets.UTF_8);
+            partes = plano.split(String.valueOf(SEPARADOR), 5);
+            id = partes.length == 5 ? Integer.parseInt(partes[3]) : 0;
+        } catch (IllegalArgumentException e) {
+            // Base64 o número inválido (NumberFormatException es subclase)
+            throw new IllegalArgumentException("El cursor de paginación no es válido", e);
+        }
+        if (partes.length != 5
+                || !partes[0].equals(orden.name())
+                || partes[1].equals("D") != descendente) {
+            throw new IllegalArgumentException("El cursor de paginación no corresponde al orden solicitado");
+        }
+        boolean anterior = partes[2].equals("P");
+        String valor = orden == OrdenVehiculo.ID ? null : partes[4];
+        return new CursorPagina(orden, descendente, anterior, id, valor);
+    }
+}
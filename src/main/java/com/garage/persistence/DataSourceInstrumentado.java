@@ -0,0 +1,354 @@
+package com.garage.persistence;
+
+import com.garage.config.Configuracion;
+import com.garage.metricas.HistogramaLatencia;
+import com.garage.metricas.RegistroMetricas;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+
+/**
+ * Envoltorio del DataSource del pool que mide cada ida a la base de datos.
+ *
+ * Mide la obtención de conexiones, la ejecución de cada sentencia y la
+ * lectura de su ResultSet (métricas "pool" y "jdbc"), cuenta las idas en la
+ * {@link TrazaJdbc} de la solicitud y escribe en el log las consultas que
+ * superan garage.jdbc.umbralLentaMs. El log nunca incluye valores: los
+ * parámetros se informan sólo por cantidad y los literales del SQL se
+ * reemplazan por "?".
+ *
+ * Se desactiva con garage.jdbc.instrumentado=false.
+ */
+public final class DataSourceInstrumentado {
+
+    private static final boolean HABILITADO = Configuracion.booleano("garage.jdbc.instrumentado", true);
+    private static final long UMBRAL_LENTA_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Configuracion.enteroLargo("garage.jdbc.umbralLentaMs", 200));
+
+    private static final HistogramaLatencia METRICA_CHECKOUT = RegistroMetricas.histograma("pool", "checkout");
+    private static final HistogramaLatencia METRICA_LECTURA = RegistroMetricas.histograma("jdbc", "lectura");
+    private static final HistogramaLatencia METRICA_COMMIT = RegistroMetricas.histograma("jdbc", "commit");
+    private static final HistogramaLatencia METRICA_ROLLBACK = RegistroMetricas.histograma("jdbc", "rollback");
+
+    /**
+     * Listas "(?, ?, ?)" de largo variable (consultas IN), para que cuenten
+     * como una misma sentencia.
+     */
+    private static final Pattern LISTA_PARAMETROS = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+    private DataSourceInstrumentado() {
+    }
+
+    /**
+     * Envuelve el DataSource; si la instrumentación está desactivada o ya
+     * estaba envuelto, lo devuelve tal cual.
+     */
+    public static DataSource envolver(DataSource ds) {
+        if (!HABILITADO || ds == null
+                || (Proxy.isProxyClass(ds.getClass()) && Proxy.getInvocationHandler(ds) instanceof ManejadorDataSource)) {
+            return ds;
+        }
+        return proxy(DataSource.class, new ManejadorDataSource(ds));
+    }
+
+    /**
+     * SQL sin literales y con las listas de parámetros colapsadas; es la
+     * clave con la que se agrupan las sentencias y lo que se escribe en el
+     * log.
+     */
+    static String normalizar(String sql) {
+        if (sql == null) {
+            return "?";
+        }
+        StringBuilder sb = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                // Literal de texto: se salta hasta la comilla de cierre
+                int j = i + 1;
+                while (j < sql.length()) {
+                    char d = sql.charAt(j);
+                    if (d == '\\') {
+                        j += 2;
+                        continue;
+                    }
+                    if (d == c) {
+                        if (j + 1 < sql.length() && sql.charAt(j + 1) == c) {
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    j++;
+                }
+                sb.append('?');
+                i = j + 1;
+            } else if (Character.isDigit(c) && (i == 0 || !esParteDeNombre(sql.charAt(i - 1)))) {
+                // Literal numérico
+                int j = i;
+                while (j < sql.length() && (Character.isDigit(sql.charAt(j)) || sql.charAt(j) == '.')) {
+                    j++;
+                }
+                sb.append('?');
+                i = j;
+            } else if (Character.isWhitespace(c)) {
+                if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+                    sb.append(' ');
+                }
+                i++;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return LISTA_PARAMETROS.matcher(sb.toString().trim()).replaceAll("(?...)");
+    }
+
+    private static boolean esParteDeNombre(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * Métrica de ejecución según el tipo de sentencia (select, insert,
+     * update, delete u otra).
+     */
+    private static HistogramaLatencia metricaEjecucion(String sqlNormalizado) {
+        int fin = sqlNormalizado.indexOf(' ');
+        String verbo = (fin < 0 ? sqlNormalizado : sqlNormalizado.substring(0, fin)).toLowerCase(Locale.ROOT);
+        switch (verbo) {
+            case "select":
+            case "insert":
+            case "update":
+            case "delete":
+                return RegistroMetricas.histograma("jdbc", verbo);
+            default:
+                return RegistroMetricas.histograma("jdbc", "otra");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, InvocationHandler manejador) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, manejador);
+    }
+
+    private static Object invocar(Object real, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(real, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ManejadorDataSource implements InvocationHandler {
+
+        private final DataSource real;
+
+        ManejadorDataSource(DataSource real) {
+            this.real = real;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            if (!metodo.getName().equals("getConnection")) {
+                return invocar(real, metodo, args);
+            }
+            long inicio = System.nanoTime();
+            boolean error = true;
+            try {
+                Connection con = (Connection) invocar(real, metodo, args);
+                error = false;
+                TrazaJdbc.registrarConexion();
+                return proxy(Connection.class, new ManejadorConexion(con));
+            } finally {
+                METRICA_CHECKOUT.registrar(System.nanoTime() - inicio, error);
+            }
+        }
+    }
+
+    private static final class ManejadorConexion implements InvocationHandler {
+
+        private final Connection real;
+
+        ManejadorConexion(Connection real) {
+            this.real = real;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "createStatement":
+                    return proxy(Statement.class,
+                            new ManejadorSentencia((Statement) invocar(real, metodo, args), null));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class,
+                            new ManejadorSentencia((Statement) invocar(real, metodo, args), (String) args[0]));
+                case "prepareCall":
+                    return proxy(CallableStatement.class,
+                            new ManejadorSentencia((Statement) invocar(real, metodo, args), (String) args[0]));
+                case "commit":
+                    return medirFinTransaccion(METRICA_COMMIT, "COMMIT", metodo, args);
+                case "rollback":
+                    return medirFinTransaccion(METRICA_ROLLBACK, "ROLLBACK", metodo, args);
+                default:
+                    return invocar(real, metodo, args);
+            }
+        }
+
+        private Object medirFinTransaccion(HistogramaLatencia metrica, String sql, Method metodo, Object[] args)
+                throws Throwable {
+            long inicio = System.nanoTime();
+            boolean error = true;
+            try {
+                Object resultado = invocar(real, metodo, args);
+                error = false;
+                return resultado;
+            } finally {
+                long duracion = System.nanoTime() - inicio;
+                metrica.registrar(duracion, error);
+                TrazaJdbc.registrarIda(sql, duracion);
+            }
+        }
+    }
+
+    /**
+     * Statement, PreparedStatement o CallableStatement medido. Una
+     * ejecución queda abierta mientras se lee su ResultSet y se cierra al
+     * agotarlo, al cerrar el ResultSet o la sentencia, o al volver a
+     * ejecutar.
+     */
+    private static final class ManejadorSentencia implements InvocationHandler {
+
+        private final Statement real;
+        private final String sql;
+        private String normalizado;
+        private int parametros;
+
+        private String sqlEnCurso;
+        private long nanosEjecucion;
+        private long nanosLectura;
+        private int filas;
+        private boolean abierta;
+
+        ManejadorSentencia(Statement real, String sql) {
+            this.real = real;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            if (nombre.startsWith("execute")) {
+                return ejecutar(metodo, args);
+            }
+            if (nombre.startsWith("set") && metodo.getDeclaringClass() != Statement.class
+                    && args != null && args.length > 0 && args[0] instanceof Integer) {
+                // Parámetro de PreparedStatement: sólo se cuenta, el valor no se guarda
+                parametros = Math.max(parametros, (Integer) args[0]);
+            } else if (nombre.equals("clearParameters")) {
+                parametros = 0;
+            } else if (nombre.equals("close")) {
+                cerrarEjecucion();
+            }
+            return invocar(real, metodo, args);
+        }
+
+        private Object ejecutar(Method metodo, Object[] args) throws Throwable {
+            cerrarEjecucion();
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                sqlEnCurso = normalizar((String) args[0]);
+            } else {
+                if (normalizado == null) {
+                    normalizado = normalizar(sql);
+                }
+                sqlEnCurso = normalizado;
+            }
+            long inicio = System.nanoTime();
+            boolean error = true;
+            Object resultado;
+            try {
+                resultado = invocar(real, metodo, args);
+                error = false;
+            } finally {
+                nanosEjecucion = System.nanoTime() - inicio;
+                metricaEjecucion(sqlEnCurso).registrar(nanosEjecucion, error);
+                TrazaJdbc.registrarIda(sqlEnCurso, nanosEjecucion);
+            }
+            abierta = true;
+            nanosLectura = 0;
+            filas = 0;
+            if (resultado instanceof ResultSet) {
+                return proxy(ResultSet.class, new ManejadorResultado((ResultSet) resultado, this));
+            }
+            cerrarEjecucion();
+            return resultado;
+        }
+
+        void sumarLectura(long nanos, boolean hayFila) {
+            nanosLectura += nanos;
+            if (hayFila) {
+                filas++;
+            }
+        }
+
+        void cerrarEjecucion() {
+            if (!abierta) {
+                return;
+            }
+            abierta = false;
+            if (filas > 0 || nanosLectura > 0) {
+                METRICA_LECTURA.registrar(nanosLectura);
+            }
+            long total = nanosEjecucion + nanosLectura;
+            if (UMBRAL_LENTA_NANOS > 0 && total >= UMBRAL_LENTA_NANOS) {
+                System.err.println("Consulta lenta (" + TimeUnit.NANOSECONDS.toMillis(total)
+                        + " ms: ejecución " + TimeUnit.NANOSECONDS.toMillis(nanosEjecucion)
+                        + " ms, lectura " + TimeUnit.NANOSECONDS.toMillis(nanosLectura)
+                        + " ms, " + filas + " filas, " + parametros + " parámetros redactados): "
+                        + sqlEnCurso);
+            }
+        }
+    }
+
+    /**
+     * ResultSet que suma a su sentencia el tiempo de cada next().
+     */
+    private static final class ManejadorResultado implements InvocationHandler {
+
+        private final ResultSet real;
+        private final ManejadorSentencia sentencia;
+
+        ManejadorResultado(ResultSet real, ManejadorSentencia sentencia) {
+            this.real = real;
+            this.sentencia = sentencia;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            if (nombre.equals("next")) {
+                long inicio = System.nanoTime();
+                Boolean hay = (Boolean) invocar(real, metodo, args);
+                sentencia.sumarLectura(System.nanoTime() - inicio, hay);
+                if (!hay) {
+                    sentencia.cerrarEjecucion();
+                }
+                return hay;
+            }
+            if (nombre.equals("close")) {
+                sentencia.cerrarEjecucion();
+            }
+            return invocar(real, metodo, args);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.garage.persistence;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Migraciones versionadas del esquema de vehículos. Cada migración tiene un
+ * número y se registra en la tabla esquema_version al aplicarse; al arrancar
+ * sólo se aplican las que faltan, en orden.
+ *
+ * En MySQL cada DDL confirma solo, así que una migración que falla a mitad
+ * de camino puede quedar aplicada en parte. Por eso cada paso primero mira
+ * si ya existe (tabla, columna o índice con esas columnas, con cualquier
+ * nombre) y repetir una migración no tiene efecto. Así también se respetan
+ * los índices que ya se hubieran creado a mano con el SQL del README.
+ *
+ * Con varios nodos arrancando a la vez, en MySQL se toma GET_LOCK para que
+ * sólo uno migre.
+ */
+public final class EsquemaVehiculos {
+
+    private static final String TABLA = "vehiculos";
+    private static final String BLOQUEO = "garage.esquema";
+    private static final int ESPERA_BLOQUEO_SEGUNDOS = 60;
+
+    private static final List<Migracion> MIGRACIONES = List.of(
+            new Migracion(1, "Tabla vehiculos", EsquemaVehiculos::crearTabla),
+            new Migracion(2, "Índice único de placa normalizada", EsquemaVehiculos::indicesPlaca),
+            new Migracion(3, "Índices de búsqueda y orden del listado", EsquemaVehiculos::indicesBusqueda),
+            new Migracion(4, "Bandeja de salida de notificaciones", EsquemaVehiculos::bandejaNotificaciones));
+
+    /**
+     * Versión que deja el esquema al aplicar todas las migraciones.
+     */
+    public static final int VERSION_ACTUAL = MIGRACIONES.get(MIGRACIONES.size() - 1).version;
+
+    private EsquemaVehiculos() {
+    }
+
+    /**
+     * Aplica las migraciones pendientes. Se detiene en la primera que falla;
+     * las anteriores quedan registradas.
+     *
+     * @param con conexión propia (se usa en autocommit)
+     * @return descripción de las migraciones aplicadas, vacía si el esquema
+     * ya estaba al día
+     * @throws SQLException si falla una migración
+     */
+    public static List<String> migrar(Connection con) throws SQLException {
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(true);
+        boolean mysql = esMySql(con);
+        if (mysql) {
+            bloquear(con);
+        }
+        try {
+            try (Statement st = con.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS esquema_version ("
+                        + "version INT NOT NULL PRIMARY KEY, "
+                        + "descripcion VARCHAR(200) NOT NULL, "
+                        + "aplicada TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+            }
+            int actual = version(con);
+            List<String> aplicadas = new ArrayList<>();
+            for (Migracion m : MIGRACIONES) {
+                if (m.version <= actual) {
+                    continue;
+                }
+                try {
+                    m.paso.aplicar(con);
+                } catch (SQLException ex) {
+                    throw new SQLException("Migración " + m.version + " (" + m.descripcion + "): "
+                            + ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), ex);
+                }
+                try (PreparedStatement ps = con.prepareStatement(
+                        "INSERT INTO esquema_version (version, descripcion) VALUES (?, ?)")) {
+                    ps.setInt(1, m.version);
+                    ps.setString(2, m.descripcion);
+                    ps.executeUpdate();
+                }
+                aplicadas.add(m.version + " " + m.descripcion);
+            }
+            return aplicadas;
+        } finally {
+            if (mysql) {
+                liberar(con);
+            }
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @return versión registrada del esquema (0 si no hay ninguna)
+     */
+    public static int version(Connection con) throws SQLException {
+        try (Statement st = con.createStatement();
+                ResultSet rs = st.executeQuery("SELECT MAX(version) FROM esquema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void crearTabla(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS vehiculos ("
+                    + "id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "placa VARCHAR(20) NOT NULL, "
+                    + "marca VARCHAR(50) NOT NULL, "
+                    + "modelo VARCHAR(10) NOT NULL, "
+                    + "color VARCHAR(20), "
+                    + "propietario VARCHAR(100) NOT NULL)"
+                    + (esMySql(con) ? " ENGINE=InnoDB DEFAULT CHARSET=utf8mb4" : ""));
+        }
+    }
+
+    /**
+     * La placa se guarda como la escribió el usuario; la unicidad se exige
+     * sobre la placa sin espacios extremos y en mayúsculas, el mismo criterio
+     * que el índice de placas en memoria. El índice simple sobre placa sirve
+     * a las consultas WHERE placa=? y placa IN (...).
+     */
+    private static void indicesPlaca(Connection con) throws SQLException {
+        if (!existeColumna(con, "placa_normalizada")) {
+            try (Statement st = con.createStatement()) {
+                st.execute("ALTER TABLE vehiculos ADD COLUMN placa_normalizada VARCHAR(20) "
+                        + "GENERATED ALWAYS AS (UPPER(TRIM(placa)))" + (esMySql(con) ? " VIRTUAL" : ""));
+            }
+        }
+        crearIndiceSiFalta(con, "ux_vehiculos_placa_normalizada", true, "placa_normalizada");
+        crearIndiceSiFalta(con, "ix_vehiculos_placa", false, "placa");
+    }
+
+    /**
+     * InnoDB agrega el id al final de cada índice secundario, que es el
+     * desempate de la paginación por clave.
+     */
+    private static void indicesBusqueda(Connection con) throws SQLException {
+        crearIndiceSiFalta(con, "ix_vehiculos_marca_modelo", false, "marca", "modelo");
+        crearIndiceSiFalta(con, "ix_vehiculos_color_marca", false, "color", "marca");
+        crearIndiceSiFalta(con, "ix_vehiculos_propietario", false, "propietario");
+        crearIndiceSiFalta(con, "ix_vehiculos_modelo", false, "modelo");
+    }
+
+    /**
+     * Bandeja de salida (outbox): cada alta que cumple una regla de
+     * notificación deja aquí una fila en la misma transacción del INSERT, y
+     * el despachador la entrega después. Los instantes son epoch en ms del
+     * servidor de aplicaciones; proximo_intento también hace de plazo de
+     * reclamo mientras un nodo la está enviando.
+     */
+    private static void bandejaNotificaciones(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS " + NotificacionDAO.TABLA + " ("
+                    + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "regla VARCHAR(60) NOT NULL, "
+                    + "destino VARCHAR(60) NOT NULL, "
+                    + "vehiculo_id INT NOT NULL, "
+                    + "carga VARCHAR(2000) NOT NULL, "
+                    + "creada BIGINT NOT NULL, "
+                    + "estado VARCHAR(10) NOT NULL, "
+                    + "intentos INT NOT NULL DEFAULT 0, "
+                    + "proximo_intento BIGINT NOT NULL, "
+                    + "reclamo VARCHAR(40), "
+                    + "ultimo_error VARCHAR(500))"
+                    + (esMySql(con) ? " ENGINE=InnoDB DEFAULT CHARSET=utf8mb4" : ""));
+        }
+        crearIndiceSiFalta(con, NotificacionDAO.TABLA, "ix_notificaciones_estado_proximo", false,
+                "estado", "proximo_intento");
+    }
+
+    private static void crearIndiceSiFalta(Connection con, String nombre, boolean unico, String... columnas)
+            throws SQLException {
+        crearIndiceSiFalta(con, TABLA, nombre, unico, columnas);
+    }
+
+    /**
+     * Crea el índice salvo que ya haya uno que empiece con las mismas
+     * columnas (y sea único, si se pide único).
+     */
+    private static void crearIndiceSiFalta(Connection con, String tabla, String nombre, boolean unico,
+            String... columnas) throws SQLException {
+        List<String> buscadas = Arrays.asList(columnas);
+        for (Map.Entry<String, List<String>> indice : indices(con, tabla, unico).entrySet()) {
+            List<String> existentes = indice.getValue();
+            if (existentes.size() >= buscadas.size()
+                    && existentes.subList(0, buscadas.size()).equals(buscadas)) {
+                return;
+            }
+        }
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE " + (unico ? "UNIQUE " : "") + "INDEX " + nombre
+                    + " ON " + tabla + " (" + String.join(", ", columnas) + ")");
+        }
+    }
+
+    /**
+     * @return columnas de cada índice de la tabla, en orden y en minúsculas
+     */
+    private static Map<String, List<String>> indices(Connection con, String tabla, boolean soloUnicos)
+            throws SQLException {
+        DatabaseMetaData meta = con.getMetaData();
+        Map<String, List<String>> indices = new LinkedHashMap<>();
+        try (ResultSet rs = meta.getIndexInfo(con.getCatalog(), null, nombreTabla(meta, tabla), soloUnicos, false)) {
+            while (rs.next()) {
+                String indice = rs.getString("INDEX_NAME");
+                String columna = rs.getString("COLUMN_NAME");
+                if (indice == null || columna == null) {
+                    continue;
+                }
+                List<String> cols = indices.computeIfAbsent(indice, k -> new ArrayList<>());
+                int posicion = rs.getShort("ORDINAL_POSITION");
+                while (cols.size() < posicion) {
+                    cols.add(null);
+                }
+                cols.set(posicion - 1, columna.toLowerCase(Locale.ROOT));
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * @return true si la tabla existe en el esquema de la conexión
+     */
+    public static boolean existeTabla(Connection con, String tabla) throws SQLException {
+        DatabaseMetaData meta = con.getMetaData();
+        try (ResultSet rs = meta.getTables(con.getCatalog(), null, nombreTabla(meta, tabla), new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private static boolean existeColumna(Connection con, String columna) throws SQLException {
+        DatabaseMetaData meta = con.getMetaData();
+        String nombre = meta.storesUpperCaseIdentifiers() ? columna.toUpperCase(Locale.ROOT) : columna;
+        try (ResultSet rs = meta.getColumns(con.getCatalog(), null, nombreTabla(meta, TABLA), nombre)) {
+            return rs.next();
+        }
+    }
+
+    private static String nombreTabla(DatabaseMetaData meta, String tabla) throws SQLException {
+        return meta.storesUpperCaseIdentifiers() ? tabla.toUpperCase(Locale.ROOT) : tabla;
+    }
+
+    static boolean esMySql(Connection con) throws SQLException {
+        String producto = con.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        return producto.contains("mysql") || producto.contains("mariadb");
+    }
+
+    private static void bloquear(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, BLOQUEO);
+            ps.setInt(2, ESPERA_BLOQUEO_SEGUNDOS);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Otro nodo está migrando el esquema desde hace más de "
+                            + ESPERA_BLOQUEO_SEGUNDOS + " s");
+                }
+            }
+        }
+    }
+
+    private static void liberar(Connection con) {
+        try (PreparedStatement ps = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, BLOQUEO);
+            ps.executeQuery().close();
+        } catch (SQLException ex) {
+            // Se libera igual al cerrar la conexión
+            System.err.println("No se pudo liberar el bloqueo de migración: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Cambio del esquema a aplicar una sola vez.
+     */
+    private interface Paso {
+
+        void aplicar(Connection con) throws SQLException;
+    }
+
+    private static final class Migracion {
+
+        private final int version;
+        private final String descripcion;
+        private final Paso paso;
+
+        Migracion(int version, String descripcion, Paso paso) {
+            this.version = version;
+            this.descripcion = descripcion;
+            this.paso = paso;
+        }
+    }
+}
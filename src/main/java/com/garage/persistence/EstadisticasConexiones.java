@@ -0,0 +1,112 @@
+package com.garage.persistence;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de uso del pool por solicitud HTTP.
+ *
+ * "pedidos" son las veces que la fachada pidió una conexión y "checkouts"
+ * las veces que realmente se sacó una del pool; la diferencia es lo que
+ * ahorra la {@link UnidadDeTrabajo}. "idas" son las sentencias enviadas a
+ * la base de datos (ver {@link TrazaJdbc}).
+ */
+@ApplicationScoped
+public class EstadisticasConexiones {
+
+    /**
+     * Último índice del histograma: solicitudes con 4 o más checkouts.
+     */
+    private static final int MAX_CUBETA = 4;
+
+    private final LongAdder solicitudes = new LongAdder();
+    private final LongAdder pedidos = new LongAdder();
+    private final LongAdder checkouts = new LongAdder();
+    private final AtomicLongArray checkoutsPorSolicitud = new AtomicLongArray(MAX_CUBETA + 1);
+    private final LongAdder solicitudesTrazadas = new LongAdder();
+    private final LongAdder idas = new LongAdder();
+    private final AtomicLong maximoIdas = new AtomicLong();
+
+    /**
+     * Registra una solicitud terminada.
+     */
+    public void registrar(int pedidosSolicitud, int checkoutsSolicitud) {
+        solicitudes.increment();
+        pedidos.add(pedidosSolicitud);
+        checkouts.add(checkoutsSolicitud);
+        checkoutsPorSolicitud.incrementAndGet(Math.min(checkoutsSolicitud, MAX_CUBETA));
+    }
+
+    /**
+     * Registra las idas a la base de datos de una solicitud terminada.
+     */
+    public void registrarIdas(int idasSolicitud) {
+        solicitudesTrazadas.increment();
+        idas.add(idasSolicitud);
+        maximoIdas.accumulateAndGet(idasSolicitud, Math::max);
+    }
+
+    /**
+     * @return solicitudes registradas
+     */
+    public long getSolicitudes() {
+        return solicitudes.sum();
+    }
+
+    /**
+     * @return conexiones pedidas por la fachada
+     */
+    public long getPedidos() {
+        return pedidos.sum();
+    }
+
+    /**
+     * @return conexiones sacadas del pool
+     */
+    public long getCheckouts() {
+        return checkouts.sum();
+    }
+
+    /**
+     * @return promedio de checkouts por solicitud
+     */
+    public double getCheckoutsPorSolicitud() {
+        long n = solicitudes.sum();
+        return n == 0 ? 0.0 : (double) checkouts.sum() / n;
+    }
+
+    /**
+     * @return cantidad de solicitudes con 0, 1, 2, 3 y 4 o más checkouts
+     */
+    public long[] getHistograma() {
+        long[] copia = new long[MAX_CUBETA + 1];
+        for (int i = 0; i <= MAX_CUBETA; i++) {
+            copia[i] = checkoutsPorSolicitud.get(i);
+        }
+        return copia;
+    }
+
+    /**
+     * @return sentencias enviadas a la base de datos
+     */
+    public long getIdas() {
+        return idas.sum();
+    }
+
+    /**
+     * @return promedio de idas a la base de datos por solicitud
+     */
+    public double getIdasPorSolicitud() {
+        long n = solicitudesTrazadas.sum();
+        return n == 0 ? 0.0 : (double) idas.sum() / n;
+    }
+
+    /**
+     * @return máximo de idas a la base de datos en una sola solicitud
+     */
+    public long getMaximoIdas() {
+        return maximoIdas.get();
+    }
+}
@@ -0,0 +1,232 @@
+package com.garage.persistence;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Criterios de búsqueda del listado de vehículos. Todos son opcionales y se
+ * combinan con AND.
+ *
+ * Cada criterio se traduce en una condición que puede usar un índice:
+ * igualdad para marca y color (la colación de MySQL ya ignora mayúsculas),
+ * prefijo (LIKE 'texto%') para propietario y rango para el año del modelo.
+ * Los índices sugeridos están en el README.
+ *
+ * Las operaciones masivas usan {@link #paraOperacionMasiva}: ahí el
+ * propietario debe coincidir completo (sin distinguir mayúsculas ni espacios
+ * en los extremos), porque un prefijo borraría o reasignaría también los
+ * vehículos de otros propietarios que empiezan igual.
+ */
+public final class FiltroVehiculos {
+
+    /**
+     * Sin criterios: todos los vehículos.
+     */
+    public static final FiltroVehiculos NINGUNO = new FiltroVehiculos(null, null, null, null, null, false);
+
+    private final String marca;
+    private final String color;
+    private final String propietario;
+    private final Integer anioDesde;
+    private final Integer anioHasta;
+    private final boolean propietarioExacto;
+
+    private FiltroVehiculos(String marca, String color, String propietario, Integer anioDesde, Integer anioHasta,
+            boolean propietarioExacto) {
+        this.marca = marca;
+        this.color = color;
+        this.propietario = propietario;
+        this.anioDesde = anioDesde;
+        this.anioHasta = anioHasta;
+        this.propietarioExacto = propietarioExacto;
+    }
+
+    /**
+     * Crea un filtro. Los textos vacíos o en blanco se ignoran.
+     *
+     * @param marca marca exacta
+     * @param color color exacto
+     * @param propietario comienzo del nombre del propietario
+     * @param anioDesde año mínimo del modelo (inclusive)
+     * @param anioHasta año máximo del modelo (inclusive)
+     * @throws IllegalArgumentException si el rango de años no es válido
+     */
+    public static FiltroVehiculos de(String marca, String color, String propietario,
+            Integer anioDesde, Integer anioHasta) {
+        return crear(marca, color, propietario, anioDesde, anioHasta, false);
+    }
+
+    /**
+     * Como {@link #de}, pero el propietario se compara completo, con el
+     * mismo criterio que la regla de vehículos protegidos:
+     * UPPER(TRIM(propietario)) = UPPER(?).
+     *
+     * @param propietario nombre completo del propietario
+     * @throws IllegalArgumentException si el rango de años no es válido
+     */
+    public static FiltroVehiculos paraOperacionMasiva(String marca, String color, String propietario,
+            Integer anioDesde, Integer anioHasta) {
+        return crear(marca, color, propietario, anioDesde, anioHasta, true);
+    }
+
+    private static FiltroVehiculos crear(String marca, String color, String propietario,
+            Integer anioDesde, Integer anioHasta, boolean propietarioExacto) {
+        if (anioDesde != null && (anioDesde < 1000 || anioDesde > 9999)
+                || anioHasta != null && (anioHasta < 1000 || anioHasta > 9999)) {
+            throw new IllegalArgumentException("El año debe ser un número de 4 dígitos");
+        }
+        if (anioDesde != null && anioHasta != null && anioDesde > anioHasta) {
+            throw new IllegalArgumentException("El año inicial no puede ser mayor al año final");
+        }
+        FiltroVehiculos filtro = new FiltroVehiculos(limpiar(marca), limpiar(color), limpiar(propietario),
+                anioDesde, anioHasta, propietarioExacto);
+        return filtro.estaVacio() ? NINGUNO : filtro;
+    }
+
+    private static String limpiar(String texto) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return null;
+        }
+        return texto.trim();
+    }
+
+    /**
+     * @return true si no hay ningún criterio
+     */
+    public boolean estaVacio() {
+        return marca == null && color == null && propietario == null && anioDesde == null && anioHasta == null;
+    }
+
+    public String getMarca() {
+        return marca;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public String getPropietario() {
+        return propietario;
+    }
+
+    public Integer getAnioDesde() {
+        return anioDesde;
+    }
+
+    public Integer getAnioHasta() {
+        return anioHasta;
+    }
+
+    /**
+     * Agrega al SQL las condiciones del filtro (unidas con AND, sin el
+     * WHERE) y devuelve cuántos parámetros agregó. Los parámetros se asignan
+     * con {@link #asignar(PreparedStatement, int)} en el mismo
+     * orden.
+     */
+    int agregarCondiciones(StringBuilder sql) {
+        int parametros = 0;
+        if (marca != null) {
+            parametros = condicion(sql, parametros, "marca = ?");
+        }
+        if (color != null) {
+            parametros = condicion(sql, parametros, "color = ?");
+        }
+        if (propietario != null) {
+            parametros = condicion(sql, parametros, propietarioExacto
+                    ? "UPPER(TRIM(propietario)) = UPPER(?)"
+                    : "propietario LIKE ? ESCAPE '!'");
+        }
+        if (anioDesde != null) {
+            // modelo es texto; con años de 4 dígitos el orden de texto coincide con el numérico
+            parametros = condicion(sql, parametros, "modelo >= ?");
+        }
+        if (anioHasta != null) {
+            parametros = condicion(sql, parametros, "modelo <= ?");
+        }
+        return parametros;
+    }
+
+    private static int condicion(StringBuilder sql, int parametros, String condicion) {
+        if (parametros > 0) {
+            sql.append(" AND ");
+        }
+        sql.append(condicion);
+        return parametros + 1;
+    }
+
+    /**
+     * Asigna los parámetros del filtro a partir de la posición indicada.
+     *
+     * @return siguiente posición libre
+     */
+    int asignar(PreparedStatement ps, int posicion) throws SQLException {
+        int i = posicion;
+        if (marca != null) {
+            ps.setString(i++, marca);
+        }
+        if (color != null) {
+            ps.setString(i++, color);
+        }
+        if (propietario != null) {
+            ps.setString(i++, propietarioExacto ? propietario : escaparLike(propietario) + "%");
+        }
+        if (anioDesde != null) {
+            ps.setString(i++, anioDesde.toString());
+        }
+        if (anioHasta != null) {
+            ps.setString(i++, anioHasta.toString());
+        }
+        return i;
+    }
+
+    private static String escaparLike(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '!' || c == '%' || c == '_') {
+                sb.append('!');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return texto que identifica el filtro, para claves de cache
+     */
+    public String clave() {
+        if (estaVacio()) {
+            return "";
+        }
+        return campo(marca) + '\u001F' + campo(color) + '\u001F' + campo(propietario)
+                + '\u001F' + (anioDesde == null ? "" : anioDesde) + '\u001F' + (anioHasta == null ? "" : anioHasta)
+                + (propietarioExacto ? "\u001F=" : "");
+    }
+
+    private static String campo(String valor) {
+        // Mismo criterio que la colación de la BD, para compartir la entrada de cache
+        return valor == null ? "" : valor.toUpperCase(Locale.ROOT);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FiltroVehiculos)) {
+            return false;
+        }
+        FiltroVehiculos otro = (FiltroVehiculos) o;
+        return Objects.equals(marca, otro.marca) && Objects.equals(color, otro.color)
+                && Objects.equals(propietario, otro.propietario)
+                && Objects.equals(anioDesde, otro.anioDesde) && Objects.equals(anioHasta, otro.anioHasta)
+                && propietarioExacto == otro.propietarioExacto;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(marca, color, propietario, anioDesde, anioHasta, propietarioExacto);
+    }
+}
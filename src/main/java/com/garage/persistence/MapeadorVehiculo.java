@@ -0,0 +1,66 @@
+package com.garage.persistence;
+
+import com.garage.model.Vehiculo;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Convierte filas de un ResultSet en Vehiculo leyendo por posición.
+ *
+ * Sirve para consultas armadas con {@link ProyeccionVehiculo#getListaSql()}:
+ * como el SELECT lista las columnas en un orden conocido, la posición de
+ * cada una se resuelve una sola vez al crear la proyección y no hay que
+ * buscar la columna por nombre en cada fila.
+ */
+final class MapeadorVehiculo {
+
+    private final ColumnaVehiculo[] columnas;
+    private final boolean completa;
+
+    MapeadorVehiculo(ColumnaVehiculo[] columnas, boolean completa) {
+        this.columnas = columnas;
+        this.completa = completa;
+    }
+
+    /**
+     * Mapea la fila actual del ResultSet.
+     */
+    Vehiculo mapear(ResultSet rs) throws SQLException {
+        if (completa) {
+            return new Vehiculo(
+                    rs.getInt(1),
+                    rs.getString(2),
+                    rs.getString(3),
+                    rs.getString(4),
+                    rs.getString(5),
+                    rs.getString(6));
+        }
+        Vehiculo v = new Vehiculo();
+        for (int i = 0; i < columnas.length; i++) {
+            int posicion = i + 1;
+            switch (columnas[i]) {
+                case ID:
+                    v.setId(rs.getInt(posicion));
+                    break;
+                case PLACA:
+                    v.setPlaca(rs.getString(posicion));
+                    break;
+                case MARCA:
+                    v.setMarca(rs.getString(posicion));
+                    break;
+                case MODELO:
+                    v.setModelo(rs.getString(posicion));
+                    break;
+                case COLOR:
+                    v.setColor(rs.getString(posicion));
+                    break;
+                case PROPIETARIO:
+                    v.setPropietario(rs.getString(posicion));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return v;
+    }
+}
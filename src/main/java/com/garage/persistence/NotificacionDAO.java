@@ -0,0 +1,248 @@
+package com.garage.persistence;
+
+import com.garage.metricas.HistogramaLatencia;
+import com.garage.metricas.RegistroMetricas;
+import com.garage.model.Notificacion;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Acceso a la bandeja de salida de notificaciones (tabla
+ * notificaciones_salida, ver {@link EsquemaVehiculos}).
+ *
+ * Una fila PENDIENTE se entrega cuando llega su proximo_intento. Para
+ * enviarla, un despachador la reclama: le pone su marca de reclamo y corre
+ * proximo_intento al final del plazo de reclamo, así ningún otro hilo ni
+ * nodo la toma mientras tanto; si el despachador se cae, la fila vuelve a
+ * estar disponible al vencer el plazo. Las entregadas se borran y las que
+ * agotan los intentos quedan como FALLIDA.
+ */
+public class NotificacionDAO {
+
+    public static final String TABLA = "notificaciones_salida";
+
+    private static final String PENDIENTE = "PENDIENTE";
+    private static final String FALLIDA = "FALLIDA";
+    private static final int LARGO_ERROR = 500;
+
+    private static final HistogramaLatencia METRICA_AGREGAR = RegistroMetricas.histograma("dao", "notificacionesAgregar");
+    private static final HistogramaLatencia METRICA_RECLAMAR = RegistroMetricas.histograma("dao", "notificacionesReclamar");
+    private static final HistogramaLatencia METRICA_ELIMINAR = RegistroMetricas.histograma("dao", "notificacionesEliminar");
+    private static final HistogramaLatencia METRICA_REPROGRAMAR = RegistroMetricas.histograma("dao", "notificacionesReprogramar");
+
+    private final Connection con;
+
+    /**
+     * Inicializa con una conexión JDBC ya creada.
+     *
+     * @param con conexión activa a MySQL
+     */
+    public NotificacionDAO(Connection con) {
+        this.con = con;
+    }
+
+    /**
+     * Agrega notificaciones pendientes con un INSERT por lotes. Debe ir en la
+     * misma transacción que la escritura que las origina.
+     */
+    public void agregar(List<Notificacion> notificaciones) throws SQLException {
+        if (notificaciones.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + TABLA
+                + " (regla, destino, vehiculo_id, carga, creada, estado, intentos, proximo_intento)"
+                + " VALUES (?, ?, ?, ?, ?, ?, 0, ?)";
+        long ahora = System.currentTimeMillis();
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            for (Notificacion n : notificaciones) {
+                ps.setString(1, n.getRegla());
+                ps.setString(2, n.getDestino());
+                ps.setInt(3, n.getVehiculoId());
+                ps.setString(4, n.getCarga());
+                ps.setLong(5, ahora);
+                ps.setString(6, PENDIENTE);
+                ps.setLong(7, ahora);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al agregar notificaciones: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_AGREGAR.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Reclama hasta limite notificaciones pendientes cuyo turno ya llegó, en
+     * orden de llegada. Cada sentencia se confirma sola (autocommit): el
+     * UPDATE condicionado decide qué filas quedan para este reclamo aunque
+     * otro despachador haya leído las mismas.
+     *
+     * @param reclamo marca única de este reclamo
+     * @param ahora instante actual (ms)
+     * @param plazo instante hasta el que nadie más las toma (ms)
+     * @param limite filas máximas
+     * @return notificaciones reclamadas
+     */
+    public List<Notificacion> reclamar(String reclamo, long ahora, long plazo, int limite) throws SQLException {
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try {
+            List<Long> candidatas = new ArrayList<>(limite);
+            try (PreparedStatement ps = con.prepareStatement("SELECT id FROM " + TABLA
+                    + " WHERE estado = ? AND proximo_intento <= ? ORDER BY proximo_intento, id LIMIT ?")) {
+                ps.setString(1, PENDIENTE);
+                ps.setLong(2, ahora);
+                ps.setInt(3, limite);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        candidatas.add(rs.getLong(1));
+                    }
+                }
+            }
+            if (candidatas.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            try (PreparedStatement ps = con.prepareStatement("UPDATE " + TABLA
+                    + " SET reclamo = ?, proximo_intento = ? WHERE " + in(candidatas.size())
+                    + " AND estado = ? AND proximo_intento <= ?")) {
+                ps.setString(1, reclamo);
+                ps.setLong(2, plazo);
+                int i = asignar(ps, 3, candidatas);
+                ps.setString(i++, PENDIENTE);
+                ps.setLong(i, ahora);
+                if (ps.executeUpdate() == 0) {
+                    return Collections.emptyList();
+                }
+            }
+
+            List<Notificacion> reclamadas = new ArrayList<>(candidatas.size());
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, regla, destino, vehiculo_id, carga, intentos FROM " + TABLA
+                    + " WHERE " + in(candidatas.size()) + " AND reclamo = ? ORDER BY id")) {
+                int i = asignar(ps, 1, candidatas);
+                ps.setString(i, reclamo);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Notificacion n = new Notificacion(rs.getString(2), rs.getString(3), rs.getInt(4),
+                                rs.getString(5));
+                        n.setId(rs.getLong(1));
+                        n.setIntentos(rs.getInt(6));
+                        reclamadas.add(n);
+                    }
+                }
+            }
+            return reclamadas;
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al reclamar notificaciones: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_RECLAMAR.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Borra las notificaciones ya entregadas.
+     *
+     * @return filas borradas
+     */
+    public int eliminar(Collection<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement("DELETE FROM " + TABLA + " WHERE " + in(ids.size()))) {
+            asignar(ps, 1, ids);
+            return ps.executeUpdate();
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al eliminar notificaciones: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_ELIMINAR.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Registra los intentos fallidos: cada notificación vuelve a estar
+     * pendiente desde su proximoIntento o, si agotó los intentos, queda como
+     * FALLIDA.
+     *
+     * @param fallidas notificaciones con intentos ya incrementado
+     * @param proximos instante del próximo intento de cada una (ms), o -1 si
+     * no se reintenta
+     * @param errores motivo de cada fallo
+     */
+    public void reprogramar(List<Notificacion> fallidas, long[] proximos, String[] errores) throws SQLException {
+        if (fallidas.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE " + TABLA
+                + " SET estado = ?, intentos = ?, proximo_intento = ?, reclamo = NULL, ultimo_error = ? WHERE id = ?";
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            for (int i = 0; i < fallidas.size(); i++) {
+                Notificacion n = fallidas.get(i);
+                boolean agotada = proximos[i] < 0;
+                ps.setString(1, agotada ? FALLIDA : PENDIENTE);
+                ps.setInt(2, n.getIntentos());
+                ps.setLong(3, agotada ? 0 : proximos[i]);
+                String motivo = errores[i] == null ? "" : errores[i];
+                ps.setString(4, motivo.length() > LARGO_ERROR ? motivo.substring(0, LARGO_ERROR) : motivo);
+                ps.setLong(5, n.getId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al reprogramar notificaciones: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_REPROGRAMAR.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * @return notificaciones por estado (PENDIENTE, FALLIDA)
+     */
+    public Map<String, Long> contarPorEstado() throws SQLException {
+        Map<String, Long> conteo = new LinkedHashMap<>();
+        conteo.put(PENDIENTE, 0L);
+        conteo.put(FALLIDA, 0L);
+        try (Statement st = con.createStatement();
+                ResultSet rs = st.executeQuery("SELECT estado, COUNT(*) FROM " + TABLA + " GROUP BY estado")) {
+            while (rs.next()) {
+                conteo.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return conteo;
+    }
+
+    private static String in(int cantidad) {
+        StringBuilder sql = new StringBuilder("id IN (");
+        for (int i = 0; i < cantidad; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private static int asignar(PreparedStatement ps, int posicion, Collection<Long> ids) throws SQLException {
+        int i = posicion;
+        for (Long id : ids) {
+            ps.setLong(i++, id);
+        }
+        return i;
+    }
+}
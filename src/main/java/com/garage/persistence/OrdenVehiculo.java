@@ -0,0 +1,74 @@
+package com.garage.persistence;
+
+import com.garage.model.Vehiculo;
+import java.util.function.Function;
+
+/**
+ * Criterios de orden permitidos para el listado paginado de vehículos.
+ *
+ * Sólo se ofrecen columnas obligatorias (nunca nulas), porque la paginación
+ * por clave compara el valor de la última fila vista y un NULL rompería esa
+ * comparación. El id siempre se usa como desempate para que el orden sea
+ * total.
+ */
+public enum OrdenVehiculo {
+
+    ID(ColumnaVehiculo.ID, null),
+    PLACA(ColumnaVehiculo.PLACA, Vehiculo::getPlaca),
+    MARCA(ColumnaVehiculo.MARCA, Vehiculo::getMarca),
+    MODELO(ColumnaVehiculo.MODELO, Vehiculo::getModelo),
+    PROPIETARIO(ColumnaVehiculo.PROPIETARIO, Vehiculo::getPropietario);
+
+    private final ColumnaVehiculo columnaVehiculo;
+    private final String columna;
+    private final Function<Vehiculo, String> valor;
+
+    OrdenVehiculo(ColumnaVehiculo columnaVehiculo, Function<Vehiculo, String> valor) {
+        this.columnaVehiculo = columnaVehiculo;
+        this.columna = columnaVehiculo.getNombre();
+        this.valor = valor;
+    }
+
+    /**
+     * @return nombre de la columna SQL (valor fijo, nunca viene del cliente)
+     */
+    public String getColumna() {
+        return columna;
+    }
+
+    /**
+     * @return columna de la proyección que hace falta para ordenar
+     */
+    public ColumnaVehiculo getColumnaVehiculo() {
+        return columnaVehiculo;
+    }
+
+    /**
+     * @return nombre usado en el parámetro HTTP "orden"
+     */
+    public String getParametro() {
+        return columna;
+    }
+
+    /**
+     * @return valor de la columna de orden para el vehículo, null si es ID
+     */
+    String valorDe(Vehiculo v) {
+        return valor == null ? null : valor.apply(v);
+    }
+
+    /**
+     * Convierte el parámetro HTTP en un criterio. Valores desconocidos o
+     * vacíos vuelven al orden por id.
+     */
+    public static OrdenVehiculo desdeParametro(String parametro) {
+        if (parametro != null) {
+            for (OrdenVehiculo o : values()) {
+                if (o.columna.equalsIgnoreCase(parametro.trim())) {
+                    return o;
+                }
+            }
+        }
+        return ID;
+    }
+}
@@ -0,0 +1,120 @@
+package com.garage.persistence;
+
+import com.garage.config.Configuracion;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+/**
+ * DataSource opcional de sólo lectura (una réplica de MySQL) para las
+ * lecturas de la fachada que toleran un pequeño atraso: listado, búsqueda y
+ * consultas por id. Las escrituras y las lecturas que deciden una escritura
+ * (unicidad de placas) siguen en jdbc/garageDB.
+ *
+ * Se activa con garage.lectura.jndi (nombre JNDI del pool de la réplica).
+ * Durante garage.lectura.ventanaMs después de una escritura del mismo
+ * cliente las lecturas vuelven a la primaria, para que vea sus propios
+ * cambios aunque la réplica todavía no los tenga (ver
+ * {@link UnidadDeTrabajo#conexionLectura()}).
+ */
+@ApplicationScoped
+public class OrigenLecturas {
+
+    private static final String JNDI = Configuracion.texto("garage.lectura.jndi", "").trim();
+
+    /**
+     * Tiempo después de una escritura durante el que el mismo cliente lee de
+     * la primaria.
+     */
+    public static final long VENTANA_MS = Math.max(0, Configuracion.enteroLargo("garage.lectura.ventanaMs", 5000));
+
+    private DataSource ds;
+    private final LongAdder enReplica = new LongAdder();
+    private final LongAdder enPrimaria = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    @PostConstruct
+    void iniciar() {
+        if (JNDI.isEmpty()) {
+            return;
+        }
+        try {
+            ds = DataSourceInstrumentado.envolver((DataSource) new InitialContext().lookup(JNDI));
+        } catch (NamingException | ClassCastException ex) {
+            System.err.println("No se encontró el DataSource de lecturas " + JNDI
+                    + "; todas las lecturas van a jdbc/garageDB: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * @return true si hay réplica configurada (garage.lectura.jndi no vacío)
+     */
+    public static boolean isConfigurada() {
+        return !JNDI.isEmpty();
+    }
+
+    /**
+     * @return true si la réplica se encontró al arrancar
+     */
+    public boolean isDisponible() {
+        return ds != null;
+    }
+
+    /**
+     * Conexión nueva de la réplica; quien la pide la cierra.
+     *
+     * @throws SQLException si la réplica no está disponible o no responde
+     */
+    public Connection conexion() throws SQLException {
+        if (ds == null) {
+            throw new SQLException("No hay DataSource de lecturas");
+        }
+        return ds.getConnection();
+    }
+
+    /**
+     * Cuenta una lectura resuelta en la réplica.
+     */
+    void registrarEnReplica() {
+        enReplica.increment();
+    }
+
+    /**
+     * Cuenta una lectura que se quedó en la primaria porque el cliente o la
+     * solicitud acaba de escribir.
+     */
+    void registrarEnPrimaria() {
+        enPrimaria.increment();
+    }
+
+    /**
+     * Cuenta un fallo al pedir conexión a la réplica (la lectura sigue en la
+     * primaria).
+     */
+    void registrarFallo(SQLException ex) {
+        fallos.increment();
+        System.err.println("Falló la conexión a la réplica " + JNDI + "; se lee de jdbc/garageDB: " + ex.getMessage());
+    }
+
+    /**
+     * @return configuración y lecturas resueltas en la réplica, en la
+     * primaria por escrituras recientes y fallos de la réplica
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("jndi", JNDI.isEmpty() ? null : JNDI);
+        datos.put("disponible", isDisponible());
+        datos.put("ventanaMs", VENTANA_MS);
+        datos.put("enReplica", enReplica.sum());
+        datos.put("enPrimariaPorEscritura", enPrimaria.sum());
+        datos.put("fallos", fallos.sum());
+        return datos;
+    }
+}
@@ -0,0 +1,144 @@
+package com.garage.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Subconjunto de columnas de vehiculos que trae una consulta. Las columnas
+ * no incluidas quedan en null en el Vehiculo resultante.
+ *
+ * El id se incluye siempre (lo necesitan los cursores, la cache y los
+ * enlaces de edición). Hay una sola instancia por combinación de columnas,
+ * creada al cargar la clase, con su lista SQL y su {@link MapeadorVehiculo}
+ * ya armados; por eso se pueden comparar con == y usar como parte de una
+ * clave de cache.
+ */
+public final class ProyeccionVehiculo {
+
+    private static final ColumnaVehiculo[] COLUMNAS = ColumnaVehiculo.values();
+    private static final int TODAS_LAS_COLUMNAS = (1 << COLUMNAS.length) - 1;
+    private static final int BIT_ID = 1 << ColumnaVehiculo.ID.ordinal();
+
+    private static final ProyeccionVehiculo[] INSTANCIAS = new ProyeccionVehiculo[TODAS_LAS_COLUMNAS + 1];
+
+    static {
+        for (int mascara = 0; mascara <= TODAS_LAS_COLUMNAS; mascara++) {
+            if ((mascara & BIT_ID) != 0) {
+                INSTANCIAS[mascara] = new ProyeccionVehiculo(mascara);
+            }
+        }
+    }
+
+    /**
+     * Todas las columnas.
+     */
+    public static final ProyeccionVehiculo COMPLETA = INSTANCIAS[TODAS_LAS_COLUMNAS];
+
+    /**
+     * Sólo id y placa.
+     */
+    public static final ProyeccionVehiculo IDENTIFICACION = de(ColumnaVehiculo.PLACA);
+
+    private final int mascara;
+    private final ColumnaVehiculo[] columnas;
+    private final String listaSql;
+    private final MapeadorVehiculo mapeador;
+
+    private ProyeccionVehiculo(int mascara) {
+        this.mascara = mascara;
+        List<ColumnaVehiculo> incluidas = new ArrayList<>();
+        StringBuilder sql = new StringBuilder();
+        for (ColumnaVehiculo c : COLUMNAS) {
+            if ((mascara & (1 << c.ordinal())) != 0) {
+                incluidas.add(c);
+                if (sql.length() > 0) {
+                    sql.append(", ");
+                }
+                sql.append(c.getNombre());
+            }
+        }
+        this.columnas = incluidas.toArray(new ColumnaVehiculo[0]);
+        this.listaSql = sql.toString();
+        this.mapeador = new MapeadorVehiculo(columnas, mascara == TODAS_LAS_COLUMNAS);
+    }
+
+    /**
+     * Proyección con las columnas indicadas (más el id).
+     */
+    public static ProyeccionVehiculo de(ColumnaVehiculo... columnas) {
+        int mascara = BIT_ID;
+        for (ColumnaVehiculo c : columnas) {
+            mascara |= 1 << c.ordinal();
+        }
+        return INSTANCIAS[mascara];
+    }
+
+    /**
+     * Proyección pedida por un cliente como nombres de columna separados por
+     * coma, por ejemplo "placa,marca" (el id va siempre).
+     *
+     * @param campos lista de columnas; null o vacía es la completa
+     * @throws IllegalArgumentException si alguna columna no existe
+     */
+    public static ProyeccionVehiculo desdeParametro(String campos) {
+        if (campos == null || campos.trim().isEmpty()) {
+            return COMPLETA;
+        }
+        int mascara = BIT_ID;
+        for (String campo : campos.split(",")) {
+            String nombre = campo.trim();
+            if (nombre.isEmpty()) {
+                continue;
+            }
+            ColumnaVehiculo columna = null;
+            for (ColumnaVehiculo c : COLUMNAS) {
+                if (c.getNombre().equalsIgnoreCase(nombre)) {
+                    columna = c;
+                    break;
+                }
+            }
+            if (columna == null) {
+                throw new IllegalArgumentException("Campo desconocido: " + nombre);
+            }
+            mascara |= 1 << columna.ordinal();
+        }
+        return INSTANCIAS[mascara];
+    }
+
+    /**
+     * @return esta proyección más la columna indicada
+     */
+    public ProyeccionVehiculo con(ColumnaVehiculo columna) {
+        return INSTANCIAS[mascara | (1 << columna.ordinal())];
+    }
+
+    /**
+     * @return true si la proyección trae la columna
+     */
+    public boolean incluye(ColumnaVehiculo columna) {
+        return (mascara & (1 << columna.ordinal())) != 0;
+    }
+
+    /**
+     * @return columnas en el orden del SELECT
+     */
+    public List<ColumnaVehiculo> getColumnas() {
+        return List.of(columnas);
+    }
+
+    /**
+     * @return lista de columnas para el SELECT, por ejemplo "id, placa"
+     */
+    public String getListaSql() {
+        return listaSql;
+    }
+
+    MapeadorVehiculo getMapeador() {
+        return mapeador;
+    }
+
+    @Override
+    public String toString() {
+        return listaSql;
+    }
+}
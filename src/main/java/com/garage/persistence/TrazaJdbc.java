@@ -0,0 +1,108 @@
+package com.garage.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Idas a la base de datos de una solicitud HTTP: cuántas sentencias se
+ * ejecutaron, cuánto tardaron y cuántas veces se repitió cada una (una
+ * misma consulta repetida suele ser un patrón N+1).
+ *
+ * Vive en un ThreadLocal entre {@link #iniciar()} y {@link #terminar()}
+ * (ver UnidadDeTrabajoFilter); {@link DataSourceInstrumentado} la alimenta.
+ */
+public final class TrazaJdbc {
+
+    /**
+     * Máximo de sentencias distintas que se guardan por solicitud.
+     */
+    private static final int MAX_SENTENCIAS = 50;
+
+    private static final ThreadLocal<TrazaJdbc> ACTUAL = new ThreadLocal<>();
+
+    private int idas;
+    private int conexiones;
+    private long nanos;
+    private final Map<String, Integer> sentencias = new LinkedHashMap<>();
+
+    private TrazaJdbc() {
+    }
+
+    /**
+     * Empieza a trazar la solicitud del hilo actual.
+     */
+    public static TrazaJdbc iniciar() {
+        TrazaJdbc traza = new TrazaJdbc();
+        ACTUAL.set(traza);
+        return traza;
+    }
+
+    /**
+     * Deja de trazar en el hilo actual.
+     */
+    public static void terminar() {
+        ACTUAL.remove();
+    }
+
+    static void registrarConexion() {
+        TrazaJdbc traza = ACTUAL.get();
+        if (traza != null) {
+            traza.conexiones++;
+        }
+    }
+
+    static void registrarIda(String sql, long duracion) {
+        TrazaJdbc traza = ACTUAL.get();
+        if (traza != null) {
+            traza.idas++;
+            traza.nanos += duracion;
+            if (traza.sentencias.size() < MAX_SENTENCIAS || traza.sentencias.containsKey(sql)) {
+                traza.sentencias.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * @return sentencias enviadas a la base de datos (incluye commit y
+     * rollback)
+     */
+    public int getIdas() {
+        return idas;
+    }
+
+    /**
+     * @return conexiones pedidas al pool
+     */
+    public int getConexiones() {
+        return conexiones;
+    }
+
+    /**
+     * @return tiempo total de ejecución en la base de datos, en
+     * milisegundos
+     */
+    public long getMilisegundos() {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * @return cantidad de veces que se ejecutó cada sentencia (SQL
+     * normalizado, sin valores)
+     */
+    public Map<String, Integer> getSentencias() {
+        return sentencias;
+    }
+
+    /**
+     * Resumen de una línea, con las sentencias más repetidas primero.
+     */
+    public String resumen() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(idas).append(" idas a la BD en ").append(getMilisegundos())
+                .append(" ms, ").append(conexiones).append(" conexiones");
+        sentencias.entrySet().stream()
+                .sorted((a, b) -> b.getValue() - a.getValue())
+                .forEach(e -> sb.append(" | ").append(e.getValue()).append("x ").append(e.getKey()));
+        return sb.toString();
+    }
+}
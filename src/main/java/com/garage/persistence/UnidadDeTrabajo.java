@@ -0,0 +1,281 @@
+package com.garage.persistence;
+
+import com.garage.config.Configuracion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+
+/**
+ * Unidad de trabajo de una solicitud HTTP: todas las operaciones de la
+ * fachada durante la misma solicitud comparten una única conexión del pool.
+ *
+ * La conexión se pide al pool la primera vez que se necesita y se devuelve
+ * al terminar la solicitud (UnidadDeTrabajoFilter o, si no pasó por el
+ * filtro, al destruirse el contexto de solicitud). Quien la usa recibe un
+ * envoltorio cuyo close() no hace nada, así el código existente puede seguir
+ * usando try-with-resources.
+ *
+ * En modo transaccional (garage.unidadTrabajo.transaccional=true) la
+ * conexión trabaja sin autocommit y se confirma al final de la solicitud; las
+ * acciones registradas con {@link #alTerminar(Consumer)} se ejecutan después
+ * del commit o rollback.
+ *
+ * Con réplica de lecturas ({@link OrigenLecturas}) la solicitud puede tener
+ * además una segunda conexión compartida, de la réplica, para las lecturas
+ * que la fachada pide con {@link #conexionLectura()}.
+ */
+@RequestScoped
+public class UnidadDeTrabajo {
+
+    private static final boolean HABILITADA = Configuracion.booleano("garage.unidadTrabajo.habilitada", true);
+    private static final boolean TRANSACCIONAL = Configuracion.booleano("garage.unidadTrabajo.transaccional", false);
+
+    @Resource(lookup = "jdbc/garageDB")
+    private DataSource ds;
+
+    @Inject
+    private EstadisticasConexiones estadisticas;
+
+    @Inject
+    private OrigenLecturas lecturas;
+
+    private Connection fisica;
+    private Connection compartida;
+    private Connection fisicaLectura;
+    private Connection compartidaLectura;
+    private boolean enPrimaria;
+    private boolean escribio;
+    private int pedidos;
+    private int checkouts;
+    private boolean terminada;
+    private final List<Consumer<Boolean>> acciones = new ArrayList<>();
+
+    @PostConstruct
+    void iniciar() {
+        ds = DataSourceInstrumentado.envolver(ds);
+    }
+
+    /**
+     * @return true si las escrituras de cada solicitud se confirman juntas al
+     * final (garage.unidadTrabajo.transaccional)
+     */
+    public static boolean isTransaccional() {
+        return HABILITADA && TRANSACCIONAL;
+    }
+
+    /**
+     * Devuelve la conexión de la solicitud. Cerrarla no tiene efecto.
+     *
+     * Si la unidad de trabajo está deshabilitada devuelve una conexión nueva
+     * del pool en cada llamada (comportamiento anterior), que sí se debe
+     * cerrar.
+     */
+    public Connection conexion() throws SQLException {
+        pedidos++;
+        if (!HABILITADA || terminada) {
+            checkouts++;
+            return ds.getConnection();
+        }
+        if (compartida == null) {
+            fisica = ds.getConnection();
+            checkouts++;
+            if (TRANSACCIONAL) {
+                fisica.setAutoCommit(false);
+            }
+            compartida = sinCierre(fisica);
+        }
+        return compartida;
+    }
+
+    /**
+     * Devuelve una conexión para lecturas que toleran el atraso de la
+     * réplica. Es la compartida de la réplica salvo que no haya réplica, que
+     * esta solicitud o el mismo cliente hayan escrito hace poco
+     * ({@link #registrarEscritura()}, {@link #leerDePrimaria()}) o que la
+     * réplica no responda; en esos casos es {@link #conexion()}.
+     *
+     * Cerrarla no tiene efecto, salvo con la unidad de trabajo deshabilitada.
+     */
+    public Connection conexionLectura() throws SQLException {
+        if (!lecturas.isDisponible()) {
+            return conexion();
+        }
+        if (enPrimaria || escribio || tieneCambiosPendientes()) {
+            lecturas.registrarEnPrimaria();
+            return conexion();
+        }
+        if (compartidaLectura == null) {
+            Connection nueva;
+            try {
+                nueva = lecturas.conexion();
+            } catch (SQLException ex) {
+                lecturas.registrarFallo(ex);
+                // El resto de la solicitud no vuelve a intentarlo
+                enPrimaria = true;
+                return conexion();
+            }
+            pedidos++;
+            checkouts++;
+            lecturas.registrarEnReplica();
+            if (!HABILITADA || terminada) {
+                return nueva;
+            }
+            fisicaLectura = nueva;
+            compartidaLectura = sinCierre(fisicaLectura);
+            return compartidaLectura;
+        }
+        pedidos++;
+        lecturas.registrarEnReplica();
+        return compartidaLectura;
+    }
+
+    /**
+     * Conexión propia, no compartida, para una lectura larga que no debe
+     * ocupar la de la solicitud (exportación): de la réplica si
+     * {@link #conexionLectura()} la usaría, si no del pool principal. Quien
+     * la pide la cierra.
+     */
+    public Connection conexionLecturaPropia() throws SQLException {
+        if (lecturas.isDisponible() && !enPrimaria && !escribio && !tieneCambiosPendientes()) {
+            try {
+                Connection con = lecturas.conexion();
+                lecturas.registrarEnReplica();
+                return con;
+            } catch (SQLException ex) {
+                lecturas.registrarFallo(ex);
+            }
+        }
+        return ds.getConnection();
+    }
+
+    /**
+     * Hace que las lecturas de esta solicitud vayan a la primaria: el
+     * cliente escribió hace menos de garage.lectura.ventanaMs o la solicitud
+     * misma puede escribir.
+     */
+    public void leerDePrimaria() {
+        enPrimaria = true;
+    }
+
+    /**
+     * Marca que esta solicitud escribió: desde aquí sus lecturas van a la
+     * primaria, que ya tiene el cambio.
+     */
+    public void registrarEscritura() {
+        escribio = true;
+    }
+
+    /**
+     * Difiere una acción hasta el final de la transacción de la solicitud.
+     *
+     * @param accion recibe true si se confirmó, false si se revirtió
+     * @return true si quedó registrada; false si no hay transacción de
+     * solicitud abierta y quien llama debe resolverlo por su cuenta
+     */
+    public boolean alTerminar(Consumer<Boolean> accion) {
+        if (!TRANSACCIONAL || fisica == null || terminada) {
+            return false;
+        }
+        acciones.add(accion);
+        return true;
+    }
+
+    /**
+     * @return true si hay escrituras hechas en esta solicitud que todavía no
+     * se confirmaron (sólo en modo transaccional)
+     */
+    public boolean tieneCambiosPendientes() {
+        return !terminada && !acciones.isEmpty();
+    }
+
+    /**
+     * Cierra la unidad de trabajo: confirma o revierte (modo
+     * transaccional), ejecuta las acciones diferidas y devuelve la conexión
+     * al pool. Llamadas posteriores no tienen efecto.
+     *
+     * @param exito false para revertir los cambios de la solicitud
+     */
+    public void terminar(boolean exito) {
+        if (terminada) {
+            return;
+        }
+        terminada = true;
+        boolean confirmada = true;
+        try {
+            if (fisica != null && TRANSACCIONAL) {
+                try {
+                    if (exito) {
+                        fisica.commit();
+                    } else {
+                        fisica.rollback();
+                        confirmada = false;
+                    }
+                } catch (SQLException ex) {
+                    System.err.println("Error al terminar la unidad de trabajo: " + ex.getMessage());
+                    confirmada = false;
+                    try {
+                        fisica.rollback();
+                    } catch (SQLException ignorada) {
+                        // La conexión se descarta igual al cerrarla
+                    }
+                }
+            }
+            for (Consumer<Boolean> accion : acciones) {
+                accion.accept(confirmada);
+            }
+        } finally {
+            acciones.clear();
+            if (fisica != null) {
+                try {
+                    if (TRANSACCIONAL) {
+                        fisica.setAutoCommit(true);
+                    }
+                    fisica.close();
+                } catch (SQLException ex) {
+                    System.err.println("Error al cerrar la conexión de la solicitud: " + ex.getMessage());
+                }
+                fisica = null;
+                compartida = null;
+            }
+            if (fisicaLectura != null) {
+                try {
+                    fisicaLectura.close();
+                } catch (SQLException ex) {
+                    System.err.println("Error al cerrar la conexión de lecturas de la solicitud: " + ex.getMessage());
+                }
+                fisicaLectura = null;
+                compartidaLectura = null;
+            }
+            estadisticas.registrar(pedidos, checkouts);
+        }
+    }
+
+    @PreDestroy
+    void destruir() {
+        terminar(true);
+    }
+
+    private static Connection sinCierre(Connection real) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("close") && metodo.getParameterCount() == 0) {
+                        return null;
+                    }
+                    try {
+                        return metodo.invoke(real, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
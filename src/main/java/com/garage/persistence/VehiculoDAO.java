@@ -1,14 +1,70 @@
 package com.garage.persistence;
 
+import com.garage.metricas.HistogramaLatencia;
+import com.garage.metricas.RegistroMetricas;
+import com.garage.model.Pagina;
 import com.garage.model.Vehiculo;
+import java.io.IOException;
 import java.sql.*;
 import java.util.*;
+import java.util.function.ObjIntConsumer;
 
 /**
  * VehiculoDAO realiza operaciones CRUD sobre la tabla vehiculos.
  */
 public class VehiculoDAO {
 
+    /**
+     * Código de error de MySQL para clave única duplicada (ER_DUP_ENTRY).
+     */
+    private static final int MYSQL_CLAVE_DUPLICADA = 1062;
+
+    /**
+     * Latencia y errores de cada consulta (ver RegistroMetricas).
+     */
+    private static final HistogramaLatencia METRICA_LISTAR = RegistroMetricas.histograma("dao", "listar");
+    private static final HistogramaLatencia METRICA_LISTAR_PAGINA = RegistroMetricas.histograma("dao", "listarPagina");
+    private static final HistogramaLatencia METRICA_EXPORTAR = RegistroMetricas.histograma("dao", "exportar");
+    private static final HistogramaLatencia METRICA_BUSCAR_POR_ID = RegistroMetricas.histograma("dao", "buscarPorId");
+    private static final HistogramaLatencia METRICA_BUSCAR_POR_IDS = RegistroMetricas.histograma("dao", "buscarPorIds");
+    private static final HistogramaLatencia METRICA_EXISTE_PLACA = RegistroMetricas.histograma("dao", "existePlaca");
+    private static final HistogramaLatencia METRICA_EXISTE_PLACA_DE_OTRO = RegistroMetricas.histograma("dao", "existePlacaDeOtro");
+    private static final HistogramaLatencia METRICA_RECORRER_PLACAS = RegistroMetricas.histograma("dao", "recorrerPlacas");
+    private static final HistogramaLatencia METRICA_AGREGAR = RegistroMetricas.histograma("dao", "agregar");
+    private static final HistogramaLatencia METRICA_AGREGAR_LOTE = RegistroMetricas.histograma("dao", "agregarLote");
+    private static final HistogramaLatencia METRICA_PLACAS_EXISTENTES = RegistroMetricas.histograma("dao", "placasExistentes");
+    private static final HistogramaLatencia METRICA_ACTUALIZAR = RegistroMetricas.histograma("dao", "actualizar");
+    private static final HistogramaLatencia METRICA_ELIMINAR = RegistroMetricas.histograma("dao", "eliminar");
+    private static final HistogramaLatencia METRICA_ELIMINAR_SALVO_PROPIETARIO = RegistroMetricas.histograma("dao", "eliminarSalvoPropietario");
+    private static final HistogramaLatencia METRICA_IDS_POR_FILTRO = RegistroMetricas.histograma("dao", "idsPorFiltro");
+    private static final HistogramaLatencia METRICA_BLOQUEAR_REASIGNABLES = RegistroMetricas.histograma("dao", "bloquearReasignables");
+    private static final HistogramaLatencia METRICA_REASIGNAR_PROPIETARIO = RegistroMetricas.histograma("dao", "reasignarPropietario");
+    private static final HistogramaLatencia METRICA_BLOQUEAR_ELIMINABLES = RegistroMetricas.histograma("dao", "bloquearEliminables");
+    private static final HistogramaLatencia METRICA_ELIMINAR_LOTE = RegistroMetricas.histograma("dao", "eliminarLote");
+
+    /**
+     * Condición de los vehículos que no son del propietario protegido
+     * (ignorando mayúsculas y espacios extremos); un parámetro.
+     */
+    private static final String SQL_NO_PROTEGIDO = "(propietario IS NULL OR UPPER(TRIM(propietario)) <> UPPER(?))";
+
+    /**
+     * Reglas de una reasignación masiva: no protegido, con otro propietario
+     * y modelo de 4 caracteres dentro del rango de años aceptado (con años
+     * de 4 dígitos el orden de texto coincide con el numérico); cuatro
+     * parámetros.
+     */
+    private static final String SQL_REASIGNABLE = SQL_NO_PROTEGIDO
+            + " AND (propietario IS NULL OR propietario <> ?)"
+            + " AND CHAR_LENGTH(modelo) = 4 AND modelo BETWEEN ? AND ?";
+
+    /**
+     * Consultas de unicidad de placa; {@link VerificadorIndices} revisa su
+     * plan al arrancar.
+     */
+    static final String SQL_EXISTE_PLACA = "SELECT COUNT(*) FROM vehiculos WHERE placa=?";
+    static final String SQL_EXISTE_PLACA_DE_OTRO = "SELECT COUNT(*) FROM vehiculos WHERE placa=? AND id<>?";
+
     private final Connection con;
 
     /**
@@ -28,56 +84,369 @@ public class VehiculoDAO {
      */
 
     public List<Vehiculo> listar() throws SQLException {
+        return listar(ProyeccionVehiculo.COMPLETA);
+    }
+
+    /**
+     * Busca todos los vehículos trayendo sólo las columnas de la proyección.
+     *
+     * @param proyeccion columnas a leer; las demás quedan en null
+     * @return Lista de Vehiculo o lista vacía.
+     * @throws SQLException si hay error de conexión BD.
+     */
+    public List<Vehiculo> listar(ProyeccionVehiculo proyeccion) throws SQLException {
         List<Vehiculo> lista = new ArrayList<>();
-        String sql = "SELECT * FROM vehiculos";
+        String sql = "SELECT " + proyeccion.getListaSql() + " FROM vehiculos";
+        MapeadorVehiculo mapeador = proyeccion.getMapeador();
+        long inicio = System.nanoTime();
+        boolean error = false;
         try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(sql)) {
             while (rs.next()) {
-                Vehiculo v = new Vehiculo(
-                        rs.getInt("id"),
-                        rs.getString("placa"),
-                        rs.getString("marca"),
-                        rs.getString("modelo"),
-                        rs.getString("color"),
-                        rs.getString("propietario")
-                );
-                lista.add(v);
+                lista.add(mapeador.mapear(rs));
             }
         } catch (SQLException ex) {
+            error = true;
 // Manejo de error: loggear el error y relanzar
             System.err.println("Error al listar vehículos: "
                     + ex.getMessage());
             throw ex; // relanzar para manejar en capa superior
+        } finally {
+            METRICA_LISTAR.registrar(System.nanoTime() - inicio, error);
         }
         return lista;
     }
 
+    /**
+     * Lista una página de vehículos usando paginación por clave (keyset).
+     *
+     * En lugar de OFFSET se busca a partir de la última fila vista
+     * (columna de orden + id como desempate), así el costo de cada página es
+     * el mismo sin importar cuántas filas tenga la tabla, siempre que exista
+     * un índice sobre la columna de orden.
+     *
+     * @param orden columna por la que se ordena
+     * @param descendente true para orden descendente
+     * @param cursor posición desde la que se continúa, null para la primera
+     * página
+     * @param tamano cantidad máxima de vehículos en la página
+     * @return página con sus cursores de navegación
+     * @throws SQLException si hay error de conexión BD.
+     */
+    public Pagina<Vehiculo> listarPagina(OrdenVehiculo orden, boolean descendente,
+            CursorPagina cursor, int tamano) throws SQLException {
+        return listarPagina(orden, descendente, cursor, tamano, ProyeccionVehiculo.COMPLETA);
+    }
+
+    /**
+     * Igual que {@link #listarPagina(OrdenVehiculo, boolean, CursorPagina, int)}
+     * pero trayendo sólo las columnas de la proyección (más la de orden, que
+     * hace falta para el cursor).
+     */
+    public Pagina<Vehiculo> listarPagina(OrdenVehiculo orden, boolean descendente,
+            CursorPagina cursor, int tamano, ProyeccionVehiculo proyeccion) throws SQLException {
+        return buscar(FiltroVehiculos.NINGUNO, orden, descendente, cursor, tamano, proyeccion);
+    }
+
+    /**
+     * Busca vehículos que cumplan el filtro, con el mismo orden y
+     * paginación por clave que
+     * {@link #listarPagina(OrdenVehiculo, boolean, CursorPagina, int)}.
+     *
+     * Filtro, orden y LIMIT se resuelven en la base de datos con
+     * parámetros, así que el costo depende del tamaño de la página y de los
+     * índices, no de la cantidad de vehículos.
+     *
+     * @param filtro criterios de búsqueda ({@link FiltroVehiculos#NINGUNO}
+     * para todos)
+     */
+    public Pagina<Vehiculo> buscar(FiltroVehiculos filtro, OrdenVehiculo orden, boolean descendente,
+            CursorPagina cursor, int tamano, ProyeccionVehiculo proyeccion) throws SQLException {
+
+        boolean haciaAtras = cursor != null && cursor.isAnterior();
+        // Al retroceder se recorre el índice en sentido contrario y luego se
+        // invierte el resultado para mostrarlo en el orden pedido
+        boolean ascendente = descendente == haciaAtras;
+
+        ProyeccionVehiculo columnas = proyeccion.con(orden.getColumnaVehiculo());
+        MapeadorVehiculo mapeador = columnas.getMapeador();
+        String sql = sqlBuscar(filtro, orden, ascendente, cursor != null, columnas);
+
+        List<Vehiculo> lista = new ArrayList<>(tamano + 1);
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            // Se pide una fila extra sólo para saber si hay más resultados
+            asignarBuscar(ps, filtro, orden, cursor, tamano + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapeador.mapear(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al listar página de vehículos: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_LISTAR_PAGINA.registrar(System.nanoTime() - inicio, error);
+        }
+
+        boolean hayMas = lista.size() > tamano;
+        if (hayMas) {
+            lista.remove(lista.size() - 1);
+        }
+        if (haciaAtras) {
+            Collections.reverse(lista);
+        }
+
+        String siguiente = null;
+        String anterior = null;
+        if (!lista.isEmpty()) {
+            Vehiculo primero = lista.get(0);
+            Vehiculo ultimo = lista.get(lista.size() - 1);
+            boolean haySiguiente = haciaAtras || hayMas;
+            boolean hayAnterior = haciaAtras ? hayMas : cursor != null;
+            if (haySiguiente) {
+                siguiente = new CursorPagina(orden, descendente, false,
+                        ultimo.getId(), orden.valorDe(ultimo)).codificar();
+            }
+            if (hayAnterior) {
+                anterior = new CursorPagina(orden, descendente, true,
+                        primero.getId(), orden.valorDe(primero)).codificar();
+            }
+        }
+        return new Pagina<>(lista, tamano, orden.getParametro(), descendente, siguiente, anterior);
+    }
+
+    /**
+     * SQL de {@link #buscar}; también lo usa {@link VerificadorIndices} para
+     * pedir el plan de la misma consulta.
+     *
+     * @param conCursor true si la consulta parte de la posición de un cursor
+     */
+    static String sqlBuscar(FiltroVehiculos filtro, OrdenVehiculo orden, boolean ascendente, boolean conCursor,
+            ProyeccionVehiculo columnas) {
+        String operador = ascendente ? ">" : "<";
+        String sentido = ascendente ? "ASC" : "DESC";
+        String columna = orden.getColumna();
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(columnas.getListaSql()).append(" FROM vehiculos WHERE ");
+        int largoSinCondiciones = sql.length();
+        filtro.agregarCondiciones(sql);
+        if (conCursor) {
+            if (sql.length() > largoSinCondiciones) {
+                sql.append(" AND ");
+            }
+            if (orden == OrdenVehiculo.ID) {
+                sql.append("id ").append(operador).append(" ?");
+            } else {
+                sql.append('(').append(columna).append(' ').append(operador).append(" ? OR (")
+                        .append(columna).append(" = ? AND id ").append(operador).append(" ?))");
+            }
+        }
+        if (sql.length() == largoSinCondiciones) {
+            sql.setLength(largoSinCondiciones - " WHERE ".length());
+        }
+        sql.append(" ORDER BY ");
+        if (orden != OrdenVehiculo.ID) {
+            sql.append(columna).append(' ').append(sentido).append(", ");
+        }
+        sql.append("id ").append(sentido).append(" LIMIT ?");
+        return sql.toString();
+    }
+
+    /**
+     * Asigna los parámetros de {@link #sqlBuscar} en el mismo orden.
+     */
+    static void asignarBuscar(PreparedStatement ps, FiltroVehiculos filtro, OrdenVehiculo orden,
+            CursorPagina cursor, int limite) throws SQLException {
+        int i = filtro.asignar(ps, 1);
+        if (cursor != null) {
+            if (orden != OrdenVehiculo.ID) {
+                ps.setString(i++, cursor.getValor());
+                ps.setString(i++, cursor.getValor());
+            }
+            ps.setInt(i++, cursor.getId());
+        }
+        ps.setInt(i, limite);
+    }
+
+    /**
+     * Recorre todos los vehículos con id mayor a desdeId, en orden de id,
+     * entregando cada fila al consumidor a medida que llega.
+     *
+     * Usa un ResultSet forward-only y de sólo lectura con el fetch size
+     * indicado; con MySQL Connector/J, Integer.MIN_VALUE activa el modo
+     * streaming (fila a fila) y así la memoria no depende del tamaño de la
+     * tabla.
+     *
+     * @param desdeId último id ya recibido (0 para empezar desde el inicio)
+     * @param tamanoFetch fetch size para el driver
+     * @param consumidor destino de cada fila
+     * @return cantidad de filas entregadas
+     * @throws SQLException si hay error de conexión BD.
+     * @throws IOException si el consumidor falla al escribir
+     */
+    public long exportar(int desdeId, int tamanoFetch, ConsumidorFila consumidor)
+            throws SQLException, IOException {
+        String sql = "SELECT id, placa, marca, modelo, color, propietario FROM vehiculos WHERE id > ? ORDER BY id";
+        long filas = 0;
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(tamanoFetch);
+            ps.setInt(1, desdeId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumidor.aceptar(
+                            rs.getInt(1),
+                            rs.getString(2),
+                            rs.getString(3),
+                            rs.getString(4),
+                            rs.getString(5),
+                            rs.getString(6));
+                    filas++;
+                }
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al exportar vehículos: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_EXPORTAR.registrar(System.nanoTime() - inicio, error);
+        }
+        return filas;
+    }
+
     /**
      * Busca un vehículo por ID.
      */
     public Vehiculo buscarPorId(int id) throws SQLException {
-        String sql = "SELECT * FROM vehiculos WHERE id=?";
+        return buscarPorId(id, ProyeccionVehiculo.COMPLETA);
+    }
+
+    /**
+     * Busca un vehículo por ID trayendo sólo las columnas de la proyección.
+     */
+    public Vehiculo buscarPorId(int id, ProyeccionVehiculo proyeccion) throws SQLException {
+        String sql = "SELECT " + proyeccion.getListaSql() + " FROM vehiculos WHERE id=?";
+        long inicio = System.nanoTime();
+        boolean error = false;
         try (PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, id);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
-                return new Vehiculo(
-                        rs.getInt("id"),
-                        rs.getString("placa"),
-                        rs.getString("marca"),
-                        rs.getString("modelo"),
-                        rs.getString("color"),
-                        rs.getString("propietario")
-                );
-
+                return proyeccion.getMapeador().mapear(rs);
             }
         } catch (SQLException ex) {
+            error = true;
             System.err.println("Error al buscar vehículo por id: "
                     + ex.getMessage());
             throw ex;
+        } finally {
+            METRICA_BUSCAR_POR_ID.registrar(System.nanoTime() - inicio, error);
         }
         return null;
     }
 
+    /**
+     * Busca varios vehículos por ID con una sola consulta IN. El llamador
+     * reparte listas grandes en bloques.
+     *
+     * La cantidad de parámetros se redondea a la potencia de dos siguiente
+     * (repitiendo el último id) para que el cache de sentencias del pool y
+     * de MySQL sólo vea unas pocas formas de la consulta.
+     *
+     * @param ids ids a buscar, sin repetidos
+     * @return vehículos encontrados por id; los ids inexistentes no aparecen
+     */
+    public Map<Integer, Vehiculo> buscarPorIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, Vehiculo> encontrados = new HashMap<>();
+        if (ids.isEmpty()) {
+            return encontrados;
+        }
+        int marcadores = marcadoresIn(ids.size());
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(ProyeccionVehiculo.COMPLETA.getListaSql())
+                .append(" FROM vehiculos WHERE ");
+        agregarIn(sql, marcadores);
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            asignarIn(ps, 1, ids, marcadores);
+            try (ResultSet rs = ps.executeQuery()) {
+                MapeadorVehiculo mapeador = ProyeccionVehiculo.COMPLETA.getMapeador();
+                while (rs.next()) {
+                    Vehiculo v = mapeador.mapear(rs);
+                    encontrados.put(v.getId(), v);
+                }
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al buscar vehículos por id: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_BUSCAR_POR_IDS.registrar(System.nanoTime() - inicio, error);
+        }
+        return encontrados;
+    }
+
+    /**
+     * @return cantidad de parámetros de un IN con n ids: la potencia de dos
+     * siguiente, para que el cache de sentencias sólo vea unas pocas formas
+     */
+    private static int marcadoresIn(int n) {
+        int marcadores = Integer.highestOneBit(n);
+        return marcadores < n ? marcadores << 1 : marcadores;
+    }
+
+    private static void agregarIn(StringBuilder sql, int marcadores) {
+        sql.append("id IN (");
+        for (int i = 0; i < marcadores; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+    }
+
+    /**
+     * Agrega las condiciones del filtro después de otra condición: una
+     * operación masiva por filtro vuelve a comprobarlo en la misma sentencia
+     * que cambia las filas.
+     */
+    private static void agregarFiltro(StringBuilder sql, FiltroVehiculos filtro) {
+        int largo = sql.length();
+        sql.append(" AND (");
+        if (filtro.agregarCondiciones(sql) > 0) {
+            sql.append(')');
+        } else {
+            sql.setLength(largo);
+        }
+    }
+
+    /**
+     * Asigna los ids del IN desde la posición indicada, repitiendo el último
+     * hasta completar los marcadores.
+     *
+     * @return siguiente posición libre
+     */
+    private static int asignarIn(PreparedStatement ps, int posicion, Collection<Integer> ids, int marcadores)
+            throws SQLException {
+        int i = posicion;
+        int ultimo = 0;
+        for (Integer id : ids) {
+            ultimo = id;
+            ps.setInt(i++, ultimo);
+        }
+        while (i < posicion + marcadores) {
+            ps.setInt(i++, ultimo);
+        }
+        return i;
+    }
+
     /**
      * Verifica si ya existe una placa registrada. Útil para reglas de negocio.
      *
@@ -85,28 +454,111 @@ public class VehiculoDAO {
      * @return true si existe, false si no
      */
     public boolean existePlaca(String placa) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM vehiculos WHERE placa=?";
+        String sql = SQL_EXISTE_PLACA;
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setString(1, placa);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return rs.getInt(1) > 0;
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al verificar placa: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_EXISTE_PLACA.registrar(System.nanoTime() - inicio, error);
+        }
+        return false;
+    }
+
+    /**
+     * Verifica si la placa está registrada en un vehículo distinto al
+     * indicado.
+     *
+     * @param placa placa a buscar
+     * @param idExcluido id del vehículo que se ignora (0 para no ignorar
+     * ninguno)
+     * @return true si otro vehículo usa la placa
+     */
+    public boolean existePlaca(String placa, int idExcluido) throws SQLException {
+        String sql = SQL_EXISTE_PLACA_DE_OTRO;
+        long inicio = System.nanoTime();
+        boolean error = false;
         try (PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setString(1, placa);
+            ps.setInt(2, idExcluido);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
                 return rs.getInt(1) > 0;
             }
         } catch (SQLException ex) {
+            error = true;
             System.err.println("Error al verificar placa: "
                     + ex.getMessage());
             throw ex;
+        } finally {
+            METRICA_EXISTE_PLACA_DE_OTRO.registrar(System.nanoTime() - inicio, error);
+        }
+        return false;
+    }
+
+    /**
+     * Recorre todas las placas registradas con su id, sin construir objetos
+     * Vehiculo. Se usa para cargar índices en memoria.
+     *
+     * @param consumidor recibe la placa y el id de cada fila
+     */
+    public void recorrerPlacas(ObjIntConsumer<String> consumidor) throws SQLException {
+        String sql = "SELECT id, placa FROM vehiculos";
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumidor.accept(rs.getString(2), rs.getInt(1));
+                }
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al recorrer placas: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_RECORRER_PLACAS.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Indica si la excepción corresponde a una violación de clave única. La
+     * única clave única de vehiculos (además del id autogenerado) es la
+     * placa, así que se interpreta como placa duplicada.
+     */
+    public static boolean esClaveDuplicada(SQLException ex) {
+        for (SQLException e = ex; e != null; e = e.getNextException()) {
+            if (e.getErrorCode() == MYSQL_CLAVE_DUPLICADA
+                    || "23505".equals(e.getSQLState())
+                    || (e instanceof SQLIntegrityConstraintViolationException
+                    && e.getMessage() != null && e.getMessage().toLowerCase().contains("duplicate"))) {
+                return true;
+            }
         }
         return false;
     }
 
     /**
      * Agrega un nuevo vehículo si la placa no existe. Lanzar SQLException si
-     * falla.
+     * falla. Al terminar, el id generado queda asignado en el vehículo.
      */
     public void agregar(Vehiculo v) throws SQLException {
         String sql = "INSERT INTO vehiculos (placa, marca, modelo, color, propietario) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = con.prepareStatement(sql)) {
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, v.getPlaca());
             ps.setString(2, v.getMarca());
             ps.setString(3, v.getModelo());
@@ -114,18 +566,113 @@ public class VehiculoDAO {
             ps.setString(4, v.getColor());
             ps.setString(5, v.getPropietario());
             ps.executeUpdate();
+            try (ResultSet claves = ps.getGeneratedKeys()) {
+                if (claves.next()) {
+                    v.setId(claves.getInt(1));
+                }
+            }
         } catch (SQLException ex) {
+            error = true;
             System.err.println("Error al agregar vehículo: "
                     + ex.getMessage());
             throw ex;
+        } finally {
+            METRICA_AGREGAR.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Inserta varios vehículos con un solo envío por lotes (addBatch). Debe
+     * llamarse dentro de una transacción controlada por quien llama. Con
+     * rewriteBatchedStatements=true en el pool, Connector/J lo convierte en
+     * un único INSERT multi-fila.
+     *
+     * Si el driver devuelve las claves generadas, quedan asignadas en cada
+     * vehículo.
+     *
+     * @throws BatchUpdateException si alguna fila falla (por ejemplo, placa
+     * duplicada)
+     */
+    public void agregarLote(List<Vehiculo> vehiculos) throws SQLException {
+        String sql = "INSERT INTO vehiculos (placa, marca, modelo, color, propietario) VALUES (?, ?, ?, ?, ?)";
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Vehiculo v : vehiculos) {
+                ps.setString(1, v.getPlaca());
+                ps.setString(2, v.getMarca());
+                ps.setString(3, v.getModelo());
+                ps.setString(4, v.getColor());
+                ps.setString(5, v.getPropietario());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            try (ResultSet claves = ps.getGeneratedKeys()) {
+                for (int i = 0; i < vehiculos.size() && claves.next(); i++) {
+                    vehiculos.get(i).setId(claves.getInt(1));
+                }
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al agregar lote de vehículos: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_AGREGAR_LOTE.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Devuelve cuáles de las placas indicadas ya están registradas, con una
+     * sola consulta IN.
+     *
+     * @param placas placas a verificar (no vacío)
+     * @return placas encontradas, tal como están guardadas
+     */
+    public Set<String> placasExistentes(Collection<String> placas) throws SQLException {
+        Set<String> existentes = new HashSet<>();
+        if (placas.isEmpty()) {
+            return existentes;
+        }
+        StringBuilder sql = new StringBuilder("SELECT placa FROM vehiculos WHERE placa IN (");
+        for (int i = 0; i < placas.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            int i = 1;
+            for (String placa : placas) {
+                ps.setString(i++, placa);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    existentes.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al verificar placas: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_PLACAS_EXISTENTES.registrar(System.nanoTime() - inicio, error);
         }
+        return existentes;
     }
 
     /**
      * Actualiza todos los datos de un vehículo existente por id.
+     *
+     * @return filas encontradas (0 si el id no existe). Connector/J informa
+     * filas encontradas y no modificadas salvo que se use useAffectedRows,
+     * así que un UPDATE sin cambios también devuelve 1.
      */
-    public void actualizar(Vehiculo v) throws SQLException {
+    public int actualizar(Vehiculo v) throws SQLException {
         String sql = "UPDATE vehiculos SET placa=?, marca=?, modelo=?, color=?, propietario=? WHERE id=?";
+        long inicio = System.nanoTime();
+        boolean error = false;
         try (PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setString(1, v.getPlaca());
             ps.setString(2, v.getMarca());
@@ -133,26 +680,265 @@ public class VehiculoDAO {
             ps.setString(4, v.getColor());
             ps.setString(5, v.getPropietario());
             ps.setInt(6, v.getId());
-            ps.executeUpdate();
+            return ps.executeUpdate();
         } catch (SQLException ex) {
+            error = true;
             System.err.println("Error al actualizar vehículo: "
                     + ex.getMessage());
             throw ex;
+        } finally {
+            METRICA_ACTUALIZAR.registrar(System.nanoTime() - inicio, error);
         }
     }
 
     /**
      * Borra un vehículo por id.
+     *
+     * @return filas eliminadas (0 si el id no existe)
      */
-    public void eliminar(int id) throws SQLException {
+    public int eliminar(int id) throws SQLException {
         String sql = "DELETE FROM vehiculos WHERE id=?";
+        long inicio = System.nanoTime();
+        boolean error = false;
         try (PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, id);
-            ps.executeUpdate();
+            return ps.executeUpdate();
         } catch (SQLException ex) {
+            error = true;
             System.err.println("Error al eliminar vehículo: "
                     + ex.getMessage());
             throw ex;
+        } finally {
+            METRICA_ELIMINAR.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Borra un vehículo por id salvo que pertenezca al propietario protegido,
+     * en una sola sentencia (sin leer la fila antes).
+     *
+     * La comparación del propietario ignora mayúsculas y espacios extremos,
+     * igual que equalsIgnoreCase sobre el valor recortado.
+     *
+     * @param id vehículo a borrar
+     * @param propietarioProtegido propietario cuyos vehículos no se borran
+     * @return filas eliminadas; 0 si el id no existe o está protegido
+     */
+    public int eliminarSalvoPropietario(int id, String propietarioProtegido) throws SQLException {
+        String sql = "DELETE FROM vehiculos WHERE id=? AND " + SQL_NO_PROTEGIDO;
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, id);
+            ps.setString(2, propietarioProtegido);
+            return ps.executeUpdate();
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al eliminar vehículo: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_ELIMINAR_SALVO_PROPIETARIO.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Ids de los vehículos que cumplen el filtro, en orden de id, a partir
+     * de desdeId (paginación por clave para recorrer un filtro por bloques).
+     *
+     * @param desdeId último id ya recorrido (0 para empezar)
+     * @param limite ids máximos a devolver
+     */
+    public List<Integer> idsPorFiltro(FiltroVehiculos filtro, int desdeId, int limite) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT id FROM vehiculos WHERE ");
+        if (filtro.agregarCondiciones(sql) > 0) {
+            sql.append(" AND ");
+        }
+        sql.append("id > ? ORDER BY id LIMIT ?");
+        List<Integer> ids = new ArrayList<>();
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            int i = filtro.asignar(ps, 1);
+            ps.setInt(i++, desdeId);
+            ps.setInt(i, limite);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al buscar ids de vehículos: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_IDS_POR_FILTRO.registrar(System.nanoTime() - inicio, error);
+        }
+        return ids;
+    }
+
+    /**
+     * Lee y bloquea (SELECT ... FOR UPDATE) los vehículos del bloque que
+     * {@link #reasignarPropietario} va a cambiar, con las mismas reglas en el
+     * WHERE. Debe ir en la misma transacción que la reasignación.
+     *
+     * @param ids bloque de ids, sin repetidos
+     * @param filtro criterios con los que se eligieron los ids
+     * ({@link FiltroVehiculos#NINGUNO} si vienen de una lista)
+     * @param propietarioProtegido propietario cuyos vehículos no se tocan
+     * @param nuevoPropietario propietario nuevo
+     * @param anioMinimo año de modelo más antiguo aceptado
+     * @param anioMaximo año de modelo más nuevo aceptado
+     * @return vehículos que cumplen las reglas, con los datos previos
+     */
+    public List<Vehiculo> bloquearReasignables(Collection<Integer> ids, FiltroVehiculos filtro,
+            String propietarioProtegido, String nuevoPropietario, int anioMinimo, int anioMaximo)
+            throws SQLException {
+        List<Vehiculo> lista = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return lista;
+        }
+        int marcadores = marcadoresIn(ids.size());
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(ProyeccionVehiculo.COMPLETA.getListaSql())
+                .append(" FROM vehiculos WHERE ");
+        agregarIn(sql, marcadores);
+        agregarFiltro(sql, filtro);
+        sql.append(" AND ").append(SQL_REASIGNABLE).append(" FOR UPDATE");
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            int i = filtro.asignar(ps, asignarIn(ps, 1, ids, marcadores));
+            asignarReasignable(ps, i, propietarioProtegido, nuevoPropietario, anioMinimo, anioMaximo);
+            try (ResultSet rs = ps.executeQuery()) {
+                MapeadorVehiculo mapeador = ProyeccionVehiculo.COMPLETA.getMapeador();
+                while (rs.next()) {
+                    lista.add(mapeador.mapear(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al bloquear vehículos a reasignar: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_BLOQUEAR_REASIGNABLES.registrar(System.nanoTime() - inicio, error);
+        }
+        return lista;
+    }
+
+    /**
+     * Cambia el propietario de los vehículos del bloque en una sola
+     * sentencia. Las reglas van en el WHERE: no se tocan los del propietario
+     * protegido, los que ya son del nuevo propietario ni los de un modelo
+     * fuera del rango de años aceptado.
+     *
+     * @return vehículos cambiados
+     */
+    public int reasignarPropietario(Collection<Integer> ids, FiltroVehiculos filtro, String propietarioProtegido,
+            String nuevoPropietario, int anioMinimo, int anioMaximo) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int marcadores = marcadoresIn(ids.size());
+        StringBuilder sql = new StringBuilder("UPDATE vehiculos SET propietario=? WHERE ");
+        agregarIn(sql, marcadores);
+        agregarFiltro(sql, filtro);
+        sql.append(" AND ").append(SQL_REASIGNABLE);
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            ps.setString(1, nuevoPropietario);
+            int i = filtro.asignar(ps, asignarIn(ps, 2, ids, marcadores));
+            asignarReasignable(ps, i, propietarioProtegido, nuevoPropietario, anioMinimo, anioMaximo);
+            return ps.executeUpdate();
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al reasignar propietario: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_REASIGNAR_PROPIETARIO.registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    private static void asignarReasignable(PreparedStatement ps, int posicion, String propietarioProtegido,
+            String nuevoPropietario, int anioMinimo, int anioMaximo) throws SQLException {
+        ps.setString(posicion, propietarioProtegido);
+        ps.setString(posicion + 1, nuevoPropietario);
+        ps.setString(posicion + 2, Integer.toString(anioMinimo));
+        ps.setString(posicion + 3, Integer.toString(anioMaximo));
+    }
+
+    /**
+     * Bloquea (SELECT ... FOR UPDATE) los vehículos del bloque que
+     * {@link #eliminarSalvoPropietario(Collection, FiltroVehiculos, String)} va a borrar.
+     * Debe ir en la misma transacción que el borrado.
+     *
+     * @return ids de los vehículos que existen y no están protegidos
+     */
+    public List<Integer> bloquearEliminables(Collection<Integer> ids, FiltroVehiculos filtro,
+            String propietarioProtegido) throws SQLException {
+        List<Integer> eliminables = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return eliminables;
+        }
+        int marcadores = marcadoresIn(ids.size());
+        StringBuilder sql = new StringBuilder("SELECT id FROM vehiculos WHERE ");
+        agregarIn(sql, marcadores);
+        agregarFiltro(sql, filtro);
+        sql.append(" AND ").append(SQL_NO_PROTEGIDO).append(" FOR UPDATE");
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            int i = filtro.asignar(ps, asignarIn(ps, 1, ids, marcadores));
+            ps.setString(i, propietarioProtegido);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    eliminables.add(rs.getInt(1));
+                }
+            }
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al bloquear vehículos a eliminar: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_BLOQUEAR_ELIMINABLES.registrar(System.nanoTime() - inicio, error);
+        }
+        return eliminables;
+    }
+
+    /**
+     * Borra los vehículos del bloque salvo los del propietario protegido, en
+     * una sola sentencia.
+     *
+     * @return filas eliminadas
+     */
+    public int eliminarSalvoPropietario(Collection<Integer> ids, FiltroVehiculos filtro, String propietarioProtegido)
+            throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int marcadores = marcadoresIn(ids.size());
+        StringBuilder sql = new StringBuilder("DELETE FROM vehiculos WHERE ");
+        agregarIn(sql, marcadores);
+        agregarFiltro(sql, filtro);
+        sql.append(" AND ").append(SQL_NO_PROTEGIDO);
+        long inicio = System.nanoTime();
+        boolean error = false;
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            int i = filtro.asignar(ps, asignarIn(ps, 1, ids, marcadores));
+            ps.setString(i, propietarioProtegido);
+            return ps.executeUpdate();
+        } catch (SQLException ex) {
+            error = true;
+            System.err.println("Error al eliminar vehículos: "
+                    + ex.getMessage());
+            throw ex;
+        } finally {
+            METRICA_ELIMINAR_LOTE.registrar(System.nanoTime() - inicio, error);
         }
     }
 }
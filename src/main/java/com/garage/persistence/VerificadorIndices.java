@@ -0,0 +1,122 @@
+package com.garage.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pide a MySQL el plan (EXPLAIN) de las consultas de {@link VehiculoDAO} que
+ * deben resolverse con un índice y avisa de las que recorrerían la tabla
+ * completa. Se usa el mismo SQL que arma el DAO, así que un cambio en una
+ * consulta o un índice borrado a mano aparece en el log al arrancar.
+ *
+ * Una tabla chica se recorre entera aunque haya índice, porque al optimizador
+ * le sale más barato; por eso sólo se avisa si ningún índice sirve o si el
+ * optimizador descarta los que hay con una tabla de al menos
+ * filasAlerta filas.
+ */
+public final class VerificadorIndices {
+
+    private VerificadorIndices() {
+    }
+
+    /**
+     * @param filasAlerta filas estimadas a partir de las que un recorrido
+     * completo se informa aunque existan índices candidatos
+     * @return una advertencia por consulta que recorre la tabla; vacía si no
+     * hay problemas o la base de datos no es MySQL
+     */
+    public static List<String> verificar(Connection con, long filasAlerta) throws SQLException {
+        List<String> advertencias = new ArrayList<>();
+        if (!EsquemaVehiculos.esMySql(con)) {
+            return advertencias;
+        }
+        for (Map.Entry<String, Consulta> consulta : consultas().entrySet()) {
+            String advertencia = revisar(con, consulta.getKey(), consulta.getValue(), filasAlerta);
+            if (advertencia != null) {
+                advertencias.add(advertencia);
+            }
+        }
+        return advertencias;
+    }
+
+    private static String revisar(Connection con, String nombre, Consulta consulta, long filasAlerta)
+            throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("EXPLAIN " + consulta.sql)) {
+            consulta.parametros.asignar(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!"vehiculos".equalsIgnoreCase(rs.getString("table"))
+                            || !"ALL".equalsIgnoreCase(rs.getString("type"))) {
+                        continue;
+                    }
+                    String candidatos = rs.getString("possible_keys");
+                    long filas = rs.getLong("rows");
+                    if (candidatos == null || candidatos.isEmpty()) {
+                        return nombre + ": ningún índice sirve, recorre toda la tabla (" + filas
+                                + " filas estimadas). SQL: " + consulta.sql;
+                    }
+                    if (filas >= filasAlerta) {
+                        return nombre + ": recorre toda la tabla (" + filas + " filas estimadas) sin usar "
+                                + candidatos + ". SQL: " + consulta.sql;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Consultas representativas con valores de ejemplo: unicidad de placa,
+     * cada criterio de búsqueda y cada orden del listado al pasar de página.
+     */
+    private static Map<String, Consulta> consultas() {
+        Map<String, Consulta> consultas = new LinkedHashMap<>();
+        consultas.put("existePlaca", new Consulta(VehiculoDAO.SQL_EXISTE_PLACA,
+                ps -> ps.setString(1, "ABC123")));
+        consultas.put("existePlacaDeOtro", new Consulta(VehiculoDAO.SQL_EXISTE_PLACA_DE_OTRO, ps -> {
+            ps.setString(1, "ABC123");
+            ps.setInt(2, 1);
+        }));
+        busqueda(consultas, "buscar por marca", FiltroVehiculos.de("Toyota", null, null, null, null), OrdenVehiculo.ID);
+        busqueda(consultas, "buscar por color", FiltroVehiculos.de(null, "ROJO", null, null, null), OrdenVehiculo.ID);
+        busqueda(consultas, "buscar por propietario", FiltroVehiculos.de(null, null, "Juan", null, null),
+                OrdenVehiculo.ID);
+        busqueda(consultas, "buscar por años", FiltroVehiculos.de(null, null, null, 2015, 2020), OrdenVehiculo.ID);
+        for (OrdenVehiculo orden : OrdenVehiculo.values()) {
+            if (orden != OrdenVehiculo.ID) {
+                busqueda(consultas, "página siguiente por " + orden.getParametro(), FiltroVehiculos.NINGUNO, orden);
+            }
+        }
+        return consultas;
+    }
+
+    private static void busqueda(Map<String, Consulta> consultas, String nombre, FiltroVehiculos filtro,
+            OrdenVehiculo orden) {
+        // Sólo los órdenes por columna parten de un cursor: por id ya usa la clave primaria
+        CursorPagina cursor = orden == OrdenVehiculo.ID ? null : new CursorPagina(orden, false, false, 1, "M");
+        String sql = VehiculoDAO.sqlBuscar(filtro, orden, true, cursor != null, ProyeccionVehiculo.COMPLETA);
+        consultas.put(nombre, new Consulta(sql, ps -> VehiculoDAO.asignarBuscar(ps, filtro, orden, cursor, 26)));
+    }
+
+    private interface Parametros {
+
+        void asignar(PreparedStatement ps) throws SQLException;
+    }
+
+    private static final class Consulta {
+
+        private final String sql;
+        private final Parametros parametros;
+
+        Consulta(String sql, Parametros parametros) {
+            this.sql = sql;
+            this.parametros = parametros;
+        }
+    }
+}
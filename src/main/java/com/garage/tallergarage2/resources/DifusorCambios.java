@@ -0,0 +1,305 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.config.Configuracion;
+import com.garage.facade.FeedCambios;
+import com.garage.model.CambioVehiculo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reparte los cambios de {@link FeedCambios} a los clientes conectados por
+ * Server-Sent Events. Cada suscripción recuerda la última secuencia enviada
+ * y, cuando hay cambios nuevos, los lee del buffer en un hilo propio del
+ * difusor; el hilo que hizo la escritura sólo agenda la lectura.
+ *
+ * Los envíos no bloquean los hilos del difusor: cada suscripción tiene una
+ * cola acotada (garage.feed.colaSuscriptor eventos) que se vacía de a un
+ * envío asíncrono por vez. Con la cola llena se deja de leer el buffer hasta
+ * que el cliente avance, y un cliente con un envío sin terminar por más de
+ * un latido se desconecta.
+ *
+ * Si un cliente se queda atrás más de lo que guarda el buffer recibe un
+ * evento "reinicio" y debe recargar la lista completa. Cada
+ * garage.feed.latidoSegundos se envía un comentario para mantener viva la
+ * conexión a través de proxies y detectar clientes que ya se fueron.
+ */
+@ApplicationScoped
+public class DifusorCambios {
+
+    private static final int MAX_SUSCRIPTORES = Configuracion.entero("garage.feed.maxSuscriptores", 500);
+    private static final long LATIDO_SEGUNDOS = Math.max(1, Configuracion.enteroLargo("garage.feed.latidoSegundos", 15));
+    private static final int HILOS = Math.max(1, Configuracion.entero("garage.feed.hilos", 2));
+    private static final int COLA_SUSCRIPTOR = Math.max(2, Configuracion.entero("garage.feed.colaSuscriptor", 64));
+
+    /**
+     * Cambios leídos del buffer por vuelta.
+     */
+    private static final int LOTE = 256;
+
+    /**
+     * Espera sugerida al navegador antes de reconectarse.
+     */
+    private static final long RECONEXION_MS = 3000;
+
+    @EJB
+    private FeedCambios feed;
+
+    /**
+     * Hilos con el contexto de la aplicación: leen el feed (EJB) y arman los
+     * eventos con {@link Sse}.
+     */
+    @Resource
+    private ManagedThreadFactory fabricaHilos;
+
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+    private final Runnable aviso = this::avisar;
+    private ScheduledExecutorService hilos;
+
+    @PostConstruct
+    void iniciar() {
+        hilos = Executors.newScheduledThreadPool(HILOS, fabricaHilos);
+        hilos.scheduleWithFixedDelay(this::latir, LATIDO_SEGUNDOS, LATIDO_SEGUNDOS, TimeUnit.SECONDS);
+        feed.escuchar(aviso);
+    }
+
+    @PreDestroy
+    void detener() {
+        feed.dejarDeEscuchar(aviso);
+        hilos.shutdownNow();
+        for (Suscripcion s : suscripciones) {
+            s.cerrar();
+        }
+    }
+
+    /**
+     * Agrega un cliente. Si trae la última secuencia que vio, recibe primero
+     * los cambios que se perdió; si no, sólo los nuevos.
+     *
+     * @param ultimaVista valor de Last-Event-ID, o null
+     * @return false si ya se alcanzó garage.feed.maxSuscriptores
+     */
+    public boolean suscribir(SseEventSink sink, Sse sse, Long ultimaVista) {
+        if (suscripciones.size() >= MAX_SUSCRIPTORES) {
+            return false;
+        }
+        long actual = feed.ultimaSecuencia();
+        Suscripcion suscripcion = new Suscripcion(sink, sse, ultimaVista != null ? ultimaVista : actual);
+        suscripciones.add(suscripcion);
+        if (!suscripcion.enviar(sse.newEventBuilder().comment("conectado").reconnectDelay(RECONEXION_MS).build())) {
+            return true;
+        }
+        if (ultimaVista != null && !feed.disponible(ultimaVista)) {
+            // Secuencia muy vieja, de otro servidor o de antes de reiniciar
+            suscripcion.reiniciar(actual);
+        }
+        suscripcion.agendar();
+        return true;
+    }
+
+    /**
+     * @return clientes conectados y última secuencia publicada
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("suscriptores", suscripciones.size());
+        datos.put("maxSuscriptores", MAX_SUSCRIPTORES);
+        datos.put("ultimaSecuencia", feed.ultimaSecuencia());
+        return datos;
+    }
+
+    private void avisar() {
+        for (Suscripcion s : suscripciones) {
+            s.agendar();
+        }
+    }
+
+    private void latir() {
+        for (Suscripcion s : suscripciones) {
+            s.latir();
+        }
+    }
+
+    /**
+     * Un cliente conectado. La lectura del buffer se serializa con el monitor
+     * de la suscripción, que nunca espera a la red: los eventos pasan por la
+     * cola y se envían de a uno, encadenando el siguiente al terminar el
+     * anterior.
+     */
+    private final class Suscripcion {
+
+        private final SseEventSink sink;
+        private final Sse sse;
+        private final AtomicBoolean pendiente = new AtomicBoolean();
+        private final BlockingQueue<OutboundSseEvent> cola = new ArrayBlockingQueue<>(COLA_SUSCRIPTOR);
+        private final AtomicBoolean enVuelo = new AtomicBoolean();
+        private final AtomicBoolean llena = new AtomicBoolean();
+        private volatile long inicioEnvio;
+        private long ultima;
+
+        Suscripcion(SseEventSink sink, Sse sse, long ultima) {
+            this.sink = sink;
+            this.sse = sse;
+            this.ultima = ultima;
+        }
+
+        void agendar() {
+            if (pendiente.compareAndSet(false, true)) {
+                try {
+                    hilos.execute(this::drenar);
+                } catch (RejectedExecutionException e) {
+                    // El difusor se está deteniendo
+                    pendiente.set(false);
+                }
+            }
+        }
+
+        synchronized void drenar() {
+            pendiente.set(false);
+            while (!sink.isClosed()) {
+                int lugar = cola.remainingCapacity();
+                if (lugar == 0) {
+                    // Se retoma cuando termine el envío en curso
+                    llena.set(true);
+                    return;
+                }
+                List<CambioVehiculo> cambios = feed.desde(ultima, Math.min(LOTE, lugar));
+                if (cambios.isEmpty()) {
+                    return;
+                }
+                long primera = cambios.get(0).getSecuencia();
+                if (primera > ultima + 1 && !reiniciar(primera - 1)) {
+                    return;
+                }
+                for (CambioVehiculo cambio : cambios) {
+                    OutboundSseEvent evento = sse.newEventBuilder()
+                            .id(Long.toString(cambio.getSecuencia()))
+                            .name(cambio.getTipo())
+                            .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                            .data(CambioVehiculo.class, cambio)
+                            .build();
+                    if (!enviar(evento)) {
+                        return;
+                    }
+                    ultima = cambio.getSecuencia();
+                }
+            }
+        }
+
+        /**
+         * Avisa al cliente que perdió cambios y sigue desde la secuencia
+         * indicada.
+         */
+        synchronized boolean reiniciar(long desde) {
+            boolean encolado = enviar(sse.newEventBuilder()
+                    .id(Long.toString(desde))
+                    .name("reinicio")
+                    .data(String.class, Long.toString(desde))
+                    .build());
+            if (encolado) {
+                ultima = desde;
+            }
+            return encolado;
+        }
+
+        /**
+         * Encola el comentario de latido, o desconecta al cliente si tiene un
+         * envío sin terminar desde hace más de un latido.
+         */
+        void latir() {
+            long inicio = inicioEnvio;
+            if (inicio != 0 && System.nanoTime() - inicio > TimeUnit.SECONDS.toNanos(LATIDO_SEGUNDOS)) {
+                cerrar();
+                return;
+            }
+            enviar(sse.newEventBuilder().comment("latido").build());
+        }
+
+        /**
+         * Encola el evento y arranca el envío si no hay uno en curso.
+         *
+         * @return false si el cliente se desconectó (en ese caso se lo quita)
+         * o si la cola está llena; al vaciarse se vuelve a agendar la lectura
+         */
+        boolean enviar(OutboundSseEvent evento) {
+            if (sink.isClosed()) {
+                cerrar();
+                return false;
+            }
+            if (!cola.offer(evento)) {
+                llena.set(true);
+                return false;
+            }
+            siguiente();
+            return true;
+        }
+
+        /**
+         * Toma el próximo evento de la cola y lo envía sin esperar; al
+         * terminar el envío se llama otra vez.
+         */
+        private void siguiente() {
+            while (enVuelo.compareAndSet(false, true)) {
+                OutboundSseEvent evento = cola.poll();
+                if (evento == null) {
+                    enVuelo.set(false);
+                    if (cola.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                inicioEnvio = System.nanoTime();
+                CompletionStage<?> envio;
+                try {
+                    envio = sink.send(evento);
+                } catch (IllegalStateException e) {
+                    cerrar();
+                    return;
+                }
+                envio.whenComplete((resultado, error) -> {
+                    if (error != null) {
+                        cerrar();
+                        return;
+                    }
+                    inicioEnvio = 0;
+                    enVuelo.set(false);
+                    if (llena.compareAndSet(true, false)) {
+                        agendar();
+                    }
+                    siguiente();
+                });
+                return;
+            }
+        }
+
+        void cerrar() {
+            suscripciones.remove(this);
+            cola.clear();
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                // Ya estaba cerrada
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.persistence.ConsumidorFila;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escribe filas de vehículos en CSV o NDJSON directamente sobre un Writer.
+ *
+ * El escape se hace carácter a carácter sobre el Writer, sin crear Strings
+ * intermedios, para que el costo por fila sea sólo el de copiar sus bytes.
+ */
+class EscritorExportacion implements ConsumidorFila {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final FormatoExportacion formato;
+
+    EscritorExportacion(Writer out, FormatoExportacion formato) {
+        this.out = out;
+        this.formato = formato;
+    }
+
+    /**
+     * Escribe la línea de encabezado (sólo CSV).
+     */
+    void escribirEncabezado() throws IOException {
+        if (formato == FormatoExportacion.CSV) {
+            out.write("id,placa,marca,modelo,color,propietario\n");
+        }
+    }
+
+    @Override
+    public void aceptar(int id, String placa, String marca, String modelo, String color, String propietario)
+            throws IOException {
+        if (formato == FormatoExportacion.CSV) {
+            out.write(Integer.toString(id));
+            out.write(',');
+            csv(placa);
+            out.write(',');
+            csv(marca);
+            out.write(',');
+            csv(modelo);
+            out.write(',');
+            csv(color);
+            out.write(',');
+            csv(propietario);
+            out.write('\n');
+        } else {
+            out.write("{\"id\":");
+            out.write(Integer.toString(id));
+            out.write(",\"placa\":");
+            json(placa);
+            out.write(",\"marca\":");
+            json(marca);
+            out.write(",\"modelo\":");
+            json(modelo);
+            out.write(",\"color\":");
+            json(color);
+            out.write(",\"propietario\":");
+            json(propietario);
+            out.write("}\n");
+        }
+    }
+
+    /**
+     * Campo CSV según RFC 4180: se encierra entre comillas sólo si contiene
+     * separador, comillas o saltos de línea. NULL se escribe como vacío.
+     */
+    private void csv(String valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        boolean requiereComillas = false;
+        for (int i = 0; i < valor.length() && !requiereComillas; i++) {
+            char c = valor.charAt(i);
+            requiereComillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!requiereComillas) {
+            out.write(valor);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    /**
+     * Cadena JSON con escape de comillas, barra invertida y caracteres de
+     * control.
+     */
+    private void json(String valor) throws IOException {
+        if (valor == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write("\\u00");
+                        out.write(HEX[c >> 4]);
+                        out.write(HEX[c & 0xF]);
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,161 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.admision.ControlAdmision;
+import com.garage.cache.EstadisticasCache;
+import com.garage.controller.CacheTablaVehiculos;
+import com.garage.facade.AltasAgrupadas;
+import com.garage.facade.IndicePlacas;
+import com.garage.facade.MigracionesEsquema;
+import com.garage.facade.NotificacionesSalida;
+import com.garage.facade.VehiculoCache;
+import com.garage.persistence.EstadisticasConexiones;
+import com.garage.persistence.OrigenLecturas;
+import jakarta.ejb.EJB;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estadísticas internas de la aplicación, para diagnóstico.
+ */
+@Path("estadisticas")
+@Produces(MediaType.APPLICATION_JSON)
+public class EstadisticasResource {
+
+    @EJB
+    private VehiculoCache cache;
+
+    @Inject
+    private EstadisticasConexiones conexiones;
+
+    @Inject
+    private CacheTablaVehiculos tablas;
+
+    @EJB
+    private IndicePlacas placas;
+
+    @Inject
+    private DifusorCambios difusor;
+
+    @EJB
+    private AltasAgrupadas altas;
+
+    @EJB
+    private MigracionesEsquema esquema;
+
+    @EJB
+    private NotificacionesSalida notificaciones;
+
+    @Inject
+    private ControlAdmision admision;
+
+    @Inject
+    private OrigenLecturas lecturas;
+
+    /**
+     * Aciertos, fallos, desalojos y expiraciones de la cache de vehículos y
+     * de la tabla HTML renderizada.
+     */
+    @GET
+    @Path("cache")
+    public Map<String, EstadisticasCache> cache() {
+        Map<String, EstadisticasCache> datos = new LinkedHashMap<>(cache.estadisticas());
+        datos.put("tablasHtml", tablas.estadisticas());
+        return datos;
+    }
+
+    /**
+     * Conexiones pedidas por la fachada frente a checkouts reales del pool,
+     * e idas a la base de datos, por solicitud HTTP.
+     */
+    @GET
+    @Path("conexiones")
+    public Map<String, Object> conexiones() {
+        // Se copia a un mapa para no serializar el proxy CDI
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("solicitudes", conexiones.getSolicitudes());
+        datos.put("pedidos", conexiones.getPedidos());
+        datos.put("checkouts", conexiones.getCheckouts());
+        datos.put("checkoutsPorSolicitud", conexiones.getCheckoutsPorSolicitud());
+        datos.put("histograma", conexiones.getHistograma());
+        datos.put("idas", conexiones.getIdas());
+        datos.put("idasPorSolicitud", conexiones.getIdasPorSolicitud());
+        datos.put("maximoIdas", conexiones.getMaximoIdas());
+        return datos;
+    }
+
+    /**
+     * Tamaño del índice de trigramas de placas y memoria estimada por placa
+     * indexada.
+     */
+    @GET
+    @Path("placas")
+    public Map<String, Object> placas() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("listo", placas.isListo());
+        datos.putAll(placas.estadisticasTrigramas());
+        return datos;
+    }
+
+    /**
+     * Clientes conectados al feed de cambios y última secuencia publicada.
+     */
+    @GET
+    @Path("cambios")
+    public Map<String, Object> cambios() {
+        return difusor.estadisticas();
+    }
+
+    /**
+     * Altas agrupadas (group commit): lotes escritos y filas por lote.
+     */
+    @GET
+    @Path("altas")
+    public Map<String, Object> altas() {
+        return altas.estadisticas();
+    }
+
+    /**
+     * Versión del esquema, migraciones aplicadas al arrancar y consultas que
+     * EXPLAIN mostró sin índice.
+     */
+    @GET
+    @Path("esquema")
+    public Map<String, Object> esquema() {
+        return esquema.estado();
+    }
+
+    /**
+     * Límites adaptativos de lecturas y escrituras: valor actual, en curso,
+     * en cola, admitidas y rechazadas.
+     */
+    @GET
+    @Path("admision")
+    public Map<String, Object> admision() {
+        return admision.estadisticas();
+    }
+
+    /**
+     * Lecturas resueltas en la réplica, en la primaria por escrituras
+     * recientes del cliente y fallos de la réplica.
+     */
+    @GET
+    @Path("lecturas")
+    public Map<String, Object> lecturas() {
+        return lecturas.estadisticas();
+    }
+
+    /**
+     * Bandeja de salida de notificaciones: enviadas, reintentos, pausas del
+     * despachador y filas pendientes o fallidas.
+     */
+    @GET
+    @Path("notificaciones")
+    public Map<String, Object> notificaciones() {
+        return notificaciones.estadisticas();
+    }
+}
@@ -0,0 +1,43 @@
+package com.garage.tallergarage2.resources;
+
+/**
+ * Formatos disponibles para la exportación de vehículos.
+ */
+public enum FormatoExportacion {
+
+    CSV("text/csv; charset=UTF-8", "csv"),
+    NDJSON("application/x-ndjson; charset=UTF-8", "ndjson");
+
+    private final String tipoContenido;
+    private final String extension;
+
+    FormatoExportacion(String tipoContenido, String extension) {
+        this.tipoContenido = tipoContenido;
+        this.extension = extension;
+    }
+
+    /**
+     * @return media type de la respuesta
+     */
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    /**
+     * @return extensión sugerida para el archivo descargado
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Convierte el parámetro "formato". Valores desconocidos o vacíos usan
+     * CSV.
+     */
+    public static FormatoExportacion desdeParametro(String parametro) {
+        if (parametro != null && parametro.trim().equalsIgnoreCase("ndjson")) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,146 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.model.Vehiculo;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lector de CSV (RFC 4180, separador coma) con encabezado obligatorio.
+ *
+ * Las columnas se ubican por nombre (placa, marca, modelo, color,
+ * propietario; id se ignora), así el mismo archivo que produce la
+ * exportación se puede volver a importar.
+ */
+class LectorCsvVehiculos implements LectorVehiculos {
+
+    private final BufferedReader entrada;
+    private int fila;
+    private int colPlaca = -1;
+    private int colMarca = -1;
+    private int colModelo = -1;
+    private int colColor = -1;
+    private int colPropietario = -1;
+
+    LectorCsvVehiculos(BufferedReader entrada) throws IOException {
+        this.entrada = entrada;
+        List<String> encabezado = leerRegistro();
+        if (encabezado == null) {
+            return;
+        }
+        for (int i = 0; i < encabezado.size(); i++) {
+            switch (encabezado.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "placa":
+                    colPlaca = i;
+                    break;
+                case "marca":
+                    colMarca = i;
+                    break;
+                case "modelo":
+                    colModelo = i;
+                    break;
+                case "color":
+                    colColor = i;
+                    break;
+                case "propietario":
+                    colPropietario = i;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (colPlaca < 0 || colMarca < 0 || colModelo < 0) {
+            throw new IOException("El encabezado CSV debe incluir al menos placa, marca y modelo");
+        }
+    }
+
+    @Override
+    public Vehiculo siguiente() throws IOException {
+        List<String> campos = leerRegistro();
+        if (campos == null) {
+            return null;
+        }
+        fila++;
+        int requeridas = Math.max(colPlaca, Math.max(colMarca, colModelo)) + 1;
+        if (campos.size() < requeridas) {
+            throw new FilaInvalidaException("La fila tiene " + campos.size() + " columnas; se esperaban al menos " + requeridas);
+        }
+        return new Vehiculo(campo(campos, colPlaca), campo(campos, colMarca), campo(campos, colModelo),
+                campo(campos, colColor), campo(campos, colPropietario));
+    }
+
+    @Override
+    public int filaActual() {
+        return fila;
+    }
+
+    private static String campo(List<String> campos, int columna) {
+        if (columna < 0 || columna >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(columna);
+        return valor.isEmpty() ? null : valor;
+    }
+
+    /**
+     * Lee un registro completo; un campo entre comillas puede contener
+     * comas, comillas dobles escapadas y saltos de línea. Las líneas vacías
+     * se saltan.
+     *
+     * @return campos del registro o null al final del archivo
+     */
+    private List<String> leerRegistro() throws IOException {
+        String linea;
+        do {
+            linea = entrada.readLine();
+            if (linea == null) {
+                return null;
+            }
+        } while (linea.isEmpty());
+
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        int i = 0;
+        while (true) {
+            if (i == linea.length()) {
+                if (!entreComillas) {
+                    break;
+                }
+                // Salto de línea dentro de un campo entre comillas
+                String continuacion = entrada.readLine();
+                if (continuacion == null) {
+                    throw new IOException("Campo entre comillas sin cerrar al final del archivo");
+                }
+                actual.append('\n');
+                linea = continuacion;
+                i = 0;
+                continue;
+            }
+            char c = linea.charAt(i++);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i < linea.length() && linea.charAt(i) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+}
@@ -0,0 +1,111 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.model.Vehiculo;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParsingException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Lector de un arreglo JSON de objetos vehículo, procesado en streaming con
+ * JsonParser (sin construir el árbol del documento completo).
+ *
+ * Ejemplo: [{"placa":"ABC123","marca":"Toyota","modelo":"2020",
+ * "color":"ROJO","propietario":"Juan Pérez"}]
+ */
+class LectorJsonVehiculos implements LectorVehiculos {
+
+    private final JsonParser parser;
+    private int fila;
+
+    LectorJsonVehiculos(InputStream entrada) throws IOException {
+        this.parser = Json.createParser(entrada);
+        try {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new IOException("Se esperaba un arreglo JSON de vehículos");
+            }
+        } catch (JsonParsingException e) {
+            throw new IOException("JSON inválido: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Vehiculo siguiente() throws IOException {
+        try {
+            if (!parser.hasNext()) {
+                return null;
+            }
+            JsonParser.Event evento = parser.next();
+            if (evento == JsonParser.Event.END_ARRAY) {
+                return null;
+            }
+            fila++;
+            if (evento != JsonParser.Event.START_OBJECT) {
+                if (evento == JsonParser.Event.START_ARRAY) {
+                    parser.skipArray();
+                }
+                throw new FilaInvalidaException("Se esperaba un objeto vehículo");
+            }
+
+            Vehiculo v = new Vehiculo();
+            String clave = null;
+            while (parser.hasNext()) {
+                evento = parser.next();
+                switch (evento) {
+                    case KEY_NAME:
+                        clave = parser.getString();
+                        break;
+                    case VALUE_STRING:
+                    case VALUE_NUMBER:
+                        asignar(v, clave, parser.getString());
+                        break;
+                    case START_OBJECT:
+                        parser.skipObject();
+                        break;
+                    case START_ARRAY:
+                        parser.skipArray();
+                        break;
+                    case END_OBJECT:
+                        return v;
+                    default:
+                        // null, true o false: el campo queda sin valor
+                        break;
+                }
+            }
+            throw new IOException("Objeto JSON sin cerrar al final del archivo");
+        } catch (JsonParsingException e) {
+            throw new IOException("JSON inválido en la fila " + fila + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int filaActual() {
+        return fila;
+    }
+
+    private static void asignar(Vehiculo v, String clave, String valor) {
+        if (clave == null) {
+            return;
+        }
+        switch (clave) {
+            case "placa":
+                v.setPlaca(valor);
+                break;
+            case "marca":
+                v.setMarca(valor);
+                break;
+            case "modelo":
+                v.setModelo(valor);
+                break;
+            case "color":
+                v.setColor(valor);
+                break;
+            case "propietario":
+                v.setPropietario(valor);
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.model.Vehiculo;
+import java.io.IOException;
+
+/**
+ * Lee vehículos de un archivo de importación, uno por vez, sin cargar el
+ * archivo completo en memoria.
+ */
+interface LectorVehiculos {
+
+    /**
+     * @return siguiente vehículo o null al terminar el archivo
+     * @throws FilaInvalidaException si la fila no se puede interpretar; la
+     * lectura puede continuar con la siguiente
+     * @throws IOException si falla la lectura o el formato del archivo
+     * completo es inválido
+     */
+    Vehiculo siguiente() throws IOException;
+
+    /**
+     * @return número de la última fila de datos leída (desde 1)
+     */
+    int filaActual();
+
+    /**
+     * Error en una fila concreta del archivo.
+     */
+    class FilaInvalidaException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        FilaInvalidaException(String mensaje) {
+            super(mensaje);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.metricas.RegistroMetricas;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Métricas de latencia (p50/p95/p99, máximo, suma y cantidad) y errores por
+ * operación de servlet, JSP, fachada, DAO y pool, en formato de texto de
+ * Prometheus.
+ */
+@Path("metricas")
+public class MetricasResource {
+
+    private static final String TIPO_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+
+    @GET
+    @Produces(TIPO_PROMETHEUS)
+    public Response metricas() {
+        StreamingOutput salida = out -> {
+            Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            RegistroMetricas.escribirPrometheus(w);
+            w.flush();
+        };
+        return Response.ok(salida, TIPO_PROMETHEUS).build();
+    }
+}
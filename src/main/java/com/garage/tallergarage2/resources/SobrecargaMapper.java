@@ -0,0 +1,26 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.admision.SobrecargaException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import java.util.Map;
+
+/**
+ * Una operación rechazada por el control de admisión se responde con 503 y
+ * Retry-After, en el mismo formato de error que el resto de los recursos.
+ */
+@Provider
+public class SobrecargaMapper implements ExceptionMapper<SobrecargaException> {
+
+    @Override
+    public Response toResponse(SobrecargaException e) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, e.getReintentoSegundos())
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.persistence.FiltroVehiculos;
+import java.util.List;
+
+/**
+ * Cuerpo JSON de una operación masiva: la lista de ids o los criterios de
+ * búsqueda (los del listado, salvo que el propietario debe ser el nombre
+ * completo), y el nuevo propietario si es una reasignación.
+ *
+ * Ejemplos: {"ids": [15, 3, 99]} o
+ * {"propietario": "Juan Pérez", "nuevoPropietario": "María Gómez"}.
+ */
+public class SolicitudMasiva {
+
+    private List<Integer> ids;
+    private String marca;
+    private String color;
+    private String propietario;
+    private Integer anioDesde;
+    private Integer anioHasta;
+    private String nuevoPropietario;
+
+    /**
+     * @return filtro con los criterios indicados, con el propietario exacto
+     * @throws IllegalArgumentException si el rango de años no es válido
+     */
+    FiltroVehiculos filtro() {
+        return FiltroVehiculos.paraOperacionMasiva(marca, color, propietario, anioDesde, anioHasta);
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    public String getMarca() {
+        return marca;
+    }
+
+    public void setMarca(String marca) {
+        this.marca = marca;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+
+    public String getPropietario() {
+        return propietario;
+    }
+
+    public void setPropietario(String propietario) {
+        this.propietario = propietario;
+    }
+
+    public Integer getAnioDesde() {
+        return anioDesde;
+    }
+
+    public void setAnioDesde(Integer anioDesde) {
+        this.anioDesde = anioDesde;
+    }
+
+    public Integer getAnioHasta() {
+        return anioHasta;
+    }
+
+    public void setAnioHasta(Integer anioHasta) {
+        this.anioHasta = anioHasta;
+    }
+
+    public String getNuevoPropietario() {
+        return nuevoPropietario;
+    }
+
+    public void setNuevoPropietario(String nuevoPropietario) {
+        this.nuevoPropietario = nuevoPropietario;
+    }
+}
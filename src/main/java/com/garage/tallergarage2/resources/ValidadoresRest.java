@@ -0,0 +1,84 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.controller.ValidadoresHttp;
+import com.garage.facade.VersionDatos;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import java.util.Date;
+
+/**
+ * ETag débil y Last-Modified de una lectura REST, tomados de
+ * {@link VersionDatos} antes de consultar la base de datos. Mismas reglas que
+ * {@link ValidadoresHttp} en /vehiculos: si el cliente ya tiene la versión se
+ * responde 304 sin llegar a la fachada. Mientras la réplica puede estar
+ * atrasada ({@link VersionDatos#replicaPuedeEstarAtrasada()}) no se envían
+ * ni se evalúan validadores.
+ */
+final class ValidadoresRest {
+
+    private static final CacheControl REVALIDAR = revalidar();
+
+    private final EntityTag etiqueta;
+    private final Date fecha;
+
+    private ValidadoresRest(long version, long ultimaModificacion) {
+        this.etiqueta = new EntityTag(Long.toString(version), true);
+        long estable = ValidadoresHttp.fechaEstable(ultimaModificacion);
+        this.fecha = estable >= 0 ? new Date(estable) : null;
+    }
+
+    private ValidadoresRest() {
+        this.etiqueta = null;
+        this.fecha = null;
+    }
+
+    /**
+     * Lee la versión actual; debe llamarse antes de consultar.
+     */
+    static ValidadoresRest de(VersionDatos version) {
+        // La versión primero: la fecha que se lea después es igual o más nueva
+        long actual = version.actual();
+        if (version.replicaPuedeEstarAtrasada()) {
+            return new ValidadoresRest();
+        }
+        return new ValidadoresRest(actual, version.getUltimaModificacion());
+    }
+
+    /**
+     * @return respuesta 304 (o 412) si las precondiciones del cliente lo
+     * indican, o null si hay que generar la respuesta
+     */
+    Response.ResponseBuilder evaluar(Request request) {
+        if (etiqueta == null) {
+            return null;
+        }
+        Response.ResponseBuilder respuesta = fecha != null
+                ? request.evaluatePreconditions(fecha, etiqueta)
+                : request.evaluatePreconditions(etiqueta);
+        return respuesta == null ? null : aplicar(respuesta);
+    }
+
+    /**
+     * Agrega ETag, Last-Modified y Cache-Control: no-cache (sólo este
+     * último si no hay validadores).
+     */
+    Response.ResponseBuilder aplicar(Response.ResponseBuilder respuesta) {
+        respuesta.cacheControl(REVALIDAR);
+        if (etiqueta != null) {
+            respuesta.tag(etiqueta);
+        }
+        if (fecha != null) {
+            respuesta.lastModified(fecha);
+        }
+        return respuesta;
+    }
+
+    private static CacheControl revalidar() {
+        CacheControl control = new CacheControl();
+        control.setNoCache(true);
+        control.setNoTransform(false);
+        return control;
+    }
+}
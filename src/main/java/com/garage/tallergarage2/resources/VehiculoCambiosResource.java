@@ -0,0 +1,56 @@
+package com.garage.tallergarage2.resources;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+/**
+ * Feed de cambios de vehículos por Server-Sent Events: un evento "creado",
+ * "actualizado" o "eliminado" por cada escritura confirmada, con el número
+ * de secuencia como id y el cambio en JSON como datos.
+ *
+ * Al reconectarse, el navegador envía Last-Event-ID y recibe lo que se
+ * perdió; el primer pedido puede indicar la secuencia en "desde". Si el
+ * servidor ya no la tiene, llega un evento "reinicio" y hay que recargar la
+ * lista.
+ *
+ * Ejemplo: GET /resources/vehiculos/cambios?desde=1700000000123
+ */
+@Path("vehiculos/cambios")
+public class VehiculoCambiosResource {
+
+    @Inject
+    private DifusorCambios difusor;
+
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void suscribir(@Context SseEventSink sink, @Context Sse sse,
+            @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String ultimoId,
+            @QueryParam("desde") String desde) {
+        Long ultimaVista = secuencia(ultimoId != null ? ultimoId : desde);
+        if (!difusor.suscribir(sink, sse, ultimaVista)) {
+            throw new ServiceUnavailableException(5L);
+        }
+    }
+
+    private static Long secuencia(String valor) {
+        if (valor == null || valor.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Secuencia inválida: " + valor);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.controller.VistaComprimida;
+import com.garage.facade.VehiculoFacade;
+import com.garage.facade.VersionDatos;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación completa de la flota en CSV o NDJSON.
+ *
+ * Las filas se escriben a medida que llegan de la base de datos, así que la
+ * memoria usada no depende del tamaño de la tabla. Para reanudar una
+ * exportación cortada basta con enviar el último id recibido en "desdeId".
+ * Lleva ETag y Last-Modified de la versión de los datos; si no hubo cambios
+ * desde la última exportación se responde 304 sin consultar.
+ *
+ * Compresión: con gzip=true se descarga un archivo .gz (application/gzip,
+ * sin Content-Encoding); si no, el cuerpo se comprime para el transporte
+ * cuando Accept-Encoding acepta gzip y el archivo guardado es el .csv o
+ * .ndjson. gzip=false la desactiva.
+ *
+ * Ejemplo: GET /resources/vehiculos/exportacion?formato=ndjson&amp;desdeId=1500
+ */
+@Path("vehiculos/exportacion")
+public class VehiculoExportacionResource {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    @EJB
+    private VehiculoFacade vehiculoFacade;
+
+    @EJB
+    private VersionDatos versionDatos;
+
+    @GET
+    public Response exportar(@Context Request request,
+            @QueryParam("formato") String formatoParam,
+            @QueryParam("desdeId") @DefaultValue("0") int desdeId,
+            @QueryParam("gzip") Boolean gzipParam,
+            @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String aceptaCodificacion) {
+
+        FormatoExportacion formato = FormatoExportacion.desdeParametro(formatoParam);
+        ValidadoresRest validadores = ValidadoresRest.de(versionDatos);
+        Response.ResponseBuilder noModificado = validadores.evaluar(request);
+        if (noModificado != null) {
+            return noModificado.build();
+        }
+        // gzip explícito en la URL tiene prioridad sobre Accept-Encoding
+        boolean archivoGzip = Boolean.TRUE.equals(gzipParam);
+        boolean transporteGzip = gzipParam == null
+                && "gzip".equals(VistaComprimida.elegirCodificacion(aceptaCodificacion));
+        boolean gzip = archivoGzip || transporteGzip;
+
+        StreamingOutput cuerpo = (OutputStream salida) -> {
+            GZIPOutputStream comprimido = gzip ? new GZIPOutputStream(salida, TAMANO_BUFFER) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    gzip ? comprimido : salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+
+            EscritorExportacion escritor = new EscritorExportacion(writer, formato);
+            escritor.escribirEncabezado();
+            try {
+                vehiculoFacade.exportar(desdeId, escritor);
+            } catch (SQLException e) {
+                // Los encabezados ya se enviaron: sólo queda cortar la respuesta
+                throw new WebApplicationException("Error al exportar vehículos", e);
+            }
+            writer.flush();
+            if (comprimido != null) {
+                comprimido.finish();
+            }
+        };
+
+        Response.ResponseBuilder respuesta = validadores.aplicar(Response.ok(cuerpo,
+                archivoGzip ? "application/gzip" : formato.getTipoContenido()))
+                .header("Content-Disposition",
+                        "attachment; filename=\"vehiculos." + formato.getExtension() + (archivoGzip ? ".gz" : "") + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (transporteGzip) {
+            respuesta.encoding("gzip");
+        }
+        return respuesta.build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.admision.SobrecargaException;
+import com.garage.config.Configuracion;
+import com.garage.facade.VehiculoFacade;
+import com.garage.model.ResultadoImportacion;
+import com.garage.model.Vehiculo;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Importación masiva de vehículos desde CSV o JSON.
+ *
+ * El archivo se lee en streaming y se procesa por lotes (parámetro "lote");
+ * cada lote se valida en paralelo y se inserta en su propia transacción. La
+ * respuesta resume filas insertadas y el motivo de cada fila rechazada.
+ *
+ * Ejemplo: POST /resources/vehiculos/importacion?lote=1000 con
+ * Content-Type: text/csv
+ */
+@Path("vehiculos/importacion")
+@Produces(MediaType.APPLICATION_JSON)
+public class VehiculoImportacionResource {
+
+    private static final int LOTE_POR_DEFECTO = Configuracion.entero("garage.importacion.tamanoLote", 500);
+    private static final int LOTE_MAXIMO = 5000;
+
+    @EJB
+    private VehiculoFacade vehiculoFacade;
+
+    @POST
+    @Consumes({"text/csv", MediaType.TEXT_PLAIN})
+    public Response importarCsv(InputStream cuerpo, @QueryParam("lote") Integer lote) {
+        try {
+            BufferedReader entrada = new BufferedReader(new InputStreamReader(cuerpo, StandardCharsets.UTF_8));
+            return importar(new LectorCsvVehiculos(entrada), lote);
+        } catch (IOException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response importarJson(InputStream cuerpo, @QueryParam("lote") Integer lote) {
+        try {
+            return importar(new LectorJsonVehiculos(cuerpo), lote);
+        } catch (IOException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    private Response importar(LectorVehiculos lector, Integer lote) {
+        int tamanoLote = (lote == null) ? LOTE_POR_DEFECTO : Math.max(1, Math.min(lote, LOTE_MAXIMO));
+        ResultadoImportacion total = new ResultadoImportacion();
+        Map<Integer, Vehiculo> filas = new LinkedHashMap<>();
+
+        try {
+            while (true) {
+                Vehiculo v;
+                try {
+                    v = lector.siguiente();
+                } catch (LectorVehiculos.FilaInvalidaException e) {
+                    total.contarFilas(1);
+                    total.agregarError(lector.filaActual(), null, e.getMessage());
+                    continue;
+                }
+                if (v == null) {
+                    break;
+                }
+                filas.put(lector.filaActual(), v);
+                if (filas.size() == tamanoLote) {
+                    total.sumar(vehiculoFacade.importarLote(filas));
+                    filas = new LinkedHashMap<>();
+                }
+            }
+            if (!filas.isEmpty()) {
+                total.sumar(vehiculoFacade.importarLote(filas));
+            }
+        } catch (IOException e) {
+            return errorParcial(Response.Status.BAD_REQUEST, e.getMessage(), total);
+        } catch (SQLException e) {
+            return errorParcial(Response.Status.INTERNAL_SERVER_ERROR, "Error de base de datos: " + e.getMessage(), total);
+        } catch (SobrecargaException e) {
+            // Se informa lo ya importado para que el cliente reintente desde ahí
+            Response parcial = errorParcial(Response.Status.SERVICE_UNAVAILABLE, e.getMessage(), total);
+            return Response.fromResponse(parcial).header(HttpHeaders.RETRY_AFTER, e.getReintentoSegundos()).build();
+        }
+
+        total.getErrores().sort((a, b) -> Integer.compare(a.getFila(), b.getFila()));
+        return Response.ok(total).build();
+    }
+
+    /**
+     * Los lotes anteriores al error ya quedaron confirmados: la respuesta
+     * informa hasta dónde llegó la importación.
+     */
+    private static Response errorParcial(Response.Status estado, String mensaje, ResultadoImportacion parcial) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", mensaje);
+        error.put("resultadoParcial", parcial);
+        return Response.status(estado).entity(error).build();
+    }
+}
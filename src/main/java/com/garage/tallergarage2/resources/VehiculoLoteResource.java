@@ -0,0 +1,149 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.facade.VehiculoFacade;
+import com.garage.facade.VersionDatos;
+import com.garage.model.Vehiculo;
+import jakarta.ejb.EJB;
+import jakarta.ejb.EJBException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Varios vehículos por id en una sola solicitud, en lugar de una llamada a
+ * /resources/vehiculos/{id} por vehículo. Los ids repetidos se buscan una
+ * vez y los que no están en cache se resuelven con consultas IN por bloques
+ * ({@link VehiculoFacade#buscarPorIds}).
+ *
+ * La respuesta es un arreglo JSON alineado con los ids pedidos: el elemento
+ * i corresponde al id i, o es null si ese vehículo no existe. Se escribe
+ * directo sobre la salida, sin armar el documento en memoria.
+ *
+ * Ejemplos: POST /resources/vehiculos/lote con cuerpo [15, 3, 15, 99] o, para
+ * pocos ids, GET /resources/vehiculos/lote?ids=15,3,15,99 (con ETag y
+ * Last-Modified como el resto de las lecturas).
+ */
+@Path("vehiculos/lote")
+@Produces(MediaType.APPLICATION_JSON)
+public class VehiculoLoteResource {
+
+    private static final int TAMANO_BUFFER = 16 * 1024;
+
+    @EJB
+    private VehiculoFacade vehiculoFacade;
+
+    @EJB
+    private VersionDatos versionDatos;
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response buscarPost(List<Integer> ids) {
+        if (ids == null) {
+            return error(Response.Status.BAD_REQUEST, "Envíe un arreglo JSON de ids");
+        }
+        return buscar(ids, null);
+    }
+
+    @GET
+    public Response buscarGet(@Context Request request, @QueryParam("ids") String idsParam) {
+        List<Integer> ids;
+        try {
+            ids = ids(idsParam);
+        } catch (IllegalArgumentException e) {
+            return error(Response.Status.BAD_REQUEST, e.getMessage());
+        }
+        ValidadoresRest validadores = ValidadoresRest.de(versionDatos);
+        Response.ResponseBuilder noModificado = validadores.evaluar(request);
+        if (noModificado != null) {
+            return noModificado.build();
+        }
+        return buscar(ids, validadores);
+    }
+
+    private Response buscar(List<Integer> ids, ValidadoresRest validadores) {
+        if (ids.size() > VehiculoFacade.MAX_IDS_CONSULTA) {
+            return error(Response.Status.BAD_REQUEST,
+                    "Se pueden consultar a lo sumo " + VehiculoFacade.MAX_IDS_CONSULTA + " ids");
+        }
+        Map<Integer, Vehiculo> encontrados;
+        try {
+            encontrados = vehiculoFacade.buscarPorIds(ids);
+        } catch (IllegalArgumentException e) {
+            return error(Response.Status.BAD_REQUEST, e.getMessage());
+        } catch (EJBException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                return error(Response.Status.BAD_REQUEST, e.getCause().getMessage());
+            }
+            throw e;
+        } catch (SQLException e) {
+            return error(Response.Status.INTERNAL_SERVER_ERROR, "Error de base de datos: " + e.getMessage());
+        }
+
+        StreamingOutput cuerpo = (OutputStream salida) -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+            EscritorExportacion escritor = new EscritorExportacion(writer, FormatoExportacion.NDJSON);
+            writer.write('[');
+            boolean primero = true;
+            for (Integer id : ids) {
+                if (!primero) {
+                    writer.write(',');
+                }
+                primero = false;
+                Vehiculo v = id != null ? encontrados.get(id) : null;
+                if (v == null) {
+                    writer.write("null");
+                } else {
+                    escritor.aceptar(v.getId(), v.getPlaca(), v.getMarca(), v.getModelo(), v.getColor(),
+                            v.getPropietario());
+                }
+            }
+            writer.write(']');
+            writer.flush();
+        };
+        Response.ResponseBuilder respuesta = Response.ok(cuerpo, MediaType.APPLICATION_JSON_TYPE.withCharset("UTF-8"));
+        return (validadores != null ? validadores.aplicar(respuesta) : respuesta).build();
+    }
+
+    /**
+     * Convierte "15,3,99" en la lista de ids, en el mismo orden.
+     */
+    private static List<Integer> ids(String valor) {
+        List<Integer> ids = new ArrayList<>();
+        if (valor == null || valor.trim().isEmpty()) {
+            return ids;
+        }
+        for (String parte : valor.split(",")) {
+            String id = parte.trim();
+            if (id.isEmpty()) {
+                continue;
+            }
+            try {
+                ids.add(Integer.valueOf(id));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Id inválido: " + id);
+            }
+        }
+        return ids;
+    }
+
+    private static Response error(Response.Status estado, String mensaje) {
+        return Response.status(estado).entity(Map.of("error", mensaje)).build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.facade.OperacionMasivaException;
+import com.garage.facade.VehiculoFacade;
+import com.garage.model.ResultadoMasivo;
+import jakarta.ejb.EJB;
+import jakarta.ejb.EJBException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operaciones sobre muchos vehículos en una sola solicitud, en lugar de un
+ * POST a /vehiculos por vehículo: reasignar el propietario (una flota que
+ * cambia de dueño) o eliminar (un lote dado de baja), eligiendo los
+ * vehículos por ids o por los criterios de búsqueda del listado.
+ *
+ * A diferencia del listado, donde "propietario" busca por el comienzo del
+ * nombre, aquí debe ser el nombre completo: se compara
+ * UPPER(TRIM(propietario)) = UPPER(?), sin distinguir mayúsculas ni espacios
+ * en los extremos. Así "Juan Pérez" no alcanza a "Juan Pérez Gómez" ni una
+ * sola letra a todos los propietarios que empiezan con ella. Marca, color y
+ * años se comparan igual que en el listado.
+ *
+ * Se ejecutan con sentencias por bloques de ids, una transacción por bloque
+ * (ver {@link VehiculoFacade#reasignarPropietario} y
+ * {@link VehiculoFacade#eliminarMasivo}). La respuesta dice cuántos
+ * vehículos se seleccionaron, cuántos se cambiaron y cuántos se omitieron.
+ *
+ * Ejemplos: POST /resources/vehiculos/masivo/eliminacion con
+ * {"ids": [15, 3, 99]}; POST /resources/vehiculos/masivo/reasignacion con
+ * {"propietario": "Juan Pérez", "nuevoPropietario": "María Gómez"}.
+ */
+@Path("vehiculos/masivo")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class VehiculoMasivoResource {
+
+    @EJB
+    private VehiculoFacade vehiculoFacade;
+
+    @POST
+    @Path("reasignacion")
+    public Response reasignar(SolicitudMasiva solicitud) {
+        if (solicitud == null) {
+            return error(Response.Status.BAD_REQUEST, "Envíe un objeto JSON con ids o criterios y nuevoPropietario");
+        }
+        try {
+            return Response.ok(vehiculoFacade.reasignarPropietario(solicitud.getIds(), solicitud.filtro(),
+                    solicitud.getNuevoPropietario())).build();
+        } catch (IllegalArgumentException e) {
+            return error(Response.Status.BAD_REQUEST, e.getMessage());
+        } catch (EJBException e) {
+            return errorEjb(e);
+        } catch (OperacionMasivaException e) {
+            return errorParcial(e.getMessage(), e.getResultadoParcial());
+        } catch (SQLException e) {
+            return error(Response.Status.INTERNAL_SERVER_ERROR, "Error de base de datos: " + e.getMessage());
+        }
+    }
+
+    @POST
+    @Path("eliminacion")
+    public Response eliminar(SolicitudMasiva solicitud) {
+        if (solicitud == null) {
+            return error(Response.Status.BAD_REQUEST, "Envíe un objeto JSON con ids o criterios");
+        }
+        try {
+            return Response.ok(vehiculoFacade.eliminarMasivo(solicitud.getIds(), solicitud.filtro())).build();
+        } catch (IllegalArgumentException e) {
+            return error(Response.Status.BAD_REQUEST, e.getMessage());
+        } catch (EJBException e) {
+            return errorEjb(e);
+        } catch (OperacionMasivaException e) {
+            return errorParcial(e.getMessage(), e.getResultadoParcial());
+        } catch (SQLException e) {
+            return error(Response.Status.INTERNAL_SERVER_ERROR, "Error de base de datos: " + e.getMessage());
+        }
+    }
+
+    private static Response errorEjb(EJBException e) {
+        if (e.getCause() instanceof IllegalArgumentException) {
+            return error(Response.Status.BAD_REQUEST, e.getCause().getMessage());
+        }
+        throw e;
+    }
+
+    /**
+     * Los bloques anteriores al error ya quedaron confirmados: la respuesta
+     * informa hasta dónde llegó la operación.
+     */
+    private static Response errorParcial(String mensaje, ResultadoMasivo parcial) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", "Error de base de datos: " + mensaje);
+        error.put("resultadoParcial", parcial);
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(error).build();
+    }
+
+    private static Response error(Response.Status estado, String mensaje) {
+        return Response.status(estado).entity(Map.of("error", mensaje)).build();
+    }
+}
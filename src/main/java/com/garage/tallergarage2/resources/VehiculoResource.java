@@ -0,0 +1,157 @@
+package com.garage.tallergarage2.resources;
+
+import com.garage.config.Configuracion;
+import com.garage.facade.VehiculoFacade;
+import com.garage.facade.VersionDatos;
+import com.garage.model.Vehiculo;
+import com.garage.persistence.FiltroVehiculos;
+import com.garage.persistence.OrdenVehiculo;
+import com.garage.persistence.ProyeccionVehiculo;
+import jakarta.ejb.EJB;
+import jakarta.ejb.EJBException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Búsqueda de vehículos por marca, color, propietario (prefijo) y rango de
+ * años del modelo, con orden y paginación por cursor. Devuelve la misma
+ * página que muestra /vehiculos: elementos, cursorSiguiente y
+ * cursorAnterior.
+ *
+ * Ejemplo: GET /resources/vehiculos?marca=Toyota&amp;color=ROJO&amp;anioDesde=2018&amp;orden=modelo&amp;dir=desc
+ *
+ * Con campos=placa,marca se consultan sólo esas columnas (más el id y la
+ * del orden); las demás no aparecen en la respuesta.
+ *
+ * En /resources/vehiculos/placas busca por fragmento de placa, con
+ * tolerancia a errores de tipeo: GET /resources/vehiculos/placas?q=BC1
+ *
+ * Un vehículo por id: GET /resources/vehiculos/15
+ *
+ * Todas las lecturas llevan ETag y Last-Modified de la versión de los datos
+ * ({@link ValidadoresRest}); con If-None-Match o If-Modified-Since vigentes
+ * se responde 304 sin consultar la base de datos.
+ */
+@Path("vehiculos")
+@Produces(MediaType.APPLICATION_JSON)
+public class VehiculoResource {
+
+    private static final int TAMANO_PAGINA = Configuracion.entero("garage.paginacion.tamano", 25);
+
+    @EJB
+    private VehiculoFacade vehiculoFacade;
+
+    @EJB
+    private VersionDatos versionDatos;
+
+    @GET
+    public Response buscar(@Context Request request,
+            @QueryParam("marca") String marca,
+            @QueryParam("color") String color,
+            @QueryParam("propietario") String propietario,
+            @QueryParam("anioDesde") String anioDesde,
+            @QueryParam("anioHasta") String anioHasta,
+            @QueryParam("orden") String orden,
+            @QueryParam("dir") String dir,
+            @QueryParam("tamano") Integer tamano,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("campos") String campos) {
+        ValidadoresRest validadores = ValidadoresRest.de(versionDatos);
+        Response.ResponseBuilder noModificado = validadores.evaluar(request);
+        if (noModificado != null) {
+            return noModificado.build();
+        }
+        try {
+            FiltroVehiculos filtro = FiltroVehiculos.de(marca, color, propietario, anio(anioDesde), anio(anioHasta));
+            return validadores.aplicar(Response.ok(vehiculoFacade.buscar(filtro,
+                    OrdenVehiculo.desdeParametro(orden),
+                    "desc".equalsIgnoreCase(dir),
+                    cursor,
+                    tamano == null ? TAMANO_PAGINA : tamano,
+                    ProyeccionVehiculo.desdeParametro(campos)))).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build();
+        } catch (EJBException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(Map.of("error", e.getCause().getMessage())).build();
+            }
+            throw e;
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("error", "Error de base de datos: " + e.getMessage())).build();
+        }
+    }
+
+    /**
+     * Placas que contienen el fragmento y, salvo tolerante=false, placas
+     * parecidas; ordenadas por relevancia.
+     */
+    @GET
+    @Path("placas")
+    public Response buscarPlacas(@Context Request request,
+            @QueryParam("q") String consulta,
+            @QueryParam("limite") @DefaultValue("20") int limite,
+            @QueryParam("tolerante") @DefaultValue("true") boolean tolerante) {
+        if (consulta == null || consulta.trim().isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Indique el fragmento de placa a buscar (q)")).build();
+        }
+        ValidadoresRest validadores = ValidadoresRest.de(versionDatos);
+        Response.ResponseBuilder noModificado = validadores.evaluar(request);
+        if (noModificado != null) {
+            return noModificado.build();
+        }
+        try {
+            return validadores.aplicar(Response.ok(vehiculoFacade.buscarPlacas(consulta, limite, tolerante))).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("error", "Error de base de datos: " + e.getMessage())).build();
+        }
+    }
+
+    /**
+     * Vehículo por id, o 404 si no existe.
+     */
+    @GET
+    @Path("{id: \\d+}")
+    public Response buscarPorId(@Context Request request, @PathParam("id") int id) {
+        ValidadoresRest validadores = ValidadoresRest.de(versionDatos);
+        Response.ResponseBuilder noModificado = validadores.evaluar(request);
+        if (noModificado != null) {
+            return noModificado.build();
+        }
+        try {
+            Vehiculo vehiculo = vehiculoFacade.buscarPorId(id);
+            if (vehiculo == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(Map.of("error", "Vehículo no encontrado")).build();
+            }
+            return validadores.aplicar(Response.ok(vehiculo)).build();
+        } catch (SQLException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("error", "Error de base de datos: " + e.getMessage())).build();
+        }
+    }
+
+    private static Integer anio(String valor) {
+        if (valor == null || valor.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El año debe ser un número de 4 dígitos");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+<%--
+    Tabla de vehículos con encabezados ordenables y navegación por cursores.
+    VehiculoServlet la renderiza aparte y guarda el HTML en CacheTablaVehiculos;
+    vehiculo.jsp lo recibe ya armado en "tablaHtml". No debe depender de la
+    sesión ni de nada que no esté en la clave de la cache (página y filtro).
+    Cada fila lleva data-id para que vehiculo.jsp aplique los cambios del feed.
+--%>
+<%@ page pageEncoding="UTF-8" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
+<!-- TABLA DE VEHÍCULOS -->
+<div class="card shadow-lg border-0 rounded-4">
+    <div class="card-body p-4">
+        <h2 class="h4 mb-4 text-secondary">Lista de Vehículos</h2>
+        <div class="table-responsive">
+            <table class="table table-striped table-hover align-middle">
+                <thead class="table-primary text-center">
+                    <tr>
+                        <!-- Encabezados ordenables: un clic alterna ascendente/descendente -->
+                        <c:forEach var="col" items="id,placa,marca,modelo,color,propietario">
+                            <th>
+                                <c:choose>
+                                    <c:when test="${col == 'color'}">Color</c:when>
+                                    <c:otherwise>
+                                        <c:url var="urlOrden" value="vehiculos">
+                                            <c:param name="orden" value="${col}"/>
+                                            <c:param name="dir" value="${pagina.orden == col and not pagina.descendente ? 'desc' : 'asc'}"/>
+                                            <c:param name="tamano" value="${pagina.tamano}"/>
+                                            <c:param name="marca" value="${filtro.marca}"/>
+                                            <c:param name="color" value="${filtro.color}"/>
+                                            <c:param name="propietario" value="${filtro.propietario}"/>
+                                            <c:param name="anioDesde" value="${filtro.anioDesde}"/>
+                                            <c:param name="anioHasta" value="${filtro.anioHasta}"/>
+                                        </c:url>
+                                        <a href="${urlOrden}" class="link-dark text-decoration-none">
+                                            ${col == 'id' ? 'ID' : col.substring(0, 1).toUpperCase().concat(col.substring(1))}
+                                            <c:if test="${pagina.orden == col}">
+                                                <i class="bi ${pagina.descendente ? 'bi-caret-down-fill' : 'bi-caret-up-fill'}"></i>
+                                            </c:if>
+                                        </a>
+                                    </c:otherwise>
+                                </c:choose>
+                            </th>
+                        </c:forEach>
+                        <th>Acciones</th>
+                    </tr>
+                </thead>
+                <tbody>
+                    <c:forEach var="vehicle" items="${vehicles}">
+                        <tr class="text-center" data-id="${vehicle.id}">
+                            <td>${vehicle.id}</td>
+                            <td>${vehicle.placa}</td>
+                            <td>${vehicle.marca}</td>
+                            <td>${vehicle.modelo}</td>
+                            <td>${vehicle.color}</td>
+                            <td>${vehicle.propietario}</td>
+                            <td>
+                                <!-- Botón Editar: Envía acción "editar" con el ID -->
+                                <form action="vehiculos" method="post" style="display:inline;">
+                                    <input type="hidden" name="accion" value="editar">
+                                    <input type="hidden" name="id" value="${vehicle.id}">
+                                    <button type="submit" class="btn btn-warning btn-sm px-3 rounded-pill shadow-sm">
+                                        <i class="bi bi-pencil-square"></i> Editar
+                                    </button>
+                                </form>
+
+                                <!-- Botón Eliminar: Envía acción "eliminar" con confirmación -->
+                                <form action="vehiculos" method="post" style="display:inline;" 
+                                      onsubmit="return confirm('¿Seguro que deseas eliminar este vehículo?');">
+                                    <input type="hidden" name="accion" value="eliminar">
+                                    <input type="hidden" name="id" value="${vehicle.id}">
+                                    <button type="submit" class="btn btn-danger btn-sm px-3 rounded-pill shadow-sm">
+                                        <i class="bi bi-trash"></i> Eliminar
+                                    </button>
+                                </form>
+                            </td>
+                        </tr>
+                    </c:forEach>
+                </tbody>
+            </table>
+        </div>
+
+        <!-- Navegación por cursores (paginación por clave) -->
+        <c:if test="${not empty pagina}">
+            <nav class="d-flex justify-content-between">
+                <c:choose>
+                    <c:when test="${not empty pagina.cursorAnterior}">
+                        <c:url var="urlAnterior" value="vehiculos">
+                            <c:param name="orden" value="${pagina.orden}"/>
+                            <c:param name="dir" value="${pagina.descendente ? 'desc' : 'asc'}"/>
+                            <c:param name="tamano" value="${pagina.tamano}"/>
+                            <c:param name="cursor" value="${pagina.cursorAnterior}"/>
+                            <c:param name="marca" value="${filtro.marca}"/>
+                            <c:param name="color" value="${filtro.color}"/>
+                            <c:param name="propietario" value="${filtro.propietario}"/>
+                            <c:param name="anioDesde" value="${filtro.anioDesde}"/>
+                            <c:param name="anioHasta" value="${filtro.anioHasta}"/>
+                        </c:url>
+                        <a href="${urlAnterior}" class="btn btn-outline-primary rounded-pill px-4">
+                            <i class="bi bi-chevron-left"></i> Anterior
+                        </a>
+                    </c:when>
+                    <c:otherwise><span></span></c:otherwise>
+                </c:choose>
+                <c:if test="${not empty pagina.cursorSiguiente}">
+                    <c:url var="urlSiguiente" value="vehiculos">
+                        <c:param name="orden" value="${pagina.orden}"/>
+                        <c:param name="dir" value="${pagina.descendente ? 'desc' : 'asc'}"/>
+                        <c:param name="tamano" value="${pagina.tamano}"/>
+                        <c:param name="cursor" value="${pagina.cursorSiguiente}"/>
+                        <c:param name="marca" value="${filtro.marca}"/>
+                        <c:param name="color" value="${filtro.color}"/>
+                        <c:param name="propietario" value="${filtro.propietario}"/>
+                        <c:param name="anioDesde" value="${filtro.anioDesde}"/>
+                        <c:param name="anioHasta" value="${filtro.anioHasta}"/>
+                    </c:url>
+                    <a href="${urlSiguiente}" class="btn btn-outline-primary rounded-pill px-4">
+                        Siguiente <i class="bi bi-chevron-right"></i>
+                    </a>
+                </c:if>
+            </nav>
+        </c:if>
+    </div>
+</div>
@@ -42,6 +42,12 @@
                 </div>
             </c:if>
 
+            <!-- Altas hechas desde otras pantallas (feed de cambios) -->
+            <div id="avisoCambios" class="alert alert-info d-none" role="status">
+                <i class="bi bi-arrow-repeat"></i> <span id="textoCambios"></span>
+                <a href="" class="alert-link ms-2" onclick="location.reload(); return false;">Actualizar lista</a>
+            </div>
+
 
             <!-- FORMULARIO (Crear o Editar según el modo) -->
             <div class="card shadow-lg border-0 rounded-4 mb-5">
@@ -120,63 +126,116 @@
                 </div>
             </div>
 
-            <!-- TABLA DE VEHÍCULOS -->
-            <div class="card shadow-lg border-0 rounded-4">
+            <!-- BÚSQUEDA (filtros resueltos en la base de datos) -->
+            <div class="card shadow-lg border-0 rounded-4 mb-5">
                 <div class="card-body p-4">
-                    <h2 class="h4 mb-4 text-secondary">Lista de Vehículos</h2>
-                    <div class="table-responsive">
-                        <table class="table table-striped table-hover align-middle">
-                            <thead class="table-primary text-center">
-                                <tr>
-                                    <th>ID</th>
-                                    <th>Placa</th>
-                                    <th>Marca</th>
-                                    <th>Modelo</th>
-                                    <th>Color</th>
-                                    <th>Propietario</th>
-                                    <th>Acciones</th>
-                                </tr>
-                            </thead>
-                            <tbody>
-                                <c:forEach var="vehicle" items="${vehicles}">
-                                    <tr class="text-center">
-                                        <td>${vehicle.id}</td>
-                                        <td>${vehicle.placa}</td>
-                                        <td>${vehicle.marca}</td>
-                                        <td>${vehicle.modelo}</td>
-                                        <td>${vehicle.color}</td>
-                                        <td>${vehicle.propietario}</td>
-                                        <td>
-                                            <!-- Botón Editar: Envía acción "editar" con el ID -->
-                                            <form action="vehiculos" method="post" style="display:inline;">
-                                                <input type="hidden" name="accion" value="editar">
-                                                <input type="hidden" name="id" value="${vehicle.id}">
-                                                <button type="submit" class="btn btn-warning btn-sm px-3 rounded-pill shadow-sm">
-                                                    <i class="bi bi-pencil-square"></i> Editar
-                                                </button>
-                                            </form>
-
-                                            <!-- Botón Eliminar: Envía acción "eliminar" con confirmación -->
-                                            <form action="vehiculos" method="post" style="display:inline;" 
-                                                  onsubmit="return confirm('¿Seguro que deseas eliminar este vehículo?');">
-                                                <input type="hidden" name="accion" value="eliminar">
-                                                <input type="hidden" name="id" value="${vehicle.id}">
-                                                <button type="submit" class="btn btn-danger btn-sm px-3 rounded-pill shadow-sm">
-                                                    <i class="bi bi-trash"></i> Eliminar
-                                                </button>
-                                            </form>
-                                        </td>
-                                    </tr>
+                    <h2 class="h4 mb-4 text-secondary">Buscar Vehículos</h2>
+                    <form action="vehiculos" method="get" class="row g-3 align-items-end">
+                        <input type="hidden" name="orden" value="<c:out value='${param.orden}'/>"/>
+                        <input type="hidden" name="dir" value="<c:out value='${param.dir}'/>"/>
+                        <input type="hidden" name="tamano" value="<c:out value='${param.tamano}'/>"/>
+
+                        <div class="col-md-3">
+                            <label class="form-label fw-semibold">Marca</label>
+                            <input type="text" name="marca" class="form-control" placeholder="Ej: Toyota"
+                                   value="<c:out value='${filtro.marca}'/>"/>
+                        </div>
+
+                        <div class="col-md-2">
+                            <label class="form-label fw-semibold">Color</label>
+                            <select name="color" class="form-select">
+                                <option value="">Todos</option>
+                                <c:forEach var="opcion" items="ROJO,BLANCO,NEGRO,AZUL,GRIS">
+                                    <option value="${opcion}" ${filtro.color == opcion ? 'selected' : ''}>${opcion}</option>
                                 </c:forEach>
-                            </tbody>
-                        </table>
-                    </div>
+                            </select>
+                        </div>
+
+                        <div class="col-md-3">
+                            <label class="form-label fw-semibold">Propietario (comienza con)</label>
+                            <input type="text" name="propietario" class="form-control" placeholder="Ej: Juan"
+                                   value="<c:out value='${filtro.propietario}'/>"/>
+                        </div>
+
+                        <div class="col-md-1">
+                            <label class="form-label fw-semibold">Año desde</label>
+                            <input type="number" name="anioDesde" class="form-control" min="1000" max="9999"
+                                   value="${filtro.anioDesde}"/>
+                        </div>
+
+                        <div class="col-md-1">
+                            <label class="form-label fw-semibold">Año hasta</label>
+                            <input type="number" name="anioHasta" class="form-control" min="1000" max="9999"
+                                   value="${filtro.anioHasta}"/>
+                        </div>
+
+                        <div class="col-md-2 text-end">
+                            <a href="vehiculos" class="btn btn-secondary rounded-pill shadow-sm me-1">
+                                <i class="bi bi-x-circle"></i>
+                            </a>
+                            <button type="submit" class="btn btn-primary px-3 rounded-pill shadow-sm">
+                                <i class="bi bi-search"></i> Buscar
+                            </button>
+                        </div>
+                    </form>
                 </div>
             </div>
+
+            <!-- TABLA DE VEHÍCULOS (renderizada y cacheada por VehiculoServlet) -->
+            ${tablaHtml}
         </div>
 
         <!-- Bootstrap JS + Icons -->
         <script src="https://cdn.jsdelivr.net/npm/bootstrap@5.3.3/dist/js/bootstrap.bundle.min.js"></script>
+
+        <!-- Aplica a la tabla los cambios de otras pantallas en lugar de recargarla -->
+        <script>
+            (function () {
+                if (!window.EventSource) {
+                    return;
+                }
+                var nuevos = 0;
+                var fuente = new EventSource('resources/vehiculos/cambios?desde=<c:out value="${secuenciaCambios}"/>');
+
+                function fila(id) {
+                    return document.querySelector('tr[data-id="' + id + '"]');
+                }
+
+                function avisar(texto) {
+                    document.getElementById('textoCambios').textContent = texto;
+                    document.getElementById('avisoCambios').classList.remove('d-none');
+                }
+
+                fuente.addEventListener('actualizado', function (e) {
+                    var cambio = JSON.parse(e.data);
+                    var tr = fila(cambio.id);
+                    if (!tr || !cambio.vehiculo) {
+                        return;
+                    }
+                    var v = cambio.vehiculo;
+                    [v.placa, v.marca, v.modelo, v.color, v.propietario].forEach(function (valor, i) {
+                        tr.cells[i + 1].textContent = valor;
+                    });
+                    tr.classList.add('table-info');
+                });
+
+                fuente.addEventListener('eliminado', function (e) {
+                    var tr = fila(JSON.parse(e.data).id);
+                    if (tr) {
+                        tr.remove();
+                    }
+                });
+
+                fuente.addEventListener('creado', function () {
+                    nuevos++;
+                    avisar(nuevos === 1 ? 'Hay 1 vehículo nuevo.' : 'Hay ' + nuevos + ' vehículos nuevos.');
+                });
+
+                fuente.addEventListener('reinicio', function () {
+                    avisar('La lista cambió mientras la página estaba desconectada.');
+                });
+            })();
+        </script>
         <link rel="stylesheet" href="https://cdn.jsdelivr.net/npm/bootstrap-icons@1.11.3/font/bootstrap-icons.css">
     </body>
 </html>
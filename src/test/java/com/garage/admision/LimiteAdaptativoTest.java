@@ -0,0 +1,144 @@
+package com.garage.admision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Recorre el límite con muestras armadas a mano: baja a 0,9 con una muestra
+ * lenta o un fallo (una vez por intervalo), sube 1/límite con muestras
+ * rápidas sólo si se estaba usando, y rechaza con la cola llena o sin espera.
+ */
+class LimiteAdaptativoTest {
+
+    private static final long MINUTO_MS = 60_000;
+    private static final long LENTA = TimeUnit.MINUTES.toNanos(2);
+
+    @Test
+    void muestraLentaReduce() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(20, 1, 100, 0, 0, MINUTO_MS);
+        muestra(limite, LENTA, false);
+        assertEquals(18, limite.estadisticas().get("limite"));
+        assertEquals(1L, limite.estadisticas().get("lentas"));
+    }
+
+    @Test
+    void falloBaseDatosReduce() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(20, 1, 100, 0, 0, MINUTO_MS);
+        muestra(limite, 0, true);
+        assertEquals(18, limite.estadisticas().get("limite"));
+    }
+
+    @Test
+    void unaReduccionPorIntervalo() throws InterruptedException {
+        LimiteAdaptativo largo = new LimiteAdaptativo(20, 1, 100, 0, 0, MINUTO_MS);
+        for (int i = 0; i < 5; i++) {
+            muestra(largo, LENTA, i % 2 == 0);
+        }
+        assertEquals(18, largo.estadisticas().get("limite"));
+        assertEquals(5L, largo.estadisticas().get("lentas"));
+
+        LimiteAdaptativo corto = new LimiteAdaptativo(20, 1, 100, 0, 0, 1);
+        muestra(corto, LENTA, false);
+        Thread.sleep(5);
+        muestra(corto, LENTA, false);
+        assertEquals(16, corto.estadisticas().get("limite"));
+    }
+
+    @Test
+    void noBajaDelMinimo() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(3, 3, 100, 0, 0, 1);
+        muestra(limite, 0, true);
+        assertEquals(3, limite.estadisticas().get("limite"));
+    }
+
+    @Test
+    void muestraRapidaSubeSiSeUsaba() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(4, 1, 100, 0, 0, MINUTO_MS);
+        // Con un permiso retenido cada muestra termina con dos en curso: la
+        // mitad de 4, pero ya no la mitad de 5
+        assertTrue(limite.adquirir());
+        double esperado = 4;
+        for (int i = 0; i < 20; i++) {
+            muestra(limite, 0, false);
+            if (2 * 2 >= (int) esperado) {
+                esperado += 1 / esperado;
+            }
+            assertEquals((int) esperado, limite.estadisticas().get("limite"), "muestra " + i);
+        }
+        assertEquals(5, limite.estadisticas().get("limite"));
+    }
+
+    @Test
+    void muestraRapidaSinUsoNoSube() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 1, 100, 0, 0, MINUTO_MS);
+        for (int i = 0; i < 100; i++) {
+            muestra(limite, 0, false);
+        }
+        assertEquals(10, limite.estadisticas().get("limite"));
+    }
+
+    @Test
+    void noSuperaElMaximo() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(2, 1, 2, 0, 0, MINUTO_MS);
+        assertTrue(limite.adquirir());
+        for (int i = 0; i < 50; i++) {
+            muestra(limite, 0, false);
+        }
+        assertEquals(2, limite.estadisticas().get("limite"));
+    }
+
+    @Test
+    void rechazaSinCola() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(2, 1, 10, 0, 1000, MINUTO_MS);
+        assertTrue(limite.adquirir());
+        assertTrue(limite.adquirir());
+        assertFalse(limite.adquirir());
+        assertEquals(1L, limite.estadisticas().get("rechazadas"));
+        limite.cancelar();
+        assertTrue(limite.adquirir());
+        assertEquals(2, limite.estadisticas().get("limite"));
+    }
+
+    @Test
+    void rechazaSinEspera() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(1, 1, 10, 5, 0, MINUTO_MS);
+        assertTrue(limite.adquirir());
+        assertFalse(limite.adquirir());
+        assertEquals(1L, limite.estadisticas().get("rechazadas"));
+        assertEquals(0, limite.estadisticas().get("enCola"));
+    }
+
+    @Test
+    void rechazaAlVencerLaEspera() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(1, 1, 10, 1, 20, MINUTO_MS);
+        assertTrue(limite.adquirir());
+        assertFalse(limite.adquirir());
+        assertEquals(1L, limite.estadisticas().get("rechazadas"));
+        assertEquals(0, limite.estadisticas().get("enCola"));
+    }
+
+    @Test
+    void laColaRecibeElPermisoLiberado() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(1, 1, 10, 1, 10_000, MINUTO_MS);
+        assertTrue(limite.adquirir());
+        CompletableFuture<Boolean> esperando = CompletableFuture.supplyAsync(limite::adquirir);
+        while (!Integer.valueOf(1).equals(limite.estadisticas().get("enCola"))) {
+            Thread.sleep(1);
+        }
+        // La cola (de una) está ocupada: la siguiente se rechaza enseguida
+        assertFalse(limite.adquirir());
+        limite.liberar(0, false);
+        assertTrue(esperando.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limite.estadisticas().get("enCurso"));
+    }
+
+    private static void muestra(LimiteAdaptativo limite, long nanos, boolean fallo) {
+        assertTrue(limite.adquirir());
+        limite.liberar(nanos, fallo);
+    }
+}
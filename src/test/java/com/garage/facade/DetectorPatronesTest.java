@@ -0,0 +1,112 @@
+package com.garage.facade;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara el autómata con una búsqueda ingenua (indexOf de cada patrón sobre
+ * el texto en minúsculas): debe encontrar algo si y sólo si algún patrón
+ * aparece, y lo que devuelve debe ser un patrón que termina lo antes posible
+ * en el texto.
+ */
+class DetectorPatronesTest {
+
+    @Test
+    void patronesSolapados() {
+        verificar(List.of("he", "she", "his", "hers"), "ushers", "ahishers", "hx", "sh", "");
+    }
+
+    @Test
+    void patronQueEsSufijoDeOtro() {
+        verificar(List.of("abcd", "bc", "c"), "abcd", "xbc", "ab", "xyz");
+    }
+
+    @Test
+    void mayusculasYAcentos() {
+        DetectorPatrones detector = DetectorPatrones.compilar(List.of("Ñandú", "ÉXITO", "or 1=1"));
+        assertEquals("ñandú", detector.patron(detector.buscar("un ÑANDÚ corre")));
+        assertEquals("éxito", detector.patron(detector.buscar("gran Éxito")));
+        assertEquals("or 1=1", detector.patron(detector.buscar("x' OR 1=1")));
+        assertEquals(-1, detector.buscar("nandu exito"));
+        verificar(List.of("Ñandú", "ÉXITO", "or 1=1"), "ñandúÉxito", "ÑANDU", "çà", "OR 1=2");
+    }
+
+    @Test
+    void ignoraPatronesVaciosYNulos() {
+        DetectorPatrones detector = DetectorPatrones.compilar(Arrays.asList("", null, "drop"));
+        assertEquals(1, detector.cantidad());
+        assertEquals(-1, detector.buscar("texto"));
+        assertEquals(0, detector.buscar("DROP table"));
+        assertEquals(-1, DetectorPatrones.compilar(List.of()).buscar("cualquier cosa"));
+    }
+
+    @Test
+    void patronesDelValidador() {
+        List<String> patrones = List.of("'", "\"", ";", "--", "/*", "*/", "xp_", "sp_",
+                "exec", "execute", "select", "insert", "update",
+                "delete", "drop", "create", "alter", "union", "or 1=1", "or '1'='1'");
+        verificar(patrones, "ABC123", "Juan Pérez", "x; DROP", "SeLeCt", "sp_who", "a-b", "a--b", "2020");
+    }
+
+    @Test
+    void aleatorioContraBusquedaIngenua() {
+        Random azar = new Random(42);
+        String alfabeto = "abcAB-ñÑé ";
+        for (int ronda = 0; ronda < 300; ronda++) {
+            String[] patrones = new String[1 + azar.nextInt(6)];
+            for (int i = 0; i < patrones.length; i++) {
+                patrones[i] = aleatorio(azar, alfabeto, 1 + azar.nextInt(4));
+            }
+            String[] textos = new String[20];
+            for (int i = 0; i < textos.length; i++) {
+                textos[i] = aleatorio(azar, alfabeto, azar.nextInt(12));
+            }
+            verificar(Arrays.asList(patrones), textos);
+        }
+    }
+
+    private static void verificar(List<String> patrones, String... textos) {
+        DetectorPatrones detector = DetectorPatrones.compilar(patrones);
+        for (String texto : textos) {
+            String plegado = minusculas(texto);
+            int primerFin = Integer.MAX_VALUE;
+            for (int i = 0; i < detector.cantidad(); i++) {
+                int pos = plegado.indexOf(detector.patron(i));
+                if (pos >= 0) {
+                    primerFin = Math.min(primerFin, pos + detector.patron(i).length());
+                }
+            }
+            int encontrado = detector.buscar(texto);
+            String contexto = "patrones " + patrones + ", texto \"" + texto + "\"";
+            if (primerFin == Integer.MAX_VALUE) {
+                assertEquals(-1, encontrado, contexto);
+            } else {
+                assertTrue(encontrado >= 0, contexto);
+                String patron = detector.patron(encontrado);
+                // Debe terminar en el primer fin posible (puede haber empates)
+                assertTrue(plegado.substring(0, primerFin).endsWith(patron), contexto + " -> " + patron);
+            }
+        }
+    }
+
+    private static String minusculas(String texto) {
+        char[] cs = texto.toCharArray();
+        for (int i = 0; i < cs.length; i++) {
+            cs[i] = Character.toLowerCase(cs[i]);
+        }
+        return new String(cs);
+    }
+
+    private static String aleatorio(Random azar, String alfabeto, int largo) {
+        StringBuilder sb = new StringBuilder(largo);
+        for (int i = 0; i < largo; i++) {
+            sb.append(alfabeto.charAt(azar.nextInt(alfabeto.length())));
+        }
+        return sb.toString();
+    }
+}
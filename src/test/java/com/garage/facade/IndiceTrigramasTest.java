@@ -0,0 +1,211 @@
+package com.garage.facade;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.garage.model.CoincidenciaPlaca;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara el índice con un recorrido de todas las placas: las que contienen
+ * el texto con contains, y las aproximadas calculando la similitud con
+ * conjuntos de trigramas armados aparte. Así se controla que la poda de
+ * listas (sólo se recorren las n - minimo + 1 más cortas) no pierda placas.
+ */
+class IndiceTrigramasTest {
+
+    private static final int SIN_LIMITE = Integer.MAX_VALUE;
+
+    @Test
+    void fragmentoCorto() {
+        Map<Integer, String> placas = Map.of(1, "ABC123", 2, "XBC999", 3, "ZZZ000", 4, "B");
+        IndiceTrigramas indice = cargado(placas);
+        assertEquals(Set.of(1, 2, 4), ids(indice.buscar("B", SIN_LIMITE, true, 0.3)));
+        assertEquals(Set.of(1, 2), ids(indice.buscar("BC", SIN_LIMITE, true, 0.3)));
+        assertTrue(indice.buscar("Q", SIN_LIMITE, true, 0.3).isEmpty());
+        assertTrue(indice.buscar("", SIN_LIMITE, true, 0.3).isEmpty());
+    }
+
+    @Test
+    void exactaPrimeroYLuegoAproximadas() {
+        Map<Integer, String> placas = Map.of(1, "ABC1234", 2, "ABC123", 3, "ABD123", 4, "QQQ999");
+        List<CoincidenciaPlaca> resultado = cargado(placas).buscar("ABC123", SIN_LIMITE, true, 0.3);
+        assertEquals(2, resultado.get(0).getId());
+        assertFalse(resultado.get(0).isAproximada());
+        assertEquals(1, resultado.get(1).getId());
+        assertTrue(resultado.stream().anyMatch(c -> c.getId() == 3 && c.isAproximada()));
+        assertTrue(resultado.stream().noneMatch(c -> c.getId() == 4));
+    }
+
+    @Test
+    void acentosYEnie() {
+        Map<Integer, String> placas = Map.of(1, "ÑÑA123", 2, "NNA123", 3, "ÁBC777");
+        IndiceTrigramas indice = cargado(placas);
+        assertEquals(Set.of(1), ids(indice.buscar("ÑA1", SIN_LIMITE, false, 0.3)));
+        assertEquals(Set.of(3), ids(indice.buscar("Á", SIN_LIMITE, false, 0.3)));
+        assertEquals(Set.of(1, 2), ids(indice.buscar("A123", SIN_LIMITE, false, 0.3)));
+    }
+
+    @Test
+    void agregarYQuitarMantienenElIndice() {
+        IndiceTrigramas indice = cargado(Map.of(1, "ABC123", 2, "DEF456"));
+        indice.agregar(3, "ABC999");
+        indice.agregar(1, "XYZ123");
+        indice.quitar(2);
+        assertEquals(Set.of(3), ids(indice.buscar("ABC", SIN_LIMITE, false, 0.3)));
+        assertEquals(Set.of(1), ids(indice.buscar("XYZ", SIN_LIMITE, false, 0.3)));
+        assertTrue(indice.buscar("DEF", SIN_LIMITE, false, 0.3).isEmpty());
+        assertEquals(2, indice.getPlacas());
+    }
+
+    @Test
+    void respetaElLimite() {
+        Map<Integer, String> placas = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            placas.put(i, "AAA" + (100 + i));
+        }
+        assertEquals(5, cargado(placas).buscar("AAA", 5, true, 0.3).size());
+    }
+
+    @Test
+    void aleatorioContraRecorridoCompleto() {
+        Random azar = new Random(7);
+        String letras = "ABCÑ";
+        String digitos = "0129";
+        Map<Integer, String> placas = new HashMap<>();
+        for (int id = 1; id <= 400; id++) {
+            placas.put(id, aleatorio(azar, letras, 3) + aleatorio(azar, digitos, 1 + azar.nextInt(3)));
+        }
+        IndiceTrigramas indice = cargado(placas);
+        // Modificaciones después de cargar, que arman las listas de otra forma
+        for (int id = 401; id <= 450; id++) {
+            String placa = aleatorio(azar, letras, 3) + aleatorio(azar, digitos, 3);
+            placas.put(id, placa);
+            indice.agregar(id, placa);
+        }
+        for (int id = 1; id <= 30; id++) {
+            placas.remove(id);
+            indice.quitar(id);
+        }
+
+        for (int i = 0; i < 300; i++) {
+            String consulta = (i % 2 == 0)
+                    ? aleatorio(azar, letras + digitos, 1 + azar.nextInt(7))
+                    : mutar(azar, placas.get(31 + azar.nextInt(400)), letras + digitos);
+            for (double minima : new double[]{0.2, 0.3, 0.5, 0.8}) {
+                verificar(indice, placas, consulta, minima);
+            }
+        }
+    }
+
+    private static void verificar(IndiceTrigramas indice, Map<Integer, String> placas, String consulta,
+            double minima) {
+        Set<Integer> contienen = new TreeSet<>();
+        Set<Integer> aproximadas = new TreeSet<>();
+        for (Map.Entry<Integer, String> e : placas.entrySet()) {
+            if (e.getValue().contains(consulta)) {
+                contienen.add(e.getKey());
+            } else if (consulta.length() >= 3 && similitud(consulta, e.getValue()) >= minima) {
+                aproximadas.add(e.getKey());
+            }
+        }
+        String contexto = "consulta \"" + consulta + "\", mínima " + minima;
+
+        assertEquals(contienen, ids(indice.buscar(consulta, SIN_LIMITE, false, minima)), contexto);
+
+        List<CoincidenciaPlaca> tolerante = indice.buscar(consulta, SIN_LIMITE, true, minima);
+        Set<Integer> exactasDevueltas = new TreeSet<>();
+        Set<Integer> aproximadasDevueltas = new TreeSet<>();
+        boolean yaHuboAproximada = false;
+        for (CoincidenciaPlaca c : tolerante) {
+            if (c.isAproximada()) {
+                yaHuboAproximada = true;
+                aproximadasDevueltas.add(c.getId());
+            } else {
+                assertFalse(yaHuboAproximada, contexto + ": exacta después de una aproximada");
+                exactasDevueltas.add(c.getId());
+            }
+        }
+        assertEquals(contienen, exactasDevueltas, contexto);
+        assertEquals(aproximadas, aproximadasDevueltas, contexto);
+    }
+
+    /**
+     * La mayor entre Jaccard de trigramas con relleno y la fracción de
+     * trigramas interiores de la consulta presentes en la placa, con tope
+     * 0,99 como en el índice.
+     */
+    private static double similitud(String consulta, String placa) {
+        Set<String> deConsulta = trigramas("  " + consulta + " ");
+        Set<String> dePlaca = trigramas("  " + placa + " ");
+        Set<String> interiores = trigramas(consulta);
+        Set<String> comunes = new HashSet<>(deConsulta);
+        comunes.retainAll(dePlaca);
+        Set<String> union = new HashSet<>(deConsulta);
+        union.addAll(dePlaca);
+        Set<String> interioresEnPlaca = new HashSet<>(interiores);
+        interioresEnPlaca.retainAll(dePlaca);
+        double jaccard = (double) comunes.size() / union.size();
+        double fragmento = (double) interioresEnPlaca.size() / interiores.size();
+        return Math.min(Math.max(jaccard, fragmento), 0.99);
+    }
+
+    private static Set<String> trigramas(String texto) {
+        Set<String> t = new HashSet<>();
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            t.add(texto.substring(i, i + 3));
+        }
+        return t;
+    }
+
+    private static IndiceTrigramas cargado(Map<Integer, String> placas) {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        indice.cargar(new HashMap<>(placas));
+        return indice;
+    }
+
+    private static Set<Integer> ids(List<CoincidenciaPlaca> coincidencias) {
+        Set<Integer> ids = new TreeSet<>();
+        for (CoincidenciaPlaca c : coincidencias) {
+            ids.add(c.getId());
+        }
+        return ids;
+    }
+
+    private static String mutar(Random azar, String placa, String alfabeto) {
+        StringBuilder sb = new StringBuilder(placa);
+        int cambios = 1 + azar.nextInt(2);
+        for (int i = 0; i < cambios; i++) {
+            int pos = azar.nextInt(sb.length());
+            switch (azar.nextInt(3)) {
+                case 0:
+                    sb.setCharAt(pos, alfabeto.charAt(azar.nextInt(alfabeto.length())));
+                    break;
+                case 1:
+                    sb.insert(pos, alfabeto.charAt(azar.nextInt(alfabeto.length())));
+                    break;
+                default:
+                    if (sb.length() > 1) {
+                        sb.deleteCharAt(pos);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String aleatorio(Random azar, String alfabeto, int largo) {
+        StringBuilder sb = new StringBuilder(largo);
+        for (int i = 0; i < largo; i++) {
+            sb.append(alfabeto.charAt(azar.nextInt(alfabeto.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,80 @@
+package com.garage.metricas;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica que cada cubeta cubra un rango contiguo (indice y limiteSuperior
+ * son inversos) y compara los percentiles con los de un arreglo ordenado:
+ * deben caer en la misma cubeta, sin pasar del máximo y con error relativo
+ * de a lo sumo 12,5%.
+ */
+class HistogramaLatenciaTest {
+
+    private static final double[] CUANTILES = {0.01, 0.5, 0.9, 0.99, 0.999, 1.0};
+
+    @Test
+    void cubetasContiguas() {
+        int ultima = HistogramaLatencia.indice(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, HistogramaLatencia.limiteSuperior(ultima));
+        for (int i = 0; i < ultima; i++) {
+            long limite = HistogramaLatencia.limiteSuperior(i);
+            assertEquals(i, HistogramaLatencia.indice(limite), "límite de " + i);
+            assertEquals(i + 1, HistogramaLatencia.indice(limite + 1), "siguiente a " + i);
+        }
+    }
+
+    @Test
+    void valoresChicosTienenCubetaPropia() {
+        for (long v = 0; v < 8; v++) {
+            assertEquals(v, HistogramaLatencia.limiteSuperior(HistogramaLatencia.indice(v)));
+        }
+    }
+
+    @Test
+    void sinDatos() {
+        assertArrayEquals(new long[CUANTILES.length], new HistogramaLatencia("c", "o").percentiles(CUANTILES));
+    }
+
+    @Test
+    void percentilesContraArregloOrdenado() {
+        Random azar = new Random(20260601);
+        for (int ronda = 0; ronda < 200; ronda++) {
+            int n = 1 + azar.nextInt(2000);
+            long[] valores = new long[n];
+            HistogramaLatencia histograma = new HistogramaLatencia("c", "o");
+            for (int i = 0; i < n; i++) {
+                // Escala logarítmica: de unos nanosegundos a varios segundos
+                valores[i] = (long) Math.exp(azar.nextDouble() * 23);
+                histograma.registrar(valores[i]);
+            }
+            Arrays.sort(valores);
+            long max = valores[n - 1];
+            long[] obtenidos = histograma.percentiles(CUANTILES);
+            for (int c = 0; c < CUANTILES.length; c++) {
+                long exacto = valores[(int) Math.ceil(CUANTILES[c] * n) - 1];
+                long esperado = Math.min(HistogramaLatencia.limiteSuperior(HistogramaLatencia.indice(exacto)), max);
+                String caso = "ronda " + ronda + ", q=" + CUANTILES[c];
+                assertEquals(esperado, obtenidos[c], caso);
+                assertTrue(obtenidos[c] >= exacto && obtenidos[c] <= exacto + exacto / 8, caso);
+            }
+            assertEquals(max, histograma.getMaximoNanos());
+            assertEquals(n, histograma.getCantidad());
+        }
+    }
+
+    @Test
+    void negativosCuentanComoCero() {
+        HistogramaLatencia histograma = new HistogramaLatencia("c", "o");
+        histograma.registrar(-5);
+        histograma.registrar(3, true);
+        assertArrayEquals(new long[] {0, 3}, histograma.percentiles(0.5, 1.0));
+        assertEquals(3, histograma.getSumaNanos());
+        assertEquals(1, histograma.getErrores());
+    }
+}
@@ -0,0 +1,81 @@
+package com.garage.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Un cursor codificado debe decodificarse igual con el mismo orden y
+ * dirección, y rechazarse (IllegalArgumentException) si se alteró o si se
+ * usa con otro orden o dirección.
+ */
+class CursorPaginaTest {
+
+    @Test
+    void idaYVueltaEnTodosLosOrdenes() {
+        String[] valores = {"ABC-123", "Pérez Ñandú", "con\u001Fseparador", "a,b;\"c\""};
+        for (OrdenVehiculo orden : OrdenVehiculo.values()) {
+            for (boolean descendente : new boolean[] {false, true}) {
+                for (boolean anterior : new boolean[] {false, true}) {
+                    for (String valor : valores) {
+                        verificarIdaYVuelta(orden, descendente, anterior, 4711, valor);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void ordenPorIdNoConservaValor() {
+        String texto = new CursorPagina(OrdenVehiculo.ID, false, false, 42, "ignorado").codificar();
+        CursorPagina cursor = CursorPagina.decodificar(texto, OrdenVehiculo.ID, false);
+        assertEquals(42, cursor.getId());
+        assertNull(cursor.getValor());
+    }
+
+    @Test
+    void sinCursorEsPrimeraPagina() {
+        assertNull(CursorPagina.decodificar(null, OrdenVehiculo.PLACA, false));
+        assertNull(CursorPagina.decodificar("", OrdenVehiculo.PLACA, false));
+    }
+
+    @Test
+    void rechazaCursorAlterado() {
+        String valido = new CursorPagina(OrdenVehiculo.MARCA, true, false, 7, "Toyota").codificar();
+        rechazar("no es base64!", OrdenVehiculo.MARCA, true);
+        rechazar(valido.substring(1), OrdenVehiculo.MARCA, true);
+        rechazar(plano("MARCA\u001FD\u001FN\u001Fsiete\u001FToyota"), OrdenVehiculo.MARCA, true);
+        rechazar(plano("MARCA\u001FD\u001FN\u001F7"), OrdenVehiculo.MARCA, true);
+        rechazar(plano("MARCA"), OrdenVehiculo.MARCA, true);
+    }
+
+    @Test
+    void rechazaOtroOrdenOtraDireccion() {
+        String texto = new CursorPagina(OrdenVehiculo.MODELO, false, true, 3, "Corolla").codificar();
+        rechazar(texto, OrdenVehiculo.PLACA, false);
+        rechazar(texto, OrdenVehiculo.MODELO, true);
+        rechazar(texto, OrdenVehiculo.ID, false);
+    }
+
+    private static void verificarIdaYVuelta(OrdenVehiculo orden, boolean descendente, boolean anterior,
+            int id, String valor) {
+        String texto = new CursorPagina(orden, descendente, anterior, id, valor).codificar();
+        CursorPagina cursor = CursorPagina.decodificar(texto, orden, descendente);
+        assertEquals(anterior, cursor.isAnterior(), texto);
+        assertEquals(id, cursor.getId(), texto);
+        assertEquals(orden == OrdenVehiculo.ID ? null : valor, cursor.getValor(), texto);
+    }
+
+    private static void rechazar(String texto, OrdenVehiculo orden, boolean descendente) {
+        assertThrows(IllegalArgumentException.class,
+                () -> CursorPagina.decodificar(texto, orden, descendente), texto);
+    }
+
+    private static String plano(String texto) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}
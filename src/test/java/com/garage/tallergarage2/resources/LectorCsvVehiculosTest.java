@@ -0,0 +1,82 @@
+package com.garage.tallergarage2.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.garage.model.Vehiculo;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Lee CSV escritos a mano y compara campo por campo: comillas con comas,
+ * comillas dobles escapadas, saltos de línea dentro de un campo y líneas
+ * vacías entre registros.
+ */
+class LectorCsvVehiculosTest {
+
+    @Test
+    void columnasPorNombre() throws IOException {
+        LectorCsvVehiculos lector = lector("id,Modelo,PLACA,marca\n9,Corolla,ABC-123,Toyota\n");
+        verificar(lector.siguiente(), "ABC-123", "Toyota", "Corolla", null, null);
+        assertEquals(1, lector.filaActual());
+        assertNull(lector.siguiente());
+    }
+
+    @Test
+    void camposEntreComillas() throws IOException {
+        LectorCsvVehiculos lector = lector("placa,marca,modelo,color,propietario\n"
+                + "\"ABC-123\",\"Mercedes, Benz\",\"Clase \"\"C\"\"\",,\"\"\n"
+                + "XYZ-9,Ford,\"Ka\nSport\",Rojo,\"Pérez, Juan\"\n");
+        verificar(lector.siguiente(), "ABC-123", "Mercedes, Benz", "Clase \"C\"", null, null);
+        verificar(lector.siguiente(), "XYZ-9", "Ford", "Ka\nSport", "Rojo", "Pérez, Juan");
+        assertEquals(2, lector.filaActual());
+        assertNull(lector.siguiente());
+    }
+
+    @Test
+    void saltaLineasVacias() throws IOException {
+        LectorCsvVehiculos lector = lector("\n\nplaca,marca,modelo\n\nA-1,Kia,Rio\n\n\nB-2,Fiat,Uno\n\n");
+        verificar(lector.siguiente(), "A-1", "Kia", "Rio", null, null);
+        verificar(lector.siguiente(), "B-2", "Fiat", "Uno", null, null);
+        assertEquals(2, lector.filaActual());
+        assertNull(lector.siguiente());
+    }
+
+    @Test
+    void archivoVacio() throws IOException {
+        assertNull(lector("").siguiente());
+    }
+
+    @Test
+    void rechazaEncabezadoIncompleto() {
+        assertThrows(IOException.class, () -> lector("placa,marca\nA-1,Kia\n"));
+    }
+
+    @Test
+    void rechazaComillaSinCerrar() throws IOException {
+        LectorCsvVehiculos lector = lector("placa,marca,modelo\nA-1,\"Kia,Rio\n");
+        assertThrows(IOException.class, lector::siguiente);
+    }
+
+    @Test
+    void rechazaFilaCorta() throws IOException {
+        LectorCsvVehiculos lector = lector("placa,marca,modelo\nA-1,Kia\n");
+        assertThrows(LectorVehiculos.FilaInvalidaException.class, lector::siguiente);
+    }
+
+    private static LectorCsvVehiculos lector(String csv) throws IOException {
+        return new LectorCsvVehiculos(new BufferedReader(new StringReader(csv)));
+    }
+
+    private static void verificar(Vehiculo v, String placa, String marca, String modelo, String color,
+            String propietario) {
+        assertEquals(placa, v.getPlaca());
+        assertEquals(marca, v.getMarca());
+        assertEquals(modelo, v.getModelo());
+        assertEquals(color, v.getColor());
+        assertEquals(propietario, v.getPropietario());
+    }
+}